@@ -0,0 +1,130 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.benchmark;
+
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.main.SmilesAssembler;
+import de.modlab.smilib.main.SmilesConcatenator;
+
+/**
+ *Assembles the molecules of a library, either with the SmilesAssembler used for
+ *enumeration or the way molecules were assembled with the SmilesConcatenator before.
+ */
+public class AssemblyBenchmark extends Benchmark {
+    
+    /** largest number of molecules assembled per run */
+    private static final long MAX_MOLECULES = 1000000;
+    
+    //assemble with the SmilesConcatenator true/false
+    private boolean concatenator;
+    
+    private Library library;
+    private ComponentAdministrator compAdmin;
+    private SmilesAssembler assembler;
+    private SmilesConcatenator smiConcat = new SmilesConcatenator();
+    private StringBuilder currentMolecule = new StringBuilder();
+    private StringBuilder moleculeID = new StringBuilder();
+    private StringBuilder intermediateProduct = new StringBuilder();
+    
+    
+    
+    /**
+     *Creates a new instance of AssemblyBenchmark.
+     *
+     *@param concatenator assemble with the SmilesConcatenator true/false
+     */
+    public AssemblyBenchmark(boolean concatenator) {
+        super(concatenator ? "concatenate" : "assemble");
+        this.concatenator = concatenator;
+    }
+    
+    
+    public void setUp(String parameter) throws Exception {
+        library = Library.get(parameter);
+        compAdmin = library.createComponentAdministrator();
+        assembler = new SmilesAssembler(compAdmin);
+    }
+    
+    
+    public long run() throws Exception {
+        SmiLibIterator iterator = library.createIterator(compAdmin, false);
+        long molecules = 0;
+        while (iterator.hasNext() && molecules < MAX_MOLECULES) {
+            int[] combination = iterator.next();
+            if (concatenator) {
+                concatenate(combination);
+            } else {
+                assembler.assemble(combination, currentMolecule, moleculeID);
+            }
+            consume(currentMolecule.length() + moleculeID.length());
+            molecules++;
+        }
+        return molecules;
+    }
+    
+    
+    /**
+     *Assembles a molecule from its fragments with the SmilesConcatenator.
+     *
+     *@param combination indices of scaffold, linkers and building blocks
+     */
+    private void concatenate(int[] combination) {
+        currentMolecule.setLength(0);
+        currentMolecule.append(compAdmin.getScaffoldString(combination[0]));
+        moleculeID.setLength(0);
+        moleculeID.append(compAdmin.getScaffoldID(combination[0]));
+        int numRGroups = compAdmin.getNumberOfRGroups(combination[0]);
+        int ringNumber = 10;
+        for (int i = 1; i <= numRGroups; i++) {
+            while (compAdmin.numberBlacklisted(ringNumber, combination[0], combination[i], combination[i + numRGroups])) {
+                ringNumber++;
+            }
+            String rGroup = compAdmin.getScaffold(combination[0]).getStringOfGroupWithIndex(i - 1);
+            String block = compAdmin.getBuildingBlock(combination[i + numRGroups]).getBlockForConcat(ringNumber);
+            if (!compAdmin.getLinker(combination[i]).isEmpty()) {
+                intermediateProduct.setLength(0);
+                intermediateProduct.append(compAdmin.getLinker(combination[i]).getLinkerForConcat(ringNumber));
+                smiConcat.concatenate(intermediateProduct, '.', block);
+                ringNumber++;
+                smiConcat.concatenate(currentMolecule, intermediateProduct, '.', rGroup, ringNumber);
+            } else {
+                smiConcat.concatenate(currentMolecule, block, '.', rGroup, ringNumber);
+            }
+            ringNumber++;
+            moleculeID.append('.').append(compAdmin.getLinkerID(combination[i])).append('_').append(compAdmin.getBuildingBlockID(combination[i + numRGroups]));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.benchmark;
+
+/**
+ *A benchmark run by the BenchmarkRunner. A benchmark is set up once for each of
+ *its parameters, usually the name of a Library, and then run repeatedly. Each
+ *run performs a batch of operations and returns their number, the runner reports
+ *the operations per second.
+ */
+public abstract class Benchmark {
+    
+    //name of the benchmark
+    private String name;
+    
+    //results of the runs are folded into this value, so they can't be optimized away
+    private long sink = 0;
+    
+    
+    
+    /**
+     *Creates a new instance of Benchmark.
+     *
+     *@param name name of the benchmark
+     */
+    protected Benchmark(String name) {
+        this.name = name;
+    }
+    
+    
+    /**
+     *Returns the name of the benchmark.
+     *
+     *@return name of the benchmark
+     */
+    public String getName() {
+        return name;
+    }
+    
+    
+    /**
+     *Returns the parameters the benchmark is run with, by default all libraries.
+     *
+     *@return parameters of the benchmark
+     */
+    public String[] getParameters() {
+        return Library.getNames();
+    }
+    
+    
+    /**
+     *Prepares the benchmark for a parameter.
+     *
+     *@param parameter parameter the following runs use
+     *@throws java.lang.Exception if the benchmark can't be prepared
+     */
+    public abstract void setUp(String parameter) throws Exception;
+    
+    
+    /**
+     *Performs a batch of operations.
+     *
+     *@return number of operations performed
+     *@throws java.lang.Exception if an operation fails
+     */
+    public abstract long run() throws Exception;
+    
+    
+    /**
+     *Releases what the benchmark set up, e.g. temporary files.
+     *
+     *@throws java.lang.Exception if the benchmark can't be cleaned up
+     */
+    public void tearDown() throws Exception {
+    }
+    
+    
+    /**
+     *Folds a result of an operation into the sink.
+     *
+     *@param value result of an operation
+     */
+    protected void consume(long value) {
+        sink = 31 * sink + value;
+    }
+    
+    
+    /**
+     *Returns all results folded into the sink so far.
+     *
+     *@return the sink
+     */
+    public long getSink() {
+        return sink;
+    }
+}
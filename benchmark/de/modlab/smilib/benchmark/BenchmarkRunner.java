@@ -0,0 +1,490 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ *Runs the benchmarks of the enumeration, preprocessing and output hot paths and
+ *reports their throughput in operations per second. Each benchmark is run with
+ *each of its parameters in a fresh JVM: first some warm-up iterations, then the
+ *measured iterations, each of which repeats the benchmark for a fixed time.
+ *The score is the mean of the measured iterations, the error its standard deviation.
+ *<p>
+ *Usage: <code>java de.modlab.smilib.benchmark.BenchmarkRunner [options] [pattern ...]</code>
+ *<ul>
+ *<li>-w n: number of warm-up iterations, default 3
+ *<li>-i n: number of measured iterations, default 5
+ *<li>-t ms: duration of an iteration in milliseconds, default 1000
+ *<li>-f n: number of JVMs forked per benchmark and parameter, 0 runs in this JVM, default 1
+ *<li>-d dir: directory with the test data, default testdata
+ *<li>-o file: write the scores to a file
+ *<li>-c file: compare the scores with those of a file written with -o before
+ *<li>-l: list the benchmarks and their parameters
+ *</ul>
+ *Only benchmarks whose "name:parameter" contains a match of one of the patterns
+ *(regular expressions) are run, all of them if no pattern is given.
+ */
+public class BenchmarkRunner {
+    
+    /** prefix of the lines a forked JVM reports its scores with */
+    private static final String RESULT = "RESULT";
+    
+    private int warmups = 3;
+    private int iterations = 5;
+    private long iterationTime = 1000;
+    private int forks = 1;
+    private String dataDirectory = "testdata";
+    
+    //report scores as RESULT lines only, used in forked JVMs true/false
+    private boolean quiet = false;
+    
+    
+    
+    /**
+     *Returns all benchmarks.
+     *
+     *@return all benchmarks
+     */
+    public static Benchmark[] getBenchmarks() {
+        return new Benchmark[] {
+            new AssemblyBenchmark(false),
+            new AssemblyBenchmark(true),
+            new IterationBenchmark(false),
+            new IterationBenchmark(true),
+            new FragmentBenchmark(false),
+            new FragmentBenchmark(true),
+            new WriterBenchmark(WriterBenchmark.FILE),
+            new WriterBenchmark(WriterBenchmark.CHANNEL),
+            new WriterBenchmark(WriterBenchmark.SDF),
+            new RunnerBenchmark(false),
+            new RunnerBenchmark(true)
+        };
+    }
+    
+    
+    /**
+     *Runs the benchmarks.
+     *
+     *@param args options and patterns, see the class description
+     */
+    public static void main(String[] args) {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        List<Pattern> patterns = new ArrayList<Pattern>();
+        String outputPath = null;
+        String baselinePath = null;
+        boolean list = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-w")) {
+                    runner.warmups = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-i")) {
+                    runner.iterations = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-t")) {
+                    runner.iterationTime = Long.parseLong(args[++i]);
+                } else if (args[i].equals("-f")) {
+                    runner.forks = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-d")) {
+                    runner.dataDirectory = args[++i];
+                } else if (args[i].equals("-o")) {
+                    outputPath = args[++i];
+                } else if (args[i].equals("-c")) {
+                    baselinePath = args[++i];
+                } else if (args[i].equals("-l")) {
+                    list = true;
+                } else if (args[i].equals("-q")) {
+                    runner.quiet = true;
+                } else if (args[i].startsWith("-")) {
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+                } else {
+                    patterns.add(Pattern.compile(args[i]));
+                }
+            }
+            if (runner.iterations < 1) {
+                throw new IllegalArgumentException("At least one iteration is needed");
+            }
+        } catch (RuntimeException exc) {
+            System.err.println(exc.getMessage() != null ? exc.getMessage() : exc.toString());
+            System.err.println("Usage: BenchmarkRunner [-w n] [-i n] [-t ms] [-f n] [-d dir] [-o file] [-c file] [-l] [pattern ...]");
+            System.exit(1);
+        }
+        Library.setDataDirectory(runner.dataDirectory);
+        
+        List<String[]> selected = new ArrayList<String[]>();
+        Benchmark[] benchmarks = getBenchmarks();
+        for (int i = 0; i < benchmarks.length; i++) {
+            String[] parameters = benchmarks[i].getParameters();
+            for (int j = 0; j < parameters.length; j++) {
+                if (matches(patterns, benchmarks[i].getName() + ":" + parameters[j])) {
+                    selected.add(new String[] {benchmarks[i].getName(), parameters[j]});
+                }
+            }
+        }
+        if (list) {
+            for (String[] s : selected) {
+                System.out.println(s[0] + ":" + s[1]);
+            }
+            return;
+        }
+        
+        try {
+            Map<String, Double> baseline = baselinePath == null ? null : readScores(baselinePath);
+            List<Result> results = new ArrayList<Result>();
+            for (String[] s : selected) {
+                Result result = runner.forks > 0 ? runner.fork(s[0], s[1]) : runner.measure(find(benchmarks, s[0]), s[1]);
+                results.add(result);
+                if (runner.quiet) {
+                    System.out.println(result.toResultLine());
+                } else {
+                    System.out.println(result.format(baseline));
+                }
+            }
+            if (outputPath != null) {
+                writeScores(outputPath, results);
+            }
+        } catch (Exception exc) {
+            exc.printStackTrace();
+            System.exit(1);
+        }
+    }
+    
+    
+    /**
+     *Returns whether a benchmark is selected by the patterns.
+     */
+    private static boolean matches(List<Pattern> patterns, String name) {
+        if (patterns.isEmpty()) {
+            return true;
+        }
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(name).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    
+    /**
+     *Returns the benchmark with the given name.
+     */
+    private static Benchmark find(Benchmark[] benchmarks, String name) {
+        for (int i = 0; i < benchmarks.length; i++) {
+            if (benchmarks[i].getName().equals(name)) {
+                return benchmarks[i];
+            }
+        }
+        throw new IllegalArgumentException("Unknown benchmark " + name);
+    }
+    
+    
+    /**
+     *Runs a benchmark with a parameter in this JVM.
+     *
+     *@param benchmark the benchmark
+     *@param parameter parameter of the benchmark
+     *@return scores of the measured iterations
+     *@throws java.lang.Exception if the benchmark fails
+     */
+    Result measure(Benchmark benchmark, String parameter) throws Exception {
+        Result result = new Result(benchmark.getName(), parameter);
+        benchmark.setUp(parameter);
+        try {
+            for (int i = 0; i < warmups; i++) {
+                iterate(benchmark);
+            }
+            System.gc();
+            for (int i = 0; i < iterations; i++) {
+                result.add(iterate(benchmark));
+            }
+        } finally {
+            benchmark.tearDown();
+        }
+        return result;
+    }
+    
+    
+    /**
+     *Repeats a benchmark for the duration of an iteration, at least once.
+     *
+     *@return operations per second
+     */
+    private double iterate(Benchmark benchmark) throws Exception {
+        long operations = 0;
+        long start = System.nanoTime();
+        long end = start + iterationTime * 1000000L;
+        long now;
+        do {
+            operations += benchmark.run();
+            now = System.nanoTime();
+        } while (now - end < 0);
+        return operations * 1e9 / (now - start);
+    }
+    
+    
+    /**
+     *Returns the command that starts a class in a new JVM with the same JVM
+     *options and class path as this JVM.
+     *
+     *@param main class with a main method
+     *@return the command, arguments of the class can be added
+     */
+    static List<String> javaCommand(Class<?> main) {
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(main.getName());
+        return command;
+    }
+    
+    
+    /**
+     *Runs a benchmark with a parameter in forked JVMs, with the class path and
+     *JVM arguments of this JVM.
+     *
+     *@param name name of the benchmark
+     *@param parameter parameter of the benchmark
+     *@return scores of the measured iterations of all forks
+     *@throws java.lang.Exception if the benchmark fails
+     */
+    private Result fork(String name, String parameter) throws Exception {
+        Result result = new Result(name, parameter);
+        for (int f = 0; f < forks; f++) {
+            List<String> command = javaCommand(BenchmarkRunner.class);
+            command.add("-q");
+            command.add("-f");
+            command.add("0");
+            command.add("-w");
+            command.add(Integer.toString(warmups));
+            command.add("-i");
+            command.add(Integer.toString(iterations));
+            command.add("-t");
+            command.add(Long.toString(iterationTime));
+            command.add("-d");
+            command.add(dataDirectory);
+            command.add("^" + Pattern.quote(name + ":" + parameter) + "$");
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            process.getOutputStream().close();
+            BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            String line;
+            boolean reported = false;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith(RESULT + "\t")) {
+                    String[] fields = line.split("\t");
+                    for (int i = 3; i < fields.length; i++) {
+                        result.add(Double.parseDouble(fields[i]));
+                    }
+                    reported = true;
+                } else {
+                    System.err.println(line);
+                }
+            }
+            in.close();
+            if (process.waitFor() != 0 || !reported) {
+                throw new IOException("Benchmark " + name + ":" + parameter + " failed");
+            }
+        }
+        return result;
+    }
+    
+    
+    /**
+     *Reads the mean scores of a file written with -o.
+     *
+     *@param path path of the file
+     *@return mean scores by "name:parameter"
+     *@throws java.io.IOException if the file can't be read
+     */
+    private static Map<String, Double> readScores(String path) throws IOException {
+        Map<String, Double> scores = new HashMap<String, Double>();
+        BufferedReader in = new BufferedReader(new FileReader(path));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (fields.length >= 3 && !line.startsWith("#")) {
+                    scores.put(fields[0] + ":" + fields[1], Double.valueOf(fields[2]));
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return scores;
+    }
+    
+    
+    /**
+     *Writes the scores as lines "name&lt;TAB&gt;parameter&lt;TAB&gt;score&lt;TAB&gt;error".
+     *
+     *@param path path of the file
+     *@param results results to write
+     *@throws java.io.IOException if the file can't be written
+     */
+    private static void writeScores(String path, List<Result> results) throws IOException {
+        PrintWriter out = new PrintWriter(new FileWriter(path));
+        try {
+            out.println("#benchmark\tparameter\tops/s\terror");
+            for (Result result : results) {
+                out.println(result.getName() + "\t" + result.getParameter() + "\t" + result.getMean() + "\t" + result.getError());
+            }
+        } finally {
+            out.close();
+        }
+        if (out.checkError()) {
+            throw new IOException("Error writing " + path);
+        }
+    }
+    
+    
+    
+    /**
+     *Scores of the measured iterations of a benchmark with a parameter.
+     */
+    static class Result {
+        
+        private String name;
+        private String parameter;
+        private List<Double> scores = new ArrayList<Double>();
+        
+        
+        /**
+         *Creates a new result without scores.
+         *
+         *@param name name of the benchmark
+         *@param parameter parameter of the benchmark
+         */
+        Result(String name, String parameter) {
+            this.name = name;
+            this.parameter = parameter;
+        }
+        
+        
+        /**
+         *Adds the score of an iteration.
+         *
+         *@param score operations per second
+         */
+        void add(double score) {
+            scores.add(new Double(score));
+        }
+        
+        
+        String getName() {
+            return name;
+        }
+        
+        
+        String getParameter() {
+            return parameter;
+        }
+        
+        
+        /**
+         *Returns the mean of the scores.
+         *
+         *@return operations per second
+         */
+        double getMean() {
+            double sum = 0;
+            for (Double score : scores) {
+                sum += score.doubleValue();
+            }
+            return sum / scores.size();
+        }
+        
+        
+        /**
+         *Returns the standard deviation of the scores.
+         *
+         *@return standard deviation in operations per second, 0 for a single score
+         */
+        double getError() {
+            if (scores.size() < 2) {
+                return 0;
+            }
+            double mean = getMean();
+            double sum = 0;
+            for (Double score : scores) {
+                sum += (score.doubleValue() - mean) * (score.doubleValue() - mean);
+            }
+            return Math.sqrt(sum / (scores.size() - 1));
+        }
+        
+        
+        /**
+         *Returns the line a forked JVM reports the scores with.
+         *
+         *@return RESULT, name, parameter and scores separated by tabs
+         */
+        String toResultLine() {
+            StringBuilder line = new StringBuilder(RESULT).append('\t').append(name).append('\t').append(parameter);
+            for (Double score : scores) {
+                line.append('\t').append(score);
+            }
+            return line.toString();
+        }
+        
+        
+        /**
+         *Formats the score for the console.
+         *
+         *@param baseline mean scores to compare with by "name:parameter", null to compare with none
+         *@return formatted score
+         */
+        String format(Map<String, Double> baseline) {
+            String line = String.format(Locale.US, "%-22s %-14s %16.1f +- %12.1f ops/s", name, parameter, getMean(), getError());
+            Double base = baseline == null ? null : baseline.get(name + ":" + parameter);
+            if (base != null) {
+                line += String.format(Locale.US, "  %+7.1f%%", (getMean() / base.doubleValue() - 1) * 100);
+            }
+            return line;
+        }
+    }
+}
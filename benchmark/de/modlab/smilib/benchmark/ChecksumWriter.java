@@ -0,0 +1,200 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.benchmark;
+
+import de.modlab.smilib.io.SmilesWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+/**
+ *Discards the molecules of a library but keeps a CRC32 checksum of the lines
+ *"ID\tSMILES\n" a SMILES file of the library consists of, so the checksum equals
+ *the checksum of the file. Also counts the molecules, the bytes and the ring
+ *numbers above 99, which are not valid SMILES.
+ */
+public class ChecksumWriter implements SmilesWriter {
+    
+    /** size of the buffer the lines are collected in before they are added to the checksum */
+    private static final int BUFFER_SIZE = 64 << 10;
+    
+    private CRC32 checksum = new CRC32();
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+    private long molecules = 0;
+    private long bytes = 0;
+    private long invalidRingNumbers = 0;
+    
+    //digits read after a "%", -1 if the last character was no "%" or digit after it
+    private int ringDigits = -1;
+    
+    
+    
+    /**
+     *Creates a new instance of ChecksumWriter.
+     */
+    public ChecksumWriter() {
+    }
+    
+    
+    /**
+     *Reads a SMILES file into a new ChecksumWriter, so the checksum and counts of a
+     *library written to a file can be compared to the ones of a library discarded.
+     *
+     *@param file the SMILES file
+     *@return closed writer with the checksum and counts of the file
+     *@throws java.io.IOException if the file can't be read
+     */
+    public static ChecksumWriter read(File file) throws IOException {
+        ChecksumWriter writer = new ChecksumWriter();
+        byte[] bytes = new byte[BUFFER_SIZE];
+        InputStream in = new FileInputStream(file);
+        try {
+            int read;
+            while ((read = in.read(bytes)) >= 0) {
+                for (int i = 0; i < read; i++) {
+                    writer.append((char) bytes[i]);
+                }
+            }
+        } finally {
+            in.close();
+        }
+        writer.close();
+        return writer;
+    }
+    
+    
+    public void writeSMILES(StringBuilder smiles, StringBuilder id) {
+        append(id);
+        append('\t');
+        append(smiles);
+        append('\n');
+    }
+    
+    
+    public void close() {
+        checksum.update(buffer, 0, position);
+        position = 0;
+    }
+    
+    
+    /**
+     *This writer has no preview.
+     *
+     *@throws UnsupportedOperationException always
+     */
+    public void showPreview(int i) {
+        throw new UnsupportedOperationException("No preview available");
+    }
+    
+    
+    /**
+     *Returns the checksum of the molecules written, complete after the writer is closed.
+     *
+     *@return CRC32 checksum
+     */
+    public long getChecksum() {
+        return checksum.getValue();
+    }
+    
+    
+    /**
+     *Returns the number of molecules written.
+     *
+     *@return number of molecules
+     */
+    public long getMolecules() {
+        return molecules;
+    }
+    
+    
+    /**
+     *Returns the number of bytes a SMILES file of the molecules written has.
+     *
+     *@return number of bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+    
+    
+    /**
+     *Returns the number of ring numbers above 99 in the molecules written.
+     *
+     *@return number of invalid ring numbers
+     */
+    public long getInvalidRingNumbers() {
+        return invalidRingNumbers;
+    }
+    
+    
+    /**
+     *Adds the ASCII characters of a sequence to the buffer.
+     */
+    private void append(CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) {
+            append(chars.charAt(i));
+        }
+    }
+    
+    
+    /**
+     *Adds an ASCII character to the buffer, the buffer is added to the checksum when
+     *it is full. Counts the lines and the ring numbers with three digits.
+     */
+    private void append(char c) {
+        if (position == buffer.length) {
+            checksum.update(buffer, 0, position);
+            position = 0;
+        }
+        buffer[position++] = (byte) c;
+        bytes++;
+        if (c == '\n') {
+            molecules++;
+        }
+        if (c == '%') {
+            ringDigits = 0;
+        } else if (ringDigits >= 0 && c >= '0' && c <= '9') {
+            if (++ringDigits == 3) {
+                invalidRingNumbers++;
+                ringDigits = -1;
+            }
+        } else {
+            ringDigits = -1;
+        }
+    }
+}
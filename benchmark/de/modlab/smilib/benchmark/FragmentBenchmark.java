@@ -0,0 +1,113 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.benchmark;
+
+import de.modlab.smilib.io.ConformityChecker;
+import de.modlab.smilib.io.Preprocessor;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *Preprocesses or checks the conformity of the source SMILES of a library, the
+ *steps each fragment goes through when it is read.
+ */
+public class FragmentBenchmark extends Benchmark {
+    
+    //check conformity instead of preprocessing true/false
+    private boolean conformity;
+    
+    private Preprocessor prePro = new Preprocessor();
+    private ConformityChecker checker = new ConformityChecker();
+    
+    //SMILES without IDs
+    private String[] smiles;
+    
+    //0: scaffold, 1: linker, 2: building block
+    private int[] modes;
+    
+    
+    
+    /**
+     *Creates a new instance of FragmentBenchmark.
+     *
+     *@param conformity check conformity instead of preprocessing true/false
+     */
+    public FragmentBenchmark(boolean conformity) {
+        super(conformity ? "check-conformity" : "preprocess");
+        this.conformity = conformity;
+    }
+    
+    
+    public void setUp(String parameter) throws Exception {
+        Library library = Library.get(parameter);
+        List<String> fragments = new ArrayList<String>();
+        List<Integer> fragmentModes = new ArrayList<Integer>();
+        add(library.getScaffolds(), 0, fragments, fragmentModes);
+        add(library.getLinkers(), 1, fragments, fragmentModes);
+        add(library.getBuildingBlocks(), 2, fragments, fragmentModes);
+        smiles = fragments.toArray(new String[fragments.size()]);
+        modes = new int[smiles.length];
+        for (int i = 0; i < modes.length; i++) {
+            modes[i] = fragmentModes.get(i).intValue();
+        }
+    }
+    
+    
+    /**
+     *Adds the SMILES of source lines, without IDs, the way the SmilesGuiReader splits them.
+     */
+    private static void add(String[] lines, int mode, List<String> fragments, List<Integer> fragmentModes) {
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i].trim().length() != 0) {
+                String[] tempLine = lines[i].split("\t");
+                fragments.add((tempLine.length == 1 ? tempLine[0] : tempLine[1]).trim());
+                fragmentModes.add(new Integer(mode));
+            }
+        }
+    }
+    
+    
+    public long run() throws Exception {
+        for (int i = 0; i < smiles.length; i++) {
+            if (conformity) {
+                checker.checkConformity(smiles[i], modes[i]);
+                consume(i);
+            } else {
+                consume(prePro.preprocessSmiles(smiles[i]).length());
+            }
+        }
+        return smiles.length;
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.benchmark;
+
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+
+/**
+ *Iterates over the combinations of a library with the FullCombinationIterator or
+ *the PartialCombinationIterator. Libraries without reaction scheme are iterated
+ *partially with a scheme that contains all combinations.
+ */
+public class IterationBenchmark extends Benchmark {
+    
+    /** largest number of combinations per run */
+    private static final long MAX_COMBINATIONS = 10000000;
+    
+    //use the PartialCombinationIterator true/false
+    private boolean partial;
+    
+    private Library library;
+    private ComponentAdministrator compAdmin;
+    
+    
+    
+    /**
+     *Creates a new instance of IterationBenchmark.
+     *
+     *@param partial use the PartialCombinationIterator true/false
+     */
+    public IterationBenchmark(boolean partial) {
+        super(partial ? "iterate-partial" : "iterate-full");
+        this.partial = partial;
+    }
+    
+    
+    public String[] getParameters() {
+        return Library.getNames(partial);
+    }
+    
+    
+    public void setUp(String parameter) throws Exception {
+        library = Library.get(parameter);
+        compAdmin = library.createComponentAdministrator();
+    }
+    
+    
+    public long run() throws Exception {
+        SmiLibIterator iterator = library.createIterator(compAdmin, partial);
+        long combinations = 0;
+        while (iterator.hasNext() && combinations < MAX_COMBINATIONS) {
+            int[] combination = iterator.next();
+            consume(combination[combination.length - 1]);
+            combinations++;
+        }
+        return combinations;
+    }
+}
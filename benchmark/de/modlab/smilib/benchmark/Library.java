@@ -0,0 +1,317 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.benchmark;
+
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.FullCombinationIterator;
+import de.modlab.smilib.iterator.PartialCombinationIterator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *Scaffolds, linkers, building blocks and optionally a reaction scheme a benchmark
+ *is run with. The libraries are either read from the test data or generated,
+ *with increasing size and number of variable side chains:
+ *<ul>
+ *<li>234: 2 scaffolds, 3 linkers, 4 building blocks of the test data, 1872 molecules
+ *<li>234-scheme: the same fragments with the valid reaction scheme of the test data
+ *<li>synthetic-r1: 20 scaffolds with 1 side chain, 10 linkers, 100 building blocks, 20,000 molecules
+ *<li>synthetic-r2: 10 scaffolds with 2 side chains, 10 linkers, 30 building blocks, 900,000 molecules
+ *<li>synthetic-r3: 4 scaffolds with 3 side chains, 4 linkers, 16 building blocks, 1,048,576 molecules
+ *</ul>
+ */
+public class Library {
+    
+    /** names of all libraries */
+    private static final String[] NAMES = {"234", "234-scheme", "synthetic-r1", "synthetic-r2", "synthetic-r3"};
+    
+    //directory with the test data
+    private static String dataDirectory = "testdata";
+    
+    //libraries already read or generated, by name
+    private static Map<String, Library> libraries = new HashMap<String, Library>();
+    
+    //name of the library
+    private String name;
+    
+    //source SMILES
+    private String[] scaffolds;
+    private String[] linkers;
+    private String[] buildingBlocks;
+    
+    //reaction scheme, null for complete enumeration
+    private String[] reactionScheme;
+    
+    
+    
+    /**
+     *Creates a new instance of Library.
+     *
+     *@param name name of the library
+     *@param scaffolds scaffold SMILES
+     *@param linkers linker SMILES
+     *@param buildingBlocks building block SMILES
+     *@param reactionScheme lines of the reaction scheme, null for complete enumeration
+     */
+    public Library(String name, String[] scaffolds, String[] linkers, String[] buildingBlocks, String[] reactionScheme) {
+        this.name = name;
+        this.scaffolds = scaffolds;
+        this.linkers = linkers;
+        this.buildingBlocks = buildingBlocks;
+        this.reactionScheme = reactionScheme;
+    }
+    
+    
+    /**
+     *Sets the directory the test data is read from.
+     *
+     *@param directory directory with the test data
+     */
+    public static synchronized void setDataDirectory(String directory) {
+        dataDirectory = directory;
+        libraries.clear();
+    }
+    
+    
+    /**
+     *Returns the names of all libraries.
+     *
+     *@return names of all libraries
+     */
+    public static String[] getNames() {
+        return getNames(true);
+    }
+    
+    
+    /**
+     *Returns the names of the libraries.
+     *
+     *@param schemes include libraries with a reaction scheme true/false
+     *@return names of the libraries
+     */
+    public static String[] getNames(boolean schemes) {
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < NAMES.length; i++) {
+            if (schemes || !NAMES[i].endsWith("-scheme")) {
+                names.add(NAMES[i]);
+            }
+        }
+        return names.toArray(new String[names.size()]);
+    }
+    
+    
+    /**
+     *Returns a library, reading or generating it when it is requested first.
+     *
+     *@param name name of the library
+     *@return the library
+     *@throws java.io.IOException if the test data can't be read
+     */
+    public static synchronized Library get(String name) throws IOException {
+        Library library = libraries.get(name);
+        if (library == null) {
+            if (name.equals("234")) {
+                library = new Library(name, read("2scaffolds.txt"), read("3linkers.txt"), read("4buildingblocks.txt"), null);
+            } else if (name.equals("234-scheme")) {
+                library = new Library(name, read("2scaffolds.txt"), read("3linkers.txt"), read("4buildingblocks.txt"), read("234_valid_reaction_scheme.txt"));
+            } else if (name.equals("synthetic-r1")) {
+                library = new SyntheticLibrary(20, 10, 100, 1).createLibrary(name);
+            } else if (name.equals("synthetic-r2")) {
+                library = new SyntheticLibrary(10, 10, 30, 2).createLibrary(name);
+            } else if (name.equals("synthetic-r3")) {
+                library = new SyntheticLibrary(4, 4, 16, 3).createLibrary(name);
+            } else {
+                throw new IllegalArgumentException("Unknown library " + name);
+            }
+            libraries.put(name, library);
+        }
+        return library;
+    }
+    
+    
+    /**
+     *Reads the lines of a file of the test data.
+     *
+     *@param fileName name of the file
+     *@return lines of the file
+     *@throws java.io.IOException if the file can't be read
+     */
+    private static String[] read(String fileName) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        BufferedReader in = new BufferedReader(new FileReader(new File(dataDirectory, fileName)));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines.add(line);
+            }
+        } finally {
+            in.close();
+        }
+        return lines.toArray(new String[lines.size()]);
+    }
+    
+    
+    /**
+     *Returns the name of the library.
+     *
+     *@return name of the library
+     */
+    public String getName() {
+        return name;
+    }
+    
+    
+    /**
+     *Returns the scaffold SMILES.
+     *
+     *@return scaffold SMILES
+     */
+    public String[] getScaffolds() {
+        return scaffolds;
+    }
+    
+    
+    /**
+     *Returns the linker SMILES.
+     *
+     *@return linker SMILES
+     */
+    public String[] getLinkers() {
+        return linkers;
+    }
+    
+    
+    /**
+     *Returns the building block SMILES.
+     *
+     *@return building block SMILES
+     */
+    public String[] getBuildingBlocks() {
+        return buildingBlocks;
+    }
+    
+    
+    /**
+     *Returns the reaction scheme.
+     *
+     *@return lines of the reaction scheme, null for complete enumeration
+     */
+    public String[] getReactionScheme() {
+        return reactionScheme;
+    }
+    
+    
+    /**
+     *Returns all source SMILES of the library.
+     *
+     *@return scaffold, linker and building block SMILES
+     */
+    public String[] getFragments() {
+        String[] fragments = new String[scaffolds.length + linkers.length + buildingBlocks.length];
+        System.arraycopy(scaffolds, 0, fragments, 0, scaffolds.length);
+        System.arraycopy(linkers, 0, fragments, scaffolds.length, linkers.length);
+        System.arraycopy(buildingBlocks, 0, fragments, scaffolds.length + linkers.length, buildingBlocks.length);
+        return fragments;
+    }
+    
+    
+    /**
+     *Reads the fragments of the library.
+     *
+     *@return the fragments
+     *@throws java.lang.Exception if a fragment does not conform to SmiLib restrictions
+     */
+    public ComponentAdministrator createComponentAdministrator() throws Exception {
+        return new ComponentAdministrator(scaffolds, linkers, buildingBlocks, true);
+    }
+    
+    
+    /**
+     *Returns the reaction scheme of the library, or a scheme that combines every scaffold
+     *with all linkers and building blocks if the library is enumerated completely.
+     *
+     *@param compAdmin fragments of the library
+     *@return lines of the reaction scheme
+     */
+    public String[] getPartialReactionScheme(ComponentAdministrator compAdmin) {
+        if (reactionScheme != null) {
+            return reactionScheme;
+        }
+        String[] lines = new String[compAdmin.getNumberOfScaffolds()];
+        for (int i = 0; i < lines.length; i++) {
+            StringBuilder line = new StringBuilder().append(i + 1);
+            for (int j = 0; j < compAdmin.getNumberOfRGroups(i); j++) {
+                line.append("\t1-").append(compAdmin.getNumberOfLinkers());
+                line.append("\t1-").append(compAdmin.getNumberOfBuildingBlocks());
+            }
+            lines[i] = line.toString();
+        }
+        return lines;
+    }
+    
+    
+    /**
+     *Creates an iterator over the molecules of the library.
+     *
+     *@param compAdmin fragments of the library
+     *@param partial use a PartialCombinationIterator even if the library is enumerated completely true/false
+     *@return iterator over the molecules
+     *@throws java.lang.Exception if the reaction scheme is invalid
+     */
+    public SmiLibIterator createIterator(ComponentAdministrator compAdmin, boolean partial) throws Exception {
+        if (reactionScheme == null && !partial) {
+            return new FullCombinationIterator(compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks());
+        }
+        return new PartialCombinationIterator(getPartialReactionScheme(compAdmin), compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks());
+    }
+    
+    
+    /**
+     *Returns the number of molecules in the library.
+     *
+     *@return number of molecules
+     *@throws java.lang.Exception if the fragments or the reaction scheme are invalid
+     */
+    public long getSize() throws Exception {
+        return createIterator(createComponentAdministrator(), false).getMaximum();
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.benchmark;
+
+import de.modlab.smilib.io.OutputSettings;
+import de.modlab.smilib.io.SmilesWriterFactory;
+import de.modlab.smilib.main.SmiLibRunner;
+import java.io.File;
+
+/**
+ *Enumerates a library end to end with SmiLibRunner, from reading the source SMILES
+ *to the SMILES file, written by a single thread or in parallel.
+ */
+public class RunnerBenchmark extends Benchmark {
+    
+    //write the library in parallel true/false
+    private boolean parallel;
+    
+    private Library library;
+    private OutputSettings settings = new OutputSettings();
+    private File file;
+    
+    
+    
+    /**
+     *Creates a new instance of RunnerBenchmark.
+     *
+     *@param parallel write the library in parallel true/false
+     */
+    public RunnerBenchmark(boolean parallel) {
+        super(parallel ? "run-parallel" : "run");
+        this.parallel = parallel;
+    }
+    
+    
+    public void setUp(String parameter) throws Exception {
+        library = Library.get(parameter);
+        settings.setParallelWrite(parallel);
+        file = File.createTempFile("smilib-benchmark", ".smi");
+    }
+    
+    
+    public long run() throws Exception {
+        SmiLibRunner runner = new SmiLibRunner(library.getScaffolds(), library.getLinkers(), library.getBuildingBlocks(),
+                library.getReactionScheme(), true, new SmilesWriterFactory(settings).createWriter(file.getPath(), false));
+        runner.run();
+        consume(file.length());
+        return runner.getProgress().getMolecules();
+    }
+    
+    
+    public void tearDown() {
+        file.delete();
+    }
+}
@@ -0,0 +1,516 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.benchmark;
+
+import de.modlab.smilib.io.OutputSettings;
+import de.modlab.smilib.io.SmilesWriter;
+import de.modlab.smilib.io.SmilesWriterFactory;
+import de.modlab.smilib.main.SmiLibRunner;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ *Enumerates synthetic libraries of growing size, 10^6 to 10^9 molecules by default,
+ *each in a JVM of its own. For each library the throughput, the peak resident set
+ *size, the peak heap usage, the time spent in garbage collection and a checksum of
+ *the molecules are recorded. The checksums can be written to a reference file and
+ *later runs compared to it, a run fails if a molecule count or checksum differs.
+ *<p>
+ *A library of n molecules is made of 10 linkers, 10 building blocks and n / 100^r
+ *scaffolds, at least one, with r variable side chains each.
+ *<p>
+ *Usage: <code>java de.modlab.smilib.benchmark.ScaleHarness [options]</code>
+ *<ul>
+ *<li>-n n,n,...: sizes of the libraries, e.g. 1e6, default 1e6,1e7,1e8,1e9
+ *<li>-r n: variable side chains per scaffold, default 3
+ *<li>-g p: probability of an additional ring closure per fragment part, default 0
+ *<li>-u p: probability of a fragment duplicating one drawn before, default 0
+ *<li>-e n: seed of the random numbers, default 42
+ *<li>-w directory: write the libraries to SMILES files in a directory, the molecules are discarded otherwise
+ *<li>-p: write the SMILES files in parallel
+ *<li>-k: keep the SMILES files
+ *<li>-c file: compare molecule counts and checksums to a reference file
+ *<li>-o file: save molecule counts and checksums as a reference file
+ *</ul>
+ */
+public class ScaleHarness {
+    
+    /** prefix of the line a forked JVM reports its results with */
+    private static final String RESULT = "RESULT";
+    
+    /** number of linkers and of building blocks of the libraries */
+    private static final int FRAGMENTS = 10;
+    
+    //sizes of the libraries
+    private List<Long> sizes = new ArrayList<Long>();
+    
+    //variable side chains per scaffold
+    private int rGroups = 3;
+    
+    //probability of an additional ring closure per fragment part
+    private double ringDensity = 0;
+    
+    //probability of a fragment duplicating one drawn before
+    private double duplicateRate = 0;
+    
+    //seed of the random numbers
+    private long seed = SyntheticLibrary.DEFAULT_SEED;
+    
+    //directory of the SMILES files, null to discard the molecules
+    private String directory = null;
+    
+    //write the SMILES files in parallel true/false
+    private boolean parallel = false;
+    
+    //keep the SMILES files true/false
+    private boolean keep = false;
+    
+    //report the result as RESULT line only, used in forked JVMs true/false
+    private boolean quiet = false;
+    
+    
+    
+    /**
+     *Runs the harness, see the class description for the options.
+     *
+     *@param args options
+     */
+    public static void main(String[] args) {
+        ScaleHarness harness = new ScaleHarness();
+        String compare = null;
+        String save = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-n")) {
+                    String[] sizes = args[++i].split(",");
+                    for (int j = 0; j < sizes.length; j++) {
+                        harness.sizes.add(new Long((long) Double.parseDouble(sizes[j])));
+                    }
+                } else if (args[i].equals("-r")) {
+                    harness.rGroups = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-g")) {
+                    harness.ringDensity = Double.parseDouble(args[++i]);
+                } else if (args[i].equals("-u")) {
+                    harness.duplicateRate = Double.parseDouble(args[++i]);
+                } else if (args[i].equals("-e")) {
+                    harness.seed = Long.parseLong(args[++i]);
+                } else if (args[i].equals("-w")) {
+                    harness.directory = args[++i];
+                } else if (args[i].equals("-p")) {
+                    harness.parallel = true;
+                } else if (args[i].equals("-k")) {
+                    harness.keep = true;
+                } else if (args[i].equals("-c")) {
+                    compare = args[++i];
+                } else if (args[i].equals("-o")) {
+                    save = args[++i];
+                } else if (args[i].equals("-q")) {
+                    harness.quiet = true;
+                } else {
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (RuntimeException exc) {
+            System.err.println(exc.getMessage() != null ? exc.getMessage() : exc.toString());
+            System.err.println("Usage: ScaleHarness [-n n,n,...] [-r n] [-g p] [-u p] [-e seed] [-w directory] [-p] [-k] [-c file] [-o file]");
+            System.exit(1);
+        }
+        if (harness.sizes.isEmpty()) {
+            for (long size = 1000000; size <= 1000000000; size *= 10) {
+                harness.sizes.add(new Long(size));
+            }
+        }
+        
+        try {
+            //forked JVM: enumerate one library and report the result
+            if (harness.quiet) {
+                System.out.println(harness.enumerate(harness.sizes.get(0).longValue()).toResultLine());
+                return;
+            }
+            
+            Map<String, String> reference = compare != null ? readReference(compare) : new HashMap<String, String>();
+            List<Result> results = new ArrayList<Result>();
+            boolean failed = false;
+            System.out.println(String.format(Locale.US, "%-14s %14s %9s %14s %9s %10s %10s %9s %6s %8s  %s",
+                    "library", "molecules", "seconds", "molecules/s", "MB/s", "peak RSS", "peak heap", "GC", "GCs", "checksum", "reference"));
+            for (Long size : harness.sizes) {
+                Result result = harness.fork(size.longValue());
+                results.add(result);
+                String status = result.check(reference.get(result.key));
+                failed |= status.startsWith("DIFFERS") || status.startsWith("FAILED");
+                System.out.println(result.format() + "  " + status);
+            }
+            if (save != null) {
+                writeReference(save, results);
+            }
+            if (failed) {
+                System.exit(1);
+            }
+        } catch (Exception exc) {
+            exc.printStackTrace();
+            System.exit(1);
+        }
+    }
+    
+    
+    /**
+     *Returns the generator of the library with a number of molecules.
+     *
+     *@param size number of molecules, rounded to a multiple of 100^r
+     *@return generator of the library
+     */
+    public SyntheticLibrary createGenerator(long size) {
+        long perScaffold = 1;
+        for (int r = 0; r < rGroups; r++) {
+            perScaffold *= FRAGMENTS * FRAGMENTS;
+        }
+        SyntheticLibrary generator = new SyntheticLibrary((int) Math.max(1, size / perScaffold), FRAGMENTS, FRAGMENTS, rGroups);
+        generator.setRingDensity(ringDensity);
+        generator.setDuplicateRate(duplicateRate);
+        generator.setSeed(seed);
+        return generator;
+    }
+    
+    
+    /**
+     *Enumerates the library with a number of molecules in this JVM.
+     *
+     *@param size number of molecules
+     *@return the result
+     *@throws java.lang.Exception if the library can't be enumerated
+     */
+    public Result enumerate(long size) throws Exception {
+        SyntheticLibrary generator = createGenerator(size);
+        Library library = generator.createLibrary(generator.getSettings());
+        Result result = new Result(generator.getSettings());
+        result.expected = library.getSize();
+        
+        File file = null;
+        SmilesWriter writer;
+        ChecksumWriter checksum = null;
+        if (directory != null) {
+            OutputSettings settings = new OutputSettings();
+            settings.setParallelWrite(parallel);
+            file = new File(directory, "scale-" + size + ".smi");
+            writer = new SmilesWriterFactory(settings).createWriter(file.getPath(), false);
+        } else {
+            checksum = new ChecksumWriter();
+            writer = checksum;
+        }
+        
+        long start = System.nanoTime();
+        SmiLibRunner runner = new SmiLibRunner(library.getScaffolds(), library.getLinkers(), library.getBuildingBlocks(),
+                library.getReactionScheme(), true, writer);
+        runner.run();
+        result.seconds = (System.nanoTime() - start) / 1e9;
+        
+        result.peakRss = getPeakRss();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                result.peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result.gcTime += Math.max(0, collector.getCollectionTime());
+            result.gcCount += Math.max(0, collector.getCollectionCount());
+        }
+        
+        if (file != null) {
+            checksum = ChecksumWriter.read(file);
+            if (!keep) {
+                file.delete();
+            }
+        }
+        result.molecules = checksum.getMolecules();
+        result.bytes = checksum.getBytes();
+        result.checksum = checksum.getChecksum();
+        result.invalidRingNumbers = checksum.getInvalidRingNumbers();
+        return result;
+    }
+    
+    
+    /**
+     *Enumerates the library with a number of molecules in a forked JVM.
+     *
+     *@param size number of molecules
+     *@return the result reported by the forked JVM
+     *@throws java.lang.Exception if the forked JVM fails
+     */
+    private Result fork(long size) throws Exception {
+        List<String> command = BenchmarkRunner.javaCommand(ScaleHarness.class);
+        command.add("-q");
+        command.add("-n");
+        command.add(Long.toString(size));
+        command.add("-r");
+        command.add(Integer.toString(rGroups));
+        command.add("-g");
+        command.add(Double.toString(ringDensity));
+        command.add("-u");
+        command.add(Double.toString(duplicateRate));
+        command.add("-e");
+        command.add(Long.toString(seed));
+        if (directory != null) {
+            command.add("-w");
+            command.add(directory);
+        }
+        if (parallel) {
+            command.add("-p");
+        }
+        if (keep) {
+            command.add("-k");
+        }
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        process.getOutputStream().close();
+        BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        Result result = null;
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.startsWith(RESULT + "\t")) {
+                result = Result.parse(line);
+            } else {
+                System.err.println(line);
+            }
+        }
+        in.close();
+        if (process.waitFor() != 0 || result == null) {
+            throw new IOException("Enumeration of " + size + " molecules failed");
+        }
+        return result;
+    }
+    
+    
+    /**
+     *Returns the peak resident set size of this JVM from /proc/self/status.
+     *
+     *@return peak resident set size in bytes, -1 if unknown
+     */
+    private static long getPeakRss() {
+        File status = new File("/proc/self/status");
+        if (!status.canRead()) {
+            return -1;
+        }
+        try {
+            BufferedReader in = new BufferedReader(new FileReader(status));
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.startsWith("VmHWM:")) {
+                        return Long.parseLong(line.substring(6).trim().split("\\s+")[0]) * 1024;
+                    }
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException exc) {
+            //unknown
+        } catch (NumberFormatException exc) {
+            //unknown
+        }
+        return -1;
+    }
+    
+    
+    /**
+     *Reads a reference file, each line holds the settings of a library, its
+     *number of molecules, its size in bytes and its checksum, separated by tabs.
+     */
+    private static Map<String, String> readReference(String path) throws IOException {
+        Map<String, String> reference = new HashMap<String, String>();
+        BufferedReader in = new BufferedReader(new FileReader(path));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.length() > 0 && !line.startsWith("#")) {
+                    int tab = line.indexOf('\t');
+                    reference.put(line.substring(0, tab), line.substring(tab + 1));
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return reference;
+    }
+    
+    
+    /**
+     *Writes the molecule counts and checksums of the libraries as a reference file.
+     */
+    private static void writeReference(String path, List<Result> results) throws IOException {
+        PrintWriter out = new PrintWriter(new FileWriter(path));
+        try {
+            out.print("#library\tmolecules\tbytes\tchecksum\n");
+            for (Result result : results) {
+                out.print(result.key + "\t" + result.getReferenceValue() + "\n");
+            }
+        } finally {
+            out.close();
+        }
+        if (out.checkError()) {
+            throw new IOException("Error writing " + path);
+        }
+    }
+    
+    
+    
+    /**
+     *Result of the enumeration of a library.
+     */
+    static class Result {
+        
+        //settings of the library
+        String key;
+        long expected;
+        long molecules;
+        long bytes;
+        double seconds;
+        long peakRss = -1;
+        long peakHeap;
+        long gcTime;
+        long gcCount;
+        long invalidRingNumbers;
+        long checksum;
+        
+        
+        /**
+         *Creates a new instance of Result.
+         *
+         *@param key settings of the library
+         */
+        Result(String key) {
+            this.key = key;
+        }
+        
+        
+        /**
+         *Reads a result from the line a forked JVM reports it with.
+         *
+         *@param line RESULT line
+         *@return the result
+         */
+        static Result parse(String line) {
+            String[] fields = line.split("\t");
+            Result result = new Result(fields[1]);
+            result.expected = Long.parseLong(fields[2]);
+            result.molecules = Long.parseLong(fields[3]);
+            result.bytes = Long.parseLong(fields[4]);
+            result.seconds = Double.parseDouble(fields[5]);
+            result.peakRss = Long.parseLong(fields[6]);
+            result.peakHeap = Long.parseLong(fields[7]);
+            result.gcTime = Long.parseLong(fields[8]);
+            result.gcCount = Long.parseLong(fields[9]);
+            result.invalidRingNumbers = Long.parseLong(fields[10]);
+            result.checksum = Long.parseLong(fields[11], 16);
+            return result;
+        }
+        
+        
+        /**
+         *Returns the line a forked JVM reports the result with.
+         *
+         *@return RESULT line
+         */
+        String toResultLine() {
+            return RESULT + "\t" + key + "\t" + expected + "\t" + molecules + "\t" + bytes + "\t" + seconds
+                    + "\t" + peakRss + "\t" + peakHeap + "\t" + gcTime + "\t" + gcCount
+                    + "\t" + invalidRingNumbers + "\t" + Long.toHexString(checksum);
+        }
+        
+        
+        /**
+         *Returns the values compared to a reference.
+         *
+         *@return molecules, bytes and checksum separated by tabs
+         */
+        String getReferenceValue() {
+            return molecules + "\t" + bytes + "\t" + Long.toHexString(checksum);
+        }
+        
+        
+        /**
+         *Compares the result to the expected number of molecules, the validity
+         *of the ring numbers and a reference.
+         *
+         *@param reference reference value, null if there is none
+         *@return status
+         */
+        String check(String reference) {
+            if (molecules != expected) {
+                return "FAILED: " + molecules + " of " + expected + " molecules";
+            }
+            if (reference != null && !reference.equals(getReferenceValue())) {
+                return "DIFFERS: " + reference.replace('\t', ' ');
+            }
+            String status = reference != null ? "OK" : "-";
+            if (invalidRingNumbers > 0) {
+                status += ", " + invalidRingNumbers + " ring numbers above 99";
+            }
+            return status;
+        }
+        
+        
+        /**
+         *Formats the result as a table row.
+         *
+         *@return the row
+         */
+        String format() {
+            return String.format(Locale.US, "%-14s %14d %9.1f %14.0f %9.1f %10s %10s %7.1fs %6d %8s",
+                    "n=" + expected, molecules, seconds, molecules / seconds, bytes / seconds / (1 << 20),
+                    megabytes(peakRss), megabytes(peakHeap), gcTime / 1000.0, gcCount, Long.toHexString(checksum));
+        }
+        
+        
+        /**
+         *Formats a number of bytes in megabytes.
+         */
+        private static String megabytes(long bytes) {
+            return bytes < 0 ? "n/a" : (bytes >> 20) + " MB";
+        }
+    }
+}
@@ -0,0 +1,546 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ *Generates scaffolds, linkers, building blocks and optionally a reaction scheme of
+ *a combinatorial library from common ring systems and substituents. The fragments
+ *are drawn with a fixed seed, so the same settings always give the same library.
+ *Besides the sizes, the number of variable side chains per scaffold, the density
+ *of additional ring closures and the rate of duplicate fragments can be set.
+ *Ring closures use two-digit ring numbers, so they take ring numbers away from
+ *the ones used to attach the fragments.
+ *<p>
+ *Usage: <code>java de.modlab.smilib.benchmark.SyntheticLibrary [options] directory</code>
+ *writes scaffolds.txt, linkers.txt, buildingblocks.txt and reaction_scheme.txt:
+ *<ul>
+ *<li>-s n: number of scaffolds, default 10
+ *<li>-l n: number of linkers, the first one is the empty linker, default 10
+ *<li>-b n: number of building blocks, default 100
+ *<li>-r n or min-max: variable side chains per scaffold, default 2
+ *<li>-g p: probability of an additional ring closure per fragment part, default 0
+ *<li>-u p: probability of a fragment duplicating one drawn before, default 0
+ *<li>-x n: number of lines of a random reaction scheme, default 0 for complete enumeration
+ *<li>-i: write IDs in front of the SMILES
+ *<li>-e n: seed of the random numbers, default 42
+ *</ul>
+ */
+public class SyntheticLibrary {
+    
+    /** scaffold parts, "{R}" is replaced by a variable side chain */
+    private static final String[] SCAFFOLD_PARTS = {"c1ccc({R})cc1", "C1CCN({R})CC1", "c1cc({R})ncc1", "C({R})", "N({R})", "C(=O)N({R})", "O1CCC({R})CC1", "c1ccc2cc({R})ccc2c1"};
+    
+    /** atoms connecting the parts of a scaffold */
+    private static final String[] SPACERS = {"", "C", "CC", "O", "N", "C(=O)"};
+    
+    /** chains between the attachment point and the side chain of a linker */
+    private static final String[] LINKER_CHAINS = {"O", "N", "C", "CC", "C(=O)N", "C(=O)O", "S(=O)(=O)N", "c1ccc(cc1)", "C1CCN(CC1)", "NC(=O)N"};
+    
+    /** inner parts of a building block, bonded to the attachment point */
+    private static final String[] BLOCK_CHAINS = {"", "C", "CC", "c1ccc(cc1)", "C1CCC(CC1)", "C(=O)N", "c1cnc(cc1)", "N1CCN(CC1)"};
+    
+    /** terminal parts of a building block */
+    private static final String[] BLOCK_ENDS = {"C", "CC", "C(C)C", "c1ccccc1", "C1CCCCC1", "OC", "N(C)C", "C(F)(F)F", "c1ccncc1", "C(=O)O", "F", "Cl", "Br", "C#N"};
+    
+    /** seed of the random numbers if none is set */
+    public static final long DEFAULT_SEED = 42;
+    
+    /** draws of a fragment that was drawn before until it is made unique */
+    private static final int MAX_DRAWS = 8;
+    
+    //number of scaffolds
+    private int scaffolds;
+    
+    //number of linkers, the first one is the empty linker
+    private int linkers;
+    
+    //number of building blocks
+    private int buildingBlocks;
+    
+    //variable side chains per scaffold, drawn between min and max
+    private int minRGroups;
+    private int maxRGroups;
+    
+    //probability of an additional ring closure per fragment part
+    private double ringDensity = 0;
+    
+    //probability of a fragment duplicating one drawn before
+    private double duplicateRate = 0;
+    
+    //lines of the reaction scheme, 0 for complete enumeration
+    private int reactionSchemeLines = 0;
+    
+    //write IDs in front of the SMILES true/false
+    private boolean ids = false;
+    
+    //seed of the random numbers
+    private long seed = DEFAULT_SEED;
+    
+    //side chains of the scaffolds drawn last
+    private int[] rGroups;
+    
+    
+    
+    /**
+     *Creates a new instance of SyntheticLibrary.
+     *
+     *@param scaffolds number of scaffolds
+     *@param linkers number of linkers, the first one is the empty linker
+     *@param buildingBlocks number of building blocks
+     *@param rGroups variable side chains per scaffold
+     */
+    public SyntheticLibrary(int scaffolds, int linkers, int buildingBlocks, int rGroups) {
+        this.scaffolds = scaffolds;
+        this.linkers = linkers;
+        this.buildingBlocks = buildingBlocks;
+        this.minRGroups = rGroups;
+        this.maxRGroups = rGroups;
+    }
+    
+    
+    /**
+     *Generates a library and writes it to a directory, see the class description for the options.
+     *
+     *@param args options and directory
+     */
+    public static void main(String[] args) {
+        SyntheticLibrary generator = new SyntheticLibrary(10, 10, 100, 2);
+        File directory = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-s")) {
+                    generator.scaffolds = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-l")) {
+                    generator.linkers = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-b")) {
+                    generator.buildingBlocks = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-r")) {
+                    String[] range = args[++i].split("-");
+                    generator.setRGroups(Integer.parseInt(range[0]), Integer.parseInt(range[range.length - 1]));
+                } else if (args[i].equals("-g")) {
+                    generator.setRingDensity(Double.parseDouble(args[++i]));
+                } else if (args[i].equals("-u")) {
+                    generator.setDuplicateRate(Double.parseDouble(args[++i]));
+                } else if (args[i].equals("-x")) {
+                    generator.setReactionSchemeLines(Integer.parseInt(args[++i]));
+                } else if (args[i].equals("-i")) {
+                    generator.setIds(true);
+                } else if (args[i].equals("-e")) {
+                    generator.setSeed(Long.parseLong(args[++i]));
+                } else if (args[i].startsWith("-") || directory != null) {
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+                } else {
+                    directory = new File(args[i]);
+                }
+            }
+            if (directory == null) {
+                throw new IllegalArgumentException("No directory given");
+            }
+            if (generator.scaffolds < 1 || generator.linkers < 1 || generator.buildingBlocks < 1) {
+                throw new IllegalArgumentException("At least one scaffold, linker and building block is needed");
+            }
+        } catch (RuntimeException exc) {
+            System.err.println(exc.getMessage() != null ? exc.getMessage() : exc.toString());
+            System.err.println("Usage: SyntheticLibrary [-s n] [-l n] [-b n] [-r n|min-max] [-g p] [-u p] [-x n] [-i] [-e seed] directory");
+            System.exit(1);
+        }
+        try {
+            Library library = generator.write(directory);
+            System.out.println(library.getSize() + " molecules written to " + directory);
+        } catch (Exception exc) {
+            exc.printStackTrace();
+            System.exit(1);
+        }
+    }
+    
+    
+    /**
+     *Sets the range of variable side chains per scaffold.
+     *
+     *@param min fewest side chains of a scaffold
+     *@param max most side chains of a scaffold
+     */
+    public void setRGroups(int min, int max) {
+        if (min < 1 || max < min) {
+            throw new IllegalArgumentException("Invalid number of side chains " + min + "-" + max);
+        }
+        this.minRGroups = min;
+        this.maxRGroups = max;
+    }
+    
+    
+    /**
+     *Sets the probability of an additional ring closure per fragment part.
+     *
+     *@param ringDensity probability between 0 and 1
+     */
+    public void setRingDensity(double ringDensity) {
+        this.ringDensity = ringDensity;
+    }
+    
+    
+    /**
+     *Sets the probability of a fragment duplicating one drawn before.
+     *
+     *@param duplicateRate probability between 0 and 1
+     */
+    public void setDuplicateRate(double duplicateRate) {
+        this.duplicateRate = duplicateRate;
+    }
+    
+    
+    /**
+     *Sets the number of lines of a random reaction scheme.
+     *
+     *@param reactionSchemeLines number of lines, 0 for complete enumeration
+     */
+    public void setReactionSchemeLines(int reactionSchemeLines) {
+        this.reactionSchemeLines = reactionSchemeLines;
+    }
+    
+    
+    /**
+     *Sets whether IDs are written in front of the SMILES, separated by a tab.
+     *
+     *@param ids write IDs true/false
+     */
+    public void setIds(boolean ids) {
+        this.ids = ids;
+    }
+    
+    
+    /**
+     *Sets the seed of the random numbers the fragments are drawn with.
+     *
+     *@param seed seed of the random numbers
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    
+    
+    /**
+     *Returns the settings of the generator, e.g. to label results.
+     *
+     *@return settings as "option=value" pairs
+     */
+    public String getSettings() {
+        return "s=" + scaffolds + " l=" + linkers + " b=" + buildingBlocks
+                + " r=" + minRGroups + (maxRGroups != minRGroups ? "-" + maxRGroups : "")
+                + " g=" + ringDensity + " u=" + duplicateRate + " x=" + reactionSchemeLines
+                + (ids ? " i" : "") + " e=" + seed;
+    }
+    
+    
+    /**
+     *Generates the library.
+     *
+     *@param name name of the library
+     *@return the library
+     */
+    public Library createLibrary(String name) {
+        String[] scaffoldLines = createScaffolds();
+        return new Library(name, scaffoldLines, createLinkers(), createBuildingBlocks(),
+                reactionSchemeLines > 0 ? createReactionScheme() : null);
+    }
+    
+    
+    /**
+     *Generates the library and writes it to scaffolds.txt, linkers.txt,
+     *buildingblocks.txt and, if it has one, reaction_scheme.txt.
+     *
+     *@param directory directory the files are written to, created if necessary
+     *@return the library
+     *@throws java.io.IOException if a file can't be written
+     */
+    public Library write(File directory) throws IOException {
+        Library library = createLibrary(directory.getName());
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create directory " + directory);
+        }
+        write(new File(directory, "scaffolds.txt"), library.getScaffolds());
+        write(new File(directory, "linkers.txt"), library.getLinkers());
+        write(new File(directory, "buildingblocks.txt"), library.getBuildingBlocks());
+        if (library.getReactionScheme() != null) {
+            write(new File(directory, "reaction_scheme.txt"), library.getReactionScheme());
+        }
+        return library;
+    }
+    
+    
+    /**
+     *Writes lines to a file.
+     */
+    private static void write(File file, String[] lines) throws IOException {
+        PrintWriter out = new PrintWriter(new FileWriter(file));
+        try {
+            for (int i = 0; i < lines.length; i++) {
+                out.print(lines[i]);
+                out.print('\n');
+            }
+        } finally {
+            out.close();
+        }
+        if (out.checkError()) {
+            throw new IOException("Error writing " + file);
+        }
+    }
+    
+    
+    /**
+     *Generates the scaffolds.
+     *
+     *@return scaffold SMILES, with IDs if set
+     */
+    public String[] createScaffolds() {
+        Random random = new Random(seed);
+        Set<String> drawn = new HashSet<String>();
+        String[] result = new String[scaffolds];
+        rGroups = new int[scaffolds];
+        for (int i = 0; i < scaffolds; i++) {
+            if (isDuplicate(random, i)) {
+                int original = random.nextInt(i);
+                result[i] = result[original];
+                rGroups[i] = rGroups[original];
+                continue;
+            }
+            int r = minRGroups == maxRGroups ? minRGroups : minRGroups + random.nextInt(maxRGroups - minRGroups + 1);
+            String scaffold;
+            int attempt = 0;
+            do {
+                StringBuilder smiles = new StringBuilder();
+                for (int k = 1; k <= r; k++) {
+                    smiles.append(pick(random, k == 1 ? new String[] {""} : SPACERS));
+                    appendRing(random, smiles);
+                    smiles.append(pick(random, SCAFFOLD_PARTS).replace("{R}", "[R" + k + "]"));
+                }
+                scaffold = unique(smiles.toString(), drawn, attempt++);
+            } while (scaffold == null);
+            result[i] = scaffold;
+            rGroups[i] = r;
+        }
+        return withIds("S", result);
+    }
+    
+    
+    /**
+     *Generates the linkers, the first one is the empty linker.
+     *
+     *@return linker SMILES, with IDs if set
+     */
+    public String[] createLinkers() {
+        Random random = new Random(seed + 1);
+        Set<String> drawn = new HashSet<String>();
+        String[] result = new String[linkers];
+        for (int i = 0; i < linkers; i++) {
+            if (i > 0 && isDuplicate(random, i)) {
+                result[i] = result[random.nextInt(i)];
+                continue;
+            }
+            String linker;
+            int attempt = 0;
+            do {
+                if (i == 0) {
+                    linker = "[A][R]";
+                } else {
+                    StringBuilder smiles = new StringBuilder("[A]");
+                    appendRing(random, smiles);
+                    linker = unique(smiles.append(pick(random, LINKER_CHAINS)).append("[R1]").toString(), drawn, attempt++);
+                }
+            } while (linker == null);
+            result[i] = linker;
+        }
+        return withIds("L", result);
+    }
+    
+    
+    /**
+     *Generates the building blocks.
+     *
+     *@return building block SMILES, with IDs if set
+     */
+    public String[] createBuildingBlocks() {
+        Random random = new Random(seed + 2);
+        Set<String> drawn = new HashSet<String>();
+        String[] result = new String[buildingBlocks];
+        for (int i = 0; i < buildingBlocks; i++) {
+            if (isDuplicate(random, i)) {
+                result[i] = result[random.nextInt(i)];
+                continue;
+            }
+            String block;
+            int attempt = 0;
+            do {
+                StringBuilder smiles = new StringBuilder("[A]").append(pick(random, BLOCK_CHAINS));
+                appendRing(random, smiles);
+                block = unique(smiles.append(pick(random, BLOCK_ENDS)).toString(), drawn, attempt++);
+            } while (block == null);
+            result[i] = block;
+        }
+        return withIds("B", result);
+    }
+    
+    
+    /**
+     *Generates a random reaction scheme for the scaffolds drawn last. Each line
+     *combines a scaffold with ranges or lists of linkers and building blocks.
+     *
+     *@return lines of the reaction scheme
+     */
+    public String[] createReactionScheme() {
+        if (rGroups == null) {
+            createScaffolds();
+        }
+        Random random = new Random(seed + 3);
+        String[] result = new String[reactionSchemeLines];
+        for (int i = 0; i < result.length; i++) {
+            int scaffold = random.nextInt(scaffolds);
+            StringBuilder line = new StringBuilder().append(scaffold + 1);
+            for (int k = 0; k < rGroups[scaffold]; k++) {
+                line.append('\t').append(pickNumbers(random, linkers));
+                line.append('\t').append(pickNumbers(random, buildingBlocks));
+            }
+            result[i] = line.toString();
+        }
+        return result;
+    }
+    
+    
+    /**
+     *Returns whether the next fragment duplicates one drawn before.
+     */
+    private boolean isDuplicate(Random random, int index) {
+        return duplicateRate > 0 && index > 0 && random.nextDouble() < duplicateRate;
+    }
+    
+    
+    /**
+     *Appends a cyclopentane closed with a random two-digit ring number, with the set density.
+     */
+    private void appendRing(Random random, StringBuilder smiles) {
+        if (ringDensity > 0 && random.nextDouble() < ringDensity) {
+            int ringNumber = 10 + random.nextInt(90);
+            smiles.append("C%").append(ringNumber).append("CCCC%").append(ringNumber);
+        }
+    }
+    
+    
+    /**
+     *Returns a range "first-last" or a list "a;b;c" of numbers between 1 and max.
+     */
+    private static String pickNumbers(Random random, int max) {
+        if (random.nextBoolean()) {
+            int first = 1 + random.nextInt(max);
+            int last = first + random.nextInt(max - first + 1);
+            return first + "-" + last;
+        }
+        Set<Integer> numbers = new TreeSet<Integer>();
+        int count = 1 + random.nextInt(Math.min(3, max));
+        while (numbers.size() < count) {
+            numbers.add(new Integer(1 + random.nextInt(max)));
+        }
+        StringBuilder list = new StringBuilder();
+        for (Integer number : numbers) {
+            if (list.length() > 0) {
+                list.append(';');
+            }
+            list.append(number);
+        }
+        return list.toString();
+    }
+    
+    
+    /**
+     *Puts IDs made of a prefix and the line number in front of the SMILES if IDs are set.
+     */
+    private String[] withIds(String prefix, String[] smiles) {
+        if (ids) {
+            for (int i = 0; i < smiles.length; i++) {
+                smiles[i] = prefix + (i + 1) + "\t" + smiles[i];
+            }
+        }
+        return smiles;
+    }
+    
+    
+    /**
+     *Returns a random element of an array.
+     */
+    private static String pick(Random random, String[] parts) {
+        return parts[random.nextInt(parts.length)];
+    }
+    
+    
+    /**
+     *Returns a SMILES if it has not been drawn before. After a few draws the
+     *SMILES is made unique by a chain of carbons after the attachment point.
+     *
+     *@param smiles SMILES drawn
+     *@param drawn SMILES drawn before, the SMILES is added if it is returned
+     *@param attempt number of draws of this fragment before
+     *@return the SMILES, or null if it has to be drawn again
+     */
+    private static String unique(String smiles, Set<String> drawn, int attempt) {
+        String result = smiles;
+        if (drawn.contains(result) && attempt < MAX_DRAWS) {
+            return null;
+        }
+        while (drawn.contains(result)) {
+            result = extend(result);
+        }
+        drawn.add(result);
+        return result;
+    }
+    
+    
+    /**
+     *Inserts a carbon after the attachment point or first side chain of a SMILES.
+     */
+    private static String extend(String smiles) {
+        if (smiles.startsWith("[A]")) {
+            return "[A]C" + smiles.substring(3);
+        }
+        return "C" + smiles;
+    }
+}
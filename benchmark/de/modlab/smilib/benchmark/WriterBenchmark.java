@@ -0,0 +1,150 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.benchmark;
+
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.io.CombinationWriter;
+import de.modlab.smilib.io.OutputSettings;
+import de.modlab.smilib.io.SmilesChannelWriter;
+import de.modlab.smilib.io.SmilesFileWriter;
+import de.modlab.smilib.io.SmilesToSDFWriter;
+import de.modlab.smilib.io.SmilesWriter;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.main.SmilesAssembler;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *Writes the first molecules of a library to a temporary file. The molecules are
+ *assembled beforehand, so only writing is measured. SD files are written the way
+ *SmiLibRunner writes them, from the combinations of fragments.
+ */
+public class WriterBenchmark extends Benchmark {
+    
+    /** SMILES file written with a SmilesFileWriter */
+    public static final int FILE = 0;
+    
+    /** SMILES file written with a SmilesChannelWriter */
+    public static final int CHANNEL = 1;
+    
+    /** SD file written with a SmilesToSDFWriter */
+    public static final int SDF = 2;
+    
+    /** number of molecules written per run to SMILES files */
+    private static final int SMILES_MOLECULES = 100000;
+    
+    /** number of molecules written per run to SD files */
+    private static final int SDF_MOLECULES = 200;
+    
+    //FILE, CHANNEL or SDF
+    private int format;
+    
+    private Library library;
+    private ComponentAdministrator compAdmin;
+    private SmiLibIterator iterator;
+    private File file;
+    
+    //molecules written per run
+    private StringBuilder[] molecules;
+    private StringBuilder[] ids;
+    private int[][] combinations;
+    
+    
+    
+    /**
+     *Creates a new instance of WriterBenchmark.
+     *
+     *@param format FILE, CHANNEL or SDF
+     */
+    public WriterBenchmark(int format) {
+        super(format == SDF ? "write-sdf" : format == CHANNEL ? "write-smiles-channel" : "write-smiles-file");
+        this.format = format;
+    }
+    
+    
+    public void setUp(String parameter) throws Exception {
+        library = Library.get(parameter);
+        compAdmin = library.createComponentAdministrator();
+        iterator = library.createIterator(compAdmin, false);
+        SmiLibIterator source = library.createIterator(compAdmin, false);
+        SmilesAssembler assembler = new SmilesAssembler(compAdmin);
+        int max = format == SDF ? SDF_MOLECULES : SMILES_MOLECULES;
+        List<int[]> list = new ArrayList<int[]>();
+        while (source.hasNext() && list.size() < max) {
+            list.add(source.next().clone());
+        }
+        combinations = list.toArray(new int[list.size()][]);
+        molecules = new StringBuilder[combinations.length];
+        ids = new StringBuilder[combinations.length];
+        for (int i = 0; i < combinations.length; i++) {
+            molecules[i] = new StringBuilder();
+            ids[i] = new StringBuilder();
+            assembler.assemble(combinations[i], molecules[i], ids[i]);
+        }
+        file = File.createTempFile("smilib-benchmark", format == SDF ? ".sdf" : ".smi");
+    }
+    
+    
+    public long run() throws Exception {
+        SmilesWriter writer;
+        if (format == SDF) {
+            writer = new SmilesToSDFWriter(file.getPath(), false);
+        } else if (format == CHANNEL) {
+            writer = new SmilesChannelWriter(file.getPath(), new OutputSettings());
+        } else {
+            writer = new SmilesFileWriter(file.getPath());
+        }
+        if (writer instanceof CombinationWriter) {
+            CombinationWriter combinationWriter = (CombinationWriter) writer;
+            combinationWriter.prepare(compAdmin, iterator, 0);
+            for (int i = 0; i < molecules.length; i++) {
+                combinationWriter.writeSMILES(molecules[i], ids[i], combinations[i]);
+            }
+        } else {
+            for (int i = 0; i < molecules.length; i++) {
+                writer.writeSMILES(molecules[i], ids[i]);
+            }
+        }
+        writer.close();
+        consume(file.length());
+        return molecules.length;
+    }
+    
+    
+    public void tearDown() {
+        file.delete();
+    }
+}
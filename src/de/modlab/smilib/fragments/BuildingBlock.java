@@ -95,4 +95,24 @@ public class BuildingBlock extends Fragment{
         temp.insert(ringNumberInsertionIndex, "%" + i);
         return temp.toString();
     }
-}
\ No newline at end of file
+    
+    
+    /**
+     *Returns the building block SMILES without the [A]-group.
+     *
+     *@return modified building block SMILES
+     */
+    String getModifiedSMILES() {
+        return this.modifiedBlockSMILES;
+    }
+    
+    
+    /**
+     *Returns the index, where the two digit ring number has to be inserted in the modified SMILES.
+     *
+     *@return insertion index of the ring number
+     */
+    int getRingNumberInsertionIndex() {
+        return this.ringNumberInsertionIndex;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,644 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.fragments;
+
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ *Stores scaffolds, linkers and building blocks in a compact form, used for
+ *very large numbers of fragments. Instead of several objects per fragment,
+ *all SMILES and IDs are stored as bytes in a few large arenas and everything
+ *else in primitive arrays. Fragment objects are only created when they are
+ *requested by <code>getScaffold(...)</code>, <code>getLinker(...)</code> or
+ *<code>getBuildingBlock(...)</code>. The methods used during the enumeration
+ *append to StringBuilders and do not allocate objects.<br>
+ *<br>
+ *Fragments are added through the lists returned by {@link #scaffolds()},
+ *{@link #linkers()} and {@link #buildingBlocks()}, which copy each added
+ *fragment into the store.
+ */
+public class CompactFragmentStore {
+    
+    /** maximum number of bytes of an arena */
+    static final int ARENA_SIZE = 1 << 24;
+    
+    /** charset of IDs with non-ASCII characters */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    
+    /** arenas containing the bytes of all strings */
+    private byte[][] arenas = new byte[4][];
+    
+    /** number of arenas */
+    private int arenaCount = 0;
+    
+    /** first free byte of the last arena */
+    private int arenaPosition = 0;
+    
+    /** position of each string: index of the arena in the upper, offset in the lower 32 bits */
+    private long[] stringPositions = new long[64];
+    
+    /** number of bytes of each string, the complement for UTF-8 encoded strings with non-ASCII characters */
+    private int[] stringLengths = new int[64];
+    
+    /** number of strings */
+    private int stringCount = 0;
+    
+    /** strings: SMILES, ID, R-groups ordered by their number; values: number of R-groups */
+    private Section scaffolds = new Section();
+    
+    /** strings: SMILES, ID, modified SMILES; values: ring number insertion index; flags: empty linker */
+    private Section linkers = new Section();
+    
+    /** strings: SMILES, ID, modified SMILES; values: ring number insertion index */
+    private Section buildingBlocks = new Section();
+    
+    
+    
+    /**
+     *Creates a new instance of CompactFragmentStore.
+     */
+    public CompactFragmentStore() {
+    }
+    
+    
+    /**
+     *Returns a list of the scaffolds of this store. Scaffolds added to the list are copied into the store.
+     *
+     *@return list of the scaffolds
+     */
+    public List<Scaffold> scaffolds() {
+        return new AbstractList<Scaffold>() {
+            public Scaffold get(int index) {
+                return getScaffold(index);
+            }
+            public int size() {
+                return scaffolds.size;
+            }
+            public boolean add(Scaffold scaffold) {
+                addScaffold(scaffold);
+                return true;
+            }
+        };
+    }
+    
+    
+    /**
+     *Returns a list of the linkers of this store. Linkers added to the list are copied into the store.
+     *
+     *@return list of the linkers
+     */
+    public List<Linker> linkers() {
+        return new AbstractList<Linker>() {
+            public Linker get(int index) {
+                return getLinker(index);
+            }
+            public int size() {
+                return linkers.size;
+            }
+            public boolean add(Linker linker) {
+                addLinker(linker);
+                return true;
+            }
+        };
+    }
+    
+    
+    /**
+     *Returns a list of the building blocks of this store. Building blocks added to the list are copied into the store.
+     *
+     *@return list of the building blocks
+     */
+    public List<BuildingBlock> buildingBlocks() {
+        return new AbstractList<BuildingBlock>() {
+            public BuildingBlock get(int index) {
+                return getBuildingBlock(index);
+            }
+            public int size() {
+                return buildingBlocks.size;
+            }
+            public boolean add(BuildingBlock buildingBlock) {
+                addBuildingBlock(buildingBlock);
+                return true;
+            }
+        };
+    }
+    
+    
+    /**
+     *Copies a scaffold into the store.
+     *
+     *@param scaffold scaffold
+     */
+    public void addScaffold(Scaffold scaffold) {
+        int i = scaffolds.add(stringCount, scaffold.getNumberOfRGroups(), scaffold.getBlacklistedNumbers());
+        addString(scaffold.getOriginalSMILES());
+        addString(scaffold.getID());
+        for (int n = 0; n < scaffolds.values[i]; n++) {
+            addString(scaffold.getStringOfGroupWithIndex(n));
+        }
+    }
+    
+    
+    /**
+     *Copies a linker into the store.
+     *
+     *@param linker linker
+     */
+    public void addLinker(Linker linker) {
+        int i = linkers.add(stringCount, linker.getRingNumberInsertionIndex(), linker.getBlacklistedNumbers());
+        linkers.flags[i] = linker.isEmpty();
+        addString(linker.getOriginalSMILES());
+        addString(linker.getID());
+        addString(linker.getModifiedSMILES());
+    }
+    
+    
+    /**
+     *Copies a building block into the store.
+     *
+     *@param buildingBlock building block
+     */
+    public void addBuildingBlock(BuildingBlock buildingBlock) {
+        buildingBlocks.add(stringCount, buildingBlock.getRingNumberInsertionIndex(), buildingBlock.getBlacklistedNumbers());
+        addString(buildingBlock.getOriginalSMILES());
+        addString(buildingBlock.getID());
+        addString(buildingBlock.getModifiedSMILES());
+    }
+    
+    
+    /**
+     *Returns the number of scaffolds.
+     *
+     *@return number of scaffolds
+     */
+    public int getNumberOfScaffolds() {
+        return scaffolds.size;
+    }
+    
+    
+    /**
+     *Returns the number of linkers.
+     *
+     *@return number of linkers
+     */
+    public int getNumberOfLinkers() {
+        return linkers.size;
+    }
+    
+    
+    /**
+     *Returns the number of building blocks.
+     *
+     *@return number of building blocks
+     */
+    public int getNumberOfBuildingBlocks() {
+        return buildingBlocks.size;
+    }
+    
+    
+    /**
+     *Creates the scaffold with index <code>i</code>.
+     *
+     *@param i index of the scaffold
+     *@return new scaffold object
+     */
+    public Scaffold getScaffold(int i) {
+        checkIndex(scaffolds, i);
+        return new Scaffold(getScaffoldString(i), getScaffoldID(i));
+    }
+    
+    
+    /**
+     *Creates the linker with index <code>i</code>.
+     *
+     *@param i index of the linker
+     *@return new linker object
+     */
+    public Linker getLinker(int i) {
+        checkIndex(linkers, i);
+        return new Linker(getString(linkers.firstString[i]), getLinkerID(i));
+    }
+    
+    
+    /**
+     *Creates the building block with index <code>i</code>.
+     *
+     *@param i index of the building block
+     *@return new building block object
+     */
+    public BuildingBlock getBuildingBlock(int i) {
+        checkIndex(buildingBlocks, i);
+        return new BuildingBlock(getString(buildingBlocks.firstString[i]), getBuildingBlockID(i));
+    }
+    
+    
+    /**
+     *Returns the SMILES of the scaffold with index <code>i</code>.
+     *
+     *@param i index of the scaffold
+     *@return scaffold SMILES
+     */
+    public String getScaffoldString(int i) {
+        return getString(scaffolds.firstString[i]);
+    }
+    
+    
+    /**
+     *Returns the id of the scaffold with index <code>i</code>.
+     *
+     *@param i index of the scaffold
+     *@return scaffold ID
+     */
+    public String getScaffoldID(int i) {
+        return getString(scaffolds.firstString[i] + 1);
+    }
+    
+    
+    /**
+     *Returns the id of the linker with index <code>i</code>.
+     *
+     *@param i index of the linker
+     *@return linker ID
+     */
+    public String getLinkerID(int i) {
+        return getString(linkers.firstString[i] + 1);
+    }
+    
+    
+    /**
+     *Returns the id of the building block with index <code>i</code>.
+     *
+     *@param i index of the building block
+     *@return building block ID
+     */
+    public String getBuildingBlockID(int i) {
+        return getString(buildingBlocks.firstString[i] + 1);
+    }
+    
+    
+    /**
+     *Returns the number of variable side chains in the scaffold with index <code>i</code>.
+     *
+     *@param i index of the scaffold
+     *@return number of variable side chains
+     */
+    public int getNumberOfRGroups(int i) {
+        return scaffolds.values[i];
+    }
+    
+    
+    /**
+     *Returns whether the linker with index <code>i</code> is the empty linker.
+     *
+     *@param i index of the linker
+     *@return <code>true</code> if the linker is empty, <code>false</code> if not
+     */
+    public boolean isLinkerEmpty(int i) {
+        return linkers.flags[i];
+    }
+    
+    
+    /**
+     *Returns whether a ring number is used in a scaffold, linker or building block.
+     *
+     *@param num ring number
+     *@param scaff index of the scaffold
+     *@param linker index of the linker
+     *@param bBlock index of the building block
+     *@return <code>true</code> if <code>num</code> is blacklisted, <code>false</code> if not.
+     */
+    public boolean numberBlacklisted(int num, int scaff, int linker, int bBlock) {
+        return scaffolds.blacklisted(scaff, num) || linkers.blacklisted(linker, num) || buildingBlocks.blacklisted(bBlock, num);
+    }
+    
+    
+    /**
+     *Appends the SMILES of the scaffold with index <code>i</code>.
+     *
+     *@param i index of the scaffold
+     *@param target StringBuilder the SMILES is appended to
+     */
+    public void appendScaffoldString(int i, StringBuilder target) {
+        appendString(scaffolds.firstString[i], target);
+    }
+    
+    
+    /**
+     *Appends the ID of the scaffold with index <code>i</code>.
+     *
+     *@param i index of the scaffold
+     *@param target StringBuilder the ID is appended to
+     */
+    public void appendScaffoldID(int i, StringBuilder target) {
+        appendString(scaffolds.firstString[i] + 1, target);
+    }
+    
+    
+    /**
+     *Appends the ID of the linker with index <code>i</code>.
+     *
+     *@param i index of the linker
+     *@param target StringBuilder the ID is appended to
+     */
+    public void appendLinkerID(int i, StringBuilder target) {
+        appendString(linkers.firstString[i] + 1, target);
+    }
+    
+    
+    /**
+     *Appends the ID of the building block with index <code>i</code>.
+     *
+     *@param i index of the building block
+     *@param target StringBuilder the ID is appended to
+     */
+    public void appendBuildingBlockID(int i, StringBuilder target) {
+        appendString(buildingBlocks.firstString[i] + 1, target);
+    }
+    
+    
+    /**
+     *Appends the linker SMILES with the two digit ring number inserted, see {@link Linker#getLinkerForConcat(int)}.
+     *
+     *@param i index of the linker
+     *@param ringNumber two digit ring number
+     *@param target StringBuilder the SMILES is appended to
+     */
+    public void appendLinkerForConcat(int i, int ringNumber, StringBuilder target) {
+        appendForConcat(linkers, i, ringNumber, target);
+    }
+    
+    
+    /**
+     *Appends the building block SMILES with the two digit ring number inserted, see {@link BuildingBlock#getBlockForConcat(int)}.
+     *
+     *@param i index of the building block
+     *@param ringNumber two digit ring number
+     *@param target StringBuilder the SMILES is appended to
+     */
+    public void appendBlockForConcat(int i, int ringNumber, StringBuilder target) {
+        appendForConcat(buildingBlocks, i, ringNumber, target);
+    }
+    
+    
+    /**
+     *Returns the index of the first occurrence of the nth variable side chain of a scaffold in a SMILES.
+     *
+     *@param scaff index of the scaffold
+     *@param n index of the variable side chain
+     *@param smiles SMILES to search
+     *@return index of the variable side chain in <code>smiles</code>, -1 if it does not occur
+     */
+    public int indexOfRGroup(int scaff, int n, StringBuilder smiles) {
+        int string = scaffolds.firstString[scaff] + 2 + n;
+        long position = stringPositions[string];
+        byte[] arena = arenas[(int) (position >>> 32)];
+        int offset = (int) position;
+        int length = stringLengths[string];
+        for (int i = 0; i + length <= smiles.length(); i++) {
+            int j = 0;
+            while (j < length && smiles.charAt(i + j) == arena[offset + j]) {
+                j++;
+            }
+            if (j == length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    
+    /**
+     *Returns the length of the nth variable side chain of a scaffold.
+     *
+     *@param scaff index of the scaffold
+     *@param n index of the variable side chain
+     *@return length of the part of the SMILES that represents the variable side chain
+     */
+    public int getRGroupLength(int scaff, int n) {
+        return stringLengths[scaffolds.firstString[scaff] + 2 + n];
+    }
+    
+    
+    /**
+     *Appends a modified SMILES with the ring number inserted at its insertion index.
+     */
+    private void appendForConcat(Section section, int i, int ringNumber, StringBuilder target) {
+        int string = section.firstString[i] + 2;
+        int insertion = section.values[i];
+        appendRange(string, 0, insertion, target);
+        target.append('%').append(ringNumber);
+        appendRange(string, insertion, stringLengths[string], target);
+    }
+    
+    
+    /**
+     *Copies a string into the last arena.
+     *
+     *@return index of the string
+     */
+    private int addString(String s) {
+        boolean ascii = true;
+        for (int i = 0; i < s.length() && ascii; i++) {
+            ascii = s.charAt(i) < 0x80;
+        }
+        byte[] bytes = ascii ? null : s.getBytes(UTF8);
+        int length = ascii ? s.length() : bytes.length;
+        reserve(length);
+        byte[] arena = arenas[arenaCount - 1];
+        if (ascii) {
+            for (int i = 0; i < length; i++) {
+                arena[arenaPosition + i] = (byte) s.charAt(i);
+            }
+        } else {
+            System.arraycopy(bytes, 0, arena, arenaPosition, length);
+        }
+        
+        if (stringCount == stringLengths.length) {
+            long[] positions = new long[2 * stringCount];
+            System.arraycopy(stringPositions, 0, positions, 0, stringCount);
+            stringPositions = positions;
+            int[] lengths = new int[2 * stringCount];
+            System.arraycopy(stringLengths, 0, lengths, 0, stringCount);
+            stringLengths = lengths;
+        }
+        stringPositions[stringCount] = ((long) (arenaCount - 1) << 32) | arenaPosition;
+        stringLengths[stringCount] = ascii ? length : ~length;
+        arenaPosition += length;
+        return stringCount++;
+    }
+    
+    
+    /**
+     *Makes sure that the last arena has room for <code>length</code> bytes.
+     *Arenas start small and grow up to ARENA_SIZE, then a new arena is added.
+     */
+    private void reserve(int length) {
+        if (arenaCount > 0) {
+            byte[] arena = arenas[arenaCount - 1];
+            int needed = arenaPosition + length;
+            if (needed <= arena.length) {
+                return;
+            }
+            int size = arena.length;
+            while (size < needed && size < ARENA_SIZE) {
+                size = Math.min(2 * size, ARENA_SIZE);
+            }
+            if (needed <= size) {
+                byte[] larger = new byte[size];
+                System.arraycopy(arena, 0, larger, 0, arenaPosition);
+                arenas[arenaCount - 1] = larger;
+                return;
+            }
+        }
+        if (arenaCount == arenas.length) {
+            byte[][] larger = new byte[2 * arenaCount][];
+            System.arraycopy(arenas, 0, larger, 0, arenaCount);
+            arenas = larger;
+        }
+        int size = arenaCount == 0 ? 4096 : ARENA_SIZE;
+        arenas[arenaCount] = new byte[Math.max(size, length)];
+        arenaCount++;
+        arenaPosition = 0;
+    }
+    
+    
+    /**
+     *Returns a string of the store.
+     */
+    private String getString(int string) {
+        long position = stringPositions[string];
+        int length = stringLengths[string];
+        return new String(arenas[(int) (position >>> 32)], (int) position, length < 0 ? ~length : length, UTF8);
+    }
+    
+    
+    /**
+     *Appends a string of the store, without allocation if it is ASCII.
+     */
+    private void appendString(int string, StringBuilder target) {
+        int length = stringLengths[string];
+        if (length < 0) {
+            target.append(getString(string));
+        } else {
+            appendRange(string, 0, length, target);
+        }
+    }
+    
+    
+    /**
+     *Appends the characters <code>start</code> to <code>end</code> of an ASCII string of the store.
+     */
+    private void appendRange(int string, int start, int end, StringBuilder target) {
+        long position = stringPositions[string];
+        byte[] arena = arenas[(int) (position >>> 32)];
+        int offset = (int) position;
+        for (int i = start; i < end; i++) {
+            target.append((char) arena[offset + i]);
+        }
+    }
+    
+    
+    /**
+     *Throws an IndexOutOfBoundsException if <code>i</code> is not a fragment of a section.
+     */
+    private static void checkIndex(Section section, int i) {
+        if (i < 0 || i >= section.size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + section.size);
+        }
+    }
+    
+    
+    
+    /**
+     *Primitive arrays describing the fragments of one kind.
+     */
+    private static class Section {
+        
+        /** number of fragments */
+        private int size = 0;
+        
+        /** index of the first string of each fragment */
+        private int[] firstString = new int[16];
+        
+        /** number of R-groups or ring number insertion index of each fragment */
+        private int[] values = new int[16];
+        
+        /** empty linker true/false */
+        private boolean[] flags = new boolean[16];
+        
+        /** blacklisted ring numbers of each fragment as bit sets of two words */
+        private long[] blacklists = new long[32];
+        
+        
+        
+        /**
+         *Adds a fragment.
+         *
+         *@return index of the fragment
+         */
+        private int add(int first, int value, List<Integer> blacklistedNumbers) {
+            if (size == firstString.length) {
+                int[] strings = new int[2 * size];
+                System.arraycopy(firstString, 0, strings, 0, size);
+                firstString = strings;
+                int[] larger = new int[2 * size];
+                System.arraycopy(values, 0, larger, 0, size);
+                values = larger;
+                boolean[] largerFlags = new boolean[2 * size];
+                System.arraycopy(flags, 0, largerFlags, 0, size);
+                flags = largerFlags;
+                long[] largerBlacklists = new long[4 * size];
+                System.arraycopy(blacklists, 0, largerBlacklists, 0, 2 * size);
+                blacklists = largerBlacklists;
+            }
+            firstString[size] = first;
+            values[size] = value;
+            for (int num : blacklistedNumbers) {
+                blacklists[2 * size + (num >> 6)] |= 1L << (num & 63);
+            }
+            return size++;
+        }
+        
+        
+        /**
+         *Returns whether a ring number is blacklisted for a fragment.
+         */
+        private boolean blacklisted(int i, int num) {
+            return num >= 0 && num < 128 && (blacklists[2 * i + (num >> 6)] & (1L << (num & 63))) != 0;
+        }
+    }
+}
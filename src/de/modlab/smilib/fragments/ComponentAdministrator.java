@@ -37,6 +37,8 @@ package de.modlab.smilib.fragments;
 import de.modlab.smilib.exceptions.SmiLibConformityException;
 import de.modlab.smilib.exceptions.SmiLibIOException;
 import de.modlab.smilib.io.*;
+import de.modlab.smilib.metrics.SampledTimer;
+import de.modlab.smilib.metrics.SmiLibMetrics;
 import java.util.List;
 
 /**
@@ -55,6 +57,9 @@ public class ComponentAdministrator {
     //stores all scaffold SMILES as objects
     private List<Scaffold> scaffolds;
     
+    //stores all fragments in compact form, null if the fragments are stored as objects
+    private CompactFragmentStore store;
+    
     
     
     /**
@@ -66,16 +71,75 @@ public class ComponentAdministrator {
      * @throws java.lang.Exception Exception thrown when error persing source SMILES
      */
     public ComponentAdministrator(String scaffoldsPath, String linkersPath, String buildingBlocksPath, boolean checkSmiles) throws SmiLibIOException, SmiLibConformityException {
+        this(scaffoldsPath, linkersPath, buildingBlocksPath, checkSmiles, 1);
+    }
+    
+    
+    /**
+     * Creates a new instance of ComponentAdministrator. With more than one thread the
+     * files are read by a {@link ParallelSmilesFileReader}, which reports all
+     * non-conforming SMILES of a file at once.
+     * @param scaffoldsPath path/name of the file that contains scaffolds as SMILES
+     * @param linkersPath path/name of the file that contains linkers as SMILES
+     * @param buildingBlocksPath path/name of the file that contains building blocks as SMILES
+     * @param checkSmiles check SMILES for conformity with SMiLib rules true/false
+     * @param threads number of threads used for reading the files
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException if an IO error occures
+     * @throws de.modlab.smilib.exceptions.SmiLibConformityException if a SMILES string does not conform to SmiLib restrictions
+     */
+    public ComponentAdministrator(String scaffoldsPath, String linkersPath, String buildingBlocksPath, boolean checkSmiles, int threads) throws SmiLibIOException, SmiLibConformityException {
+        this(scaffoldsPath, linkersPath, buildingBlocksPath, checkSmiles, threads, false);
+    }
+    
+    
+    /**
+     * Creates a new instance of ComponentAdministrator. The fragments are either stored
+     * as objects or, for very large numbers of fragments, in a {@link CompactFragmentStore}.
+     * @param scaffoldsPath path/name of the file that contains scaffolds as SMILES
+     * @param linkersPath path/name of the file that contains linkers as SMILES
+     * @param buildingBlocksPath path/name of the file that contains building blocks as SMILES
+     * @param checkSmiles check SMILES for conformity with SMiLib rules true/false
+     * @param threads number of threads used for reading the files
+     * @param compact store the fragments in a CompactFragmentStore true/false
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException if an IO error occures
+     * @throws de.modlab.smilib.exceptions.SmiLibConformityException if a SMILES string does not conform to SmiLib restrictions
+     */
+    public ComponentAdministrator(String scaffoldsPath, String linkersPath, String buildingBlocksPath, boolean checkSmiles, int threads, boolean compact) throws SmiLibIOException, SmiLibConformityException {
         
         //create SMILES reader
-        SmilesReader<Scaffold> scaffoldsReader = new SmilesFileReader<Scaffold>(new ScaffoldFactory(), checkSmiles, 0);
-        SmilesReader<Linker> linkerReader = new SmilesFileReader<Linker>(new LinkerFactory(), checkSmiles, 1);
-        SmilesReader<BuildingBlock> buildingBlockReader = new SmilesFileReader<BuildingBlock>(new BuildingBlockFactory(), checkSmiles, 2);
+        SmilesReader<Scaffold> scaffoldsReader;
+        SmilesReader<Linker> linkerReader;
+        SmilesReader<BuildingBlock> buildingBlockReader;
+        if (threads > 1) {
+            scaffoldsReader = new ParallelSmilesFileReader<Scaffold>(new ScaffoldFactory(), checkSmiles, 0, threads);
+            linkerReader = new ParallelSmilesFileReader<Linker>(new LinkerFactory(), checkSmiles, 1, threads);
+            buildingBlockReader = new ParallelSmilesFileReader<BuildingBlock>(new BuildingBlockFactory(), checkSmiles, 2, threads);
+        } else {
+            scaffoldsReader = new SmilesFileReader<Scaffold>(new ScaffoldFactory(), checkSmiles, 0);
+            linkerReader = new SmilesFileReader<Linker>(new LinkerFactory(), checkSmiles, 1);
+            buildingBlockReader = new SmilesFileReader<BuildingBlock>(new BuildingBlockFactory(), checkSmiles, 2);
+        }
         
-        //read SMILES
-        this.scaffolds = scaffoldsReader.readSmiles(scaffoldsPath);
-        this.linkers = linkerReader.readSmiles(linkersPath);
-        this.buildingBlocks = buildingBlockReader.readSmiles(buildingBlocksPath);
+        //read SMILES, every library loaded is timed
+        SampledTimer timer = SmiLibMetrics.timer(SmiLibMetrics.LOADING, 1);
+        long start = timer.start(0);
+        try {
+            if (compact) {
+                this.store = new CompactFragmentStore();
+                this.scaffolds = store.scaffolds();
+                this.linkers = store.linkers();
+                this.buildingBlocks = store.buildingBlocks();
+                scaffoldsReader.readSmiles(scaffoldsPath, this.scaffolds);
+                linkerReader.readSmiles(linkersPath, this.linkers);
+                buildingBlockReader.readSmiles(buildingBlocksPath, this.buildingBlocks);
+            } else {
+                this.scaffolds = scaffoldsReader.readSmiles(scaffoldsPath);
+                this.linkers = linkerReader.readSmiles(linkersPath);
+                this.buildingBlocks = buildingBlockReader.readSmiles(buildingBlocksPath);
+            }
+        } finally {
+            timer.stop(start);
+        }
     }
     
     
@@ -95,10 +159,43 @@ public class ComponentAdministrator {
         //create SMILES reader
         SmilesGuiReader temp = new SmilesGuiReader(checkSmiles);
         
-        //read SMILES
-        this.scaffolds = temp.readScaffolds(scaffolds);
-        this.linkers = temp.readLinkers(linkers);
-        this.buildingBlocks = temp.readBuildingBlocks(buildingBlocks);
+        //read SMILES, every library loaded is timed
+        SampledTimer timer = SmiLibMetrics.timer(SmiLibMetrics.LOADING, 1);
+        long start = timer.start(0);
+        try {
+            this.scaffolds = temp.readScaffolds(scaffolds);
+            this.linkers = temp.readLinkers(linkers);
+            this.buildingBlocks = temp.readBuildingBlocks(buildingBlocks);
+        } finally {
+            timer.stop(start);
+        }
+    }
+    
+    
+    /**
+     * Creates a new instance of ComponentAdministrator from already read fragments.
+     * 
+     * @param scaffolds scaffolds in the order of their source file
+     * @param linkers linkers in the order of their source file
+     * @param buildingBlocks building blocks in the order of their source file
+     */
+    public ComponentAdministrator(List<Scaffold> scaffolds, List<Linker> linkers, List<BuildingBlock> buildingBlocks) {
+        this.scaffolds = scaffolds;
+        this.linkers = linkers;
+        this.buildingBlocks = buildingBlocks;
+    }
+    
+    
+    /**
+     * Creates a new instance of ComponentAdministrator from fragments stored in compact form.
+     * 
+     * @param store scaffolds, linkers and building blocks
+     */
+    public ComponentAdministrator(CompactFragmentStore store) {
+        this.store = store;
+        this.scaffolds = store.scaffolds();
+        this.linkers = store.linkers();
+        this.buildingBlocks = store.buildingBlocks();
     }
     
     
@@ -113,6 +210,9 @@ public class ComponentAdministrator {
      *@return <code>true</code> if <code>num</code> is blacklisted, <code>false</code> if not.
      */
     public boolean numberBlacklisted(int num, int scaff, int linker, int bBlock) {
+        if (store != null) {
+            return store.numberBlacklisted(num, scaff, linker, bBlock);
+        }
         boolean returnBool = false;
         if (this.scaffolds.get(scaff).numberBlacklisted(num)) {
             returnBool = true;
@@ -195,6 +295,9 @@ public class ComponentAdministrator {
      *@return id of the scaffold with the given index
      */
     public String getScaffoldID(int i) {
+        if (store != null) {
+            return store.getScaffoldID(i);
+        }
         return this.scaffolds.get(i).getID();
     }
     
@@ -206,6 +309,9 @@ public class ComponentAdministrator {
      *@return id of the linker with the given index
      */
     public String getLinkerID(int i) {
+        if (store != null) {
+            return store.getLinkerID(i);
+        }
         return this.linkers.get(i).getID();
     }
     
@@ -217,6 +323,9 @@ public class ComponentAdministrator {
      *@return id of the building block with the given index
      */
     public String getBuildingBlockID(int i) {
+        if (store != null) {
+            return store.getBuildingBlockID(i);
+        }
         return this.buildingBlocks.get(i).getID();
     }
     
@@ -227,6 +336,9 @@ public class ComponentAdministrator {
      *@return scaffold of the given index as SMILES string
      */
     public String getScaffoldString(int i) {
+        if (store != null) {
+            return store.getScaffoldString(i);
+        }
         return this.scaffolds.get(i).getOriginalSMILES();
     }
     
@@ -238,6 +350,9 @@ public class ComponentAdministrator {
      *@return number of variable side chains in the scaffold
      */
     public int getNumberOfRGroups(int i) {
+        if (store != null) {
+            return store.getNumberOfRGroups(i);
+        }
         return this.scaffolds.get(i).getNumberOfRGroups();
     }
     
@@ -250,8 +365,154 @@ public class ComponentAdministrator {
     public int[] getNumbersOfRGroups() {
         int[] returnArray = new int[this.scaffolds.size()];
         for (int i = 0; i < returnArray.length; i++) {
-            returnArray[i] = this.scaffolds.get(i).getNumberOfRGroups();
+            returnArray[i] = getNumberOfRGroups(i);
         }
         return returnArray;
     }
-}
\ No newline at end of file
+    
+    
+    /**
+     *Returns whether the linker with index <code>i</code> is the empty linker.
+     *
+     *@param i index of the linker
+     *@return <code>true</code> if the linker is empty, <code>false</code> if not
+     */
+    public boolean isLinkerEmpty(int i) {
+        if (store != null) {
+            return store.isLinkerEmpty(i);
+        }
+        return this.linkers.get(i).isEmpty();
+    }
+    
+    
+    /**
+     *Appends the SMILES of the scaffold with index <code>i</code> to a StringBuilder.
+     *
+     *@param i index of the scaffold
+     *@param target StringBuilder the SMILES is appended to
+     */
+    public void appendScaffoldString(int i, StringBuilder target) {
+        if (store != null) {
+            store.appendScaffoldString(i, target);
+        } else {
+            target.append(this.scaffolds.get(i).getOriginalSMILES());
+        }
+    }
+    
+    
+    /**
+     *Appends the id of the scaffold with index <code>i</code> to a StringBuilder.
+     *
+     *@param i index of the scaffold
+     *@param target StringBuilder the id is appended to
+     */
+    public void appendScaffoldID(int i, StringBuilder target) {
+        if (store != null) {
+            store.appendScaffoldID(i, target);
+        } else {
+            target.append(this.scaffolds.get(i).getID());
+        }
+    }
+    
+    
+    /**
+     *Appends the id of the linker with index <code>i</code> to a StringBuilder.
+     *
+     *@param i index of the linker
+     *@param target StringBuilder the id is appended to
+     */
+    public void appendLinkerID(int i, StringBuilder target) {
+        if (store != null) {
+            store.appendLinkerID(i, target);
+        } else {
+            target.append(this.linkers.get(i).getID());
+        }
+    }
+    
+    
+    /**
+     *Appends the id of the building block with index <code>i</code> to a StringBuilder.
+     *
+     *@param i index of the building block
+     *@param target StringBuilder the id is appended to
+     */
+    public void appendBuildingBlockID(int i, StringBuilder target) {
+        if (store != null) {
+            store.appendBuildingBlockID(i, target);
+        } else {
+            target.append(this.buildingBlocks.get(i).getID());
+        }
+    }
+    
+    
+    /**
+     *Appends the SMILES of the linker with index <code>i</code> ready for concatenation,
+     *see {@link Linker#getLinkerForConcat(int)}.
+     *
+     *@param i index of the linker
+     *@param ringNumber two digit ring number
+     *@param target StringBuilder the SMILES is appended to
+     */
+    public void appendLinkerForConcat(int i, int ringNumber, StringBuilder target) {
+        if (store != null) {
+            store.appendLinkerForConcat(i, ringNumber, target);
+        } else {
+            Linker linker = this.linkers.get(i);
+            String modified = linker.getModifiedSMILES();
+            int insertion = linker.getRingNumberInsertionIndex();
+            target.append(modified, 0, insertion).append('%').append(ringNumber).append(modified, insertion, modified.length());
+        }
+    }
+    
+    
+    /**
+     *Appends the SMILES of the building block with index <code>i</code> ready for concatenation,
+     *see {@link BuildingBlock#getBlockForConcat(int)}.
+     *
+     *@param i index of the building block
+     *@param ringNumber two digit ring number
+     *@param target StringBuilder the SMILES is appended to
+     */
+    public void appendBlockForConcat(int i, int ringNumber, StringBuilder target) {
+        if (store != null) {
+            store.appendBlockForConcat(i, ringNumber, target);
+        } else {
+            BuildingBlock block = this.buildingBlocks.get(i);
+            String modified = block.getModifiedSMILES();
+            int insertion = block.getRingNumberInsertionIndex();
+            target.append(modified, 0, insertion).append('%').append(ringNumber).append(modified, insertion, modified.length());
+        }
+    }
+    
+    
+    /**
+     *Returns the index of the first occurrence of the nth variable side chain
+     *of a scaffold (see {@link Scaffold#getStringOfGroupWithIndex(int)}) in a SMILES.
+     *
+     *@param scaff index of the scaffold
+     *@param n index of the variable side chain
+     *@param smiles SMILES to search
+     *@return index of the variable side chain in <code>smiles</code>, -1 if it does not occur
+     */
+    public int indexOfRGroup(int scaff, int n, StringBuilder smiles) {
+        if (store != null) {
+            return store.indexOfRGroup(scaff, n, smiles);
+        }
+        return smiles.indexOf(this.scaffolds.get(scaff).getStringOfGroupWithIndex(n));
+    }
+    
+    
+    /**
+     *Returns the length of the nth variable side chain of a scaffold.
+     *
+     *@param scaff index of the scaffold
+     *@param n index of the variable side chain
+     *@return length of the part of the scaffold SMILES that represents the variable side chain
+     */
+    public int getRGroupLength(int scaff, int n) {
+        if (store != null) {
+            return store.getRGroupLength(scaff, n);
+        }
+        return this.scaffolds.get(scaff).getStringOfGroupWithIndex(n).length();
+    }
+}
@@ -115,6 +115,16 @@ public class Fragment {
     }
     
     
+    /**
+     *Returns the ring numbers already used in the original SMILES.
+     *
+     *@return blacklisted ring numbers
+     */
+    List<Integer> getBlacklistedNumbers() {
+        return this.blacklistedNumbers;
+    }
+    
+    
     /**
      *Returns the original SMILES String of the fragment.
      *
@@ -133,4 +143,4 @@ public class Fragment {
     public String getID() {
         return this.id;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,166 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.fragments;
+
+import de.modlab.smilib.exceptions.SmiLibConformityException;
+import de.modlab.smilib.exceptions.SmiLibIOException;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+/**
+ *Keeps the fragments of recently used SMILES files, so that a long-running
+ *process reads and checks the files of a library only once. The fragments are
+ *read again when one of the files was modified since, i.e. when its
+ *modification time or length changed. The least recently used fragments are
+ *dropped when more libraries than the capacity are cached.
+ */
+public class FragmentCache {
+    
+    /** maximum number of cached libraries */
+    private int capacity;
+    
+    /** cached fragments by canonical file paths and settings, least recently used first */
+    private LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    
+    /** number of requests answered from the cache */
+    private long hits = 0;
+    
+    /** number of requests that read the files */
+    private long misses = 0;
+    
+    
+    
+    /**
+     *Creates a new instance of FragmentCache.
+     *
+     *@param capacity maximum number of cached libraries
+     */
+    public FragmentCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid cache capacity: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+    
+    
+    /**
+     *Returns the fragments of the given files, reading them only if they are
+     *not cached or were modified since they were cached. The arguments are
+     *those of {@link ComponentAdministrator#ComponentAdministrator(String, String, String, boolean, int, boolean)}.
+     *
+     * @param scaffoldsPath path/name of the file that contains scaffolds as SMILES
+     * @param linkersPath path/name of the file that contains linkers as SMILES
+     * @param buildingBlocksPath path/name of the file that contains building blocks as SMILES
+     * @param checkSmiles check SMILES for conformity with SMiLib rules true/false
+     * @param threads number of threads used for reading the files
+     * @param compact store the fragments in a CompactFragmentStore true/false
+     * @return the fragments, shared with other users of the cache
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException if an IO error occures
+     * @throws de.modlab.smilib.exceptions.SmiLibConformityException if a SMILES string does not conform to SmiLib restrictions
+     */
+    public ComponentAdministrator getComponentAdministrator(String scaffoldsPath, String linkersPath, String buildingBlocksPath, boolean checkSmiles, int threads, boolean compact) throws SmiLibIOException, SmiLibConformityException {
+        File[] files = {new File(scaffoldsPath), new File(linkersPath), new File(buildingBlocksPath)};
+        StringBuilder key = new StringBuilder();
+        long[] stamps = new long[2 * files.length];
+        for (int i = 0; i < files.length; i++) {
+            try {
+                key.append(files[i].getCanonicalPath()).append('\n');
+            } catch (IOException exc) {
+                throw new SmiLibIOException(exc);
+            }
+            stamps[2 * i] = files[i].lastModified();
+            stamps[2 * i + 1] = files[i].length();
+        }
+        key.append(checkSmiles).append(compact);
+        
+        synchronized (this) {
+            Entry entry = entries.get(key.toString());
+            if (entry != null && Arrays.equals(entry.stamps, stamps)) {
+                hits++;
+                return entry.compAdmin;
+            }
+            misses++;
+        }
+        
+        //files are read without holding the lock, a library requested twice meanwhile is read twice
+        ComponentAdministrator compAdmin = new ComponentAdministrator(scaffoldsPath, linkersPath, buildingBlocksPath, checkSmiles, threads, compact);
+        synchronized (this) {
+            entries.put(key.toString(), new Entry(stamps, compAdmin));
+            while (entries.size() > capacity) {
+                entries.remove(entries.keySet().iterator().next());
+            }
+        }
+        return compAdmin;
+    }
+    
+    
+    /**
+     *Returns the number of requests answered from the cache.
+     *
+     *@return number of cache hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+    
+    
+    /**
+     *Returns the number of requests that read the files.
+     *
+     *@return number of cache misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+    
+    
+    
+    /**
+     *Fragments of a library and the modification times and lengths of its files.
+     */
+    private static class Entry {
+        
+        private long[] stamps;
+        
+        private ComponentAdministrator compAdmin;
+        
+        private Entry(long[] stamps, ComponentAdministrator compAdmin) {
+            this.stamps = stamps;
+            this.compAdmin = compAdmin;
+        }
+    }
+}
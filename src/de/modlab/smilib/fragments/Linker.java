@@ -140,6 +140,26 @@ public class Linker extends Fragment{
     }
     
     
+    /**
+     *Returns the linker SMILES without the [R]- or [R1]-group.
+     *
+     *@return modified linker SMILES
+     */
+    String getModifiedSMILES() {
+        return this.modifiedLinkerSMILES;
+    }
+    
+    
+    /**
+     *Returns the index, where the two digit ring number has to be inserted in the modified SMILES.
+     *
+     *@return insertion index of the ring number
+     */
+    int getRingNumberInsertionIndex() {
+        return this.ringNumberInsertionIndex;
+    }
+    
+    
     /**
      *Returns whether this linker is empty or not.
      *
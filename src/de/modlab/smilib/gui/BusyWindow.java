@@ -35,6 +35,8 @@
 package de.modlab.smilib.gui;
 
 import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.main.EnumerationProgress;
+import java.text.DecimalFormat;
 
 /**
  *Status window for SmiLib GUI.
@@ -43,12 +45,12 @@ import de.modlab.smilib.iterator.SmiLibIterator;
  */
 public class BusyWindow extends javax.swing.JFrame{
     
+    /** number of steps of the progress bar, libraries may have more molecules than an int can count */
+    private static final int PROGRESS_STEPS = 1000;
+    
     //GUI frame
     private SmiLibFrame parentFrame;
     
-    //progress as int value
-    private int progress = 1;
-    
     
     
     /**
@@ -60,9 +62,8 @@ public class BusyWindow extends javax.swing.JFrame{
     public BusyWindow(SmiLibIterator iterator, SmiLibFrame parentFrame) {
         this.parentFrame = parentFrame;
         initComponents();
-        int maxNumberOfCompounds = (int)iterator.getMaximum();
-        jProgressBar1.setMaximum(maxNumberOfCompounds);
-        jLabel5.setText(Integer.toString(maxNumberOfCompounds));
+        jProgressBar1.setMaximum(PROGRESS_STEPS);
+        jLabel5.setText(Long.toString(iterator.getMaximum()));
         center();
         this.setVisible(true);
     }
@@ -80,12 +81,18 @@ public class BusyWindow extends javax.swing.JFrame{
     
     
     /**
-     *Increases Progress in progress bar and frame title.
+     *Shows the last sample of the progress.
+     *
+     *@param progress progress of the enumeration
      */
-    public void increaseProgress() {
-        jProgressBar1.setValue(progress);
-        jLabel6.setText(Integer.toString(progress));
-        progress++;
+    public void setProgress(EnumerationProgress progress) {
+        DecimalFormat count = new DecimalFormat("###,###,###,##0");
+        DecimalFormat rate = new DecimalFormat("###,###,###,##0.0");
+        jProgressBar1.setValue((int) (progress.getFraction() * PROGRESS_STEPS));
+        jLabel6.setText(Long.toString(progress.getMolecules()));
+        jLabel8.setText(count.format(progress.getMoleculesPerSecond()) + "/s, " + rate.format(progress.getBytesPerSecond() / (1 << 20)) + " MB/s");
+        jLabel10.setText(EnumerationProgress.formatTime(progress.getRemainingTime()));
+        jLabel12.setText(count.format(progress.getUsedMemory() >> 20) + " of " + count.format(progress.getMaxMemory() >> 20) + " MB");
     }
     
     
@@ -100,6 +107,12 @@ public class BusyWindow extends javax.swing.JFrame{
         jLabel4 = new javax.swing.JLabel();
         jLabel5 = new javax.swing.JLabel();
         jLabel6 = new javax.swing.JLabel();
+        jLabel7 = new javax.swing.JLabel();
+        jLabel8 = new javax.swing.JLabel();
+        jLabel9 = new javax.swing.JLabel();
+        jLabel10 = new javax.swing.JLabel();
+        jLabel11 = new javax.swing.JLabel();
+        jLabel12 = new javax.swing.JLabel();
         jPanel2 = new javax.swing.JPanel();
         jButton1 = new javax.swing.JButton();
         jPanel3 = new javax.swing.JPanel();
@@ -127,6 +140,27 @@ public class BusyWindow extends javax.swing.JFrame{
         jLabel6.setText(" ");
         jLabel6.setDoubleBuffered(true);
 
+        jLabel7.setText("Throughput:");
+        jLabel7.setDoubleBuffered(true);
+
+        jLabel8.setHorizontalAlignment(javax.swing.SwingConstants.TRAILING);
+        jLabel8.setText(" ");
+        jLabel8.setDoubleBuffered(true);
+
+        jLabel9.setText("Time remaining:");
+        jLabel9.setDoubleBuffered(true);
+
+        jLabel10.setHorizontalAlignment(javax.swing.SwingConstants.TRAILING);
+        jLabel10.setText(" ");
+        jLabel10.setDoubleBuffered(true);
+
+        jLabel11.setText("Memory used:");
+        jLabel11.setDoubleBuffered(true);
+
+        jLabel12.setHorizontalAlignment(javax.swing.SwingConstants.TRAILING);
+        jLabel12.setText(" ");
+        jLabel12.setDoubleBuffered(true);
+
         jButton1.setText("Cancel");
         jButton1.setDoubleBuffered(true);
         jButton1.addActionListener(new java.awt.event.ActionListener() {
@@ -166,6 +200,24 @@ public class BusyWindow extends javax.swing.JFrame{
                 .addPreferredGap(org.jdesktop.layout.LayoutStyle.RELATED, 123, Short.MAX_VALUE)
                 .add(jLabel6, org.jdesktop.layout.GroupLayout.PREFERRED_SIZE, 110, org.jdesktop.layout.GroupLayout.PREFERRED_SIZE)
                 .addContainerGap())
+            .add(org.jdesktop.layout.GroupLayout.TRAILING, layout.createSequentialGroup()
+                .addContainerGap()
+                .add(jLabel7)
+                .addPreferredGap(org.jdesktop.layout.LayoutStyle.RELATED, 60, Short.MAX_VALUE)
+                .add(jLabel8, org.jdesktop.layout.GroupLayout.PREFERRED_SIZE, 200, org.jdesktop.layout.GroupLayout.PREFERRED_SIZE)
+                .addContainerGap())
+            .add(org.jdesktop.layout.GroupLayout.TRAILING, layout.createSequentialGroup()
+                .addContainerGap()
+                .add(jLabel9)
+                .addPreferredGap(org.jdesktop.layout.LayoutStyle.RELATED, 60, Short.MAX_VALUE)
+                .add(jLabel10, org.jdesktop.layout.GroupLayout.PREFERRED_SIZE, 200, org.jdesktop.layout.GroupLayout.PREFERRED_SIZE)
+                .addContainerGap())
+            .add(org.jdesktop.layout.GroupLayout.TRAILING, layout.createSequentialGroup()
+                .addContainerGap()
+                .add(jLabel11)
+                .addPreferredGap(org.jdesktop.layout.LayoutStyle.RELATED, 60, Short.MAX_VALUE)
+                .add(jLabel12, org.jdesktop.layout.GroupLayout.PREFERRED_SIZE, 200, org.jdesktop.layout.GroupLayout.PREFERRED_SIZE)
+                .addContainerGap())
             .add(jPanel3, org.jdesktop.layout.GroupLayout.DEFAULT_SIZE, 369, Short.MAX_VALUE)
             .add(layout.createSequentialGroup()
                 .addContainerGap()
@@ -195,6 +247,18 @@ public class BusyWindow extends javax.swing.JFrame{
                 .add(layout.createParallelGroup(org.jdesktop.layout.GroupLayout.BASELINE)
                     .add(jLabel6)
                     .add(jLabel4))
+                .addPreferredGap(org.jdesktop.layout.LayoutStyle.RELATED)
+                .add(layout.createParallelGroup(org.jdesktop.layout.GroupLayout.BASELINE)
+                    .add(jLabel8)
+                    .add(jLabel7))
+                .addPreferredGap(org.jdesktop.layout.LayoutStyle.RELATED)
+                .add(layout.createParallelGroup(org.jdesktop.layout.GroupLayout.BASELINE)
+                    .add(jLabel10)
+                    .add(jLabel9))
+                .addPreferredGap(org.jdesktop.layout.LayoutStyle.RELATED)
+                .add(layout.createParallelGroup(org.jdesktop.layout.GroupLayout.BASELINE)
+                    .add(jLabel12)
+                    .add(jLabel11))
                 .addContainerGap())
         );
         pack();
@@ -209,11 +273,17 @@ public class BusyWindow extends javax.swing.JFrame{
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JButton jButton1;
     private javax.swing.JLabel jLabel1;
+    private javax.swing.JLabel jLabel10;
+    private javax.swing.JLabel jLabel11;
+    private javax.swing.JLabel jLabel12;
     private javax.swing.JLabel jLabel2;
     private javax.swing.JLabel jLabel3;
     private javax.swing.JLabel jLabel4;
     private javax.swing.JLabel jLabel5;
     private javax.swing.JLabel jLabel6;
+    private javax.swing.JLabel jLabel7;
+    private javax.swing.JLabel jLabel8;
+    private javax.swing.JLabel jLabel9;
     private javax.swing.JPanel jPanel2;
     private javax.swing.JPanel jPanel3;
     private javax.swing.JPanel jPanel4;
@@ -34,8 +34,9 @@
 
 package de.modlab.smilib.gui;
 
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.SmiLibIterator;
 import java.text.DecimalFormat;
-import javax.swing.JTextArea;
 
 /**
  *GUI element for SmiLib GUI that displays the combinatorial library.
@@ -44,11 +45,6 @@ import javax.swing.JTextArea;
  */
 public class LibraryPanel extends javax.swing.JPanel {
     
-    //progress as int value
-    private int progress = 1;
-    
-    
-    
     /**
      *Creates new form LibraryPanel
      */
@@ -62,22 +58,23 @@ public class LibraryPanel extends javax.swing.JPanel {
      */
     public void reset() {
         jPanel1.setBorder(javax.swing.BorderFactory.createTitledBorder("Library"));
-        jTextArea1.setText("");
+        libraryView.reset();
         jLabel2.setText(" ");
         jLabel4.setText(" ");
         jLabel6.setText(" ");
         jLabel8.setText(" ");
         jLabel10.setText(" ");
-        progress = 1;
     }
     
     
     /**
-     *Increases progress.
+     *Shows the progress. The molecules enumerated so far can be viewed in the library.
+     *
+     *@param progress number of molecules enumerated so far
      */
-    public void increaseProgress() {
-        jLabel8.setText(Integer.toString(progress));
-        progress++;
+    public void setProgress(long progress) {
+        jLabel8.setText(Long.toString(progress));
+        libraryView.setRowCount(progress);
     }
     
     
@@ -108,12 +105,13 @@ public class LibraryPanel extends javax.swing.JPanel {
     
     
     /**
-     *Returns the JTextArea, in which the library can be written.
+     *Sets the library that is shown while it is enumerated.
      *
-     *@return JTextArea in which the library can be written
+     *@param compAdmin scaffolds, linkers and building blocks of the library
+     *@param iterator iterator the library is enumerated with
      */
-    public JTextArea getTargetTextArea() {
-        return jTextArea1;
+    public void setLibrary(ComponentAdministrator compAdmin, SmiLibIterator iterator) {
+        libraryView.setLibrary(compAdmin, iterator);
     }
     
     
@@ -135,8 +133,7 @@ public class LibraryPanel extends javax.swing.JPanel {
     // <editor-fold defaultstate="collapsed" desc=" Generated Code ">//GEN-BEGIN:initComponents
     private void initComponents() {
         jPanel1 = new javax.swing.JPanel();
-        jScrollPane1 = new javax.swing.JScrollPane();
-        jTextArea1 = new javax.swing.JTextArea();
+        libraryView = new de.modlab.smilib.gui.LibraryView();
         jPanel2 = new javax.swing.JPanel();
         jLabel1 = new javax.swing.JLabel();
         jLabel2 = new javax.swing.JLabel();
@@ -160,12 +157,7 @@ public class LibraryPanel extends javax.swing.JPanel {
         jPanel1.setLayout(new org.netbeans.lib.awtextra.AbsoluteLayout());
 
         jPanel1.setBorder(javax.swing.BorderFactory.createTitledBorder("Library"));
-        jTextArea1.setColumns(20);
-        jTextArea1.setEditable(false);
-        jTextArea1.setRows(5);
-        jScrollPane1.setViewportView(jTextArea1);
-
-        jPanel1.add(jScrollPane1, new org.netbeans.lib.awtextra.AbsoluteConstraints(20, 30, 530, 360));
+        jPanel1.add(libraryView, new org.netbeans.lib.awtextra.AbsoluteConstraints(20, 30, 530, 360));
 
         add(jPanel1, new org.netbeans.lib.awtextra.AbsoluteConstraints(290, 0, 570, 410));
 
@@ -234,12 +226,11 @@ public class LibraryPanel extends javax.swing.JPanel {
     private javax.swing.JLabel jLabel9;
     private javax.swing.JPanel jPanel1;
     private javax.swing.JPanel jPanel2;
-    private javax.swing.JScrollPane jScrollPane1;
     private javax.swing.JSeparator jSeparator1;
     private javax.swing.JSeparator jSeparator2;
     private javax.swing.JSeparator jSeparator3;
     private javax.swing.JSeparator jSeparator4;
-    private javax.swing.JTextArea jTextArea1;
+    private de.modlab.smilib.gui.LibraryView libraryView;
     // End of variables declaration//GEN-END:variables
     
 }
@@ -0,0 +1,461 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.gui;
+
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.main.SmilesAssembler;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.AdjustmentEvent;
+import java.awt.event.AdjustmentListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import javax.swing.AbstractAction;
+import javax.swing.AbstractListModel;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollBar;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.ToolTipManager;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+
+/**
+ *Shows a combinatorial library as a list of molecules. Only the rows that are
+ *visible are assembled, directly from their index in the library, so that
+ *libraries of any size can be scrolled through without keeping the molecules
+ *in memory. A molecule can be looked up by its number or its ID.
+ */
+public class LibraryView extends JPanel {
+    
+    /** number of rows scrolled per notch of the mouse wheel */
+    private static final int WHEEL_ROWS = 3;
+    
+    /** largest value of the scroll bar, larger libraries are scrolled in steps of several rows */
+    private static final int SCROLL_RANGE = 1 << 30;
+    
+    /** number of rows beyond the end of any library, used to move to the first or last row */
+    private static final long END = Long.MAX_VALUE / 4;
+    
+    //iterator the library is enumerated with
+    private SmiLibIterator iterator;
+    
+    //assembles the visible molecules
+    private SmilesAssembler assembler;
+    
+    //number of molecules that can be shown
+    private long rowCount = 0;
+    
+    //index of the first visible molecule
+    private long firstRow = 0;
+    
+    //number of rows that fit into the list
+    private int visibleRows = 1;
+    
+    //index of the selected molecule, -1 if none is selected
+    private long selectedRow = -1;
+    
+    //the visible rows, assembled when they are painted first
+    private Row[] window = new Row[0];
+    
+    //the scroll bar or list selection is being set by this view true/false
+    private boolean adjusting = false;
+    
+    private RowModel model = new RowModel();
+    private JList list = new JList(model);
+    private JScrollBar scrollBar = new JScrollBar(JScrollBar.VERTICAL);
+    private JTextField jumpField = new JTextField(20);
+    
+    
+    /**
+     *Creates a new instance of LibraryView.
+     */
+    public LibraryView() {
+        super(new BorderLayout());
+        
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFixedCellHeight(list.getFontMetrics(list.getFont()).getHeight() + 2);
+        list.setCellRenderer(new RowRenderer());
+        ToolTipManager.sharedInstance().registerComponent(list);
+        list.addListSelectionListener(new ListSelectionListener() {
+            public void valueChanged(ListSelectionEvent e) {
+                if (!adjusting && list.getSelectedIndex() >= 0) {
+                    selectedRow = firstRow + list.getSelectedIndex();
+                }
+            }
+        });
+        list.addMouseWheelListener(new MouseWheelListener() {
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                setFirstRow(firstRow + (long) e.getWheelRotation() * WHEEL_ROWS);
+            }
+        });
+        list.addComponentListener(new ComponentAdapter() {
+            public void componentResized(ComponentEvent e) {
+                visibleRows = Math.max(1, list.getHeight() / list.getFixedCellHeight());
+                setFirstRow(firstRow);
+            }
+        });
+        bindKey("UP", -1, 0);
+        bindKey("DOWN", 1, 0);
+        bindKey("PAGE_UP", 0, -1);
+        bindKey("PAGE_DOWN", 0, 1);
+        bindKey("ctrl HOME", -END, 0);
+        bindKey("ctrl END", END, 0);
+        
+        scrollBar.addAdjustmentListener(new AdjustmentListener() {
+            public void adjustmentValueChanged(AdjustmentEvent e) {
+                if (!adjusting) {
+                    scrolled();
+                }
+            }
+        });
+        
+        ActionListener jump = new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                jump(jumpField.getText().trim());
+            }
+        };
+        jumpField.setToolTipText("Number (counting from 1) or ID of a molecule");
+        jumpField.addActionListener(jump);
+        JButton jumpButton = new JButton("Go to");
+        jumpButton.addActionListener(jump);
+        JPanel jumpPanel = new JPanel();
+        jumpPanel.add(new JLabel("Molecule number or ID:"));
+        jumpPanel.add(jumpField);
+        jumpPanel.add(jumpButton);
+        
+        add(list, BorderLayout.CENTER);
+        add(scrollBar, BorderLayout.EAST);
+        add(jumpPanel, BorderLayout.SOUTH);
+        reset();
+    }
+    
+    
+    /**
+     *Sets the library to show. No molecules are shown until the number of rows is set.
+     *
+     *@param compAdmin scaffolds, linkers and building blocks of the library
+     *@param iterator iterator the library is enumerated with
+     */
+    public void setLibrary(ComponentAdministrator compAdmin, SmiLibIterator iterator) {
+        this.iterator = iterator;
+        assembler = new SmilesAssembler(compAdmin);
+        rowCount = 0;
+        firstRow = 0;
+        selectedRow = -1;
+        update();
+    }
+    
+    
+    /**
+     *Sets the number of molecules that can be shown, e.g. the number of molecules
+     *enumerated so far. If the last row was visible, the view follows the end of the library.
+     *
+     *@param rows number of molecules, at most the size of the library
+     */
+    public void setRowCount(long rows) {
+        if (iterator == null) {
+            return;
+        }
+        boolean following = rowCount > 0 && firstRow == getLastFirstRow();
+        rowCount = Math.min(rows, iterator.getMaximum());
+        if (following) {
+            firstRow = getLastFirstRow();
+        }
+        update();
+    }
+    
+    
+    /**
+     *Returns the number of molecules that can be shown.
+     *
+     *@return number of rows
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+    
+    
+    /**
+     *Removes the library from the view.
+     */
+    public void reset() {
+        iterator = null;
+        assembler = null;
+        rowCount = 0;
+        firstRow = 0;
+        selectedRow = -1;
+        jumpField.setText("");
+        update();
+    }
+    
+    
+    /**
+     *Scrolls to a molecule and selects it.
+     *
+     *@param row index of the molecule (counting from 0)
+     */
+    public void select(long row) {
+        if (rowCount == 0) {
+            return;
+        }
+        selectedRow = Math.max(0, Math.min(row, rowCount - 1));
+        if (selectedRow < firstRow) {
+            firstRow = selectedRow;
+        } else if (selectedRow >= firstRow + visibleRows) {
+            firstRow = selectedRow - visibleRows + 1;
+        }
+        update();
+    }
+    
+    
+    /**
+     *Returns the index of the selected molecule.
+     *
+     *@return index of the selected molecule (counting from 0), -1 if no molecule is selected
+     */
+    public long getSelectedRow() {
+        return selectedRow;
+    }
+    
+    
+    /**
+     *Scrolls the view so that a molecule is the first visible row, as far as possible.
+     *
+     *@param row index of the molecule (counting from 0)
+     */
+    public void setFirstRow(long row) {
+        firstRow = row;
+        update();
+    }
+    
+    
+    /**
+     *Returns the index of the first visible molecule.
+     *
+     *@return index of the first visible molecule (counting from 0)
+     */
+    public long getFirstRow() {
+        return firstRow;
+    }
+    
+    
+    /**
+     *Selects the molecule with the given ID or, if no molecule has this ID, the
+     *molecule with the given number.
+     *
+     *@param text molecule ID or number (counting from 1)
+     */
+    private void jump(String text) {
+        if (text.length() == 0 || assembler == null) {
+            return;
+        }
+        int[] combination = assembler.parseID(text);
+        long row = combination == null ? -1 : iterator.getIndex(combination);
+        if (row < 0) {
+            try {
+                row = Long.parseLong(text) - 1;
+            } catch (NumberFormatException exc) {
+                row = -1;
+            }
+        }
+        if (row < 0 || row >= rowCount) {
+            JOptionPane.showMessageDialog(this, "There is no molecule with number or ID \"" + text + "\" in the library.",
+                    "Molecule not found", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        select(row);
+        list.requestFocusInWindow();
+    }
+    
+    
+    /**
+     *Binds a key to moving the selection.
+     *
+     *@param key key stroke, e.g. "DOWN"
+     *@param rows number of rows to move
+     *@param pages number of pages to move
+     */
+    private void bindKey(String key, final long rows, final int pages) {
+        String name = "move " + key;
+        list.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(key), name);
+        list.getActionMap().put(name, new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                select((selectedRow < 0 ? firstRow : selectedRow) + rows + (long) pages * visibleRows);
+            }
+        });
+    }
+    
+    
+    /**
+     *Returns the largest index the first visible row can have.
+     *
+     *@return index of the first row when the last row is visible
+     */
+    private long getLastFirstRow() {
+        return Math.max(0, rowCount - visibleRows);
+    }
+    
+    
+    /**
+     *Returns the number of rows one step of the scroll bar stands for.
+     *
+     *@return rows per scroll bar unit
+     */
+    private long getScale() {
+        return rowCount / SCROLL_RANGE + 1;
+    }
+    
+    
+    /**
+     *Scrolls the list to the position of the scroll bar.
+     */
+    private void scrolled() {
+        int value = scrollBar.getValue();
+        if (value + scrollBar.getVisibleAmount() >= scrollBar.getMaximum()) {
+            firstRow = getLastFirstRow();
+        } else {
+            firstRow = value * getScale();
+        }
+        update();
+    }
+    
+    
+    /**
+     *Shows the rows starting at the first row and moves the scroll bar and
+     *selection accordingly.
+     */
+    private void update() {
+        firstRow = Math.max(0, Math.min(firstRow, getLastFirstRow()));
+        window = new Row[(int) Math.min(visibleRows, rowCount - firstRow)];
+        
+        adjusting = true;
+        long scale = getScale();
+        int maximum = (int) ((rowCount + scale - 1) / scale);
+        int extent = (int) Math.max(1, visibleRows / scale);
+        scrollBar.setValues((int) (firstRow / scale), Math.min(extent, Math.max(1, maximum)), 0, Math.max(1, maximum));
+        scrollBar.setBlockIncrement(extent);
+        scrollBar.setEnabled(rowCount > visibleRows);
+        model.changed();
+        if (selectedRow >= firstRow && selectedRow < firstRow + window.length) {
+            list.setSelectedIndex((int) (selectedRow - firstRow));
+        } else {
+            list.clearSelection();
+        }
+        adjusting = false;
+    }
+    
+    
+    /**
+     *A molecule of the library.
+     */
+    private static class Row {
+        
+        private long index;
+        private String id;
+        private String smiles;
+        
+        /**
+         *Creates a new instance of Row.
+         */
+        Row(long index, String id, String smiles) {
+            this.index = index;
+            this.id = id;
+            this.smiles = smiles;
+        }
+        
+        /**
+         *Returns the molecule as written to a SMILES file, used when the row is copied.
+         */
+        public String toString() {
+            return id + "\t" + smiles;
+        }
+    }
+    
+    
+    /**
+     *The visible rows of the library.
+     */
+    private class RowModel extends AbstractListModel {
+        
+        public int getSize() {
+            return window.length;
+        }
+        
+        public Object getElementAt(int i) {
+            if (window[i] == null) {
+                StringBuilder smiles = new StringBuilder();
+                StringBuilder id = new StringBuilder();
+                assembler.assemble(iterator.getCombination(firstRow + i), smiles, id);
+                window[i] = new Row(firstRow + i, id.toString(), smiles.toString());
+            }
+            return window[i];
+        }
+        
+        /**
+         *Tells the list that other rows are visible.
+         */
+        void changed() {
+            fireContentsChanged(this, 0, Integer.MAX_VALUE);
+        }
+    }
+    
+    
+    /**
+     *Shows the number, ID and SMILES of a molecule.
+     */
+    private static class RowRenderer extends DefaultListCellRenderer {
+        
+        public Component getListCellRendererComponent(JList list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+            Row row = (Row) value;
+            String text = (row.index + 1) + "   " + row.id + "   " + row.smiles;
+            super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            setToolTipText(text);
+            return this;
+        }
+    }
+}
@@ -37,14 +37,21 @@ package de.modlab.smilib.gui;
 import com.jgoodies.looks.plastic.PlasticLookAndFeel;
 import com.jgoodies.looks.plastic.PlasticXPLookAndFeel;
 import com.jgoodies.looks.plastic.theme.ExperienceRoyale;
+import de.modlab.smilib.fragments.ComponentAdministrator;
 import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.main.EnumerationJob;
+import de.modlab.smilib.main.EnumerationJobManager;
+import de.modlab.smilib.main.EnumerationProgress;
 import de.modlab.smilib.main.SmiLibRunner;
 import edu.stanford.ejalbert.BrowserLauncher;
 import java.awt.AWTEvent;
 import java.awt.BorderLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseEvent;
+import java.awt.event.ActionListener;
 import java.text.DecimalFormat;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 
@@ -90,9 +97,18 @@ public class SmiLibFrame extends javax.swing.JFrame {
   /** frame for the about box */
   private HelpAboutFrame about;
   
+  /** runs the enumerations */
+  private EnumerationJobManager jobManager = new EnumerationJobManager();
+  
+  /** current enumeration */
+  private EnumerationJob job;
+  
   /** SmiLib iterator over virtual reactions */
   private SmiLibIterator iterator;
   
+  /** scaffolds, linkers and building blocks of the library */
+  private ComponentAdministrator compAdmin;
+  
   /** boolean that indicates whether the enumeration was stopped by the user or not */
   private boolean enumerationStopped = false;
   
@@ -105,8 +121,12 @@ public class SmiLibFrame extends javax.swing.JFrame {
   /** enumeration was first enumeration true/false */
   private boolean firstEnumeration = true;
   
-  /** limit of molecules - if you show more in the GUI you may provoke a Java Heap Size Overflow */
-  private int javaHeapSizeOverflowLimit = 75000;
+  /** shows the progress in the status window and library panel a few times per second */
+  private Timer progressTimer = new Timer(200, new ActionListener() {
+    public void actionPerformed(ActionEvent e) {
+      showProgress();
+    }
+  });
   
   
   /**
@@ -267,7 +287,6 @@ public class SmiLibFrame extends javax.swing.JFrame {
   public void enumerateLibrary() {
     
     int returnVal = 0;
-    boolean preview = false;
     
     //till now no error and process not cancelled
     errorOccured = false;
@@ -285,6 +304,7 @@ public class SmiLibFrame extends javax.swing.JFrame {
       
       //reset the iterator
       iterator = null;
+      compAdmin = null;
 
       //new thread created
       sRunner = new SmiLibRunner(
@@ -293,8 +313,6 @@ public class SmiLibFrame extends javax.swing.JFrame {
               source.getBuildingBlocks(),
               source.useReactionScheme(),
               source.getReactionScheme(),
-              library.getTargetTextArea(),
-              control.getShowLibrary(),
               control.getSaveAsFile(),
               control.getSaveAsSDF(),
               control.getAddHydrogens(),
@@ -304,60 +322,31 @@ public class SmiLibFrame extends javax.swing.JFrame {
       
       //iterator is null, when en error occured duing preprocessing
       if (iterator != null) {
-        if (control.getShowLibrary() & iterator.getMaximum() > javaHeapSizeOverflowLimit) {
-          Object[] options = {"Just show preview",
-          "Show complete library",
-          "Cancel"};
-          returnVal = messageBox.showOptionDialog(this,
-                  "The number of molecules in the library you want to create and display in the GUI\n" +
-                  "might provoke a \"Java Heap Size Overflow\". You can choose to diplsay just a preview of\n" +
-                  "your library (first " + javaHeapSizeOverflowLimit + " molecules). If you reserved enough memory for your VM you can\n" +
-                  "continue with the enumeration showing the complete library. If you want to change your\n" +
-                  "settings you can cancel enumeration." ,
-                  "Warning - very large library",
-                  javax.swing.JOptionPane.YES_NO_CANCEL_OPTION,
-                  javax.swing.JOptionPane.WARNING_MESSAGE,
-                  null,
-                  options,
-                  options[0]);
-          if (returnVal == javax.swing.JOptionPane.OK_OPTION) {
-            preview = true;
-          }
+        
+        //GUI gets freezed, so that no change can be performed
+        this.deactivateGui();
+        
+        //reset of library panel, the library is shown as far as it has been enumerated
+        library.reset();
+        library.setLibrary(compAdmin, iterator);
+        
+        //if no error occured the status window is shown
+        if (iterator != null & !errorOccured) {
+          busy = new BusyWindow(iterator, this);
+          progressTimer.start();
+        }
+        
+        //process gets started
+        try {
+          job = jobManager.submit(sRunner);
+        } catch (Exception exc) {
+          messageBox.showMessageDialog(this, "Enumeration of combinatorial library was cancelled by user","Error",
+                  javax.swing.JOptionPane.ERROR_MESSAGE);
         }
         
-        if (returnVal == javax.swing.JOptionPane.OK_OPTION || returnVal == javax.swing.JOptionPane.NO_OPTION) {
-          
-          //GUI gets freezed, so that no change can be performed
-          this.deactivateGui();
-          
-          //reset of library panel
-          library.reset();
-          
-          if (preview) {
-            sRunner.getSmilesWriter().showPreview(javaHeapSizeOverflowLimit);
-            library.setTitle("Library - preview (" + javaHeapSizeOverflowLimit + " molecules)");
-          }
-          
-          //thread gets started
-          Thread libraryEnumeration = new Thread(sRunner);
-          
-          //if no error occured the status window is shown
-          if (iterator != null & !errorOccured) {
-            busy = new BusyWindow(iterator, this);
-          }
-          
-          //process gets started
-          try {
-            libraryEnumeration.start();
-          } catch (Exception exc) {
-            messageBox.showMessageDialog(this, "Enumeration of combinatorial library was cancelled by user","Error",
-                    javax.swing.JOptionPane.ERROR_MESSAGE);
-          }
-          
-          //all following enumerations can't be the first one, if the first one was successfull
-          if (!enumerationStopped) {
-            firstEnumeration = false;
-          }
+        //all following enumerations can't be the first one, if the first one was successfull
+        if (!enumerationStopped) {
+          firstEnumeration = false;
         }
       }
     }
@@ -368,6 +357,7 @@ public class SmiLibFrame extends javax.swing.JFrame {
    *Reactivates the GUI if an error occurs during the enumeration.
    */
   public void emergencyShutdown() {
+    stopProgress();
     if (busy != null) {
       busy.dispose();
     }
@@ -381,6 +371,7 @@ public class SmiLibFrame extends javax.swing.JFrame {
    *interrupted by the user.
    */
   public void showEndMessage(long start, long end) {
+    stopProgress();
     if (busy != null) {
       busy.dispose();
     }
@@ -417,12 +408,12 @@ public class SmiLibFrame extends javax.swing.JFrame {
   
   
   /**
-   *Enumeration of the combinatorial library is stopped by fullfilling a
-   *specific criterion in the thread that enumerates it.
+   *Cancels the enumeration of the combinatorial library. The library file
+   *written so far is deleted.
    */
   public void stopEnumeration() {
-    sRunner.setStop(true);
     enumerationStopped = true;
+    job.cancel();
   }
   
   
@@ -448,16 +439,33 @@ public class SmiLibFrame extends javax.swing.JFrame {
   
   
   /**
-   *Progress shown in the status window and libryry panel is incrased.
+   *Shows the progress in the status window and library panel, called on the event dispatch thread.
    */
-  public void increaseProgress() {
-    busy.increaseProgress();
+  private void showProgress() {
+    EnumerationProgress progress = sRunner.getProgress();
+    progress.sample();
+    if (busy != null) {
+      busy.setProgress(progress);
+    }
     if (control.getShowLibrary()) {
-      library.increaseProgress();
+      library.setProgress(progress.getMolecules());
     }
   }
   
   
+  /**
+   *Stops updating the progress and shows the final number of molecules.
+   */
+  private void stopProgress() {
+    progressTimer.stop();
+    SwingUtilities.invokeLater(new Runnable() {
+      public void run() {
+        showProgress();
+      }
+    });
+  }
+  
+  
   /**
    *Sets the current working directory.
    *
@@ -513,11 +521,13 @@ public class SmiLibFrame extends javax.swing.JFrame {
   
   
   /**
-   *Sets Iterator used for enumeration.
+   *Sets the fragments and iterator used for enumeration.
    *
+   *@param compAdmin scaffolds, linkers and building blocks of the library
    *@param iterator Iterator used in enumeration
    */
-  public void setIterator(SmiLibIterator iterator) {
+  public void setLibrary(ComponentAdministrator compAdmin, SmiLibIterator iterator) {
+    this.compAdmin = compAdmin;
     this.iterator = iterator;
   }
   
@@ -711,6 +721,7 @@ public class SmiLibFrame extends javax.swing.JFrame {
         checkSmiles = true;
       else
         checkSmiles = false;
+      source.setCheckSmiles(checkSmiles);
     }//GEN-LAST:event_jCheckBoxMenuItem1ItemStateChanged
     
     private void jMenuItem10ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuItem10ActionPerformed
@@ -36,7 +36,14 @@ package de.modlab.smilib.gui;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
+import java.util.concurrent.ExecutionException;
 import javax.swing.JFileChooser;
+import javax.swing.SwingWorker;
+import javax.swing.border.TitledBorder;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.PlainDocument;
 
 /**
  *GUI element for SmiLib GUI where source SMILES can be entered.
@@ -79,6 +86,12 @@ public class SourcePanel extends javax.swing.JPanel {
                                                                         "[A]-[R]", "[R]-[A]", "[A]-([R])", "[R]-([A])",
                                                                         "([A])-[R]", "([R])-[A]", "([A])-([R])", "([R])-([A])"};
     
+    //background checks of the text areas
+    private SourceValidator scaffoldValidator;
+    private SourceValidator linkerValidator;
+    private SourceValidator buildingBlockValidator;
+    private SourceValidator reactionSchemeValidator;
+    
             
     
     /**
@@ -89,6 +102,41 @@ public class SourcePanel extends javax.swing.JPanel {
         this.parentFrame = parent;
         
         initComponents();
+        
+        ChangeListener checked = new ChangeListener() {
+            public void stateChanged(ChangeEvent e) {
+                if (e.getSource() == linkerValidator) {
+                    detectEmptyLinker();
+                }
+                showProblemCounts();
+                checkDataAvailability();
+            }
+        };
+        scaffoldValidator = new SourceValidator(jTextArea5, 0);
+        scaffoldValidator.installGutter(jScrollPane5);
+        scaffoldValidator.addChangeListener(checked);
+        linkerValidator = new SourceValidator(jTextArea6, 1);
+        linkerValidator.installGutter(jScrollPane6);
+        linkerValidator.setWatchedLines(emptyLinkers);
+        linkerValidator.addChangeListener(checked);
+        buildingBlockValidator = new SourceValidator(jTextArea7, 2);
+        buildingBlockValidator.installGutter(jScrollPane7);
+        buildingBlockValidator.addChangeListener(checked);
+        reactionSchemeValidator = new SourceValidator(jTextArea4, SourceValidator.NONE);
+        reactionSchemeValidator.addChangeListener(checked);
+    }
+    
+    
+    /**
+     *Sets whether source SMILES are checked for conformity with SmiLib restrictions
+     *while they are entered.
+     *
+     *@param checkSmiles check SMILES true/false
+     */
+    public void setCheckSmiles(boolean checkSmiles) {
+        scaffoldValidator.setChecking(checkSmiles);
+        linkerValidator.setChecking(checkSmiles);
+        buildingBlockValidator.setChecking(checkSmiles);
     }
     
     
@@ -169,13 +217,14 @@ public class SourcePanel extends javax.swing.JPanel {
     
     
     /**
-     *Opens a file dialog, so offers the opportunity to load strings from files
+     *Opens a file dialog, so offers the opportunity to load strings from files.
+     *The file is read in the background, the load button is disabled meanwhile.
      *
      *@param textArea JTextArea in which the loaded strings will be written
      *@param dialogTitle title to display in the JFileChooser
-     *@param mode int that indicates which kind of source strings (scaffold/linker/building block) was loaded
+     *@param button button that started loading
      */
-    private void load(javax.swing.JTextArea textArea, String dialogTitle) {
+    private void load(final javax.swing.JTextArea textArea, String dialogTitle, final javax.swing.JButton button) {
         JFileChooser chooser = new JFileChooser();
         chooser.setDialogTitle(dialogTitle);
         if (parentFrame.getCWD() != null) {
@@ -184,24 +233,37 @@ public class SourcePanel extends javax.swing.JPanel {
         int returnVal = chooser.showOpenDialog(parentFrame);
         if(returnVal == JFileChooser.APPROVE_OPTION) {
             parentFrame.setCWD(chooser.getCurrentDirectory().getAbsolutePath());
-            try {
-                BufferedReader buffr = new BufferedReader(new FileReader(chooser.getSelectedFile()));
-                String line;
-                StringBuilder completeText = new StringBuilder();
-                boolean end = false;
-                while (!end) {
-                    line = buffr.readLine();
-                    if (line != null) {
-                        completeText.append(line).append('\n');
-                    } else
-                        end = true;
+            final java.io.File file = chooser.getSelectedFile();
+            button.setEnabled(false);
+            new SwingWorker<PlainDocument, Object>() {
+                protected PlainDocument doInBackground() throws java.io.IOException, BadLocationException {
+                    BufferedReader buffr = new BufferedReader(new FileReader(file));
+                    String line;
+                    StringBuilder completeText = new StringBuilder();
+                    try {
+                        while ((line = buffr.readLine()) != null) {
+                            completeText.append(line).append('\n');
+                        }
+                    } finally {
+                        buffr.close();
+                    }
+                    //the document is filled before it is shown, so this is safe outside the event dispatch thread
+                    PlainDocument document = new PlainDocument();
+                    document.insertString(0, completeText.toString().trim(), null);
+                    return document;
                 }
-                buffr.close();
-                textArea.setText(completeText.toString().trim());
-                textArea.select(1,1);
-            } catch (java.io.IOException e) {
-                System.out.println(e.toString());
-            }
+                protected void done() {
+                    button.setEnabled(textArea.isEditable());
+                    try {
+                        textArea.setDocument(get());
+                        textArea.select(1,1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException e) {
+                        System.out.println(e.getCause().toString());
+                    }
+                }
+            }.execute();
         }
     }
     
@@ -210,7 +272,7 @@ public class SourcePanel extends javax.swing.JPanel {
      *Adds empty linker to linkers in GUI.
      */
     public void addEmptyLinker() {
-        if (includeEmptyLinker & !detectEmptyLinker()) {
+        if (includeEmptyLinker & !containsEmptyLinker()) {
             if (jTextArea6.getText().trim().length() == 0)
                 jTextArea6.setText("[A][R]");
             else {
@@ -219,7 +281,6 @@ public class SourcePanel extends javax.swing.JPanel {
             }
         }
         jCheckBox1.setSelected(true);
-        checkDataAvailability();
     }
     
     
@@ -253,52 +314,86 @@ public class SourcePanel extends javax.swing.JPanel {
     
     
     /**
-     *Searches empty linker.
+     *Searches the current linkers for an empty linker.
+     *
+     *@return empty linker found true/false
      */
-    private boolean detectEmptyLinker() {       
-        String[] linkers = jTextArea6.getText().trim().split("\n");
-        boolean emptyLinkerFound = false;
-  
-        for (int i = 0; i < linkers.length; i++) {
-            for (int j = 0; j < emptyLinkers.length; j++) {
-                if (linkers[i].equals(emptyLinkers[j])) {
-                    emptyLinkerFound = true;
-                }
+    private boolean containsEmptyLinker() {
+        java.util.List<String> linkers = java.util.Arrays.asList(jTextArea6.getText().trim().split("\n"));
+        for (int j = 0; j < emptyLinkers.length; j++) {
+            if (linkers.contains(emptyLinkers[j])) {
+                return true;
             }
         }
-        
-        if (emptyLinkerFound) {
-            jCheckBox1.setSelected(true);
-        } else {
-            jCheckBox1.setSelected(false);
+        return false;
+    }
+    
+    
+    /**
+     *Selects the empty linker check box if the last check of the linkers found an empty linker.
+     */
+    private void detectEmptyLinker() {
+        jCheckBox1.setSelected(linkerValidator.containsWatchedLine());
+    }
+    
+    
+    /**
+     *Shows the number of source SMILES not conform to SmiLib restrictions in the panel titles.
+     */
+    private void showProblemCounts() {
+        showProblemCount(jPanel1, "Scaffolds", scaffoldValidator);
+        showProblemCount(jPanel2, "Linkers", linkerValidator);
+        showProblemCount(jPanel3, "Building Blocks", buildingBlockValidator);
+    }
+    
+    
+    /**
+     *Shows the number of problems found by a validator in the title of a panel,
+     *or the reason if its last check failed.
+     *
+     *@param panel panel with titled border
+     *@param title title without problems
+     *@param validator validator of the text area in the panel
+     */
+    private void showProblemCount(javax.swing.JPanel panel, String title, SourceValidator validator) {
+        int count = validator.getProblemCount();
+        if (validator.getFailure() != null) {
+            title += " (check failed: " + validator.getFailure().replace('\n', ' ') + ")";
+        } else if (count == 1) {
+            title += " (1 problem)";
+        } else if (count > 1) {
+            title += " (" + count + " problems)";
+        }
+        TitledBorder border = (TitledBorder) panel.getBorder();
+        if (!border.getTitle().equals(title)) {
+            border.setTitle(title);
+            panel.repaint();
         }
-        
-        return emptyLinkerFound;
     }
     
     
     /**
      *Checks whether all needed sources are available and enables
-     *the start button in that case.
+     *the start button in that case. Uses the results of the last
+     *background checks of the text areas.
      */
     private void checkDataAvailability() {
-        if (jTextArea5.getText().trim().length() != 0) {
+        if (!scaffoldValidator.isEmpty()) {
             scaffoldsAvailable = true;
         } else {
             scaffoldsAvailable = false;
         }
-        if (jTextArea6.getText().trim().length() != 0) {
+        if (!linkerValidator.isEmpty()) {
             linkersAvailable = true;
         } else {
             linkersAvailable = false;
-            jCheckBox1.setSelected(false);
         }
-        if (jTextArea7.getText().trim().length() != 0) {
+        if (!buildingBlockValidator.isEmpty()) {
             buildingBlocksAvailable = true;
         } else {
             buildingBlocksAvailable = false;
         } if (reactionSchemeRequired) {
-            if (jTextArea4.getText().trim().length() != 0) {
+            if (!reactionSchemeValidator.isEmpty()) {
                 reactionSchemeAvailable = true;
             } else {
                 reactionSchemeAvailable = false;
@@ -427,7 +522,6 @@ public class SourcePanel extends javax.swing.JPanel {
         jTextArea6.select(0,0);
         jTextArea7.select(0,0);
         checkDataAvailability();
-        detectEmptyLinker();
     }
     
     
@@ -548,12 +642,6 @@ public class SourcePanel extends javax.swing.JPanel {
         jTextArea5.setColumns(20);
         jTextArea5.setRows(5);
         jTextArea5.setDoubleBuffered(true);
-        jTextArea5.addKeyListener(new java.awt.event.KeyAdapter() {
-            public void keyReleased(java.awt.event.KeyEvent evt) {
-                jTextArea5KeyReleased(evt);
-            }
-        });
-
         jScrollPane5.setViewportView(jTextArea5);
 
         jPanel1.add(jScrollPane5, new org.netbeans.lib.awtextra.AbsoluteConstraints(20, 70, 240, 110));
@@ -587,12 +675,6 @@ public class SourcePanel extends javax.swing.JPanel {
         jTextArea6.setColumns(20);
         jTextArea6.setRows(5);
         jTextArea6.setDoubleBuffered(true);
-        jTextArea6.addKeyListener(new java.awt.event.KeyAdapter() {
-            public void keyReleased(java.awt.event.KeyEvent evt) {
-                jTextArea6KeyReleased(evt);
-            }
-        });
-
         jScrollPane6.setViewportView(jTextArea6);
 
         jPanel2.add(jScrollPane6, new org.netbeans.lib.awtextra.AbsoluteConstraints(20, 70, 240, 110));
@@ -637,12 +719,6 @@ public class SourcePanel extends javax.swing.JPanel {
         jTextArea7.setColumns(20);
         jTextArea7.setRows(5);
         jTextArea7.setDoubleBuffered(true);
-        jTextArea7.addKeyListener(new java.awt.event.KeyAdapter() {
-            public void keyReleased(java.awt.event.KeyEvent evt) {
-                jTextArea7KeyReleased(evt);
-            }
-        });
-
         jScrollPane7.setViewportView(jTextArea7);
 
         jPanel3.add(jScrollPane7, new org.netbeans.lib.awtextra.AbsoluteConstraints(20, 70, 240, 110));
@@ -670,12 +746,6 @@ public class SourcePanel extends javax.swing.JPanel {
         jTextArea4.setRows(5);
         jTextArea4.setDoubleBuffered(true);
         jTextArea4.setEnabled(false);
-        jTextArea4.addKeyListener(new java.awt.event.KeyAdapter() {
-            public void keyReleased(java.awt.event.KeyEvent evt) {
-                jTextArea4KeyReleased(evt);
-            }
-        });
-
         jScrollPane4.setViewportView(jTextArea4);
 
         jPanel4.add(jScrollPane4, new org.netbeans.lib.awtextra.AbsoluteConstraints(310, 50, 530, 100));
@@ -750,42 +820,20 @@ public class SourcePanel extends javax.swing.JPanel {
         checkDataAvailability();
     }//GEN-LAST:event_jRadioButton1ItemStateChanged
 
-    private void jTextArea4KeyReleased(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_jTextArea4KeyReleased
-         checkDataAvailability();
-    }//GEN-LAST:event_jTextArea4KeyReleased
-
-    private void jTextArea7KeyReleased(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_jTextArea7KeyReleased
-         checkDataAvailability();
-    }//GEN-LAST:event_jTextArea7KeyReleased
-
-    private void jTextArea6KeyReleased(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_jTextArea6KeyReleased
-         checkDataAvailability();
-         detectEmptyLinker();
-    }//GEN-LAST:event_jTextArea6KeyReleased
-
-    private void jTextArea5KeyReleased(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_jTextArea5KeyReleased
-        checkDataAvailability();
-    }//GEN-LAST:event_jTextArea5KeyReleased
-
     private void jButton4ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton4ActionPerformed
-        load(jTextArea4, "Select source file for Reaction Scheme");
-        checkDataAvailability();
+        load(jTextArea4, "Select source file for Reaction Scheme", jButton4);
     }//GEN-LAST:event_jButton4ActionPerformed
 
     private void jButton3ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton3ActionPerformed
-        load(jTextArea7, "Select source file for Building Block SMILES");
-        checkDataAvailability();
+        load(jTextArea7, "Select source file for Building Block SMILES", jButton3);
     }//GEN-LAST:event_jButton3ActionPerformed
 
     private void jButton2ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton2ActionPerformed
-        load(jTextArea6, "Select source file for Linker SMILES");
-        checkDataAvailability();
-        detectEmptyLinker();
+        load(jTextArea6, "Select source file for Linker SMILES", jButton2);
     }//GEN-LAST:event_jButton2ActionPerformed
 
     private void jButton1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton1ActionPerformed
-        this.load(jTextArea5, "Select source file for Scaffold SMILES");
-        checkDataAvailability();
+        this.load(jTextArea5, "Select source file for Scaffold SMILES", jButton1);
     }//GEN-LAST:event_jButton1ActionPerformed
     
     private void jRadioButton2ItemStateChanged(java.awt.event.ItemEvent evt) {//GEN-FIRST:event_jRadioButton2ItemStateChanged
@@ -0,0 +1,578 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.gui;
+
+import de.modlab.smilib.exceptions.SmiLibConformityException;
+import de.modlab.smilib.io.ConformityChecker;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JComponent;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.ToolTipManager;
+import javax.swing.UIManager;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.EventListenerList;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+/**
+ *Checks the source SMILES entered in a text area in the background. A check
+ *starts once the text has not been changed for a short delay, runs on a worker
+ *thread and only checks lines whose content has not been checked before, so
+ *that the text area stays responsive with hundreds of thousands of lines.
+ *Lines that do not conform to SmiLib restrictions are marked in a gutter next
+ *to the text area, the message is shown as tool tip of the mark.
+ */
+public class SourceValidator {
+    
+    /** mode of a text area whose lines are not checked for conformity */
+    public static final int NONE = -1;
+    
+    /** milliseconds without changes before the text is checked */
+    private static final int DELAY = 300;
+    
+    /** number of cached lines beyond the lines of the last check before the cache is cleared */
+    private static final int CACHE_SLACK = 1024;
+    
+    //text area with the source SMILES
+    private JTextArea textArea;
+    
+    //0: scaffold, 1: linker, 2: building block, NONE: no conformity check
+    private int mode;
+    
+    //check lines for conformity true/false
+    private volatile boolean checking = true;
+    
+    //lines whose presence is reported by containsWatchedLine()
+    private volatile Set<String> watchedLines = new HashSet<String>();
+    
+    //messages of checked lines, an empty message for conform lines
+    private Map<String, String> cache = new ConcurrentHashMap<String, String>();
+    
+    //number of lines of the last check
+    private volatile int lineCount = 0;
+    
+    //number of changes, a check is only applied if no change happened while it ran
+    private int changes = 0;
+    
+    //result of the last applied check
+    private Result result = new Result();
+    
+    //check running at the moment, null if none
+    private Check check;
+    
+    //gutter the problems are marked in, null if not installed
+    private Gutter gutter;
+    
+    private EventListenerList listeners = new EventListenerList();
+    
+    private DocumentListener documentListener = new DocumentListener() {
+        public void insertUpdate(DocumentEvent e) {
+            schedule();
+        }
+        public void removeUpdate(DocumentEvent e) {
+            schedule();
+        }
+        public void changedUpdate(DocumentEvent e) {
+        }
+    };
+    
+    private Timer timer = new Timer(DELAY, new ActionListener() {
+        public void actionPerformed(ActionEvent e) {
+            start();
+        }
+    });
+    
+    
+    /**
+     *Creates a new instance of SourceValidator.
+     *
+     *@param textArea text area with the source SMILES, one per line
+     *@param mode 0: scaffold, 1: linker, 2: building block, NONE: lines are not checked for conformity
+     */
+    public SourceValidator(JTextArea textArea, int mode) {
+        this.textArea = textArea;
+        this.mode = mode;
+        timer.setRepeats(false);
+        textArea.getDocument().addDocumentListener(documentListener);
+        textArea.addPropertyChangeListener("document", new PropertyChangeListener() {
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (evt.getOldValue() != null) {
+                    ((Document) evt.getOldValue()).removeDocumentListener(documentListener);
+                }
+                if (evt.getNewValue() != null) {
+                    ((Document) evt.getNewValue()).addDocumentListener(documentListener);
+                }
+                schedule();
+            }
+        });
+    }
+    
+    
+    /**
+     *Marks problems in a gutter shown as row header of the given scroll pane.
+     *
+     *@param scrollPane scroll pane showing the text area
+     */
+    public void installGutter(JScrollPane scrollPane) {
+        gutter = new Gutter();
+        scrollPane.setRowHeaderView(gutter);
+    }
+    
+    
+    /**
+     *Sets whether lines are checked for conformity with SmiLib restrictions.
+     *
+     *@param checking check lines for conformity true/false
+     */
+    public void setChecking(boolean checking) {
+        if (this.checking != checking) {
+            this.checking = checking;
+            schedule();
+        }
+    }
+    
+    
+    /**
+     *Sets the lines whose presence is reported by containsWatchedLine().
+     *
+     *@param lines lines to watch for
+     */
+    public void setWatchedLines(String[] lines) {
+        watchedLines = new HashSet<String>(Arrays.asList(lines));
+        schedule();
+    }
+    
+    
+    /**
+     *Adds a listener that is notified on the event dispatch thread whenever a check has finished.
+     *
+     *@param l listener to add
+     */
+    public void addChangeListener(ChangeListener l) {
+        listeners.add(ChangeListener.class, l);
+    }
+    
+    
+    /**
+     *Removes a change listener.
+     *
+     *@param l listener to remove
+     */
+    public void removeChangeListener(ChangeListener l) {
+        listeners.remove(ChangeListener.class, l);
+    }
+    
+    
+    /**
+     *Returns whether the text area contained nothing but white space at the last check.
+     *
+     *@return text area empty true/false
+     */
+    public boolean isEmpty() {
+        return result.empty;
+    }
+    
+    
+    /**
+     *Returns whether one of the watched lines was found at the last check.
+     *
+     *@return watched line found true/false
+     */
+    public boolean containsWatchedLine() {
+        return result.watchedLineFound;
+    }
+    
+    
+    /**
+     *Returns the number of lines that did not conform to SmiLib restrictions at the last check.
+     *
+     *@return number of problems
+     */
+    public int getProblemCount() {
+        return result.problems.size();
+    }
+    
+    
+    /**
+     *Returns the problem found in a line at the last check.
+     *
+     *@param line index of the line, starting with 0
+     *@return message describing the problem, null if the line is fine
+     */
+    public String getProblem(int line) {
+        return result.problems.get(line);
+    }
+    
+    
+    /**
+     *Returns why the last check failed.
+     *
+     *@return message describing the failure, null if the last check succeeded
+     */
+    public String getFailure() {
+        return result.failure;
+    }
+    
+    
+    /**
+     *Returns whether a check is pending or running.
+     *
+     *@return check pending or running true/false
+     */
+    public boolean isChecking() {
+        return timer.isRunning() || check != null;
+    }
+    
+    
+    /**
+     *Restarts the delay after which the text is checked.
+     */
+    private void schedule() {
+        changes++;
+        timer.restart();
+    }
+    
+    
+    /**
+     *Starts a check of the current text, cancelling a check still running.
+     */
+    private void start() {
+        if (check != null) {
+            check.cancel(false);
+        }
+        check = new Check(textArea.getText(), changes);
+        check.execute();
+    }
+    
+    
+    /**
+     *Applies the result of a finished check and notifies the listeners.
+     *
+     *@param finished the finished check
+     *@param newResult its result
+     */
+    private void apply(Check finished, Result newResult) {
+        if (finished == check) {
+            check = null;
+        }
+        if (finished.changes != changes) {
+            return;
+        }
+        result = newResult;
+        if (gutter != null) {
+            gutter.repaint();
+        }
+        ChangeEvent event = new ChangeEvent(this);
+        Object[] l = listeners.getListenerList();
+        for (int i = l.length - 2; i >= 0; i -= 2) {
+            if (l[i] == ChangeListener.class) {
+                ((ChangeListener) l[i + 1]).stateChanged(event);
+            }
+        }
+    }
+    
+    
+    /**
+     *Checks a line for conformity, using the cached message if the line was checked before.
+     *
+     *@param line line of the text area, optionally with a leading ID separated with a tab
+     *@param checker checker to use
+     *@return message describing the problem, an empty string if the line is fine
+     */
+    private String checkLine(String line, ConformityChecker checker) {
+        String message = cache.get(line);
+        if (message == null) {
+            String[] tempLine = line.split("\t");
+            String smiles = tempLine.length == 1 ? tempLine[0] : tempLine[1];
+            try {
+                checker.checkConformity(smiles.trim(), mode);
+                message = "";
+            } catch (SmiLibConformityException e) {
+                message = e.getMessage() != null ? e.getMessage() : e.toString();
+            } catch (RuntimeException e) {
+                message = e.toString();
+            }
+            cache.put(line, message);
+        }
+        return message;
+    }
+    
+    
+    
+    /**
+     *Outcome of a check.
+     */
+    private static class Result {
+        
+        //nothing but white space true/false
+        private boolean empty = true;
+        
+        //one of the watched lines found true/false
+        private boolean watchedLineFound = false;
+        
+        //messages by index of the line that does not conform
+        private TreeMap<Integer, String> problems = new TreeMap<Integer, String>();
+        
+        //message describing why the check failed, null if it succeeded
+        private String failure = null;
+    }
+    
+    
+    
+    /**
+     *Checks a snapshot of the text on a worker thread.
+     */
+    private class Check extends SwingWorker<Result, Object> {
+        
+        //text to check
+        private String text;
+        
+        //number of changes when the snapshot was taken
+        private int changes;
+        
+        
+        /**
+         *Creates a new check.
+         *
+         *@param text snapshot of the text to check
+         *@param changes number of changes when the snapshot was taken
+         */
+        private Check(String text, int changes) {
+            this.text = text;
+            this.changes = changes;
+        }
+        
+        
+        protected Result doInBackground() {
+            Result newResult = new Result();
+            ConformityChecker checker = new ConformityChecker();
+            boolean conformity = checking && mode != NONE;
+            Set<String> watched = watchedLines;
+            if (cache.size() > 2 * lineCount + CACHE_SLACK) {
+                cache.clear();
+            }
+            int line = 0;
+            int start = 0;
+            while (start <= text.length()) {
+                if (isCancelled()) {
+                    return null;
+                }
+                int end = text.indexOf('\n', start);
+                if (end < 0) {
+                    end = text.length();
+                }
+                String current = text.substring(start, end);
+                if (current.trim().length() != 0) {
+                    newResult.empty = false;
+                    if (watched.contains(current)) {
+                        newResult.watchedLineFound = true;
+                    }
+                    if (conformity) {
+                        String message = checkLine(current, checker);
+                        if (message.length() != 0) {
+                            newResult.problems.put(line, message);
+                        }
+                    }
+                }
+                line++;
+                start = end + 1;
+            }
+            lineCount = line;
+            return newResult;
+        }
+        
+        
+        protected void done() {
+            if (isCancelled()) {
+                if (this == check) {
+                    check = null;
+                }
+                return;
+            }
+            try {
+                apply(this, get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                apply(this, failed(e.getCause()));
+            }
+        }
+        
+        
+        /**
+         *Creates the result of a check that failed. No line is marked, as the
+         *lines of the snapshot have not all been checked.
+         *
+         *@param cause throwable the check failed with
+         *@return result reporting the failure
+         */
+        private Result failed(Throwable cause) {
+            Result failedResult = new Result();
+            failedResult.empty = text.trim().length() == 0;
+            failedResult.failure = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+            return failedResult;
+        }
+    }
+    
+    
+    
+    /**
+     *Row header of the text area that marks the lines with problems. The lines
+     *of the text area are not wrapped, so a line is found from its y coordinate.
+     */
+    private class Gutter extends JComponent {
+        
+        /** width of the gutter */
+        private static final int WIDTH = 12;
+        
+        /** diameter of a mark */
+        private static final int MARK = 7;
+        
+        
+        /**
+         *Creates a new gutter.
+         */
+        private Gutter() {
+            setOpaque(true);
+            setBackground(UIManager.getColor("Panel.background"));
+            ToolTipManager.sharedInstance().registerComponent(this);
+            textArea.addComponentListener(new ComponentAdapter() {
+                public void componentResized(ComponentEvent e) {
+                    revalidate();
+                    repaint();
+                }
+            });
+            addMouseListener(new MouseAdapter() {
+                public void mousePressed(MouseEvent e) {
+                    selectLine(getLine(e.getY()));
+                }
+            });
+        }
+        
+        
+        public Dimension getPreferredSize() {
+            return new Dimension(WIDTH, textArea.getPreferredSize().height);
+        }
+        
+        
+        public String getToolTipText(MouseEvent e) {
+            String message = getProblem(getLine(e.getY()));
+            return message != null ? message.replace('\n', ' ') : null;
+        }
+        
+        
+        protected void paintComponent(Graphics g) {
+            Rectangle clip = g.getClipBounds();
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+            int height = getRowHeight();
+            int top = textArea.getInsets().top;
+            SortedMap<Integer, String> visible = result.problems.subMap(getLine(clip.y), getLine(clip.y + clip.height) + 1);
+            g.setColor(Color.RED);
+            for (Integer line : visible.keySet()) {
+                g.fillOval((WIDTH - MARK) / 2, top + line.intValue() * height + (height - MARK) / 2, MARK, MARK);
+            }
+        }
+        
+        
+        /**
+         *Returns the height of a line of the text area.
+         *
+         *@return height of a line in pixels
+         */
+        private int getRowHeight() {
+            return Math.max(1, textArea.getFontMetrics(textArea.getFont()).getHeight());
+        }
+        
+        
+        /**
+         *Returns the line of the text area at a y coordinate.
+         *
+         *@param y y coordinate in the gutter
+         *@return index of the line
+         */
+        private int getLine(int y) {
+            Insets insets = textArea.getInsets();
+            return Math.max(0, (y - insets.top) / getRowHeight());
+        }
+        
+        
+        /**
+         *Selects a line of the text area if it has a problem.
+         *
+         *@param line index of the line
+         */
+        private void selectLine(int line) {
+            if (getProblem(line) == null || line >= textArea.getLineCount()) {
+                return;
+            }
+            try {
+                int end = textArea.getLineEndOffset(line);
+                if (end > textArea.getLineStartOffset(line) && textArea.getText(end - 1, 1).equals("\n")) {
+                    end--;
+                }
+                textArea.requestFocusInWindow();
+                textArea.select(textArea.getLineStartOffset(line), end);
+            } catch (BadLocationException e) {
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ *Constants and primitive encodings of binary library files (".slib").<br>
+ *<br>
+ *A binary library file stores the fragments of the library once and each
+ *molecule only by the indices of its scaffold, linkers and building blocks.
+ *The file starts with the magic "SMILIBIN" and the format version, followed
+ *by the scaffolds, linkers and building blocks (count, then ID and original
+ *SMILES of each fragment) and the mode byte:
+ *<ul>
+ *<li>{@link #MODE_FULL}: the molecules are the combinations of a complete
+ *enumeration, beginning with the stored first index</li>
+ *<li>{@link #MODE_SCHEMES}: the molecules are the combinations of the stored
+ *reaction scheme (for each scheme: scaffold, then linker and building block
+ *indices of each variable side chain), beginning with the stored first index</li>
+ *<li>{@link #MODE_TUPLES}: each molecule is stored as scaffold index followed
+ *by the linker and building block indices</li>
+ *</ul>
+ *The last eight bytes contain the number of molecules. All other numbers
+ *are unsigned variable length integers (7 bits per byte, least significant
+ *group first), strings are stored as length and UTF-8 bytes.
+ */
+final class BinaryLibraryFormat {
+    
+    /** magic bytes at the start of each binary library file */
+    static final byte[] MAGIC = {'S', 'M', 'I', 'L', 'I', 'B', 'I', 'N'};
+    
+    /** version of the file format */
+    static final int VERSION = 1;
+    
+    /** molecules are a range of a complete enumeration */
+    static final int MODE_FULL = 0;
+    
+    /** molecules are a range of the enumeration of a reaction scheme */
+    static final int MODE_SCHEMES = 1;
+    
+    /** molecules are stored as index tuples */
+    static final int MODE_TUPLES = 2;
+    
+    
+    
+    private BinaryLibraryFormat() {
+    }
+    
+    
+    /**
+     *Writes an unsigned variable length integer.
+     */
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+    
+    
+    /**
+     *Reads an unsigned variable length integer.
+     */
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Unexpected end of binary library file.");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number in binary library file.");
+    }
+    
+    
+    /**
+     *Reads an unsigned variable length integer that must fit into an int.
+     */
+    static int readVarInt(DataInputStream in) throws IOException {
+        long value = readVarLong(in);
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Malformed number in binary library file.");
+        }
+        return (int) value;
+    }
+    
+    
+    /**
+     *Writes a string as length and UTF-8 bytes.
+     */
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes("UTF-8");
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+    
+    
+    /**
+     *Reads a string written by {@link #writeString}.
+     */
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+}
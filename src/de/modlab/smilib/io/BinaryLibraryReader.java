@@ -0,0 +1,365 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.exceptions.SmiLibException;
+import de.modlab.smilib.exceptions.SmiLibIOException;
+import de.modlab.smilib.fragments.BuildingBlock;
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.fragments.Linker;
+import de.modlab.smilib.fragments.Scaffold;
+import de.modlab.smilib.iterator.CombinationScheme;
+import de.modlab.smilib.iterator.FullCombinationIterator;
+import de.modlab.smilib.iterator.PartialCombinationIterator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.main.SmilesAssembler;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *Reads binary library files (".slib") written by a {@link BinaryLibraryWriter}.
+ *The SMILES and IDs of the molecules are assembled from the stored fragments
+ *when they are requested. Molecules can be read sequentially and, unless the
+ *file stores index tuples, by their index.
+ */
+public class BinaryLibraryReader {
+    
+    //path and filename of the library file
+    private String path;
+    
+    //reads the library file
+    private DataInputStream in;
+    
+    //fragments of the library
+    private ComponentAdministrator compAdmin;
+    
+    //assembles the molecules
+    private SmilesAssembler assembler;
+    
+    //mode of the file, see BinaryLibraryFormat
+    private int mode;
+    
+    //iterator the library was enumerated with, null if the file stores index tuples
+    private SmiLibIterator iterator;
+    
+    //index of the first molecule in the enumeration
+    private long firstIndex = 0;
+    
+    //number of molecules in the file
+    private long molecules;
+    
+    //number of molecules read sequentially
+    private long position = 0;
+    
+    
+    
+    /**
+     *Creates a new instance of BinaryLibraryReader and reads the header of the library file.
+     *
+     *@param path path/name of the library file
+     *@throws de.modlab.smilib.exceptions.SmiLibIOException thrown if the file can not be read or is no binary library file
+     */
+    public BinaryLibraryReader(String path) throws SmiLibIOException {
+        this.path = path;
+        try {
+            RandomAccessFile file = new RandomAccessFile(path, "r");
+            try {
+                if (file.length() < BinaryLibraryFormat.MAGIC.length + 8) {
+                    throw new SmiLibIOException("Not a binary library file: " + path);
+                }
+                file.seek(file.length() - 8);
+                molecules = file.readLong();
+            } finally {
+                file.close();
+            }
+            
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)));
+            byte[] magic = new byte[BinaryLibraryFormat.MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, BinaryLibraryFormat.MAGIC) || molecules < 0) {
+                in.close();
+                throw new SmiLibIOException("Not a binary library file: " + path);
+            }
+            int version = BinaryLibraryFormat.readVarInt(in);
+            if (version != BinaryLibraryFormat.VERSION) {
+                in.close();
+                throw new SmiLibIOException("Unsupported binary library file version " + version + ": " + path);
+            }
+            readHeader();
+        } catch (java.io.IOException exc) {
+            throw new SmiLibIOException("Error while reading binary library file " + path + ": " + exc.getMessage(), exc);
+        }
+    }
+    
+    
+    /**
+     *Reads the fragments and the description of the enumerated combinations.
+     */
+    private void readHeader() throws java.io.IOException {
+        List<Scaffold> scaffolds = new ArrayList<Scaffold>();
+        for (int i = BinaryLibraryFormat.readVarInt(in); i > 0; i--) {
+            String id = BinaryLibraryFormat.readString(in);
+            scaffolds.add(new Scaffold(BinaryLibraryFormat.readString(in), id));
+        }
+        List<Linker> linkers = new ArrayList<Linker>();
+        for (int i = BinaryLibraryFormat.readVarInt(in); i > 0; i--) {
+            String id = BinaryLibraryFormat.readString(in);
+            linkers.add(new Linker(BinaryLibraryFormat.readString(in), id));
+        }
+        List<BuildingBlock> buildingBlocks = new ArrayList<BuildingBlock>();
+        for (int i = BinaryLibraryFormat.readVarInt(in); i > 0; i--) {
+            String id = BinaryLibraryFormat.readString(in);
+            buildingBlocks.add(new BuildingBlock(BinaryLibraryFormat.readString(in), id));
+        }
+        compAdmin = new ComponentAdministrator(scaffolds, linkers, buildingBlocks);
+        assembler = new SmilesAssembler(compAdmin);
+        
+        mode = in.read();
+        switch (mode) {
+            case BinaryLibraryFormat.MODE_FULL:
+                iterator = new FullCombinationIterator(compAdmin.getNumbersOfRGroups(), linkers.size(), buildingBlocks.size());
+                firstIndex = BinaryLibraryFormat.readVarLong(in);
+                break;
+            case BinaryLibraryFormat.MODE_SCHEMES:
+                List<CombinationScheme> schemes = new ArrayList<CombinationScheme>();
+                for (int i = BinaryLibraryFormat.readVarInt(in); i > 0; i--) {
+                    int scaffold = BinaryLibraryFormat.readVarInt(in);
+                    int numRGroups = compAdmin.getNumberOfRGroups(scaffold);
+                    int[][] linkerIndices = new int[numRGroups][];
+                    int[][] bBlockIndices = new int[numRGroups][];
+                    for (int r = 0; r < numRGroups; r++) {
+                        linkerIndices[r] = readIndices();
+                        bBlockIndices[r] = readIndices();
+                    }
+                    schemes.add(new CombinationScheme(scaffold, linkerIndices, bBlockIndices));
+                }
+                iterator = new PartialCombinationIterator(schemes, compAdmin.getNumbersOfRGroups());
+                firstIndex = BinaryLibraryFormat.readVarLong(in);
+                break;
+            case BinaryLibraryFormat.MODE_TUPLES:
+                break;
+            default:
+                throw new java.io.IOException("Unknown mode " + mode);
+        }
+        if (iterator != null && firstIndex + molecules > iterator.getMaximum()) {
+            throw new java.io.IOException("Molecule range exceeds the size of the library.");
+        }
+    }
+    
+    
+    /**
+     *Reads a list of fragment indices.
+     */
+    private int[] readIndices() throws java.io.IOException {
+        int[] indices = new int[BinaryLibraryFormat.readVarInt(in)];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = BinaryLibraryFormat.readVarInt(in);
+        }
+        return indices;
+    }
+    
+    
+    /**
+     *Returns the scaffolds, linkers and building blocks of the library.
+     *
+     *@return fragments of the library
+     */
+    public ComponentAdministrator getComponentAdministrator() {
+        return compAdmin;
+    }
+    
+    
+    /**
+     *Returns the iterator the library was enumerated with.
+     *
+     *@return iterator, or <code>null</code> if the file stores index tuples
+     */
+    public SmiLibIterator getIterator() {
+        return iterator;
+    }
+    
+    
+    /**
+     *Returns the index of the first molecule of the file in the enumeration of the library.
+     *
+     *@return index of the first molecule (counting from 0)
+     */
+    public long getFirstIndex() {
+        return firstIndex;
+    }
+    
+    
+    /**
+     *Returns the number of molecules in the file.
+     *
+     *@return number of molecules
+     */
+    public long getNumberOfMolecules() {
+        return molecules;
+    }
+    
+    
+    /**
+     *Returns whether the file supports random access to the molecules.
+     *
+     *@return <code>true</code> unless the file stores index tuples
+     */
+    public boolean isRandomAccess() {
+        return iterator != null;
+    }
+    
+    
+    /**
+     *Returns whether there is one more molecule to read sequentially.
+     *
+     *@return one more molecule available true/false
+     */
+    public boolean hasNext() {
+        return position < molecules;
+    }
+    
+    
+    /**
+     *Reads the combination of the next molecule.
+     *
+     *@return indices of scaffold, linkers and building blocks: [s,l,l,l,...,b,b,b,...]
+     *@throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     */
+    public int[] nextCombination() throws SmiLibIOException {
+        if (!hasNext()) {
+            throw new java.util.NoSuchElementException();
+        }
+        int[] combination;
+        if (iterator != null) {
+            combination = iterator.getCombination(firstIndex + position);
+        } else {
+            try {
+                int scaffold = BinaryLibraryFormat.readVarInt(in);
+                combination = new int[1 + 2 * compAdmin.getNumberOfRGroups(scaffold)];
+                combination[0] = scaffold;
+                for (int i = 1; i < combination.length; i++) {
+                    combination[i] = BinaryLibraryFormat.readVarInt(in);
+                }
+            } catch (java.io.IOException exc) {
+                throw new SmiLibIOException("Error while reading binary library file " + path + ": " + exc.getMessage(), exc);
+            }
+        }
+        position++;
+        return combination;
+    }
+    
+    
+    /**
+     *Reads the next molecule.
+     *
+     *@param smiles StringBuilder that will contain the SMILES of the molecule
+     *@param id StringBuilder that will contain the ID of the molecule
+     *@return indices of scaffold, linkers and building blocks of the molecule
+     *@throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     */
+    public int[] next(StringBuilder smiles, StringBuilder id) throws SmiLibIOException {
+        int[] combination = nextCombination();
+        assembler.assemble(combination, smiles, id);
+        return combination;
+    }
+    
+    
+    /**
+     *Assembles the molecule with the given index without changing the sequential position.
+     *
+     *@param index index of the molecule in the file (counting from 0)
+     *@param smiles StringBuilder that will contain the SMILES of the molecule
+     *@param id StringBuilder that will contain the ID of the molecule
+     *@throws java.lang.UnsupportedOperationException if the file stores index tuples
+     */
+    public void getMolecule(long index, StringBuilder smiles, StringBuilder id) {
+        if (iterator == null) {
+            throw new UnsupportedOperationException("Random access is not supported by binary library files storing index tuples.");
+        }
+        if (index < 0 || index >= molecules) {
+            throw new IndexOutOfBoundsException("Invalid molecule index: " + index);
+        }
+        assembler.assemble(iterator.getCombination(firstIndex + index), smiles, id);
+    }
+    
+    
+    /**
+     *Writes all remaining molecules with the given SmilesWriter. The writer is not closed.
+     *
+     *@param writer writer for the SMILES or SD file
+     *@return number of molecules written
+     *@throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     *@throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
+     */
+    public long convert(SmilesWriter writer) throws SmiLibIOException, SmiLibException {
+        StringBuilder smiles = new StringBuilder();
+        StringBuilder id = new StringBuilder();
+        CombinationWriter combinationWriter = null;
+        if (writer instanceof CombinationWriter) {
+            combinationWriter = (CombinationWriter) writer;
+            combinationWriter.prepare(compAdmin, iterator, firstIndex + position);
+        }
+        long count = 0;
+        while (hasNext()) {
+            int[] combination = next(smiles, id);
+            if (combinationWriter != null) {
+                combinationWriter.writeSMILES(smiles, id, combination);
+            } else {
+                writer.writeSMILES(smiles, id);
+            }
+            count++;
+        }
+        return count;
+    }
+    
+    
+    /**
+     *Closes the library file.
+     *
+     *@throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     */
+    public void close() throws SmiLibIOException {
+        try {
+            in.close();
+        } catch (java.io.IOException exc) {
+            throw new SmiLibIOException(exc);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.exceptions.SmiLibException;
+import de.modlab.smilib.exceptions.SmiLibIOException;
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.fragments.Fragment;
+import de.modlab.smilib.iterator.CombinationScheme;
+import de.modlab.smilib.iterator.FullCombinationIterator;
+import de.modlab.smilib.iterator.PartialCombinationIterator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.util.List;
+
+/**
+ *Writes the combinatorial library as binary library file (".slib"). The file
+ *contains the scaffolds, linkers and building blocks once and describes the
+ *molecules by the indices of their fragments. If the library is enumerated
+ *with a complete enumeration or a reaction scheme, only the range of the
+ *enumerated molecules is stored, otherwise one index tuple per molecule.
+ *The SMILES of the molecules are created on demand by a
+ *{@link BinaryLibraryReader}. See {@link BinaryLibraryFormat} for the file
+ *layout.
+ */
+public class BinaryLibraryWriter implements CombinationWriter {
+    
+    /** extension of binary library files */
+    public static final String EXTENSION = ".slib";
+    
+    //path and filename of the library file
+    private String path;
+    
+    //opens the output stream
+    private SmilesWriterFactory writerFactory;
+    
+    //writes the library file
+    private DataOutputStream out;
+    
+    //mode of the file, see BinaryLibraryFormat
+    private int mode;
+    
+    //number of molecules written
+    private long molecules = 0;
+    
+    
+    
+    /**
+     *Creates a new instance of BinaryLibraryWriter.
+     *
+     *@param path path/name of the library file
+     *@param settings output settings, e.g. buffer size
+     */
+    public BinaryLibraryWriter(String path, OutputSettings settings) {
+        this.path = path;
+        this.writerFactory = new SmilesWriterFactory(settings);
+        File temp = new File(path);
+        temp.delete();
+    }
+    
+    
+    /**
+     * Writes the header of the library file: fragments and the description of the
+     * enumerated combinations.
+     * @param compAdmin scaffolds, linkers and building blocks of the library
+     * @param iterator iterator the library is enumerated with, may be <code>null</code>
+     * @param firstIndex index of the first molecule written (counting from 0)
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     */
+    public void prepare(ComponentAdministrator compAdmin, SmiLibIterator iterator, long firstIndex) throws SmiLibIOException {
+        try {
+            out = new DataOutputStream(writerFactory.openOutputStream(path));
+            out.write(BinaryLibraryFormat.MAGIC);
+            BinaryLibraryFormat.writeVarLong(out, BinaryLibraryFormat.VERSION);
+            
+            BinaryLibraryFormat.writeVarLong(out, compAdmin.getNumberOfScaffolds());
+            for (int i = 0; i < compAdmin.getNumberOfScaffolds(); i++) {
+                writeFragment(compAdmin.getScaffold(i));
+            }
+            BinaryLibraryFormat.writeVarLong(out, compAdmin.getNumberOfLinkers());
+            for (int i = 0; i < compAdmin.getNumberOfLinkers(); i++) {
+                writeFragment(compAdmin.getLinker(i));
+            }
+            BinaryLibraryFormat.writeVarLong(out, compAdmin.getNumberOfBuildingBlocks());
+            for (int i = 0; i < compAdmin.getNumberOfBuildingBlocks(); i++) {
+                writeFragment(compAdmin.getBuildingBlock(i));
+            }
+            
+            if (iterator instanceof FullCombinationIterator) {
+                mode = BinaryLibraryFormat.MODE_FULL;
+                out.write(mode);
+                BinaryLibraryFormat.writeVarLong(out, firstIndex);
+            } else if (iterator instanceof PartialCombinationIterator) {
+                mode = BinaryLibraryFormat.MODE_SCHEMES;
+                out.write(mode);
+                List<CombinationScheme> schemes = ((PartialCombinationIterator) iterator).getCombinationSchemes();
+                BinaryLibraryFormat.writeVarLong(out, schemes.size());
+                for (CombinationScheme scheme : schemes) {
+                    BinaryLibraryFormat.writeVarLong(out, scheme.getScaffoldIndex());
+                    for (int r = 0; r < scheme.getLinkers().length; r++) {
+                        writeIndices(scheme.getLinkers()[r]);
+                        writeIndices(scheme.getBBlocks()[r]);
+                    }
+                }
+                BinaryLibraryFormat.writeVarLong(out, firstIndex);
+            } else {
+                mode = BinaryLibraryFormat.MODE_TUPLES;
+                out.write(mode);
+            }
+        } catch (java.io.IOException exc) {
+            throw new SmiLibIOException(exc);
+        }
+    }
+    
+    
+    /**
+     *Writes ID and original SMILES of a fragment.
+     */
+    private void writeFragment(Fragment fragment) throws java.io.IOException {
+        BinaryLibraryFormat.writeString(out, fragment.getID());
+        BinaryLibraryFormat.writeString(out, fragment.getOriginalSMILES());
+    }
+    
+    
+    /**
+     *Writes a list of fragment indices.
+     */
+    private void writeIndices(int[] indices) throws java.io.IOException {
+        BinaryLibraryFormat.writeVarLong(out, indices.length);
+        for (int i = 0; i < indices.length; i++) {
+            BinaryLibraryFormat.writeVarLong(out, indices[i]);
+        }
+    }
+    
+    
+    /**
+     * Counts a molecule of a complete enumeration or a reaction scheme. Not
+     * supported if index tuples are written.
+     * @param smiles SMILES string to write
+     * @param id molecule ID
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
+     */
+    public void writeSMILES(StringBuilder smiles, StringBuilder id) throws SmiLibIOException, SmiLibException {
+        writeSMILES(smiles, id, null);
+    }
+    
+    
+    /**
+     * Writes the combination a molecule was assembled from. The SMILES string
+     * and the ID are not stored, they are created from the fragments when the
+     * library file is read.
+     * @param smiles SMILES string to write
+     * @param id molecule ID
+     * @param combination indices of scaffold, linkers and building blocks the molecule was assembled from: [s,l,l,l,...,b,b,b,...]
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
+     */
+    public void writeSMILES(StringBuilder smiles, StringBuilder id, int[] combination) throws SmiLibIOException, SmiLibException {
+        if (out == null) {
+            throw new SmiLibException("Binary library files require the scaffolds, linkers and building blocks of the library.");
+        }
+        if (mode == BinaryLibraryFormat.MODE_TUPLES) {
+            if (combination == null) {
+                throw new SmiLibException("Binary library files require the combination of each molecule.");
+            }
+            try {
+                for (int i = 0; i < combination.length; i++) {
+                    BinaryLibraryFormat.writeVarLong(out, combination[i]);
+                }
+            } catch (java.io.IOException exc) {
+                throw new SmiLibIOException(exc);
+            }
+        }
+        molecules++;
+    }
+    
+    
+    /**
+     * Writes the number of molecules and closes the library file.
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     */
+    public void close() throws SmiLibIOException {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.writeLong(molecules);
+            out.close();
+        } catch (java.io.IOException exc) {
+            throw new SmiLibIOException(exc);
+        }
+    }
+    
+    
+    /**
+     *Returns the number of molecules written so far.
+     *
+     *@return number of molecules
+     */
+    public long getNumberOfMolecules() {
+        return molecules;
+    }
+    
+    
+    /**
+     *Sets whether a preview shall be shown and how many molecules are shown in preview.
+     *
+     *@param i number of molecules in preview
+     */
+    public void showPreview(int i) {
+        throw new UnsupportedOperationException("showPreview(int i) not supported by this SmilesWriter.");
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.exceptions.SmiLibException;
+import de.modlab.smilib.exceptions.SmiLibIOException;
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+
+/**
+ *Interface used by SmilesWriters that need to know the combination of
+ *scaffold, linkers and building blocks a molecule was assembled from,
+ *e.g. to split the library by scaffold.
+ */
+public interface CombinationWriter extends SmilesWriter {
+    
+    /**
+     * Called once before the first molecule is written. The molecules are
+     * written in the order of the iterator, beginning with the combination
+     * with index <code>firstIndex</code>.
+     * 
+     * @param compAdmin scaffolds, linkers and building blocks of the library
+     * @param iterator iterator the library is enumerated with
+     * @param firstIndex index of the first molecule written (counting from 0)
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     */
+    public void prepare(ComponentAdministrator compAdmin, SmiLibIterator iterator, long firstIndex) throws SmiLibIOException;
+    
+    
+    /**
+     * Writes a SMILES string.
+     * 
+     * @param smiles SMILES string to write
+     * @param id molecule ID
+     * @param combination indices of scaffold, linkers and building blocks the molecule was assembled from: [s,l,l,l,...,b,b,b,...]
+     * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     */
+    public void writeSMILES(StringBuilder smiles, StringBuilder id, int[] combination) throws SmiLibIOException, SmiLibException;
+}
@@ -35,6 +35,8 @@
 package de.modlab.smilib.io;
 
 import de.modlab.smilib.exceptions.SmiLibConformityException;
+import de.modlab.smilib.metrics.SampledTimer;
+import de.modlab.smilib.metrics.SmiLibMetrics;
 import java.util.ArrayList;
 import java.util.Arrays;
 
@@ -60,6 +62,12 @@ public class ConformityChecker {
     //symbols indicating an explicit single bond
     private char[]             singleBondSymbols = {'-', '/', '\\'};
     
+    //times every n-th check
+    private SampledTimer timer = SmiLibMetrics.timer(SmiLibMetrics.CHECKING, SmiLibMetrics.SAMPLE_INTERVAL);
+    
+    //SMILES checked, counted for sampling
+    private int calls = 0;
+    
     
     
     /** Creates a new instance of ConformityChecker */
@@ -74,10 +82,15 @@ public class ConformityChecker {
      * @throws SmiLibConformityException thrown if SMILES is not conform to SmiLib restrictions
      */
     public void checkConformity(String smiles, int mode) throws SmiLibConformityException {
-        this.checkBrackets(smiles);
-        this.checkForEZIsomerie(smiles);
-        this.checkForNecessaryGroups(smiles, mode);
-        this.checkBondCount(smiles, mode);
+        long start = timer.start(calls++);
+        try {
+            this.checkBrackets(smiles);
+            this.checkForEZIsomerie(smiles);
+            this.checkForNecessaryGroups(smiles, mode);
+            this.checkBondCount(smiles, mode);
+        } finally {
+            timer.stop(start);
+        }
     }
     
     private void checkBrackets(String smiles) throws SmiLibConformityException {
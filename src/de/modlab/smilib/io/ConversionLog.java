@@ -0,0 +1,264 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.main.SmiLib;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.text.DecimalFormat;
+
+/**
+ *Collects the time taken to convert each molecule of a SD file and the
+ *molecules that could not be converted in time or at all. The times are
+ *counted in buckets of at most 1/16 of their value, so percentiles are
+ *accurate to about 6%. Rejected molecules are written to the reject file,
+ *if any, as "ID&lt;TAB&gt;SMILES" lines that can be converted again with
+ *option --convert. The file is created by the first rejected molecule.
+ *One instance may be used by several threads.
+ */
+public class ConversionLog {
+    
+    //number of buckets per power of two
+    private static final int SUB_BUCKETS = 16;
+    
+    //number of molecules per bucket of conversion time in microseconds
+    private long[] buckets = new long[64 * SUB_BUCKETS];
+    
+    //number of molecules converted
+    private long count = 0;
+    
+    //longest conversion time in nanoseconds
+    private long maximum = 0;
+    
+    //number of molecules written without layout since the time budget was exceeded
+    private long timeouts = 0;
+    
+    //number of layouts left running after exceeding the time budget
+    private long abandoned = 0;
+    
+    //number of molecules written to the reject file
+    private long rejects = 0;
+    
+    //path/name of the reject file, null if molecules are not rejected
+    private String rejectPath;
+    
+    //reject file created true/false
+    private boolean rejectFileCreated = false;
+    
+    
+    
+    /**
+     *Creates a new instance of ConversionLog.
+     *
+     *@param rejectPath path/name of the reject file, null if molecules shall not be rejected
+     */
+    public ConversionLog(String rejectPath) {
+        this.rejectPath = rejectPath;
+    }
+    
+    
+    /**
+     *Returns whether molecules that cannot be converted are written to a reject file.
+     *
+     *@return reject file true/false
+     */
+    public boolean hasRejectFile() {
+        return rejectPath != null;
+    }
+    
+    
+    /**
+     *Adds the conversion time of a molecule.
+     *
+     *@param nanos conversion time in nanoseconds
+     */
+    public synchronized void add(long nanos) {
+        buckets[bucket(Math.max(nanos, 0) / 1000)]++;
+        count++;
+        maximum = Math.max(maximum, nanos);
+    }
+    
+    
+    /**
+     *Counts a molecule written without layout since the time budget was exceeded.
+     */
+    public synchronized void addTimeout() {
+        timeouts++;
+    }
+    
+    
+    /**
+     *Counts a layout left running in the background after exceeding the time budget.
+     */
+    public synchronized void addAbandoned() {
+        abandoned++;
+    }
+    
+    
+    /**
+     *Writes a molecule to the reject file.
+     *
+     *@param smiles SMILES of the molecule
+     *@param id molecule ID
+     *@throws java.io.IOException thrown if an IO error occurs
+     */
+    public synchronized void reject(String smiles, String id) throws java.io.IOException {
+        BufferedWriter out = new BufferedWriter(new FileWriter(rejectPath, rejectFileCreated));
+        try {
+            out.write(id + "\t" + smiles + "\n");
+        } finally {
+            out.close();
+        }
+        rejectFileCreated = true;
+        rejects++;
+    }
+    
+    
+    /**
+     *Returns the number of molecules whose conversion time was added.
+     *
+     *@return number of molecules
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+    
+    
+    /**
+     *Returns the number of molecules written without layout since the time budget was exceeded.
+     *
+     *@return number of molecules
+     */
+    public synchronized long getTimeouts() {
+        return timeouts;
+    }
+    
+    
+    /**
+     *Returns the number of layouts left running in the background after exceeding the time budget.
+     *
+     *@return number of layouts
+     */
+    public synchronized long getAbandoned() {
+        return abandoned;
+    }
+    
+    
+    /**
+     *Returns the number of molecules written to the reject file.
+     *
+     *@return number of molecules
+     */
+    public synchronized long getRejects() {
+        return rejects;
+    }
+    
+    
+    /**
+     *Returns the longest conversion time.
+     *
+     *@return conversion time in nanoseconds
+     */
+    public synchronized long getMaximum() {
+        return maximum;
+    }
+    
+    
+    /**
+     *Returns the conversion time that a fraction of the molecules did not exceed,
+     *e.g. 0.5 for the median.
+     *
+     *@param fraction fraction of the molecules (0-1)
+     *@return upper bound of the conversion time in nanoseconds, 0 if no times were added
+     */
+    public synchronized long getPercentile(double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("Invalid fraction: " + fraction);
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < buckets.length && count > 0; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(1000 * lowerBound(i + 1) - 1, maximum);
+            }
+        }
+        return 0;
+    }
+    
+    
+    /**
+     *Returns the median, the 99th percentile and the maximum of the conversion
+     *times, the numbers of molecules without layout and rejected and the
+     *number of abandoned layouts.
+     *
+     *@return summary of the conversion
+     */
+    public String toString() {
+        DecimalFormat df = new DecimalFormat("0.000");
+        return "SD conversion time per molecule: median " + df.format(getPercentile(0.5) / 1e6) +
+                " ms, 99th percentile " + df.format(getPercentile(0.99) / 1e6) +
+                " ms, maximum " + df.format(getMaximum() / 1e6) + " ms" + SmiLib.nl +
+                getTimeouts() + " molecules written without layout after exceeding the time budget, " +
+                getRejects() + " molecules rejected, " +
+                getAbandoned() + " layouts abandoned";
+    }
+    
+    
+    /**
+     *Returns the bucket of a conversion time: exact below 16 microseconds,
+     *16 buckets per power of two above.
+     */
+    private static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = exponent - 4;
+        return (exponent - 3) * SUB_BUCKETS + (int) (micros >> shift) - SUB_BUCKETS;
+    }
+    
+    
+    /**
+     *Returns the smallest conversion time in microseconds of a bucket.
+     */
+    private static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + 3;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << (exponent - 4);
+    }
+}
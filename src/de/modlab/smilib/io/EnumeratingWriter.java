@@ -0,0 +1,67 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.exceptions.SmiLibException;
+import de.modlab.smilib.exceptions.SmiLibIOException;
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.main.EnumerationProgress;
+
+/**
+ *Interface used by SmilesWriters that enumerate the library themselves, e.g.
+ *to assemble and write the molecules in parallel.
+ */
+public interface EnumeratingWriter extends SmilesWriter {
+    
+    /**
+     * Assembles and writes all molecules of the iterator, in the order of the iterator.
+     * 
+     * @param compAdmin scaffolds, linkers and building blocks of the library
+     * @param iterator iterator defining the molecules of the library
+     * @param progress counts the molecules written, or <code>null</code>
+     * @return number of molecules written
+     * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     */
+    public long writeLibrary(ComponentAdministrator compAdmin, SmiLibIterator iterator, EnumerationProgress progress) throws SmiLibIOException, SmiLibException;
+    
+    
+    /**
+     * Stops writing the library. The molecules written up to the first
+     * molecule that was not written are kept.
+     */
+    public void stop();
+}
@@ -0,0 +1,232 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.exceptions.SmiLibIOException;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.main.SmilesAssembler;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *Reads single molecules or ranges of molecules from an uncompressed SMILES
+ *library file using its offset index (".smidx", see {@link SmilesChannelWriter}).
+ *The bytes between the index entries enclosing the requested molecules are
+ *read with a single positioned read, so the time needed does not depend on
+ *the position of the molecules in the file.
+ */
+public class IndexedSmilesReader {
+    
+    //path and filename of the library file
+    private String path;
+    
+    //library file
+    private RandomAccessFile file;
+    
+    //channel of the library file
+    private FileChannel channel;
+    
+    //molecule indices of the index entries, the last entry is the number of molecules
+    private long[] moleculeIndices;
+    
+    //byte offsets of the index entries, the last entry is the size of the file
+    private long[] offsets;
+    
+    
+    
+    /**
+     *Creates a new instance of IndexedSmilesReader and reads the offset index.
+     *
+     *@param path path/name of the SMILES library file
+     *@throws de.modlab.smilib.exceptions.SmiLibIOException thrown if the file or its offset index can not be read
+     */
+    public IndexedSmilesReader(String path) throws SmiLibIOException {
+        this.path = path;
+        String indexPath = path + SmilesWriterFactory.OFFSET_INDEX_EXTENSION;
+        try {
+            List<long[]> entries = new ArrayList<long[]>();
+            BufferedReader reader = new BufferedReader(new FileReader(indexPath));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.length() == 0 || line.charAt(0) == '#')
+                        continue;
+                    String[] fields = line.split("\t");
+                    entries.add(new long[] {Long.parseLong(fields[0]), Long.parseLong(fields[1])});
+                }
+            } finally {
+                reader.close();
+            }
+            if (entries.isEmpty()) {
+                throw new SmiLibIOException("Empty offset index: " + indexPath);
+            }
+            moleculeIndices = new long[entries.size()];
+            offsets = new long[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                moleculeIndices[i] = entries.get(i)[0];
+                offsets[i] = entries.get(i)[1];
+            }
+            
+            file = new RandomAccessFile(path, "r");
+            channel = file.getChannel();
+            if (file.length() != offsets[offsets.length - 1]) {
+                close();
+                throw new SmiLibIOException("Offset index " + indexPath + " does not match library file " + path);
+            }
+        } catch (NumberFormatException exc) {
+            throw new SmiLibIOException("Invalid offset index " + indexPath, exc);
+        } catch (ArrayIndexOutOfBoundsException exc) {
+            throw new SmiLibIOException("Invalid offset index " + indexPath, exc);
+        } catch (java.io.IOException exc) {
+            throw new SmiLibIOException("Error while reading " + indexPath + ": " + exc.getMessage(), exc);
+        }
+    }
+    
+    
+    /**
+     *Returns the number of molecules in the library file.
+     *
+     *@return number of molecules
+     */
+    public long getNumberOfMolecules() {
+        return moleculeIndices[moleculeIndices.length - 1];
+    }
+    
+    
+    /**
+     *Reads the molecule with the given index.
+     *
+     *@param index index of the molecule (counting from 0)
+     *@return line of the molecule in the library file: ID, TAB, SMILES
+     *@throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     */
+    public String getMolecule(long index) throws SmiLibIOException {
+        return getMolecules(index, index).get(0);
+    }
+    
+    
+    /**
+     *Reads the molecule with the given ID. The ID is translated into the index of
+     *the molecule using the fragments and the iterator the library was
+     *enumerated with.
+     *
+     *@param id molecule ID
+     *@param assembler assembler for the fragments of the library
+     *@param iterator iterator the library was enumerated with
+     *@return line of the molecule in the library file: ID, TAB, SMILES, or <code>null</code> if the library contains no molecule with this ID
+     *@throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     */
+    public String getMolecule(String id, SmilesAssembler assembler, SmiLibIterator iterator) throws SmiLibIOException {
+        int[] combination = assembler.parseID(id);
+        if (combination == null)
+            return null;
+        long index = iterator.getIndex(combination);
+        if (index < 0 || index >= getNumberOfMolecules())
+            return null;
+        return getMolecule(index);
+    }
+    
+    
+    /**
+     *Reads a range of molecules.
+     *
+     *@param first index of the first molecule (counting from 0)
+     *@param last index of the last molecule (inclusive)
+     *@return lines of the molecules in the library file: ID, TAB, SMILES
+     *@throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     */
+    public List<String> getMolecules(long first, long last) throws SmiLibIOException {
+        if (first < 0 || last < first || last >= getNumberOfMolecules()) {
+            throw new IndexOutOfBoundsException("Invalid molecule range: " + first + "-" + last);
+        }
+        
+        //index entries enclosing the range
+        int start = Arrays.binarySearch(moleculeIndices, first);
+        if (start < 0)
+            start = -start - 2;
+        int end = Arrays.binarySearch(moleculeIndices, last + 1);
+        if (end < 0)
+            end = -end - 1;
+        
+        long length = offsets[end] - offsets[start];
+        if (length > Integer.MAX_VALUE) {
+            throw new SmiLibIOException("Molecule range too large: " + first + "-" + last);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offsets[start] + buffer.position()) == -1) {
+                    throw new SmiLibIOException("Unexpected end of library file " + path);
+                }
+            }
+        } catch (java.io.IOException exc) {
+            throw new SmiLibIOException(exc);
+        }
+        
+        List<String> molecules = new ArrayList<String>();
+        byte[] bytes = buffer.array();
+        int lineStart = 0;
+        for (long index = moleculeIndices[start]; index <= last; index++) {
+            int lineEnd = lineStart;
+            while (bytes[lineEnd] != '\n')
+                lineEnd++;
+            if (index >= first)
+                molecules.add(new String(bytes, lineStart, lineEnd - lineStart));
+            lineStart = lineEnd + 1;
+        }
+        return molecules;
+    }
+    
+    
+    /**
+     *Closes the library file.
+     *
+     *@throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     */
+    public void close() throws SmiLibIOException {
+        try {
+            channel.close();
+            file.close();
+        } catch (java.io.IOException exc) {
+            throw new SmiLibIOException(exc);
+        }
+    }
+}
@@ -0,0 +1,425 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import java.util.zip.Deflater;
+
+/**
+ *Stores the settings that control how a combinatorial library is written,
+ *e.g. compression level and number of threads used for compression.
+ */
+public class OutputSettings {
+    
+    /** default size of an uncompressed block (1 MB) */
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+    
+    /** default size of the output buffer of uncompressed SMILES files (8 MB) */
+    public static final int DEFAULT_BUFFER_SIZE = 8 << 20;
+    
+    /** compression level used for .gz output (0-9) */
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    
+    /** number of threads used for reading the SMILES files, compression and parallel writing */
+    private int threads = Runtime.getRuntime().availableProcessors();
+    
+    /** size of the uncompressed blocks that are compressed independently */
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+    
+    /** write a block index next to the library file true/false */
+    private boolean writeIndex = false;
+    
+    /** size of the output buffer of uncompressed SMILES files */
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    
+    /** number of bytes reserved for the library file before writing */
+    private long preallocate = 0;
+    
+    /** write uncompressed SMILES files through a memory mapping true/false */
+    private boolean memoryMapped = false;
+    
+    /** how the library is split into several files, see {@link PartitionedSmilesWriter} */
+    private int splitMode = PartitionedSmilesWriter.SPLIT_NONE;
+    
+    /** number of molecules or bytes per file */
+    private long splitSize = 0;
+    
+    /** number of molecules between two entries of the offset index, 0 if no offset index is written */
+    private int offsetIndexInterval = 0;
+    
+    /** assemble and write uncompressed SMILES files using several threads true/false */
+    private boolean parallelWrite = false;
+    
+    /** lay out the molecules of SD files using the 2D layouts of their fragments true/false */
+    private boolean fragmentLayouts = true;
+    
+    /** time budget for adding hydrogens to and laying out a molecule of a SD file in milliseconds, 0 for no limit */
+    private long layoutTimeout = 0;
+    
+    /** file the molecules that cannot be converted to SD format are written to, null if none */
+    private String rejectPath = null;
+    
+    /** conversion times and rejected molecules of SD files, null until first used */
+    private ConversionLog conversionLog;
+    
+    
+    
+    /**
+     *Creates a new instance of OutputSettings with default values.
+     */
+    public OutputSettings() {
+    }
+    
+    
+    /**
+     *Returns the compression level used for compressed output.
+     *
+     *@return compression level (0-9, -1 for default compression)
+     */
+    public int getCompressionLevel() {
+        return this.compressionLevel;
+    }
+    
+    
+    /**
+     *Sets the compression level used for compressed output.
+     *
+     *@param level compression level (0-9, -1 for default compression)
+     */
+    public void setCompressionLevel(int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        this.compressionLevel = level;
+    }
+    
+    
+    /**
+     *Returns the number of threads used for output processing.
+     *
+     *@return number of threads
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+    
+    
+    /**
+     *Sets the number of threads used for output processing.
+     *
+     *@param threads number of threads (at least 1)
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        }
+        this.threads = threads;
+    }
+    
+    
+    /**
+     *Returns the size of the uncompressed blocks in bytes.
+     *
+     *@return block size in bytes
+     */
+    public int getBlockSize() {
+        return this.blockSize;
+    }
+    
+    
+    /**
+     *Sets the size of the uncompressed blocks in bytes.
+     *
+     *@param blockSize block size in bytes (at least 1024)
+     */
+    public void setBlockSize(int blockSize) {
+        if (blockSize < 1024) {
+            throw new IllegalArgumentException("Invalid block size: " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+    
+    
+    /**
+     *Returns whether an index is written next to the library file.
+     *
+     *@return write index true/false
+     */
+    public boolean getWriteIndex() {
+        return this.writeIndex;
+    }
+    
+    
+    /**
+     *Sets whether an index is written next to the library file.
+     *
+     *@param writeIndex write index true/false
+     */
+    public void setWriteIndex(boolean writeIndex) {
+        this.writeIndex = writeIndex;
+    }
+    
+    
+    /**
+     *Returns the size of the output buffer of uncompressed SMILES files.
+     *
+     *@return buffer size in bytes
+     */
+    public int getBufferSize() {
+        return this.bufferSize;
+    }
+    
+    
+    /**
+     *Sets the size of the output buffer of uncompressed SMILES files.
+     *
+     *@param bufferSize buffer size in bytes (at least 1024)
+     */
+    public void setBufferSize(int bufferSize) {
+        if (bufferSize < 1024) {
+            throw new IllegalArgumentException("Invalid buffer size: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+    }
+    
+    
+    /**
+     *Returns the number of bytes reserved for the library file before writing.
+     *
+     *@return number of bytes to preallocate, 0 if no space is preallocated
+     */
+    public long getPreallocate() {
+        return this.preallocate;
+    }
+    
+    
+    /**
+     *Sets the number of bytes reserved for the library file before writing.
+     *The file is truncated to its real size when it is closed.
+     *
+     *@param preallocate number of bytes to preallocate, 0 if no space shall be preallocated
+     */
+    public void setPreallocate(long preallocate) {
+        if (preallocate < 0) {
+            throw new IllegalArgumentException("Invalid preallocation size: " + preallocate);
+        }
+        this.preallocate = preallocate;
+    }
+    
+    
+    /**
+     *Returns whether uncompressed SMILES files are written through a memory mapping.
+     *
+     *@return use memory mapping true/false
+     */
+    public boolean getMemoryMapped() {
+        return this.memoryMapped;
+    }
+    
+    
+    /**
+     *Sets whether uncompressed SMILES files are written through a memory mapping.
+     *
+     *@param memoryMapped use memory mapping true/false
+     */
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+    
+    
+    /**
+     *Returns how the library is split into several files.
+     *
+     *@return split mode as defined in {@link PartitionedSmilesWriter}
+     */
+    public int getSplitMode() {
+        return this.splitMode;
+    }
+    
+    
+    /**
+     *Returns the number of molecules or bytes per file if the library is split.
+     *
+     *@return number of molecules or bytes per file
+     */
+    public long getSplitSize() {
+        return this.splitSize;
+    }
+    
+    
+    /**
+     *Sets how the library is split into several files.
+     *
+     *@param splitMode split mode as defined in {@link PartitionedSmilesWriter}
+     *@param splitSize number of molecules or bytes per file, ignored if split by scaffold
+     */
+    public void setSplit(int splitMode, long splitSize) {
+        if ((splitMode == PartitionedSmilesWriter.SPLIT_BY_COUNT || splitMode == PartitionedSmilesWriter.SPLIT_BY_BYTES) && splitSize < 1) {
+            throw new IllegalArgumentException("Invalid split size: " + splitSize);
+        }
+        this.splitMode = splitMode;
+        this.splitSize = splitSize;
+    }
+    
+    
+    /**
+     *Returns the number of molecules between two entries of the offset index
+     *of uncompressed SMILES files.
+     *
+     *@return number of molecules per index entry, 0 if no offset index is written
+     */
+    public int getOffsetIndexInterval() {
+        return this.offsetIndexInterval;
+    }
+    
+    
+    /**
+     *Sets the number of molecules between two entries of the offset index
+     *of uncompressed SMILES files.
+     *
+     *@param offsetIndexInterval number of molecules per index entry, 0 if no offset index shall be written
+     */
+    public void setOffsetIndexInterval(int offsetIndexInterval) {
+        if (offsetIndexInterval < 0) {
+            throw new IllegalArgumentException("Invalid offset index interval: " + offsetIndexInterval);
+        }
+        this.offsetIndexInterval = offsetIndexInterval;
+    }
+    
+    
+    /**
+     *Returns whether uncompressed SMILES files are assembled and written using several threads.
+     *
+     *@return parallel writing true/false
+     */
+    public boolean getParallelWrite() {
+        return this.parallelWrite;
+    }
+    
+    
+    /**
+     *Sets whether uncompressed SMILES files are assembled and written using several
+     *threads, see {@link ParallelSmilesChannelWriter}.
+     *
+     *@param parallelWrite parallel writing true/false
+     */
+    public void setParallelWrite(boolean parallelWrite) {
+        this.parallelWrite = parallelWrite;
+    }
+    
+    
+    /**
+     *Returns whether the molecules of SD files are laid out using the 2D layouts of their fragments.
+     *
+     *@return fragment layouts true/false
+     */
+    public boolean getFragmentLayouts() {
+        return this.fragmentLayouts;
+    }
+    
+    
+    /**
+     *Sets whether the molecules of SD files are laid out using the 2D layouts of
+     *their fragments, which are computed once per fragment, instead of laying out
+     *each molecule, see {@link de.modlab.smilib.main.MoleculeAssembler}. The
+     *scaffold then has the same orientation in all its molecules.
+     *
+     *@param fragmentLayouts fragment layouts true/false
+     */
+    public void setFragmentLayouts(boolean fragmentLayouts) {
+        this.fragmentLayouts = fragmentLayouts;
+    }
+    
+    
+    /**
+     *Returns the time budget for adding hydrogens to and laying out a molecule of a SD file.
+     *
+     *@return time budget in milliseconds, 0 for no limit
+     */
+    public long getLayoutTimeout() {
+        return this.layoutTimeout;
+    }
+    
+    
+    /**
+     *Sets the time budget for adding hydrogens to and laying out a molecule of a
+     *SD file. A molecule that exceeds it is written to the reject file, if any,
+     *or else without hydrogens and with the coordinates of its fragments or all
+     *atoms at the origin.
+     *
+     *@param layoutTimeout time budget in milliseconds, 0 for no limit
+     */
+    public void setLayoutTimeout(long layoutTimeout) {
+        if (layoutTimeout < 0) {
+            throw new IllegalArgumentException("Invalid layout timeout: " + layoutTimeout);
+        }
+        this.layoutTimeout = layoutTimeout;
+    }
+    
+    
+    /**
+     *Returns the file the molecules that cannot be converted to SD format are written to.
+     *
+     *@return path/name of the reject file, null if none
+     */
+    public String getRejectPath() {
+        return this.rejectPath;
+    }
+    
+    
+    /**
+     *Sets the file the molecules that cannot be converted to SD format, or not
+     *within the time budget, are written to instead of halting the enumeration.
+     *Must be set before the library is written.
+     *
+     *@param rejectPath path/name of the reject file, null if none
+     */
+    public void setRejectPath(String rejectPath) {
+        this.rejectPath = rejectPath;
+    }
+    
+    
+    /**
+     *Returns the conversion times and rejected molecules of the SD files written
+     *with these settings.
+     *
+     *@return conversion log, shared by all writers using these settings
+     */
+    public synchronized ConversionLog getConversionLog() {
+        if (conversionLog == null) {
+            conversionLog = new ConversionLog(rejectPath);
+        }
+        return this.conversionLog;
+    }
+}
@@ -0,0 +1,378 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.metrics.SmiLibMetrics;
+import de.modlab.smilib.metrics.StripedCounter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ *Compresses data in fixed-size blocks using several threads. Each block is
+ *written as an independent gzip member, in the order the data was written,
+ *so the result is a standard gzip stream that can be read by any gzip tool.
+ *Optionally, the offsets of all members are written to a block index which
+ *allows random access to the compressed file.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+    
+    /** gzip member header: magic, deflate, no flags, no mtime, no extra flags, unknown OS */
+    private static final byte[] GZIP_HEADER = {
+        (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+    
+    /** stream the compressed members are written to */
+    private OutputStream out;
+    
+    /** block index is written here, may be null */
+    private PrintWriter index;
+    
+    /** compresses the blocks, null if compression is done by the calling thread */
+    private ExecutorService executor;
+    
+    /** blocks that are being compressed, in the order they have to be written */
+    private LinkedList<Block> pending = new LinkedList<Block>();
+    
+    /** number of blocks pending in all streams */
+    private StripedCounter queueDepth = SmiLibMetrics.counter(SmiLibMetrics.GZIP_QUEUE);
+    
+    /** maximum number of blocks in compression at the same time */
+    private int maxPending;
+    
+    /** compression level */
+    private int level;
+    
+    /** size of the uncompressed blocks */
+    private int blockSize;
+    
+    /** current, not yet compressed block */
+    private byte[] buffer;
+    
+    /** number of bytes in the current block */
+    private int count = 0;
+    
+    /** number of uncompressed bytes already written to the output stream */
+    private long uncompressedOffset = 0;
+    
+    /** number of compressed bytes already written to the output stream */
+    private long compressedOffset = 0;
+    
+    /** at least one member has been written true/false */
+    private boolean memberWritten = false;
+    
+    /** stream is closed true/false */
+    private boolean closed = false;
+    
+    
+    
+    /**
+     *Creates a new instance of ParallelGzipOutputStream.
+     *
+     *@param out stream the compressed data is written to
+     *@param level compression level (0-9, -1 for default compression)
+     *@param threads number of threads used for compression
+     *@param blockSize size of the uncompressed blocks in bytes
+     *@param index stream the block index is written to, may be null
+     */
+    public ParallelGzipOutputStream(OutputStream out, int level, int threads, int blockSize, OutputStream index) {
+        this.out = out;
+        this.level = level;
+        this.blockSize = blockSize;
+        this.buffer = new byte[blockSize];
+        this.maxPending = 2 * threads;
+        if (threads > 1) {
+            executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "SmiLib gzip");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        if (index != null) {
+            this.index = new PrintWriter(index);
+            this.index.println("#compressed_offset\tuncompressed_offset\tuncompressed_length");
+        }
+    }
+    
+    
+    /**
+     *Creates a new instance of ParallelGzipOutputStream using the given settings.
+     *
+     *@param out stream the compressed data is written to
+     *@param settings compression level, number of threads and block size
+     *@param index stream the block index is written to, may be null
+     */
+    public ParallelGzipOutputStream(OutputStream out, OutputSettings settings, OutputStream index) {
+        this(out, settings.getCompressionLevel(), settings.getThreads(), settings.getBlockSize(), index);
+    }
+    
+    
+    /**
+     *Writes a single byte.
+     *
+     *@param b byte to write
+     *@throws java.io.IOException thrown if an IO error occurs
+     */
+    public void write(int b) throws IOException {
+        buffer[count++] = (byte) b;
+        if (count == blockSize) {
+            submitBlock();
+        }
+    }
+    
+    
+    /**
+     *Writes <code>len</code> bytes of an array starting at offset <code>off</code>.
+     *
+     *@param b data
+     *@param off start offset in the data
+     *@param len number of bytes to write
+     *@throws java.io.IOException thrown if an IO error occurs
+     */
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = Math.min(len, blockSize - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == blockSize) {
+                submitBlock();
+            }
+        }
+    }
+    
+    
+    /**
+     *Compresses the current (maybe partial) block and writes all pending
+     *blocks to the underlying stream.
+     *
+     *@throws java.io.IOException thrown if an IO error occurs
+     */
+    public void flush() throws IOException {
+        if (count > 0) {
+            submitBlock();
+        }
+        while (!pending.isEmpty()) {
+            writeNextBlock();
+        }
+        out.flush();
+        if (index != null) {
+            index.flush();
+        }
+    }
+    
+    
+    /**
+     *Writes all remaining data and closes the stream, the block index and the
+     *compression threads.
+     *
+     *@throws java.io.IOException thrown if an IO error occurs
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+            //an empty file is not a valid gzip file - write an empty member
+            if (!memberWritten) {
+                pending.add(new Block(compressMember(buffer, 0, level), 0));
+                queueDepth.increment();
+                writeNextBlock();
+            }
+        } finally {
+            closed = true;
+            queueDepth.add(-pending.size());
+            pending.clear();
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            if (index != null) {
+                index.close();
+            }
+            out.close();
+        }
+    }
+    
+    
+    /**
+     *Hands the current block to the compression threads. If too many blocks
+     *are pending, the oldest block is written first.
+     */
+    private void submitBlock() throws IOException {
+        final byte[] data = buffer;
+        final int length = count;
+        if (executor == null) {
+            pending.add(new Block(compressMember(data, length, level), length));
+            buffer = data;
+        } else {
+            Future<byte[]> future = executor.submit(new Callable<byte[]>() {
+                public byte[] call() {
+                    return compressMember(data, length, level);
+                }
+            });
+            pending.add(new Block(future, length));
+            buffer = new byte[blockSize];
+        }
+        queueDepth.increment();
+        count = 0;
+        while (pending.size() >= maxPending) {
+            writeNextBlock();
+        }
+    }
+    
+    
+    /**
+     *Waits for the oldest pending block and writes it to the underlying stream.
+     */
+    private void writeNextBlock() throws IOException {
+        Block block = pending.removeFirst();
+        queueDepth.add(-1);
+        byte[] member = block.getMember();
+        if (index != null) {
+            index.print(compressedOffset);
+            index.print('\t');
+            index.print(uncompressedOffset);
+            index.print('\t');
+            index.println(block.length);
+        }
+        out.write(member);
+        compressedOffset += member.length;
+        uncompressedOffset += block.length;
+        memberWritten = true;
+    }
+    
+    
+    /**
+     *Compresses data to a complete gzip member.
+     *
+     *@param data data to compress
+     *@param length number of bytes to compress
+     *@param level compression level
+     *@return gzip member containing the data
+     */
+    static byte[] compressMember(byte[] data, int length, int level) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        ByteArrayOutputStream member = new ByteArrayOutputStream(length / 3 + 64);
+        member.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+        
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            byte[] temp = new byte[Math.max(length / 2, 1024)];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(temp);
+                member.write(temp, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+        
+        //trailer: CRC32 and uncompressed length, both little endian
+        writeIntLE(member, crc.getValue());
+        writeIntLE(member, length);
+        return member.toByteArray();
+    }
+    
+    
+    /**
+     *Writes the lower 4 bytes of a number in little endian byte order.
+     */
+    private static void writeIntLE(ByteArrayOutputStream out, long value) {
+        out.write((int) (value & 0xff));
+        out.write((int) ((value >> 8) & 0xff));
+        out.write((int) ((value >> 16) & 0xff));
+        out.write((int) ((value >> 24) & 0xff));
+    }
+    
+    
+    /**
+     *A block that is compressed or being compressed.
+     */
+    private static class Block {
+        
+        /** compressed member, if compressed by the calling thread */
+        private byte[] member;
+        
+        /** compressed member, if compressed by a compression thread */
+        private Future<byte[]> future;
+        
+        /** uncompressed length */
+        private int length;
+        
+        Block(byte[] member, int length) {
+            this.member = member;
+            this.length = length;
+        }
+        
+        Block(Future<byte[]> future, int length) {
+            this.future = future;
+            this.length = length;
+        }
+        
+        byte[] getMember() throws IOException {
+            if (member != null) {
+                return member;
+            }
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                IOException ioe = new IOException("Interrupted while compressing output.");
+                ioe.initCause(e);
+                throw ioe;
+            } catch (ExecutionException e) {
+                IOException ioe = new IOException("Error while compressing output: " + e.getCause());
+                ioe.initCause(e.getCause());
+                throw ioe;
+            }
+        }
+    }
+}
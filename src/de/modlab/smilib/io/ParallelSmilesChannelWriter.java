@@ -0,0 +1,436 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.exceptions.SmiLibException;
+import de.modlab.smilib.exceptions.SmiLibIOException;
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.main.EnumerationProgress;
+import de.modlab.smilib.main.SmilesAssembler;
+import de.modlab.smilib.metrics.SampledTimer;
+import de.modlab.smilib.metrics.SmiLibMetrics;
+import de.modlab.smilib.metrics.StripedCounter;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *Assembles and writes an uncompressed SMILES library file using several
+ *threads. The number of bytes of each molecule is computed from the lengths
+ *of its fragments ({@link SmilesAssembler#getLineLength(int[])}), so the
+ *position of every chunk of molecules in the file is known before the
+ *molecules are assembled. The file is preallocated and each thread writes
+ *its chunks directly to their positions, either with positional writes or
+ *through a memory mapping. No thread waits for another one and the output is
+ *identical to the output of {@link SmilesChannelWriter}.<br>
+ *<br>
+ *Molecules written with <code>writeSMILES(...)</code> are written
+ *sequentially by the superclass.
+ */
+public class ParallelSmilesChannelWriter extends SmilesChannelWriter implements EnumeratingWriter {
+    
+    /** default number of molecules per chunk */
+    public static final int CHUNK_SIZE = 16384;
+    
+    /** number of molecules per chunk */
+    private int chunkSize;
+    
+    /** path and filename of the file that shall contain the combinatorial library */
+    private String pathOfResultFile;
+    
+    /** number of threads, memory mapping and offset index */
+    private OutputSettings settings;
+    
+    /** library file, written by all threads */
+    private FileChannel channel;
+    
+    /** scaffolds, linkers and building blocks of the library */
+    private ComponentAdministrator compAdmin;
+    
+    /** iterator defining the molecules of the library */
+    private SmiLibIterator iterator;
+    
+    /** counts the molecules written, may be null */
+    private EnumerationProgress progress;
+    
+    /** number of molecules of the library */
+    private long molecules;
+    
+    /** byte offset of each chunk, the last entry is the size of the file */
+    private long[] chunkOffsets;
+    
+    /** chunks that have been written completely */
+    private boolean[] chunksWritten;
+    
+    /** byte offsets of every n-th molecule for the offset index, null if no index is written */
+    private long[] indexOffsets;
+    
+    /** next chunk to be processed by a thread */
+    private AtomicInteger nextChunk = new AtomicInteger();
+    
+    /** chunks of the current pass not yet taken by a thread */
+    private AtomicInteger queued = new AtomicInteger();
+    
+    /** metrics shared by all writers */
+    private SampledTimer iterationTimer = SmiLibMetrics.timer(SmiLibMetrics.ITERATION, SmiLibMetrics.SAMPLE_INTERVAL);
+    private SampledTimer chunkTimer = SmiLibMetrics.timer(SmiLibMetrics.CHUNK_WRITING, 1);
+    private StripedCounter productsEmitted = SmiLibMetrics.counter(SmiLibMetrics.PRODUCTS_EMITTED);
+    private StripedCounter writerBytes = SmiLibMetrics.counter(SmiLibMetrics.WRITER_BYTES);
+    private StripedCounter queueDepth = SmiLibMetrics.counter(SmiLibMetrics.CHUNK_QUEUE);
+    
+    /** writing shall be stopped true/false */
+    private volatile boolean stopped = false;
+    
+    /** library was written by writeLibrary(...) true/false */
+    private boolean libraryWritten = false;
+    
+    
+    
+    /**
+     *Creates a new instance of ParallelSmilesChannelWriter.
+     *
+     *@param path path/name of the file, in which the SMILES are written
+     *@param settings number of threads, memory mapping and offset index
+     */
+    public ParallelSmilesChannelWriter(String path, OutputSettings settings) {
+        this(path, settings, CHUNK_SIZE);
+    }
+    
+    
+    /**
+     *Creates a new instance of ParallelSmilesChannelWriter.
+     *
+     *@param path path/name of the file, in which the SMILES are written
+     *@param settings number of threads, memory mapping and offset index
+     *@param chunkSize number of molecules per chunk
+     */
+    ParallelSmilesChannelWriter(String path, OutputSettings settings, int chunkSize) {
+        super(path, settings);
+        this.pathOfResultFile = path;
+        this.settings = settings;
+        this.chunkSize = chunkSize;
+    }
+    
+    
+    /**
+     * Assembles and writes all molecules of the iterator using several threads.
+     * @param compAdmin scaffolds, linkers and building blocks of the library
+     * @param iterator iterator defining the molecules of the library
+     * @param progress counts the molecules written, or <code>null</code>
+     * @return number of molecules written
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
+     */
+    public long writeLibrary(ComponentAdministrator compAdmin, SmiLibIterator iterator, EnumerationProgress progress) throws SmiLibIOException, SmiLibException {
+        this.compAdmin = compAdmin;
+        this.iterator = iterator;
+        this.progress = progress;
+        this.molecules = iterator.getMaximum();
+        this.libraryWritten = true;
+        
+        long numChunks = (molecules + chunkSize - 1) / chunkSize;
+        if (numChunks >= Integer.MAX_VALUE) {
+            throw new SmiLibException("Library too large for parallel writing: " + molecules + " molecules");
+        }
+        chunkOffsets = new long[(int) numChunks + 1];
+        chunksWritten = new boolean[(int) numChunks];
+        int interval = settings.getOffsetIndexInterval();
+        if (interval > 0) {
+            long entries = molecules == 0 ? 0 : (molecules - 1) / interval + 1;
+            if (entries >= Integer.MAX_VALUE) {
+                throw new SmiLibException("Offset index interval too small: " + interval);
+            }
+            indexOffsets = new long[(int) entries];
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(settings.getThreads(), new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "SmiLib parallel writer");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        try {
+            RandomAccessFile file = new RandomAccessFile(pathOfResultFile, "rw");
+            channel = file.getChannel();
+            try {
+                //first pass: size of each chunk, then offsets by prefix sums
+                runWorkers(executor, true);
+                for (int i = 0; i < chunksWritten.length; i++) {
+                    chunkOffsets[i + 1] += chunkOffsets[i];
+                }
+                
+                //second pass: assemble and write the chunks
+                if (!stopped) {
+                    file.setLength(chunkOffsets[chunksWritten.length]);
+                    runWorkers(executor, false);
+                }
+                
+                //keep the chunks up to the first chunk not written
+                int written = 0;
+                while (written < chunksWritten.length && chunksWritten[written]) {
+                    written++;
+                }
+                molecules = Math.min(molecules, (long) written * chunkSize);
+                file.setLength(chunkOffsets[written]);
+                if (indexOffsets != null) {
+                    writeIndex(chunkOffsets[written]);
+                }
+            } finally {
+                channel.close();
+                file.close();
+            }
+        } catch (java.io.IOException exc) {
+            throw new SmiLibIOException(exc);
+        } finally {
+            executor.shutdownNow();
+        }
+        return molecules;
+    }
+    
+    
+    /**
+     *Processes all chunks with one worker per thread and waits for them to finish.
+     *
+     *@param computeLengths first pass (compute the chunk sizes) true/false
+     */
+    private void runWorkers(ExecutorService executor, final boolean computeLengths) throws SmiLibIOException, SmiLibException {
+        nextChunk.set(0);
+        queued.set(chunksWritten.length);
+        queueDepth.add(chunksWritten.length);
+        List<Future<Object>> workers = new ArrayList<Future<Object>>();
+        for (int i = 0; i < settings.getThreads(); i++) {
+            workers.add(executor.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    SmilesAssembler assembler = new SmilesAssembler(compAdmin);
+                    for (int chunk = nextChunk.getAndIncrement(); chunk < chunksWritten.length && !stopped; chunk = nextChunk.getAndIncrement()) {
+                        queued.decrementAndGet();
+                        queueDepth.add(-1);
+                        if (computeLengths) {
+                            chunkOffsets[chunk + 1] = computeChunkLength(assembler, chunk);
+                        } else {
+                            writeChunk(assembler, chunk);
+                            chunksWritten[chunk] = true;
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+        
+        //wait for all workers, stop the others if one of them fails
+        Throwable error = null;
+        for (Future<Object> worker : workers) {
+            try {
+                worker.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopped = true;
+                error = new SmiLibIOException("Interrupted while writing " + pathOfResultFile);
+            } catch (ExecutionException e) {
+                stopped = true;
+                if (error == null) {
+                    error = e.getCause();
+                }
+            }
+        }
+        queueDepth.add(-queued.getAndSet(0));
+        if (error instanceof SmiLibException) {
+            throw (SmiLibException) error;
+        } else if (error != null) {
+            throw new SmiLibIOException("Error while writing " + pathOfResultFile + ": " + error, error);
+        }
+    }
+    
+    
+    /**
+     *Returns the number of bytes of a chunk.
+     */
+    private long computeChunkLength(SmilesAssembler assembler, int chunk) {
+        long first = (long) chunk * chunkSize;
+        long last = Math.min(first + chunkSize, molecules);
+        long length = 0;
+        SmiLibIterator chunkIterator = iterator.getIterator(first);
+        for (long i = first; i < last; i++) {
+            length += assembler.getLineLength(chunkIterator.next());
+        }
+        return length;
+    }
+    
+    
+    /**
+     *Assembles the molecules of a chunk and writes them to the position of the chunk.
+     */
+    private void writeChunk(SmilesAssembler assembler, int chunk) throws SmiLibException, java.io.IOException {
+        long length = chunkOffsets[chunk + 1] - chunkOffsets[chunk];
+        if (length > Integer.MAX_VALUE) {
+            throw new SmiLibException("Chunk too large for parallel writing: " + length + " bytes");
+        }
+        byte[] bytes = new byte[(int) length];
+        StringBuilder smiles = new StringBuilder();
+        StringBuilder id = new StringBuilder();
+        long first = (long) chunk * chunkSize;
+        long last = Math.min(first + chunkSize, molecules);
+        int position = 0;
+        SmiLibIterator chunkIterator = iterator.getIterator(first);
+        for (long i = first; i < last; i++) {
+            long start = iterationTimer.start(i);
+            int[] combination = chunkIterator.next();
+            iterationTimer.stop(start);
+            assembler.assemble(combination, smiles, id);
+            int lineLength = assembler.getLineLength(combination);
+            if (indexOffsets != null && i % settings.getOffsetIndexInterval() == 0) {
+                indexOffsets[(int) (i / settings.getOffsetIndexInterval())] = chunkOffsets[chunk] + position;
+            }
+            if (position + lineLength > bytes.length || encodeLine(smiles, id, bytes, position) != lineLength) {
+                throw new SmiLibException("Computed length of molecule " + id + " does not match its SMILES.");
+            }
+            position += lineLength;
+        }
+        
+        long start = chunkTimer.start(chunk);
+        ByteBuffer buffer;
+        if (settings.getMemoryMapped()) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, chunkOffsets[chunk], length);
+            buffer.put(bytes);
+        } else {
+            buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, chunkOffsets[chunk] + buffer.position());
+            }
+        }
+        chunkTimer.stop(start);
+        productsEmitted.add(last - first);
+        writerBytes.add(length);
+        if (progress != null) {
+            progress.add(last - first, length);
+        }
+    }
+    
+    
+    /**
+     *Copies "id&lt;TAB&gt;smiles&lt;LF&gt;" to a byte array, as long as it fits.
+     *
+     *@return number of bytes of the line
+     */
+    private static int encodeLine(StringBuilder smiles, StringBuilder id, byte[] target, int offset) {
+        byte[] encodedId = encodeNonAscii(id);
+        byte[] encodedSmiles = encodeNonAscii(smiles);
+        int idLength = encodedId == null ? id.length() : encodedId.length;
+        int smilesLength = encodedSmiles == null ? smiles.length() : encodedSmiles.length;
+        int length = idLength + smilesLength + 2;
+        if (offset + length > target.length) {
+            return length;
+        }
+        if (encodedId == null) {
+            encode(id, target, offset);
+        } else {
+            System.arraycopy(encodedId, 0, target, offset, idLength);
+        }
+        target[offset + idLength] = '\t';
+        if (encodedSmiles == null) {
+            encode(smiles, target, offset + idLength + 1);
+        } else {
+            System.arraycopy(encodedSmiles, 0, target, offset + idLength + 1, smilesLength);
+        }
+        target[offset + length - 1] = '\n';
+        return length;
+    }
+    
+    
+    /**
+     *Returns the characters encoded with the default charset if they contain
+     *a non-ASCII character, <code>null</code> if they are pure ASCII.
+     */
+    private static byte[] encodeNonAscii(CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) {
+            if (chars.charAt(i) >= 0x80) {
+                return chars.toString().getBytes();
+            }
+        }
+        return null;
+    }
+    
+    
+    /**
+     *Writes the offset index of the molecules written.
+     */
+    private void writeIndex(long bytes) throws java.io.IOException {
+        PrintWriter index = new PrintWriter(new FileWriter(pathOfResultFile + SmilesWriterFactory.OFFSET_INDEX_EXTENSION));
+        index.println("#molecule_index\tbyte_offset");
+        long interval = settings.getOffsetIndexInterval();
+        for (int i = 0; i < indexOffsets.length && i * interval < molecules; i++) {
+            index.println(i * interval + "\t" + indexOffsets[i]);
+        }
+        index.println(molecules + "\t" + bytes);
+        index.close();
+        if (index.checkError()) {
+            throw new java.io.IOException("Error while writing " + pathOfResultFile + SmilesWriterFactory.OFFSET_INDEX_EXTENSION);
+        }
+    }
+    
+    
+    /**
+     * Stops writing the library. The chunks up to the first chunk that was
+     * not written completely are kept.
+     */
+    public void stop() {
+        stopped = true;
+    }
+    
+    
+    /**
+     * Closes the SmilesWriter. Nothing has to be done if the library was written
+     * by writeLibrary(...).
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     */
+    public void close() throws SmiLibIOException {
+        if (!libraryWritten) {
+            super.close();
+        }
+    }
+}
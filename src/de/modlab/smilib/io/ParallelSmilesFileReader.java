@@ -0,0 +1,463 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.exceptions.SmiLibConformityException;
+import de.modlab.smilib.exceptions.SmiLibIOException;
+import de.modlab.smilib.fragments.Fragment;
+import de.modlab.smilib.fragments.FragmentFactory;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *Reads SMILES from the input files using several threads. The file is split
+ *into chunks at line boundaries, each chunk is memory mapped and its lines are
+ *checked and preprocessed by one thread. The chunks are counted in a first
+ *pass, so lines without an ID get the same line number as with
+ *{@link SmilesFileReader} and the fragments are returned in the order of the
+ *file. Instead of stopping at the first SMILES that does not conform to SmiLib
+ *restrictions, all of them are reported in one exception.
+ */
+public class ParallelSmilesFileReader<E extends Fragment> implements SmilesReader<E> {
+    
+    /** default number of bytes per chunk */
+    public static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    
+    /** creates Fragment from SMILES */
+    private FragmentFactory fragmentFactory;
+    
+    /** check conformity true/false */
+    private boolean checkSmiles;
+    
+    /** indicates whether scaffold, linker or building block smiles are read */
+    private int mode;
+    
+    /** number of threads */
+    private int threads;
+    
+    /** number of bytes per chunk */
+    private int chunkSize;
+    
+    /** charset of the input files, the same as used by FileReader */
+    private Charset charset = Charset.defaultCharset();
+    
+    
+    
+    /**
+     *Creates a new instance of ParallelSmilesFileReader.
+     *
+     *@param fragmentFactory factory that creates fragments
+     *@param checkSmiles check Smiles for SmiLib rule conformity true/false
+     *@param mode indicates which kind of source SMILES (0 = scaffold, 1 = linker, 2 = building block) is read
+     *@param threads number of threads (at least 1)
+     */
+    public ParallelSmilesFileReader(FragmentFactory fragmentFactory, boolean checkSmiles, int mode, int threads) {
+        this(fragmentFactory, checkSmiles, mode, threads, CHUNK_SIZE);
+    }
+    
+    
+    /**
+     *Creates a new instance of ParallelSmilesFileReader.
+     *
+     *@param fragmentFactory factory that creates fragments
+     *@param checkSmiles check Smiles for SmiLib rule conformity true/false
+     *@param mode indicates which kind of source SMILES (0 = scaffold, 1 = linker, 2 = building block) is read
+     *@param threads number of threads (at least 1)
+     *@param chunkSize number of bytes per chunk
+     */
+    ParallelSmilesFileReader(FragmentFactory fragmentFactory, boolean checkSmiles, int mode, int threads, int chunkSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        }
+        this.fragmentFactory = fragmentFactory;
+        this.checkSmiles = checkSmiles;
+        this.mode = mode;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+    
+    
+    /**
+   * Reads SMILES from source files.
+   * @return List of objects corresponding to source SMILES
+   * @param path path/name of source SMILES file
+   * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+   * @throws de.modlab.smilib.exceptions.SmiLibConformityException thrown if SMILES strings do not conform to SmiLib restrictions, lists all of them
+   */
+    public List<E> readSmiles(String path) throws SmiLibIOException, SmiLibConformityException {
+        ArrayList<E> tempList = new ArrayList<E>();
+        readSmiles(path, tempList);
+        return tempList;
+    }
+    
+    
+    /**
+   * Reads SMILES from source files and adds the created objects to a list. The
+   * objects of each chunk are released as soon as they are added to the list.
+   * @param path path/name of source SMILES file
+   * @param tempList list the objects corresponding to source SMILES are added to
+   * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+   * @throws de.modlab.smilib.exceptions.SmiLibConformityException thrown if SMILES strings do not conform to SmiLib restrictions, lists all of them
+   */
+    public void readSmiles(String path, List<? super E> tempList) throws SmiLibIOException, SmiLibConformityException {
+        Reading reading = new Reading(path);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "SmiLib parallel reader");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        try {
+            RandomAccessFile file = new RandomAccessFile(path, "r");
+            try {
+                reading.channel = file.getChannel();
+                reading.findChunks();
+                
+                //first pass: lines of each chunk, then line numbers of the chunks by prefix sums
+                reading.runWorkers(executor, true);
+                int chunks = reading.chunkOffsets.length - 1;
+                long fragments = 0;
+                for (int i = 0; i < chunks; i++) {
+                    long nonBlank = reading.firstLineNumbers[i + 1];
+                    long lines = reading.firstPhysicalLines[i + 1];
+                    reading.firstLineNumbers[i + 1] = reading.firstLineNumbers[i] + nonBlank;
+                    reading.firstPhysicalLines[i + 1] = reading.firstPhysicalLines[i] + lines;
+                    fragments += nonBlank;
+                }
+                if (fragments > Integer.MAX_VALUE) {
+                    throw new SmiLibIOException("Too many SMILES in " + path + ": " + fragments);
+                }
+                
+                //second pass: check, preprocess and create fragments
+                reading.runWorkers(executor, false);
+                
+                List<String> errors = new ArrayList<String>();
+                for (int i = 0; i < chunks; i++) {
+                    errors.addAll(reading.chunkErrors.get(i));
+                }
+                if (!errors.isEmpty()) {
+                    StringBuilder message = new StringBuilder();
+                    message.append(errors.size()).append(" SMILES in ").append(path).append(" do not conform to SmiLib restrictions:");
+                    for (String error : errors) {
+                        message.append('\n').append(error);
+                    }
+                    throw new SmiLibConformityException(message.toString());
+                }
+                if (tempList instanceof ArrayList) {
+                    ((ArrayList<? super E>) tempList).ensureCapacity(tempList.size() + (int) fragments);
+                }
+                for (int i = 0; i < chunks; i++) {
+                    tempList.addAll(reading.chunkFragments.get(i));
+                    reading.chunkFragments.set(i, null);
+                }
+            } finally {
+                file.close();
+            }
+        } catch (java.io.IOException exc) {
+            throw new SmiLibIOException(exc);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    
+    /**
+     *Returns whether a line consists of whitespace only, like
+     *<code>line.trim().equals("")</code> for ASCII compatible charsets.
+     */
+    private static boolean isBlank(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if ((buffer.get(i) & 0xff) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    
+    
+    /**
+     *State of reading one file.
+     */
+    private class Reading {
+        
+        /** path/name of source SMILES file */
+        private String path;
+        
+        /** source SMILES file */
+        private FileChannel channel;
+        
+        /** byte offset of each chunk, the last entry is the size of the file */
+        private long[] chunkOffsets;
+        
+        /** line number of the first SMILES of each chunk (blank lines are not counted) */
+        private long[] firstLineNumbers;
+        
+        /** physical line number of the first line of each chunk, used in error messages */
+        private long[] firstPhysicalLines;
+        
+        /** fragments of each chunk */
+        private List<List<E>> chunkFragments = new ArrayList<List<E>>();
+        
+        /** non-conforming SMILES of each chunk */
+        private List<List<String>> chunkErrors = new ArrayList<List<String>>();
+        
+        /** next chunk to be processed by a thread */
+        private AtomicInteger nextChunk = new AtomicInteger();
+        
+        /** reading shall be stopped because of an error true/false */
+        private volatile boolean stopped = false;
+        
+        
+        
+        /**
+         *Creates a new instance of Reading.
+         */
+        private Reading(String path) {
+            this.path = path;
+        }
+        
+        
+        /**
+         *Splits the file into chunks of about <code>chunkSize</code> bytes, each ending after a line feed.
+         */
+        private void findChunks() throws SmiLibIOException, java.io.IOException {
+            long size = channel.size();
+            List<Long> offsets = new ArrayList<Long>();
+            offsets.add(Long.valueOf(0));
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            long offset = 0;
+            while (size - offset > chunkSize) {
+                //search the end of the line containing the last byte of the chunk
+                long position = offset + chunkSize - 1;
+                long end = -1;
+                while (end < 0 && position < size) {
+                    buffer.clear();
+                    int read = channel.read(buffer, position);
+                    if (read <= 0) {
+                        break;
+                    }
+                    for (int i = 0; i < read && end < 0; i++) {
+                        if (buffer.get(i) == '\n') {
+                            end = position + i + 1;
+                        }
+                    }
+                    position += read;
+                }
+                if (end < 0 || end >= size) {
+                    break;
+                }
+                if (end - offset > Integer.MAX_VALUE) {
+                    throw new SmiLibIOException("Line too long in " + path + " at byte " + offset);
+                }
+                offsets.add(Long.valueOf(end));
+                offset = end;
+            }
+            if (size - offset > Integer.MAX_VALUE) {
+                throw new SmiLibIOException("Line too long in " + path + " at byte " + offset);
+            }
+            if (size > offset) {
+                offsets.add(Long.valueOf(size));
+            }
+            
+            chunkOffsets = new long[offsets.size()];
+            for (int i = 0; i < chunkOffsets.length; i++) {
+                chunkOffsets[i] = offsets.get(i).longValue();
+            }
+            firstLineNumbers = new long[chunkOffsets.length];
+            firstPhysicalLines = new long[chunkOffsets.length];
+            for (int i = 1; i < chunkOffsets.length; i++) {
+                chunkFragments.add(null);
+                chunkErrors.add(null);
+            }
+        }
+        
+        
+        /**
+         *Processes all chunks with one worker per thread and waits for them to finish.
+         *
+         *@param countLines first pass (count the lines of each chunk) true/false
+         */
+        private void runWorkers(ExecutorService executor, final boolean countLines) throws SmiLibIOException {
+            final int chunks = chunkOffsets.length - 1;
+            nextChunk.set(0);
+            List<Future<Object>> workers = new ArrayList<Future<Object>>();
+            for (int i = 0; i < Math.min(threads, chunks); i++) {
+                workers.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws Exception {
+                        ConformityChecker smilesChecker = new ConformityChecker();
+                        Preprocessor prePro = new Preprocessor();
+                        for (int chunk = nextChunk.getAndIncrement(); chunk < chunks && !stopped; chunk = nextChunk.getAndIncrement()) {
+                            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunkOffsets[chunk], chunkOffsets[chunk + 1] - chunkOffsets[chunk]);
+                            if (countLines) {
+                                countLines(buffer, chunk);
+                            } else {
+                                readChunk(buffer, chunk, smilesChecker, prePro);
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            
+            //wait for all workers, stop the others if one of them fails
+            Throwable error = null;
+            for (Future<Object> worker : workers) {
+                try {
+                    worker.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    stopped = true;
+                    error = new SmiLibIOException("Interrupted while reading " + path);
+                } catch (ExecutionException e) {
+                    stopped = true;
+                    if (error == null) {
+                        error = e.getCause();
+                    }
+                }
+            }
+            if (error instanceof SmiLibIOException) {
+                throw (SmiLibIOException) error;
+            } else if (error != null) {
+                throw new SmiLibIOException("Error while reading " + path + ": " + error, error);
+            }
+        }
+        
+        
+        /**
+         *Counts the lines and the SMILES (non-blank lines) of a chunk.
+         */
+        private void countLines(ByteBuffer buffer, int chunk) {
+            long lines = 0;
+            long nonBlank = 0;
+            int limit = buffer.limit();
+            int start = 0;
+            while (start < limit) {
+                int end = lineEnd(buffer, start);
+                lines++;
+                if (!isBlank(buffer, start, end)) {
+                    nonBlank++;
+                }
+                start = nextLine(buffer, end);
+            }
+            firstPhysicalLines[chunk + 1] = lines;
+            firstLineNumbers[chunk + 1] = nonBlank;
+        }
+        
+        
+        /**
+         *Checks and preprocesses the SMILES of a chunk and creates their fragments.
+         */
+        private void readChunk(ByteBuffer buffer, int chunk, ConformityChecker smilesChecker, Preprocessor prePro) {
+            List<E> fragments = new ArrayList<E>();
+            List<String> errors = new ArrayList<String>();
+            long lineCounter = firstLineNumbers[chunk] + 1;
+            long physicalLine = firstPhysicalLines[chunk] + 1;
+            byte[] bytes = new byte[256];
+            int limit = buffer.limit();
+            int start = 0;
+            while (start < limit) {
+                int end = lineEnd(buffer, start);
+                if (!isBlank(buffer, start, end)) {
+                    if (end - start > bytes.length) {
+                        bytes = new byte[Math.max(end - start, 2 * bytes.length)];
+                    }
+                    buffer.position(start);
+                    buffer.get(bytes, 0, end - start);
+                    String[] tempLine = new String(bytes, 0, end - start, charset).split("\t");
+                    String smiles;
+                    String id;
+                    if (tempLine.length == 1) {
+                        smiles = tempLine[0].trim();
+                        id = Long.toString(lineCounter);
+                    } else {
+                        smiles = tempLine[1].trim();
+                        id = tempLine[0].trim();
+                    }
+                    try {
+                        if (checkSmiles) {
+                            smilesChecker.checkConformity(smiles, mode);
+                        }
+                        fragments.add((E) fragmentFactory.createFragment(prePro.preprocessSmiles(smiles), id));
+                    } catch (SmiLibConformityException e) {
+                        errors.add("Line " + physicalLine + ": " + e.getMessage());
+                    }
+                    lineCounter++;
+                }
+                physicalLine++;
+                start = nextLine(buffer, end);
+            }
+            chunkFragments.set(chunk, fragments);
+            chunkErrors.set(chunk, errors);
+        }
+        
+        
+        /**
+         *Returns the position of the line terminator of the line starting at <code>start</code>.
+         */
+        private int lineEnd(ByteBuffer buffer, int start) {
+            int limit = buffer.limit();
+            int i = start;
+            while (i < limit && buffer.get(i) != '\n' && buffer.get(i) != '\r') {
+                i++;
+            }
+            return i;
+        }
+        
+        
+        /**
+         *Returns the start of the line following the line terminator at <code>end</code>.
+         *Like BufferedReader, "\n", "\r" and "\r\n" terminate a line.
+         */
+        private int nextLine(ByteBuffer buffer, int end) {
+            if (end < buffer.limit() && buffer.get(end) == '\r' && end + 1 < buffer.limit() && buffer.get(end + 1) == '\n') {
+                return end + 2;
+            }
+            return end + 1;
+        }
+    }
+}
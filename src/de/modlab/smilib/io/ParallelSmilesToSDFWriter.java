@@ -0,0 +1,317 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.exceptions.SmiLibException;
+import de.modlab.smilib.exceptions.SmiLibIOException;
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.main.MoleculeAssembler;
+import de.modlab.smilib.metrics.SmiLibMetrics;
+import de.modlab.smilib.metrics.StripedCounter;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ *Writes the molecules created as SMILES in a SD file using several threads.
+ *The molecules are collected in batches, each batch is converted by one
+ *thread with its own SMILES parser, hydrogen adder and structure diagram
+ *generator, and the molfile blocks of the batches are written in the order
+ *the molecules were passed to <code>writeSMILES(...)</code>. The file is the
+ *same as written by {@link SmilesToSDFWriter}. If a molecule cannot be
+ *converted and there is no reject file, see {@link OutputSettings#setRejectPath},
+ *the exception names its SMILES and ID and is thrown by the next
+ *call of <code>writeSMILES(...)</code> or <code>close()</code>. Molecules of
+ *an enumerated library are assembled from their fragments by a
+ *{@link MoleculeAssembler} shared by the threads instead of parsing their SMILES.
+ */
+public class ParallelSmilesToSDFWriter implements CombinationWriter {
+    
+    /** default number of molecules per batch */
+    public static final int BATCH_SIZE = 64;
+    
+    /** number of molecules per batch */
+    private int batchSize;
+    
+    /** number of threads */
+    private int threads;
+    
+    /** path and name of the SD file */
+    private String pathOfResultFile;
+    
+    /** add hydrogens befor writing the SD file */
+    private boolean addHydrogens;
+    
+    /** assemble the molecules with the 2D layouts of their fragments true/false */
+    private boolean fragmentLayouts;
+    
+    /** time budget for adding hydrogens to and laying out a molecule in milliseconds, 0 for no limit */
+    private long layoutTimeout;
+    
+    /** collects conversion times and rejected molecules */
+    private ConversionLog conversionLog;
+    
+    /** opens the output stream, compressed or not */
+    private SmilesWriterFactory writerFactory;
+    
+    /** SD file */
+    private BufferedWriter out;
+    
+    /** converts the batches */
+    private ExecutorService executor;
+    
+    /** converter of each thread */
+    private ThreadLocal<SdfConverter> converters = new ThreadLocal<SdfConverter>() {
+        protected SdfConverter initialValue() {
+            return new SdfConverter(addHydrogens, layoutTimeout, conversionLog);
+        }
+    };
+    
+    /** batches submitted but not yet written, in the order of the molecules */
+    private LinkedList<Future<String>> pending = new LinkedList<Future<String>>();
+    
+    /** number of batches pending in all writers */
+    private StripedCounter queueDepth = SmiLibMetrics.counter(SmiLibMetrics.SDF_QUEUE);
+    
+    /** SMILES of the current batch */
+    private List<String> batchSmiles;
+    
+    /** IDs of the current batch */
+    private List<String> batchIDs;
+    
+    /** combinations of the current batch, null entries for SMILES to parse */
+    private List<int[]> batchCombinations;
+    
+    /** assembles the molecules of an enumerated library, null until prepared */
+    private MoleculeAssembler assembler;
+    
+    
+    
+    /**
+     * Creates a new instance of ParallelSmilesToSDFWriter
+     * @param path path/name of the SD file to create
+     * @param addHydrogens add implicit hydrogens true/false
+     * @param settings output settings, e.g. number of threads and compression level
+     */
+    public ParallelSmilesToSDFWriter(String path, boolean addHydrogens, OutputSettings settings) {
+        this(path, addHydrogens, settings, BATCH_SIZE);
+    }
+    
+    
+    /**
+     * Creates a new instance of ParallelSmilesToSDFWriter
+     * @param path path/name of the SD file to create
+     * @param addHydrogens add implicit hydrogens true/false
+     * @param settings output settings, e.g. number of threads and compression level
+     * @param batchSize number of molecules per batch
+     */
+    ParallelSmilesToSDFWriter(String path, boolean addHydrogens, OutputSettings settings, int batchSize) {
+        this.pathOfResultFile = path;
+        this.addHydrogens = addHydrogens;
+        this.fragmentLayouts = settings.getFragmentLayouts();
+        this.layoutTimeout = settings.getLayoutTimeout();
+        this.conversionLog = settings.getConversionLog();
+        this.writerFactory = new SmilesWriterFactory(settings);
+        this.threads = settings.getThreads();
+        this.batchSize = batchSize;
+        this.batchSmiles = new ArrayList<String>(batchSize);
+        this.batchIDs = new ArrayList<String>(batchSize);
+        this.batchCombinations = new ArrayList<int[]>(batchSize);
+    }
+    
+    
+    /**
+     * Writes a SMILES string.
+     * @param smiles SMILES string to write
+     * @param id molecule ID
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     * @throws de.modlab.smilib.exceptions.SmiLibSdfException if an error occurs converting a SMILES to SDF
+     * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
+     */
+    public void writeSMILES(StringBuilder smiles, StringBuilder id) throws SmiLibIOException, SmiLibException {
+        writeSMILES(smiles, id, null);
+    }
+    
+    
+    /**
+     * Creates the MoleculeAssembler that assembles the molecules from their fragments.
+     * @param compAdmin scaffolds, linkers and building blocks of the library
+     * @param iterator iterator the library is enumerated with
+     * @param firstIndex index of the first molecule written (counting from 0)
+     */
+    public void prepare(ComponentAdministrator compAdmin, SmiLibIterator iterator, long firstIndex) {
+        assembler = new MoleculeAssembler(compAdmin, fragmentLayouts, addHydrogens);
+    }
+    
+    
+    /**
+     * Writes a molecule assembled from its fragments, its SMILES is written to the field "Original SMILES".
+     * @param smiles SMILES string to write
+     * @param id molecule ID
+     * @param combination indices of scaffold, linkers and building blocks the molecule was assembled from, <code>null</code> to parse the SMILES
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     * @throws de.modlab.smilib.exceptions.SmiLibSdfException if an error occurs converting a molecule to SDF
+     * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
+     */
+    public void writeSMILES(StringBuilder smiles, StringBuilder id, int[] combination) throws SmiLibIOException, SmiLibException {
+        if (out == null) {
+            try {
+                out = new BufferedWriter(new OutputStreamWriter(writerFactory.openOutputStream(pathOfResultFile)));
+            } catch (java.io.IOException exc) {
+                throw new SmiLibIOException(exc);
+            }
+            executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "SmiLib SDF writer");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        batchSmiles.add(smiles.toString());
+        batchIDs.add(id.toString());
+        //the iterator may reuse its array
+        batchCombinations.add(combination == null || assembler == null ? null : (int[]) combination.clone());
+        if (batchSmiles.size() == batchSize) {
+            submitBatch();
+        }
+    }
+    
+    
+    /**
+     * Writes the remaining molecules and closes the SmilesWriter.
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     * @throws de.modlab.smilib.exceptions.SmiLibSdfException if an error occurs converting a SMILES to SDF
+     * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
+     */
+    public void close() throws SmiLibIOException, SmiLibException {
+        if (out == null) {
+            return;
+        }
+        try {
+            if (!batchSmiles.isEmpty()) {
+                submitBatch();
+            }
+            while (!pending.isEmpty()) {
+                writeNextBatch();
+            }
+        } finally {
+            queueDepth.add(-pending.size());
+            pending.clear();
+            executor.shutdownNow();
+            try {
+                out.close();
+            } catch (java.io.IOException exc) {
+                throw new SmiLibIOException(exc);
+            }
+        }
+    }
+    
+    
+    /**
+     * Sets whether a preview shall be shown and how many molecules are shown in preview.
+     * Operation not supported by this SmilesWriter.
+     *
+     * @param i number of molecules in preview
+     * @throws UnsupportedOperationException since the operation is not supported by this SmilesWriter
+     */
+    public void showPreview(int i) {
+        throw new UnsupportedOperationException("showPreview(int i) not supported by this SmilesWriter.");
+    }
+    
+    
+    /**
+     *Submits the current batch for conversion. If enough batches are waiting to
+     *be written, the oldest one is written first, so at most two batches per
+     *thread are kept in memory.
+     */
+    private void submitBatch() throws SmiLibIOException, SmiLibException {
+        while (pending.size() >= 2 * threads) {
+            writeNextBatch();
+        }
+        final List<String> smiles = batchSmiles;
+        final List<String> ids = batchIDs;
+        final List<int[]> combinations = batchCombinations;
+        batchSmiles = new ArrayList<String>(batchSize);
+        batchIDs = new ArrayList<String>(batchSize);
+        batchCombinations = new ArrayList<int[]>(batchSize);
+        pending.add(executor.submit(new Callable<String>() {
+            public String call() throws Exception {
+                StringWriter block = new StringWriter();
+                BufferedWriter blockWriter = new BufferedWriter(block);
+                SdfConverter converter = converters.get();
+                for (int i = 0; i < smiles.size(); i++) {
+                    int[] combination = combinations.get(i);
+                    converter.write(combination == null ? null : assembler, combination, smiles.get(i), ids.get(i), blockWriter);
+                }
+                blockWriter.flush();
+                return block.toString();
+            }
+        }));
+        queueDepth.increment();
+    }
+    
+    
+    /**
+     *Waits for the oldest batch and writes its molfile blocks.
+     */
+    private void writeNextBatch() throws SmiLibIOException, SmiLibException {
+        Future<String> batch = pending.removeFirst();
+        queueDepth.add(-1);
+        try {
+            out.write(batch.get());
+        } catch (java.io.IOException exc) {
+            throw new SmiLibIOException(exc);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SmiLibIOException("Interrupted while writing " + pathOfResultFile);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SmiLibException) {
+                throw (SmiLibException) e.getCause();
+            }
+            throw new SmiLibIOException("Error while writing " + pathOfResultFile + ": " + e.getCause(), e.getCause());
+        }
+    }
+}
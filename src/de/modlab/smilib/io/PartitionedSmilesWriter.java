@@ -0,0 +1,417 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.exceptions.SmiLibException;
+import de.modlab.smilib.exceptions.SmiLibIOException;
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ *Splits the combinatorial library into several files (partitions). A new
+ *partition is started after a given number of molecules, after a given number
+ *of bytes, or whenever the scaffold changes. Splitting by bytes is only
+ *supported for uncompressed SMILES files, whose size is known while they are
+ *written. A reaction scheme that returns to a scaffold after another one
+ *starts a new partition of that scaffold, so a scaffold may be written to
+ *several files. The file names are created from a pattern containing a
+ *number format, e.g. "lib_%05d.smi" creates "lib_00001.smi", "lib_00002.smi"
+ *etc.<br>
+ *<br>
+ *Completed partitions are closed by background threads while the next
+ *partition is written. When the writer is closed, a manifest listing the
+ *file, the molecule index range (counting from 0), the size as SMILES file
+ *and the scaffold (counting from 1, if split by scaffold) of each partition
+ *is written.
+ */
+public class PartitionedSmilesWriter implements CombinationWriter {
+    
+    /** library is not split */
+    public static final int SPLIT_NONE = 0;
+    
+    /** a new partition is started after a given number of molecules */
+    public static final int SPLIT_BY_COUNT = 1;
+    
+    /** a new partition is started before a given number of bytes is exceeded */
+    public static final int SPLIT_BY_BYTES = 2;
+    
+    /** a new partition is started whenever the scaffold changes */
+    public static final int SPLIT_BY_SCAFFOLD = 3;
+    
+    /** extension of the manifest file */
+    public static final String MANIFEST_EXTENSION = ".manifest";
+    
+    /** pattern of the partition file names */
+    private String pathPattern;
+    
+    /** add hydrogens when saving as SD file */
+    private boolean addHydrogens;
+    
+    /** split mode and size */
+    private OutputSettings settings;
+    
+    /** creates the writers of the partitions */
+    private SmilesWriterFactory writerFactory;
+    
+    /** all partitions created so far */
+    private List<Partition> partitions = new ArrayList<Partition>();
+    
+    /** partition that is currently written */
+    private Partition current;
+    
+    /** closes completed partitions */
+    private ExecutorService executor;
+    
+    /** pending and completed close operations */
+    private List<Future<Object>> closeOperations = new ArrayList<Future<Object>>();
+    
+    /** index of the next molecule (counting from 0) */
+    private long moleculeIndex = 0;
+    
+    /** scaffolds, linkers and building blocks of the library, passed to the partition writers */
+    private ComponentAdministrator compAdmin;
+    
+    /** iterator the library is enumerated with, passed to the partition writers */
+    private SmiLibIterator iterator;
+    
+    
+    
+    /**
+     *Creates a new instance of PartitionedSmilesWriter. If the path contains no
+     *number format, "_%05d" is inserted before the file extension.
+     *
+     *@param path pattern of the partition file names, e.g. "lib_%05d.smi"
+     *@param addHydrogens add hydrogens when saving as SD file
+     *@param settings split mode and size, and settings for the partition files
+     *@throws java.lang.IllegalArgumentException if split by bytes into files other than uncompressed SMILES files
+     */
+    public PartitionedSmilesWriter(String path, boolean addHydrogens, OutputSettings settings) {
+        if (settings.getSplitMode() == SPLIT_BY_BYTES && (SmilesWriterFactory.isBinary(path)
+                || SmilesWriterFactory.isSdf(path) || SmilesWriterFactory.isCompressed(path))) {
+            throw new IllegalArgumentException("Splitting by size is only supported for uncompressed SMILES files.");
+        }
+        this.pathPattern = createPattern(path);
+        this.addHydrogens = addHydrogens;
+        this.settings = settings;
+        this.writerFactory = new SmilesWriterFactory(settings);
+        this.executor = Executors.newFixedThreadPool(settings.getThreads(), new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "SmiLib partition writer");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+    
+    
+    /**
+     *Inserts "_%05d" before the file extension if the path contains no number format.
+     */
+    static String createPattern(String path) {
+        if (path.indexOf('%') != -1) {
+            return path;
+        }
+        int nameStart = path.lastIndexOf(File.separatorChar) + 1;
+        int extension = path.indexOf('.', nameStart);
+        if (extension == -1) {
+            return path + "_%05d";
+        }
+        return path.substring(0, extension) + "_%05d" + path.substring(extension);
+    }
+    
+    
+    /**
+     *Returns the path of the manifest: the pattern without the number format
+     *followed by ".manifest", e.g. "lib.smi.manifest" for "lib_%05d.smi".
+     *
+     *@return path/name of the manifest file
+     */
+    public String getManifestPath() {
+        return getManifestPath(pathPattern);
+    }
+    
+    
+    /**
+     *Returns the path of the manifest for a file name pattern.
+     */
+    static String getManifestPath(String pattern) {
+        return pattern.replaceFirst("[_\\-.]?%[0-9]*d", "") + MANIFEST_EXTENSION;
+    }
+    
+    
+    /**
+     * Stores the library components, they are passed on to partition writers
+     * that need them, e.g. for binary library files.
+     * @param compAdmin scaffolds, linkers and building blocks of the library
+     * @param iterator iterator the library is enumerated with
+     * @param firstIndex index of the first molecule written (counting from 0)
+     */
+    public void prepare(ComponentAdministrator compAdmin, SmiLibIterator iterator, long firstIndex) {
+        this.compAdmin = compAdmin;
+        this.iterator = iterator;
+        this.moleculeIndex = firstIndex;
+    }
+    
+    
+    /**
+     * Writes a SMILES string without information about its scaffold.
+     * Not supported if the library is split by scaffold.
+     * @param smiles SMILES string to write
+     * @param id molecule ID
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
+     */
+    public void writeSMILES(StringBuilder smiles, StringBuilder id) throws SmiLibIOException, SmiLibException {
+        if (settings.getSplitMode() == SPLIT_BY_SCAFFOLD) {
+            throw new SmiLibException("Splitting by scaffold requires the combination of each molecule.");
+        }
+        writeSMILES(smiles, id, null);
+    }
+    
+    
+    /**
+     * Writes a SMILES string to the current partition, starting a new partition if necessary.
+     * @param smiles SMILES string to write
+     * @param id molecule ID
+     * @param combination indices of scaffold, linkers and building blocks the molecule was assembled from
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
+     */
+    public void writeSMILES(StringBuilder smiles, StringBuilder id, int[] combination) throws SmiLibIOException, SmiLibException {
+        //bytes of the line "id<TAB>smiles<LF>" in a SMILES file, more if it contains non-ASCII characters
+        long length = id.length() + smiles.length() + 2;
+        
+        if (current == null) {
+            startPartition(combination);
+        } else {
+            switch (settings.getSplitMode()) {
+                case SPLIT_BY_COUNT:
+                    if (current.molecules >= settings.getSplitSize()) {
+                        startPartition(combination);
+                    }
+                    break;
+                case SPLIT_BY_BYTES:
+                    if (current.bytes + length > settings.getSplitSize()) {
+                        startPartition(combination);
+                    }
+                    break;
+                case SPLIT_BY_SCAFFOLD:
+                    if (current.scaffold != combination[0]) {
+                        startPartition(combination);
+                    }
+                    break;
+            }
+        }
+        
+        if (current.molecules == 0) {
+            current.firstIndex = moleculeIndex;
+            current.firstID = id.toString();
+            if (current.writer instanceof CombinationWriter) {
+                ((CombinationWriter) current.writer).prepare(compAdmin, iterator, moleculeIndex);
+            }
+        }
+        if (current.writer instanceof CombinationWriter) {
+            ((CombinationWriter) current.writer).writeSMILES(smiles, id, combination);
+        } else {
+            current.writer.writeSMILES(smiles, id);
+        }
+        current.molecules++;
+        if (current.writer instanceof SmilesChannelWriter) {
+            current.bytes = ((SmilesChannelWriter) current.writer).getBytesWritten();
+        } else {
+            current.bytes += length;
+        }
+        moleculeIndex++;
+    }
+    
+    
+    /**
+     *Closes the current partition in the background and opens the next one.
+     */
+    private void startPartition(int[] combination) throws SmiLibIOException, SmiLibException {
+        checkCloseOperations(false);
+        if (current != null) {
+            closeInBackground(current);
+        }
+        current = new Partition();
+        current.number = partitions.size() + 1;
+        current.path = String.format(pathPattern, current.number);
+        current.scaffold = settings.getSplitMode() == SPLIT_BY_SCAFFOLD ? combination[0] : -1;
+        current.writer = writerFactory.createSingleWriter(current.path, addHydrogens);
+        partitions.add(current);
+    }
+    
+    
+    /**
+     *Closes a partition using a background thread.
+     */
+    private void closeInBackground(final Partition partition) {
+        closeOperations.add(executor.submit(new Callable<Object>() {
+            public Object call() throws SmiLibException {
+                partition.writer.close();
+                return null;
+            }
+        }));
+    }
+    
+    
+    /**
+     *Rethrows errors that occurred while closing partitions.
+     *
+     *@param wait wait for all pending close operations true/false
+     */
+    private void checkCloseOperations(boolean wait) throws SmiLibIOException, SmiLibException {
+        for (int i = closeOperations.size() - 1; i >= 0; i--) {
+            Future<Object> operation = closeOperations.get(i);
+            if (wait || operation.isDone()) {
+                try {
+                    operation.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SmiLibIOException("Interrupted while closing library files.");
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof SmiLibException) {
+                        throw (SmiLibException) e.getCause();
+                    }
+                    throw new SmiLibIOException("Error while closing library files: " + e.getCause(), e.getCause());
+                }
+                closeOperations.remove(i);
+            }
+        }
+    }
+    
+    
+    /**
+     * Closes all partitions and writes the manifest.
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs writing the remaining molecules of a partition
+     */
+    public void close() throws SmiLibIOException, SmiLibException {
+        try {
+            if (current != null) {
+                closeInBackground(current);
+                current = null;
+            }
+            checkCloseOperations(true);
+        } finally {
+            executor.shutdown();
+        }
+        writeManifest();
+    }
+    
+    
+    /**
+     *Writes the manifest listing all partitions.
+     */
+    private void writeManifest() throws SmiLibIOException {
+        try {
+            PrintWriter manifest = new PrintWriter(new FileWriter(getManifestPath()));
+            manifest.println("#partition\tfile\tfirst_index\tlast_index\tmolecules\tbytes\tfirst_id\tscaffold");
+            for (Partition p : partitions) {
+                manifest.println(p.number + "\t" + new File(p.path).getName() + "\t" + p.firstIndex + "\t"
+                        + (p.firstIndex + p.molecules - 1) + "\t" + p.molecules + "\t" + p.bytes + "\t" + p.firstID
+                        + "\t" + (p.scaffold >= 0 ? String.valueOf(p.scaffold + 1) : "-"));
+            }
+            manifest.close();
+            if (manifest.checkError()) {
+                throw new java.io.IOException("Error while writing " + getManifestPath());
+            }
+        } catch (java.io.IOException exc) {
+            throw new SmiLibIOException(exc);
+        }
+    }
+    
+    
+    /**
+     *Returns the number of partitions created so far.
+     *
+     *@return number of partitions
+     */
+    public int getNumberOfPartitions() {
+        return partitions.size();
+    }
+    
+    
+    /**
+     *Sets whether a preview shall be shown and how many molecules are shown in preview.
+     *
+     *@param i number of molecules in preview
+     */
+    public void showPreview(int i) {
+        throw new UnsupportedOperationException("showPreview(int i) not supported by this SmilesWriter.");
+    }
+    
+    
+    /**
+     *A file the library is split into.
+     */
+    private static class Partition {
+        
+        /** number of the partition, counting from 1 */
+        int number;
+        
+        /** path/name of the partition file */
+        String path;
+        
+        /** writes the partition file */
+        SmilesWriter writer;
+        
+        /** index of the scaffold of the partition, -1 if not split by scaffold */
+        int scaffold;
+        
+        /** ID of the first molecule */
+        String firstID;
+        
+        /** index of the first molecule (counting from 0) */
+        long firstIndex;
+        
+        /** number of molecules */
+        long molecules = 0;
+        
+        /** number of bytes as SMILES file, as written for uncompressed SMILES files */
+        long bytes = 0;
+    }
+}
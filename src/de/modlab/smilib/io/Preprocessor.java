@@ -34,6 +34,8 @@
 
 package de.modlab.smilib.io;
 
+import de.modlab.smilib.metrics.SampledTimer;
+import de.modlab.smilib.metrics.SmiLibMetrics;
 import java.util.Arrays;
 
 /**
@@ -58,6 +60,12 @@ public class Preprocessor {
     //temp buffer
     private StringBuilder temp;
     
+    //times every n-th SMILES preprocessed
+    private SampledTimer timer = SmiLibMetrics.timer(SmiLibMetrics.PREPROCESSING, SmiLibMetrics.SAMPLE_INTERVAL);
+    
+    //SMILES preprocessed, counted for sampling
+    private int calls = 0;
+    
     
     
     /**
@@ -74,6 +82,7 @@ public class Preprocessor {
      *@return preprocessed SMILES
      */
     public String preprocessSmiles(String sourceSmiles) {
+        long start = timer.start(calls++);
         returnSmiles = removeUnnecessarySymbols(sourceSmiles);
         
         if (    !returnSmiles.equals("[A][R1]") &               //dummy linker does not get preprocessed
@@ -96,6 +105,7 @@ public class Preprocessor {
             returnSmiles = performPreprocessing2(returnSmiles);
             returnSmiles = performPreprocessing3(returnSmiles);
         }
+        timer.stop(start);
         return returnSmiles;
     }
     
@@ -491,4 +501,4 @@ public class Preprocessor {
 //            
 //            
 //            return returnInt;
-//        }
\ No newline at end of file
+//        }
\ No newline at end of file
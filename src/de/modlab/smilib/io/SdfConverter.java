@@ -0,0 +1,371 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.exceptions.SmiLibSdfException;
+import de.modlab.smilib.main.SmiLib;
+import de.modlab.smilib.metrics.SampledTimer;
+import de.modlab.smilib.metrics.SmiLibMetrics;
+import de.modlab.smilib.metrics.StripedCounter;
+import java.io.BufferedWriter;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.geometry.GeometryTools;
+import org.openscience.cdk.layout.HydrogenPlacer;
+import org.openscience.cdk.layout.StructureDiagramGenerator;
+import org.openscience.cdk.Molecule;
+import org.openscience.cdk.interfaces.IAtom;
+import javax.vecmath.Point2d;
+// Temporary work-around until bug #1519183 gets fixed
+//import org.openscience.cdk.smiles.SmilesParser;
+import de.modlab.smilib.main.MoleculeAssembler;
+import de.modlab.smilib.main.SmilesParser;
+import org.openscience.cdk.tools.HydrogenAdder;
+import org.openscience.cdk.io.MDLWriter;
+
+/**
+ *Converts SMILES to molfile blocks of a SD file: parses the SMILES, or
+ *assembles the molecule from its fragments, adds hydrogens if requested,
+ *computes 2D coordinates and writes the molecule. Molecules assembled with
+ *the coordinates of their fragments are not laid out again, the added
+ *hydrogens take the coordinates of the hydrogens in the fragment layouts.
+ *If a time budget is set, hydrogens are added and the molecule is laid out
+ *on a thread of its own. A molecule exceeding the budget is written without
+ *hydrogens and with the coordinates of its fragments, or with all atoms at
+ *the origin, or it is rejected if the {@link ConversionLog} has a reject
+ *file. The layout cannot be interrupted, it is left to finish in the
+ *background with the helpers it was using, the next molecules get new ones.
+ *While {@link #MAX_ABANDONED_LAYOUTS} abandoned layouts of a converter are
+ *still running, its molecules are handled as if they exceeded the budget
+ *without starting another layout, so the threads cannot pile up.
+ *An instance must not be used by several threads at the same time, threads
+ *converting in parallel use one instance each.
+ *
+ * @author Volker Haehnke
+ */
+class SdfConverter {
+    
+    /** bond length of the layouts of StructureDiagramGenerator */
+    private static final double BOND_LENGTH = 1.5;
+    
+    /** maximum number of layouts exceeding the time budget that may still be running per converter */
+    static final int MAX_ABANDONED_LAYOUTS = 4;
+    
+    /** CDK Smiles Parser */
+    private SmilesParser sParser;
+    
+    /** CDK Hydrogen Adder */
+    private HydrogenAdder hAdder;
+    
+    /** CDK Structure Diagramm Generator - computes 2D-Coordinates for Atoms */
+    private StructureDiagramGenerator sdg;
+    
+    /** places added hydrogens missing in the fragment layouts */
+    private HydrogenPlacer hPlacer;
+    
+    /** CDK MDLWriter - writes the molfile blocks */
+    private MDLWriter sdfWriter;
+    
+    /** needed for fields in the SD file */
+    private Map<Object, Object> molProperties;
+    
+    /** add hydrogens befor writing the SD file */
+    private boolean addHydrogens;
+    
+    /** time budget for adding hydrogens and the layout in milliseconds, 0 for no limit */
+    private long timeout;
+    
+    /** collects conversion times and rejected molecules, null if not collected */
+    private ConversionLog log;
+    
+    /** adds hydrogens and lays out the molecules if there is a time budget, null until first used */
+    private ExecutorService layoutThread;
+    
+    /** number of layouts running, the layouts abandoned after exceeding the time budget between conversions */
+    private final AtomicInteger runningLayouts = new AtomicInteger();
+    
+    /** times every conversion */
+    private SampledTimer timer = SmiLibMetrics.timer(SmiLibMetrics.SDF_CONVERSION, 1);
+    
+    /** counts the molecules written to the reject file */
+    private StripedCounter rejected = SmiLibMetrics.counter(SmiLibMetrics.PRODUCTS_REJECTED);
+    
+    
+    
+    /**
+     *Creates a new instance of SdfConverter.
+     *
+     *@param addHydrogens add implicit hydrogens true/false
+     */
+    SdfConverter(boolean addHydrogens) {
+        this(addHydrogens, 0, null);
+    }
+    
+    
+    /**
+     *Creates a new instance of SdfConverter.
+     *
+     *@param addHydrogens add implicit hydrogens true/false
+     *@param timeout time budget for adding hydrogens and the layout in milliseconds, 0 for no limit
+     *@param log collects conversion times and rejected molecules, null if not collected
+     */
+    SdfConverter(boolean addHydrogens, long timeout, ConversionLog log) {
+        this.addHydrogens = addHydrogens;
+        this.timeout = timeout;
+        this.log = log;
+        molProperties = new Properties();
+        sParser = new SmilesParser();
+        hAdder = new HydrogenAdder();
+        sdg = new StructureDiagramGenerator();
+        hPlacer = new HydrogenPlacer();
+    }
+    
+    
+    /**
+     *Converts a SMILES and writes its molfile block with the fields "Compound Name"
+     *and "Original SMILES".
+     *
+     *@param smiles SMILES string
+     *@param id molecule ID
+     *@param out writer of the SD file, buffered since MDLWriter wraps other writers in a buffer of its own
+     *@throws java.io.IOException thrown if an IO error occurs
+     *@throws de.modlab.smilib.exceptions.SmiLibSdfException if the SMILES cannot be converted, names SMILES and ID
+     */
+    void write(String smiles, String id, BufferedWriter out) throws java.io.IOException, SmiLibSdfException {
+        write(null, null, smiles, id, out);
+    }
+    
+    
+    /**
+     *Converts a molecule assembled from its fragments and writes its molfile block
+     *with the fields "Compound Name" and "Original SMILES". The SMILES is not parsed.
+     *
+     *@param assembler assembles the molecule from the fragments, <code>null</code> to parse the SMILES
+     *@param combination indices of scaffold, linkers and building blocks: [s,l,l,l,...,b,b,b,...]
+     *@param smiles SMILES string of the molecule
+     *@param id molecule ID
+     *@param out writer of the SD file, buffered since MDLWriter wraps other writers in a buffer of its own
+     *@throws java.io.IOException thrown if an IO error occurs
+     *@throws de.modlab.smilib.exceptions.SmiLibSdfException if the molecule cannot be converted and
+     *        there is no reject file, names SMILES and ID
+     */
+    void write(MoleculeAssembler assembler, int[] combination, String smiles, String id, BufferedWriter out) throws java.io.IOException, SmiLibSdfException {
+        long start = System.nanoTime();
+        try {
+            molProperties.put("Compound Name", id);
+            molProperties.put("Original SMILES", smiles);
+            Molecule currentMol = assembler == null ? sParser.parseSmiles(smiles) : assembler.assemble(combination);
+            try {
+                currentMol = timeout > 0 ? layoutInTime(currentMol) : layout(currentMol, hAdder, sdg, hPlacer);
+            } catch (TimeoutException e) {
+                if (log != null && log.hasRejectFile()) {
+                    log.reject(smiles, id);
+                    rejected.increment();
+                    return;
+                }
+                if (log != null) {
+                    log.addTimeout();
+                }
+                //the molecule may still be changed by the abandoned layout
+                currentMol = assembler == null ? sParser.parseSmiles(smiles) : assembler.assemble(combination);
+                if (!GeometryTools.has2DCoordinates(currentMol)) {
+                    for (int i = 0; i < currentMol.getAtomCount(); i++) {
+                        currentMol.getAtomAt(i).setPoint2d(new Point2d(0, 0));
+                    }
+                }
+            }
+            currentMol.setProperty(CDKConstants.TITLE, id);
+            GeometryTools.translateAllPositive(currentMol);
+            
+            //MDLWriter keeps its writer in a static field, so it is set again before each write
+            synchronized (MDLWriter.class) {
+                if (sdfWriter == null) {
+                    sdfWriter = new MDLWriter(out);
+                }
+                sdfWriter.setWriter(out);
+                sdfWriter.setSdFields(molProperties);
+                sdfWriter.write(currentMol);
+            }
+        } catch (java.io.IOException exc) {
+            throw exc;
+        } catch (Exception e) {
+            if (log != null && log.hasRejectFile()) {
+                log.reject(smiles, id);
+                rejected.increment();
+                return;
+            }
+            throw new SmiLibSdfException(e.getMessage() + SmiLib.nl + "SMILES: " + smiles + " ID: " + id, e);
+        } finally {
+            long time = System.nanoTime() - start;
+            timer.record(time);
+            if (log != null) {
+                log.add(time);
+            }
+        }
+    }
+    
+    
+    /**
+     *Adds hydrogens if requested and computes 2D coordinates, unless the molecule has coordinates already.
+     *
+     *@return the molecule laid out, may be a copy
+     */
+    private Molecule layout(Molecule molecule, HydrogenAdder hAdder, StructureDiagramGenerator sdg, HydrogenPlacer hPlacer) throws Exception {
+        boolean laidOut = GeometryTools.has2DCoordinates(molecule);
+        
+        //takes a lot of time and is not necessary in all cases - so it got a switch
+        if (addHydrogens) {
+            hAdder.addExplicitHydrogensToSatisfyValency(molecule);
+        }
+        
+        if (laidOut) {
+            if (addHydrogens) {
+                placeHydrogens(molecule, hPlacer);
+            }
+            return molecule;
+        }
+        sdg.setMolecule(molecule);
+        sdg.generateCoordinates();
+        return (Molecule) sdg.getMolecule();
+    }
+    
+    
+    /**
+     *Adds hydrogens and computes 2D coordinates on the layout thread within the time budget.
+     *
+     *@return the molecule laid out, may be a copy
+     *@throws java.util.concurrent.TimeoutException if the time budget is exceeded or
+     *        too many abandoned layouts are still running
+     */
+    private Molecule layoutInTime(final Molecule molecule) throws Exception {
+        if (runningLayouts.get() >= MAX_ABANDONED_LAYOUTS) {
+            throw new TimeoutException("Too many abandoned layouts still running");
+        }
+        if (layoutThread == null) {
+            //the thread ends when idle, so converters need not be closed
+            layoutThread = new ThreadPoolExecutor(0, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "SmiLib SDF layout");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        final HydrogenAdder adder = hAdder;
+        final StructureDiagramGenerator generator = sdg;
+        final HydrogenPlacer placer = hPlacer;
+        Future<Molecule> result = layoutThread.submit(new Callable<Molecule>() {
+            public Molecule call() throws Exception {
+                runningLayouts.incrementAndGet();
+                try {
+                    return layout(molecule, adder, generator, placer);
+                } finally {
+                    runningLayouts.decrementAndGet();
+                }
+            }
+        });
+        try {
+            return result.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            layoutThread.shutdown();
+            layoutThread = null;
+            if (log != null) {
+                log.addAbandoned();
+            }
+            hAdder = new HydrogenAdder();
+            sdg = new StructureDiagramGenerator();
+            hPlacer = new HydrogenPlacer();
+            throw e;
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new java.io.InterruptedIOException("Interrupted while laying out a molecule");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    
+    /**
+     *Sets the coordinates of the added hydrogens of a molecule assembled with
+     *coordinates to those of the fragment layouts, see
+     *{@link MoleculeAssembler#HYDROGEN_POSITIONS}. Hydrogens of atoms without
+     *stored coordinates are placed around their atom.
+     */
+    private static void placeHydrogens(Molecule molecule, HydrogenPlacer hPlacer) {
+        int heavyAtoms = molecule.getAtomCount();
+        for (int i = 0; i < molecule.getAtomCount(); i++) {
+            if (molecule.getAtomAt(i).getPoint2d() == null) {
+                heavyAtoms = i;
+                break;
+            }
+        }
+        for (int i = 0; i < heavyAtoms; i++) {
+            IAtom atom = molecule.getAtomAt(i);
+            IAtom[] neighbours = molecule.getConnectedAtoms(atom);
+            int count = 0;
+            for (int j = 0; j < neighbours.length; j++) {
+                if (neighbours[j].getPoint2d() == null) {
+                    neighbours[count++] = neighbours[j];
+                }
+            }
+            Point2d[] positions = (Point2d[]) atom.getProperty(MoleculeAssembler.HYDROGEN_POSITIONS);
+            if (count == 0) {
+                continue;
+            } else if (positions != null && positions.length == count) {
+                for (int j = 0; j < count; j++) {
+                    neighbours[j].setPoint2d(new Point2d(positions[j]));
+                }
+            } else {
+                hPlacer.placeHydrogens2D(molecule, atom, BOND_LENGTH);
+            }
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.exceptions.SmiLibException;
+import de.modlab.smilib.exceptions.SmiLibIOException;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ *Writes SMILES in an uncompressed file. Each molecule is assembled directly
+ *into a reusable byte array, non-ASCII characters are encoded with the
+ *default charset like SmilesFileWriter does, and copied into a large direct
+ *buffer, which is written to the file with a FileChannel in
+ *chunks of several megabytes. Optionally, space for the file is preallocated,
+ *or the file is written through a memory mapping.<br>
+ *<br>
+ *If an offset index interval is set, an offset index (".smidx") is written
+ *next to the library file. It lists the byte offset of every n-th molecule,
+ *starting with molecule 0, and ends with the number of molecules and the
+ *size of the file. See {@link IndexedSmilesReader}.<br>
+ *<br>
+ *The output is identical to the output of {@link SmilesFileWriter}.
+ */
+public class SmilesChannelWriter implements SmilesWriter {
+    
+    /** size of a memory mapped region of the file (64 MB) */
+    public static final int MAPPED_REGION_SIZE = 64 << 20;
+    
+    /** path and filename of the file that shall contain the combinatorial library */
+    private String pathOfResultFile;
+    
+    /** buffer size, preallocation and memory mapping */
+    private OutputSettings settings;
+    
+    /** library file */
+    private RandomAccessFile file;
+    
+    /** channel of the library file */
+    private FileChannel channel;
+    
+    /** direct buffer, or the currently mapped region of the file */
+    private ByteBuffer buffer;
+    
+    /** file position of the mapped region */
+    private long regionStart = 0;
+    
+    /** molecule that is currently written */
+    private byte[] line = new byte[256];
+    
+    /** number of bytes of the library written so far (including buffered bytes) */
+    private long bytesWritten = 0;
+    
+    /** number of molecules written so far */
+    private long molecules = 0;
+    
+    /** offset index, null if no index is written */
+    private PrintWriter index;
+    
+    
+    
+    /**
+     *Creates a new instance of SmilesChannelWriter.
+     *
+     *@param path path/name of the file, in which the SMILES are written
+     *@param settings buffer size, preallocation and memory mapping
+     */
+    public SmilesChannelWriter(String path, OutputSettings settings) {
+        this.pathOfResultFile = path;
+        this.settings = settings;
+        File temp = new File(path);
+        temp.delete();
+        new File(path + SmilesWriterFactory.OFFSET_INDEX_EXTENSION).delete();
+    }
+    
+    
+    /**
+     *Opens the library file.
+     */
+    private void open() throws IOException {
+        file = new RandomAccessFile(pathOfResultFile, "rw");
+        channel = file.getChannel();
+        if (settings.getPreallocate() > 0) {
+            file.setLength(settings.getPreallocate());
+        }
+        if (settings.getMemoryMapped()) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, MAPPED_REGION_SIZE);
+        } else {
+            buffer = ByteBuffer.allocateDirect(settings.getBufferSize());
+        }
+        if (settings.getOffsetIndexInterval() > 0) {
+            index = new PrintWriter(new FileWriter(pathOfResultFile + SmilesWriterFactory.OFFSET_INDEX_EXTENSION));
+            index.println("#molecule_index\tbyte_offset");
+        }
+    }
+    
+    
+    /**
+     * Closes the SmilesWriter. If space was preallocated or the file was memory mapped,
+     * the file is truncated to the number of bytes written.
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     */
+    public void close() throws SmiLibIOException {
+        try {
+            if (channel == null) {
+                open();
+            }
+            try {
+                if (!settings.getMemoryMapped()) {
+                    drain();
+                }
+                buffer = null;
+                if (settings.getMemoryMapped() || settings.getPreallocate() > 0) {
+                    channel.truncate(bytesWritten);
+                }
+                if (index != null) {
+                    index.println(molecules + "\t" + bytesWritten);
+                }
+            } finally {
+                //the file and the index are closed even if writing the last bytes failed
+                try {
+                    channel.close();
+                    file.close();
+                } finally {
+                    if (index != null) {
+                        index.close();
+                    }
+                }
+            }
+            if (index != null && index.checkError()) {
+                throw new java.io.IOException("Error while writing " + pathOfResultFile + SmilesWriterFactory.OFFSET_INDEX_EXTENSION);
+            }
+        } catch (java.io.IOException exc) {
+            throw new SmiLibIOException(exc);
+        }
+    }
+    
+    
+    /**
+     * Writes a SMILES string.
+     * @param smiles SMILES string to write
+     * @param id molecule ID
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
+     */
+    public void writeSMILES(StringBuilder smiles, StringBuilder id) throws SmiLibIOException, SmiLibException {
+        try {
+            if (channel == null) {
+                open();
+            }
+            int idLength = id.length();
+            int smilesLength = smiles.length();
+            int length = idLength + smilesLength + 2;
+            if (line.length < length) {
+                line = new byte[Math.max(length, 2 * line.length)];
+            }
+            
+            //assemble "id<TAB>smiles<LF>" - non-ASCII characters are encoded like SmilesFileWriter does
+            if (!encode(id, line, 0)) {
+                byte[] encodedId = id.toString().getBytes();
+                idLength = encodedId.length;
+                length = idLength + smilesLength + 2;
+                if (line.length < length) {
+                    line = new byte[length];
+                }
+                System.arraycopy(encodedId, 0, line, 0, idLength);
+            }
+            line[idLength] = '\t';
+            if (!encode(smiles, line, idLength + 1)) {
+                byte[] encodedSmiles = smiles.toString().getBytes();
+                length = idLength + encodedSmiles.length + 2;
+                if (line.length < length) {
+                    byte[] grown = new byte[length];
+                    System.arraycopy(line, 0, grown, 0, idLength + 1);
+                    line = grown;
+                }
+                System.arraycopy(encodedSmiles, 0, line, idLength + 1, encodedSmiles.length);
+            }
+            line[length - 1] = '\n';
+            
+            if (index != null && molecules % settings.getOffsetIndexInterval() == 0) {
+                index.println(molecules + "\t" + bytesWritten);
+            }
+            put(line, length);
+            molecules++;
+        } catch (java.io.IOException exc) {
+            throw new SmiLibIOException(exc);
+        }
+    }
+    
+    
+    /**
+     *Copies ASCII characters to a byte array.
+     *
+     *@return <code>true</code> if all characters are ASCII characters, <code>false</code> if not
+     */
+    static boolean encode(CharSequence chars, byte[] target, int offset) {
+        int length = chars.length();
+        for (int i = 0; i < length; i++) {
+            char c = chars.charAt(i);
+            if (c >= 0x80) {
+                return false;
+            }
+            target[offset + i] = (byte) c;
+        }
+        return true;
+    }
+    
+    
+    /**
+     *Copies bytes to the buffer, writing the buffer to the file whenever it is full.
+     */
+    private void put(byte[] bytes, int length) throws IOException {
+        int offset = 0;
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int n = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, n);
+            offset += n;
+            length -= n;
+        }
+        bytesWritten += offset;
+    }
+    
+    
+    /**
+     *Writes the buffer to the file, or maps the next region of the file.
+     */
+    private void drain() throws IOException {
+        if (settings.getMemoryMapped()) {
+            regionStart += buffer.position();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, MAPPED_REGION_SIZE);
+        } else {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+    
+    
+    /**
+     *Returns the number of bytes of the library written so far.
+     *
+     *@return number of bytes written
+     */
+    public long getBytesWritten() {
+        return this.bytesWritten;
+    }
+    
+    
+    /**
+     *Sets whether a preview shall be shown and how many molecules are shown in preview.
+     *
+     *@param i number of molecules in preview
+     */
+    public void showPreview(int i) {
+        throw new UnsupportedOperationException("showPreview(int i) not supported by this SmilesWriter.");
+    }
+}
@@ -96,6 +96,19 @@ public class SmilesFileReader<E extends Fragment> implements SmilesReader<E> {
    */
     public List<E> readSmiles(String path) throws SmiLibIOException, SmiLibConformityException {
         ArrayList<E> tempList = new ArrayList<E>();
+        readSmiles(path, tempList);
+        return tempList;
+    }
+    
+    
+    /**
+   * Reads SMILES from source files and adds the created objects to a list.
+   * @param path path/name of source SMILES file
+   * @param tempList list the objects corresponding to source SMILES are added to
+   * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+   * @throws de.modlab.smilib.exceptions.SmiLibConformityException thrown if a SMILES string does not conform to SmiLib restrictions
+   */
+    public void readSmiles(String path, List<? super E> tempList) throws SmiLibIOException, SmiLibConformityException {
         try {
             buffr = new BufferedReader(new FileReader(path));
             String[] tempLine;
@@ -128,6 +141,5 @@ public class SmilesFileReader<E extends Fragment> implements SmilesReader<E> {
         } catch (java.io.IOException exc) {
             throw new SmiLibIOException(exc);
         }
-        return tempList;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -38,11 +38,12 @@ import de.modlab.smilib.exceptions.SmiLibException;
 import de.modlab.smilib.exceptions.SmiLibIOException;
 import java.io.File;
 import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.OutputStreamWriter;
 
 
 /**
- *Writes SMILES in a file.
+ *Writes SMILES in a file. If the file name ends with ".gz" the file is
+ *compressed.
  *
  * @author Volker Haehnke
  */
@@ -54,6 +55,9 @@ public class SmilesFileWriter implements SmilesWriter {
     //path and filename of the file that shall contain the combinatorial library
     private String pathOfResultFile;
     
+    //opens the output stream, compressed or not
+    private SmilesWriterFactory writerFactory;
+    
     
     
     /**
@@ -62,7 +66,19 @@ public class SmilesFileWriter implements SmilesWriter {
      *@param path path/name of the file, in which the SMILES are written
      */
     public SmilesFileWriter(String path) {
+        this(path, new OutputSettings());
+    }
+    
+    
+    /**
+     *Creates a new instance of SmilesFileWriter.
+     *
+     *@param path path/name of the file, in which the SMILES are written
+     *@param settings output settings, e.g. compression level
+     */
+    public SmilesFileWriter(String path, OutputSettings settings) {
         this.pathOfResultFile = path;
+        this.writerFactory = new SmilesWriterFactory(settings);
         File temp = new File(path);
         temp.delete();
     }
@@ -91,7 +107,7 @@ public class SmilesFileWriter implements SmilesWriter {
     public void writeSMILES(StringBuilder smiles, StringBuilder id) throws SmiLibIOException, SmiLibException {
         try {
             if (buffw == null) {
-                buffw = new BufferedWriter(new FileWriter(this.pathOfResultFile, true));
+                buffw = new BufferedWriter(new OutputStreamWriter(writerFactory.openOutputStream(this.pathOfResultFile)));
             }
             id.append('\t').append(smiles).append('\n');
             buffw.write(id.toString());
@@ -108,4 +124,4 @@ public class SmilesFileWriter implements SmilesWriter {
     public void showPreview(int i) {
         throw new UnsupportedOperationException("showPreview(int i) not supported by this SmilesWriter.");
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -36,57 +36,40 @@ package de.modlab.smilib.io;
 
 import de.modlab.smilib.exceptions.SmiLibException;
 import de.modlab.smilib.exceptions.SmiLibIOException;
-import de.modlab.smilib.gui.SmiLibFrame;
-import javax.swing.JTextArea;
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.SmiLibIterator;
 
 /**
- *Writes SMILES to a JTextArea.
+ *Writes SMILES for the GUI. The molecules are saved to a file if requested, the
+ *GUI shows the library by assembling the visible molecules from their index in
+ *the library.
  *
  * @author Volker Haehnke
  */
-public class SmilesGuiWriter implements SmilesWriter {
+public class SmilesGuiWriter implements CombinationWriter {
     
-    //SMilesWriter used if molecule SMILES shall be shown in GUI AND be saved to file
+    //SMilesWriter used if molecule SMILES shall be saved to file
     private SmilesWriter smiWri;
     
     //save library to file true/false
     private boolean saveAsFile;
     
-    //display library in GUI true/false
-    private boolean showLibrary;
-    
-    //GUI frame
-    private SmiLibFrame smiFrame;
-    
-    //JTextArea to write in
-    private JTextArea targetTextArea;
-    
-    //display just a few molecules in GUI
-    private boolean showPreview = false;
-    
-    //number of molecules shown in preview
-    private int numMoleculesInPreview;
-    
-    private int currentNumOfMolecules = 0;
-    
     
     /**
      * Creates a new instance of SmilesGuiWriter.
-     * @param targetTextArea JTextArea in which the SMILES are written
-     * @param showLibrary show library in GUI true/false
      * @param saveAsFile save library as file true/false
      * @param saveAsSDF save pibrary as SD file
      * @param addHydrogens add implicit hydrogens if saving as SD file true/false
      * @param path path/name of file
-     * @param smiFrame GUI frame
      */
-    public SmilesGuiWriter(JTextArea targetTextArea, boolean showLibrary, boolean saveAsFile, boolean saveAsSDF, boolean addHydrogens, String path, SmiLibFrame smiFrame) {
-        this.targetTextArea = targetTextArea;
-        this.showLibrary = showLibrary;
+    public SmilesGuiWriter(boolean saveAsFile, boolean saveAsSDF, boolean addHydrogens, String path) {
         this.saveAsFile = saveAsFile;
-        this.smiFrame = smiFrame;
         if (saveAsFile & saveAsSDF) {
-            smiWri = new SmilesToSDFWriter(path, addHydrogens);
+            OutputSettings settings = new OutputSettings();
+            if (settings.getThreads() > 1)
+                smiWri = new ParallelSmilesToSDFWriter(path, addHydrogens, settings);
+            else
+                smiWri = new SmilesToSDFWriter(path, addHydrogens, settings);
         } else if (saveAsFile & !saveAsSDF) {
             smiWri = new SmilesFileWriter(path);
         }
@@ -96,8 +79,9 @@ public class SmilesGuiWriter implements SmilesWriter {
     /**
      * Closes the SmilesWriter.
      * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs writing the remaining molecules
      */
-    public void close() throws SmiLibIOException {
+    public void close() throws SmiLibIOException, SmiLibException {
         if (smiWri != null)
             smiWri.close();
     }
@@ -111,33 +95,48 @@ public class SmilesGuiWriter implements SmilesWriter {
      * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
      */
     public void writeSMILES(StringBuilder smiles, StringBuilder id) throws SmiLibIOException, SmiLibException {
-        currentNumOfMolecules++;
+        writeSMILES(smiles, id, null);
+    }
+    
+    
+    /**
+     * Prepares the SmilesWriter saving the library if it needs the combinations, e.g. to assemble SD molecules from the fragments.
+     * @param compAdmin scaffolds, linkers and building blocks of the library
+     * @param iterator iterator the library is enumerated with
+     * @param firstIndex index of the first molecule written (counting from 0)
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     */
+    public void prepare(ComponentAdministrator compAdmin, SmiLibIterator iterator, long firstIndex) throws SmiLibIOException {
+        if (smiWri instanceof CombinationWriter)
+            ((CombinationWriter) smiWri).prepare(compAdmin, iterator, firstIndex);
+    }
+    
+    
+    /**
+     * Writes a SMILES string.
+     * @param smiles SMILES string to write
+     * @param id molecule ID
+     * @param combination indices of scaffold, linkers and building blocks the molecule was assembled from, or <code>null</code>
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
+     */
+    public void writeSMILES(StringBuilder smiles, StringBuilder id, int[] combination) throws SmiLibIOException, SmiLibException {
         if (saveAsFile) {
             StringBuilder temp1 = new StringBuilder(smiles.toString());
             StringBuilder temp2 = new StringBuilder(id.toString());
-            smiWri.writeSMILES(temp1, temp2);
-        }
-        if (showLibrary) {
-            if (showPreview) {
-                if (currentNumOfMolecules <= numMoleculesInPreview) {
-                    this.targetTextArea.append(id.append('\t').append(smiles).append('\n').toString());
-                    targetTextArea.select(1,1);
-                }
-            } else {
-                this.targetTextArea.append(id.append('\t').append(smiles).append('\n').toString());
-                targetTextArea.select(1,1);
-            }
+            if (combination != null && smiWri instanceof CombinationWriter)
+                ((CombinationWriter) smiWri).writeSMILES(temp1, temp2, combination);
+            else
+                smiWri.writeSMILES(temp1, temp2);
         }
-        smiFrame.increaseProgress();
     }
     
     
     /**
-     * Sets whether a preview shall be shown and how many molecules are shown in preview.
+     * Not supported, the GUI shows as many molecules as have been enumerated.
      * @param i number of molecules in preview
      */
     public void showPreview(int i) {
-        showPreview = true;
-        numMoleculesInPreview = i;
+        throw new UnsupportedOperationException("showPreview(int i) not supported by this SmilesWriter.");
     }
-}
\ No newline at end of file
+}
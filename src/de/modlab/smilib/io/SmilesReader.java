@@ -57,4 +57,16 @@ public interface SmilesReader<E extends Fragment> {
    */
     public List<E> readSmiles(String path) throws SmiLibIOException, SmiLibConformityException;
     
+    
+    /**
+   * Reads SMILES from a source file and adds the created objects to a list,
+   * e.g. a list of a {@link de.modlab.smilib.fragments.CompactFragmentStore}.
+   * 
+   * @param path path/name of the source file
+   * @param fragments list the objects created from SMILES in the source file are added to
+   * @throws de.modlab.smilib.exceptions.SmiLibConformityException thrown if a SMILES string does not conform to SmiLib restrictions
+   * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if IO error occurs while parsing source SMILES
+   */
+    public void readSmiles(String path, List<? super E> fragments) throws SmiLibIOException, SmiLibConformityException;
+    
 }
@@ -0,0 +1,244 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.exceptions.SmiLibException;
+import de.modlab.smilib.exceptions.SmiLibIOException;
+import de.modlab.smilib.main.SmiLib;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ *Writes SMILES to standard out, for piping a library into other programs.
+ *Unlike {@link SmilesLineWriter}, which prints each molecule through the
+ *synchronized, auto-flushing <code>System.out</code>, the molecules are
+ *encoded into a large byte array, which is written to standard out in one
+ *piece whenever it is full. Molecules waiting in the array are written
+ *at the latest after the flush interval, so output still appears promptly if
+ *the library is enumerated slowly. Each line is "ID&lt;TAB&gt;SMILES" as
+ *printed by SmilesLineWriter.
+ */
+public class SmilesStdoutWriter implements SmilesWriter {
+    
+    /** default size of the output buffer (1 MB) */
+    public static final int BUFFER_SIZE = 1 << 20;
+    
+    /** default time after which buffered molecules are written (milliseconds) */
+    public static final long FLUSH_INTERVAL = 200;
+    
+    /** standard out, not closed by this writer */
+    private OutputStream out;
+    
+    /** molecules not yet written */
+    private byte[] buffer;
+    
+    /** number of bytes in the buffer */
+    private int count = 0;
+    
+    /** line separator of the platform, as printed by System.out.println() */
+    private byte[] newline = SmiLib.nl.getBytes();
+    
+    /** time after which buffered molecules are written in milliseconds */
+    private long flushInterval;
+    
+    /** writes the buffered molecules after the flush interval, null until the first molecule */
+    private Timer flusher;
+    
+    /** time of the last write to standard out (System.nanoTime()) */
+    private long lastFlush;
+    
+    /** error of the flusher, thrown by the next call of writeSMILES() or close() */
+    private IOException error;
+    
+    
+    
+    /**
+     *Creates a new instance of SmilesStdoutWriter.
+     */
+    public SmilesStdoutWriter() {
+        this(System.out, BUFFER_SIZE, FLUSH_INTERVAL);
+    }
+    
+    
+    /**
+     *Creates a new instance of SmilesStdoutWriter.
+     *
+     *@param out stream the molecules are written to, not closed by this writer
+     *@param bufferSize size of the output buffer in bytes
+     *@param flushInterval time after which buffered molecules are written in milliseconds
+     */
+    SmilesStdoutWriter(OutputStream out, int bufferSize, long flushInterval) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+        this.flushInterval = flushInterval;
+    }
+    
+    
+    /**
+     * Writes the buffered molecules and stops the flusher. Standard out is not closed.
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     */
+    public synchronized void close() throws SmiLibIOException {
+        if (flusher != null) {
+            flusher.cancel();
+            flusher = null;
+        }
+        try {
+            checkError();
+            flush();
+        } catch (IOException exc) {
+            throw new SmiLibIOException(exc);
+        }
+    }
+    
+    
+    /**
+     * Writes a SMILES string.
+     * @param smiles SMILES string to write
+     * @param id molecule ID
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
+     */
+    public synchronized void writeSMILES(StringBuilder smiles, StringBuilder id) throws SmiLibIOException, SmiLibException {
+        try {
+            checkError();
+            if (flusher == null) {
+                startFlusher();
+            }
+            int length = id.length() + smiles.length() + 1 + newline.length;
+            if (count + length > buffer.length) {
+                flush();
+            }
+            
+            //only IDs read from source files may contain non-ASCII characters
+            if (length > buffer.length || !SmilesChannelWriter.encode(id, buffer, count)) {
+                put(id.toString().getBytes());
+            } else {
+                count += id.length();
+            }
+            put(new byte[] {'\t'});
+            if (count + smiles.length() <= buffer.length && SmilesChannelWriter.encode(smiles, buffer, count)) {
+                count += smiles.length();
+            } else {
+                put(smiles.toString().getBytes());
+            }
+            put(newline);
+        } catch (IOException exc) {
+            throw new SmiLibIOException(exc);
+        }
+    }
+    
+    
+    /**
+     *Sets whether a preview shall be shown and how many molecules are shown in preview.
+     *
+     *@param i number of molecules in preview
+     */
+    public void showPreview(int i) {
+        throw new UnsupportedOperationException("showPreview(int i) not supported by this SmilesWriter.");
+    }
+    
+    
+    /**
+     *Copies bytes to the buffer, writing the buffer whenever it is full.
+     */
+    private void put(byte[] bytes) throws IOException {
+        if (count + bytes.length > buffer.length) {
+            flush();
+        }
+        if (bytes.length > buffer.length) {
+            out.write(bytes);
+            return;
+        }
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+    }
+    
+    
+    /**
+     *Writes the buffered molecules.
+     */
+    private void flush() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            out.flush();
+            count = 0;
+            
+            //System.out only reports errors on request
+            if (out instanceof PrintStream && ((PrintStream) out).checkError()) {
+                throw new IOException("Error writing to standard out");
+            }
+        }
+        lastFlush = System.nanoTime();
+    }
+    
+    
+    /**
+     *Throws the error of the flusher, if any.
+     */
+    private void checkError() throws IOException {
+        if (error != null) {
+            IOException exc = error;
+            error = null;
+            throw exc;
+        }
+    }
+    
+    
+    /**
+     *Starts the daemon thread writing molecules that waited longer than the flush interval.
+     */
+    private void startFlusher() {
+        lastFlush = System.nanoTime();
+        flusher = new Timer("SmiLib stdout flusher", true);
+        flusher.schedule(new TimerTask() {
+            public void run() {
+                synchronized (SmilesStdoutWriter.this) {
+                    if (count > 0 && error == null && System.nanoTime() - lastFlush >= flushInterval * 1000000) {
+                        try {
+                            flush();
+                        } catch (IOException exc) {
+                            error = exc;
+                            cancel();
+                        }
+                    }
+                }
+            }
+        }, flushInterval, flushInterval);
+    }
+}
@@ -37,50 +37,42 @@ package de.modlab.smilib.io;
 
 import de.modlab.smilib.exceptions.SmiLibException;
 import de.modlab.smilib.exceptions.SmiLibIOException;
-import de.modlab.smilib.exceptions.SmiLibSdfException;
-import de.modlab.smilib.main.SmiLib;
-import java.io.File;
-import java.io.FileWriter;
-import java.util.Map;
-import java.util.Properties;
-import org.openscience.cdk.CDKConstants;
-import org.openscience.cdk.geometry.GeometryTools;
-import org.openscience.cdk.layout.StructureDiagramGenerator;
-import org.openscience.cdk.Molecule;
-// Temporary work-around until bug #1519183 gets fixed
-//import org.openscience.cdk.smiles.SmilesParser;
-import de.modlab.smilib.main.SmilesParser;
-import org.openscience.cdk.tools.HydrogenAdder;
-import org.openscience.cdk.io.MDLWriter;
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.main.MoleculeAssembler;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
 
 /**
- *Writes the molecules created as SMILES in a SD file.
+ *Writes the molecules created as SMILES in a SD file. If the file name ends
+ *with ".gz" the file is compressed. The molecules are converted on the
+ *calling thread, see {@link ParallelSmilesToSDFWriter} for converting them
+ *on several threads. Molecules of an enumerated library are assembled from
+ *their fragments by a {@link MoleculeAssembler} instead of parsing their SMILES,
+ *by default with the 2D layouts of the fragments, see {@link OutputSettings#setFragmentLayouts}.
  *
  * @author Volker Haehnke
  */
-public class SmilesToSDFWriter implements SmilesWriter {
+public class SmilesToSDFWriter implements CombinationWriter {
     
-    /** CDK Smiles Parser */
-    private SmilesParser sParser;
+    /** parses the SMILES, computes 2D coordinates and writes the molfile blocks */
+    private SdfConverter converter;
     
-    /** CDK Molecule */
-    private Molecule currentMol;
+    /** assembles the molecules of an enumerated library, null until prepared */
+    private MoleculeAssembler assembler;
     
-    /** CDK Hydrogen Adder */
-    private HydrogenAdder hAdder;
-    
-    /** CDK Structure Diagramm Generator - computes 2D-Coordinates for Atoms */
-    private StructureDiagramGenerator sdg;
-    
-    /** CDK MDLWriter - writes the SD file */
-    private MDLWriter sdfWriter;
-    
-    /** needed for fields in the SD file */
-    private Map<Object, Object> molProperties;
+    /** SD file */
+    private BufferedWriter out;
     
     /** path and name of the SD file */
     private String pathOfResultFile;
     
+    /** opens the output stream, compressed or not */
+    private SmilesWriterFactory writerFactory;
+    
+    /** assemble the molecules with the 2D layouts of their fragments true/false */
+    private boolean fragmentLayouts;
+    
     /** add hydrogens befor writing the SD file */
     private boolean addHydrogens;
     
@@ -92,12 +84,22 @@ public class SmilesToSDFWriter implements SmilesWriter {
      * @param addHydrogens add implicit hydrogens true/false
      */
     public SmilesToSDFWriter(String path, boolean addHydrogens) {
+        this(path, addHydrogens, new OutputSettings());
+    }
+    
+    
+    /**
+     * Creates a new instance of SmilesToSDFWriter
+     * @param path path/name of the SD file to create
+     * @param addHydrogens add implicit hydrogens true/false
+     * @param settings output settings, e.g. compression level
+     */
+    public SmilesToSDFWriter(String path, boolean addHydrogens, OutputSettings settings) {
         this.pathOfResultFile = path;
+        this.writerFactory = new SmilesWriterFactory(settings);
+        this.fragmentLayouts = settings.getFragmentLayouts();
         this.addHydrogens = addHydrogens;
-        molProperties = new Properties();
-        sParser = new SmilesParser();
-        hAdder = new HydrogenAdder();
-        sdg = new StructureDiagramGenerator();
+        converter = new SdfConverter(addHydrogens, settings.getLayoutTimeout(), settings.getConversionLog());
     }
     
     
@@ -107,7 +109,7 @@ public class SmilesToSDFWriter implements SmilesWriter {
      */
     public void close() throws SmiLibIOException {
         try {
-            sdfWriter.close();
+            out.close();
         } catch (java.io.IOException exc) {
             throw new SmiLibIOException(exc);
         }
@@ -123,32 +125,40 @@ public class SmilesToSDFWriter implements SmilesWriter {
      * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
      */
     public void writeSMILES(StringBuilder smiles, StringBuilder id) throws SmiLibIOException, SmiLibException {
+        writeSMILES(smiles, id, null);
+    }    
+    
+    
+    /**
+     * Creates the MoleculeAssembler that assembles the molecules from their fragments.
+     * @param compAdmin scaffolds, linkers and building blocks of the library
+     * @param iterator iterator the library is enumerated with
+     * @param firstIndex index of the first molecule written (counting from 0)
+     */
+    public void prepare(ComponentAdministrator compAdmin, SmiLibIterator iterator, long firstIndex) {
+        assembler = new MoleculeAssembler(compAdmin, fragmentLayouts, addHydrogens);
+    }
+    
+    
+    /**
+     * Writes a molecule assembled from its fragments, its SMILES is written to the field "Original SMILES".
+     * @param smiles SMILES string to write
+     * @param id molecule ID
+     * @param combination indices of scaffold, linkers and building blocks the molecule was assembled from, <code>null</code> to parse the SMILES
+     * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+     * @throws de.modlab.smilib.exceptions.SmiLibSdfException if an error occurs converting a molecule to SDF
+     * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs
+     */
+    public void writeSMILES(StringBuilder smiles, StringBuilder id, int[] combination) throws SmiLibIOException, SmiLibException {
         try {
-            if (sdfWriter == null) {
-                sdfWriter = new MDLWriter(new FileWriter(new File(pathOfResultFile)));
+            if (out == null) {
+                out = new BufferedWriter(new OutputStreamWriter(writerFactory.openOutputStream(pathOfResultFile)));
             }
-            molProperties.put("Compound Name", id.toString());
-            molProperties.put("Original SMILES", smiles.toString());
-            currentMol = sParser.parseSmiles(smiles.toString());
-            
-            //takes a lot of time and is not necessary in all cases - so it got a switch
-            if (addHydrogens) {
-                hAdder.addExplicitHydrogensToSatisfyValency(currentMol);
-            }
-            
-            sdg.setMolecule(currentMol);
-            sdg.generateCoordinates();
-            currentMol = (Molecule) sdg.getMolecule();
-            currentMol.setProperty(CDKConstants.TITLE, id.toString());
-            GeometryTools.translateAllPositive(currentMol);
-            sdfWriter.setSdFields(molProperties);
-            sdfWriter.write(currentMol);
+            converter.write(combination == null ? null : assembler, combination, smiles.toString(), id.toString(), out);
         } catch (java.io.IOException exc) {
             throw new SmiLibIOException(exc);
-        } catch (Exception e) {
-            throw new SmiLibSdfException(e.getMessage() + SmiLib.nl + "SMILES: " + smiles.toString() + " ID: " + id.toString(), e);
         }
-    }    
+    }
     
     
     /**
@@ -161,4 +171,4 @@ public class SmilesToSDFWriter implements SmilesWriter {
     public void showPreview(int i) {
         throw new UnsupportedOperationException("showPreview(int i) not supported by this SmilesWriter.");
     }
-}
\ No newline at end of file
+}
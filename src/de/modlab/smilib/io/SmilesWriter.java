@@ -45,10 +45,12 @@ import de.modlab.smilib.exceptions.SmiLibIOException;
 public interface SmilesWriter {
   
   /**
-   * Closes the SmilesWriter.
+   * Closes the SmilesWriter. Writers that convert molecules in the background
+   * write the remaining molecules first.
    * @throws de.modlab.smilib.exceptions.SmiLibIOException thrown if an IO error occurs
+   * @throws de.modlab.smilib.exceptions.SmiLibException if an error occurs writing the remaining molecules
    */
-  public void close() throws SmiLibIOException;
+  public void close() throws SmiLibIOException, SmiLibException;
   
   
   /**
@@ -69,4 +71,4 @@ public interface SmilesWriter {
    *@param i number of molecules in preview
    */
   public void showPreview(int i);
-}
\ No newline at end of file
+}
\ No newline at end of file
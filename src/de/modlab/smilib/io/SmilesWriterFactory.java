@@ -0,0 +1,227 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ *Creates the SmilesWriter and the output stream for a library file. The
+ *format is selected by the file extension: ".sdf" creates an SD file
+ *({@link ParallelSmilesToSDFWriter} if more than one thread is used), any
+ *other extension a SMILES file. An additional ".gz" extension compresses
+ *the library file. Uncompressed SMILES files are written by a
+ *{@link SmilesChannelWriter}, or by a {@link ParallelSmilesChannelWriter} if
+ *parallel writing is enabled, the extension ".slib" creates a binary library
+ *file ({@link BinaryLibraryWriter}). If the library shall be split into several
+ *files, a {@link PartitionedSmilesWriter} is created.
+ */
+public class SmilesWriterFactory {
+    
+    /** extension of compressed files */
+    public static final String GZIP_EXTENSION = ".gz";
+    
+    /** extension of SD files */
+    public static final String SDF_EXTENSION = ".sdf";
+    
+    /** extension of the block index of compressed files */
+    public static final String BLOCK_INDEX_EXTENSION = ".gzidx";
+    
+    /** extension of the offset index of uncompressed SMILES files */
+    public static final String OFFSET_INDEX_EXTENSION = ".smidx";
+    
+    /** settings used for the created writers */
+    private OutputSettings settings;
+    
+    
+    
+    /**
+     *Creates a new instance of SmilesWriterFactory.
+     *
+     *@param settings settings used for the created writers
+     */
+    public SmilesWriterFactory(OutputSettings settings) {
+        this.settings = settings;
+    }
+    
+    
+    /**
+     *Creates a SmilesWriter for the given library file.
+     *
+     *@param path path/name of the library file
+     *@param addHydrogens add hydrogens when saving as SD file
+     *@return SmilesWriter for the file format specified by the file extension
+     */
+    public SmilesWriter createWriter(String path, boolean addHydrogens) {
+        if (settings.getSplitMode() != PartitionedSmilesWriter.SPLIT_NONE) {
+            return new PartitionedSmilesWriter(path, addHydrogens, settings);
+        }
+        return createSingleWriter(path, addHydrogens);
+    }
+    
+    
+    /**
+     *Creates a SmilesWriter for a single library file, even if the library shall be split.
+     *
+     *@param path path/name of the library file
+     *@param addHydrogens add hydrogens when saving as SD file
+     *@return SmilesWriter for the file format specified by the file extension
+     */
+    SmilesWriter createSingleWriter(String path, boolean addHydrogens) {
+        if (isBinary(path)) {
+            return new BinaryLibraryWriter(path, settings);
+        } else if (isSdf(path)) {
+            if (settings.getThreads() > 1)
+                return new ParallelSmilesToSDFWriter(path, addHydrogens, settings);
+            return new SmilesToSDFWriter(path, addHydrogens, settings);
+        } else if (isCompressed(path)) {
+            return new SmilesFileWriter(path, settings);
+        } else if (settings.getParallelWrite()) {
+            return new ParallelSmilesChannelWriter(path, settings);
+        } else {
+            return new SmilesChannelWriter(path, settings);
+        }
+    }
+    
+    
+    /**
+     *Opens an output stream for the given library file. The stream compresses
+     *the data if the file name ends with ".gz".
+     *
+     *@param path path/name of the library file
+     *@return output stream
+     *@throws java.io.IOException thrown if an IO error occurs
+     */
+    public OutputStream openOutputStream(String path) throws IOException {
+        OutputStream out = new FileOutputStream(path);
+        if (!isCompressed(path)) {
+            return new BufferedOutputStream(out, settings.getBlockSize());
+        }
+        OutputStream index = null;
+        if (settings.getWriteIndex()) {
+            index = new BufferedOutputStream(new FileOutputStream(path + BLOCK_INDEX_EXTENSION));
+        }
+        return new ParallelGzipOutputStream(out, settings, index);
+    }
+    
+    
+    /**
+     *Returns the existing files of a library written to the given path: the
+     *library file or its partitions, their indices and the manifest. Used to
+     *remove the output of a cancelled enumeration.
+     *
+     *@param path path/name of the library file
+     *@return existing files of the library
+     */
+    public List<File> getOutputFiles(String path) {
+        List<File> libraryFiles = new ArrayList<File>();
+        List<File> files = new ArrayList<File>();
+        if (settings.getSplitMode() != PartitionedSmilesWriter.SPLIT_NONE) {
+            String pattern = PartitionedSmilesWriter.createPattern(path);
+            File patternFile = new File(pattern);
+            Matcher number = Pattern.compile("%[0-9]*d").matcher(patternFile.getName());
+            if (number.find()) {
+                Pattern names = Pattern.compile(Pattern.quote(patternFile.getName().substring(0, number.start())) + "[0-9]+" +
+                        Pattern.quote(patternFile.getName().substring(number.end())));
+                File directory = patternFile.getAbsoluteFile().getParentFile();
+                File[] candidates = directory.listFiles();
+                for (int i = 0; candidates != null && i < candidates.length; i++) {
+                    if (names.matcher(candidates[i].getName()).matches()) {
+                        libraryFiles.add(candidates[i]);
+                    }
+                }
+            }
+            File manifest = new File(PartitionedSmilesWriter.getManifestPath(pattern));
+            if (manifest.exists()) {
+                files.add(manifest);
+            }
+        } else {
+            libraryFiles.add(new File(path));
+        }
+        for (File file : libraryFiles) {
+            String[] paths = {file.getPath(), file.getPath() + BLOCK_INDEX_EXTENSION, file.getPath() + OFFSET_INDEX_EXTENSION};
+            for (int i = 0; i < paths.length; i++) {
+                if (new File(paths[i]).exists()) {
+                    files.add(new File(paths[i]));
+                }
+            }
+        }
+        return files;
+    }
+    
+    
+    /**
+     *Returns whether a library file is compressed.
+     *
+     *@param path path/name of the library file
+     *@return <code>true</code> if the file name ends with ".gz", <code>false</code> if not
+     */
+    public static boolean isCompressed(String path) {
+        return path.endsWith(GZIP_EXTENSION);
+    }
+    
+    
+    /**
+     *Returns whether a library file is a binary library file.
+     *
+     *@param path path/name of the library file
+     *@return <code>true</code> if the file name ends with ".slib", <code>false</code> if not
+     */
+    public static boolean isBinary(String path) {
+        return path.endsWith(BinaryLibraryWriter.EXTENSION);
+    }
+    
+    
+    /**
+     *Returns whether a library file is an SD file (".sdf" or ".sdf.gz").
+     *
+     *@param path path/name of the library file
+     *@return <code>true</code> if the file is an SD file, <code>false</code> if not
+     */
+    public static boolean isSdf(String path) {
+        String name = path;
+        if (isCompressed(name)) {
+            name = name.substring(0, name.length() - GZIP_EXTENSION.length());
+        }
+        return name.endsWith(SDF_EXTENSION);
+    }
+}
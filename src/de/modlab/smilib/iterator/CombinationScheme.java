@@ -58,6 +58,9 @@ public class CombinationScheme {
     //index of scaffold in source file
     private int scaffoldNumber;
     
+    //line of the reaction scheme, counting from 1, 0 if unknown
+    private int line = 0;
+    
     
     
     /** Creates a new instance of CombinationScheme
@@ -72,6 +75,21 @@ public class CombinationScheme {
     }
     
     
+    /** Creates a new instance of CombinationScheme with the given linkers and building blocks
+     *
+     *@param scaffoldNumber index of scaffold in source file corrected to counting from zero
+     *@param linkers indices of the linkers for each variable side chain, counting from zero
+     *@param bBlocks indices of the building blocks for each variable side chain, counting from zero
+     */
+    public CombinationScheme(int scaffoldNumber, int[][] linkers, int[][] bBlocks) {
+        this.scaffoldNumber = scaffoldNumber;
+        this.linkers = linkers;
+        this.bBlocks = bBlocks;
+        this.currentLinkerIndex = linkers.length;
+        this.currentBlockIndex = bBlocks.length;
+    }
+    
+    
     /**
      *The building blocks specified in a column of the reaction scheme are
      *set as the building blocks to be used on the rGroup corresponding to
@@ -136,4 +154,26 @@ public class CombinationScheme {
     public int getScaffoldIndex() {
         return this.scaffoldNumber;
     }
+    
+    
+    /**
+     *Returns the line of the reaction scheme this combination scheme was read
+     *from. A line listing several scaffolds yields one combination scheme per
+     *scaffold.
+     *
+     *@return line of the reaction scheme counting from 1, 0 if unknown
+     */
+    public int getLine() {
+        return this.line;
+    }
+    
+    
+    /**
+     *Sets the line of the reaction scheme this combination scheme was read from.
+     *
+     *@param line line of the reaction scheme counting from 1, 0 if unknown
+     */
+    public void setLine(int line) {
+        this.line = line;
+    }
 }
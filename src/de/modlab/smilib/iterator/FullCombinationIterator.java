@@ -57,7 +57,10 @@ public class FullCombinationIterator implements SmiLibIterator {
     private int numBBlocks;
     
     /** index of the current reaction (counts from 0 to maxium) */
-    private int reactionIndex = 0;
+    private long reactionIndex = 0;
+    
+    /** index of the first combination of each scaffold, followed by the number of all combinations */
+    private long[] starts;
     
     
     
@@ -72,6 +75,49 @@ public class FullCombinationIterator implements SmiLibIterator {
         this.numsRGroups = numsRGroups;
         this.numLinkers = numLinkers;
         this.numBBlocks = numBBlocks;
+        
+        starts = new long[numsRGroups.length + 1];
+        for (int s = 0; s < numsRGroups.length; s++) {
+            long combinations = 1;
+            for (int i = 0; i < numsRGroups[s]; i++) {
+                combinations *= (long) numLinkers * numBBlocks;
+            }
+            starts[s + 1] = starts[s] + combinations;
+        }
+    }
+    
+    
+    /**
+     *Creates a new instance of FullCombinationIterator for the library of another one.
+     */
+    private FullCombinationIterator(FullCombinationIterator library) {
+        this.numsRGroups = library.numsRGroups;
+        this.numLinkers = library.numLinkers;
+        this.numBBlocks = library.numBBlocks;
+        this.starts = library.starts;
+    }
+    
+    
+    /**
+     *Returns the range an index falls into, i.e. the last i with
+     *<code>starts[i] &lt;= index</code>, by binary search. Empty ranges are skipped.
+     *
+     *@param starts first index of each range, followed by the end of the last range
+     *@param index index from 0 to the end of the last range (exclusive)
+     *@return number of the range
+     */
+    static int findRange(long[] starts, long index) {
+        int low = 0;
+        int high = starts.length - 2;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (starts[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
     }
     
 
@@ -96,7 +142,7 @@ public class FullCombinationIterator implements SmiLibIterator {
         int numRGroups = numsRGroups[scaffoldIndex];
         
         //number of possible combinations for this scaffold
-        long maxReactions = (long) Math.pow(numLinkers * numBBlocks, numRGroups); //calculate number of possible reactions
+        long maxReactions = starts[scaffoldIndex + 1] - starts[scaffoldIndex];
         
         // calculate length of the reaction ID array
         int numReactants = 1 + 2 * numRGroups;
@@ -110,13 +156,13 @@ public class FullCombinationIterator implements SmiLibIterator {
         // linkers
         for (int i = 0; i < numRGroups; i++) {
             numReactions /= numLinkers;
-            virtualReaction[1 + i] = (int) (reactionIndex / numReactions) % numLinkers;
+            virtualReaction[1 + i] = (int) ((reactionIndex / numReactions) % numLinkers);
         }
         
         // building blocks
         for (int i = 0; i < numRGroups; i++) {
             numReactions /= numBBlocks;
-            virtualReaction[1 + numRGroups + i] = (int) (reactionIndex / numReactions) % numBBlocks;
+            virtualReaction[1 + numRGroups + i] = (int) ((reactionIndex / numReactions) % numBBlocks);
         }
 
         reactionIndex++;
@@ -139,13 +185,104 @@ public class FullCombinationIterator implements SmiLibIterator {
      * @return number of molecules to build
      */
     public long getMaximum() {
-        long maxReactions = 0;
+        return starts[numsRGroups.length];
+    }
+    
+    
+    /**
+     * Returns the combination with the given index without changing the state of the iterator.
+     * @param index index of the combination (counting from 0)
+     * @return Array of indices corresponding to the combination of scaffolds, linkers and building blocks: [s,l,l,l,...,b,b,b,...]
+     */
+    public int[] getCombination(long index) {
+        if (index < 0 || index >= getMaximum()) {
+            throw new IndexOutOfBoundsException("Invalid combination index: " + index);
+        }
+        int s = findRange(starts, index);
+        long reaction = index - starts[s];
+        int numRGroups = numsRGroups[s];
+        int[] virtualReaction = new int[1 + 2 * numRGroups];
+        virtualReaction[0] = s;
         
-        for (int s = 0; s < numsRGroups.length; s++) {
-            int numRGroups = numsRGroups[s];
-            long temp = (long) Math.pow(numLinkers * numBBlocks, numRGroups);
-            maxReactions += temp;
+        //least significant position is the last building block
+        for (int i = numRGroups - 1; i >= 0; i--) {
+            virtualReaction[1 + numRGroups + i] = (int) (reaction % numBBlocks);
+            reaction /= numBBlocks;
+        }
+        for (int i = numRGroups - 1; i >= 0; i--) {
+            virtualReaction[1 + i] = (int) (reaction % numLinkers);
+            reaction /= numLinkers;
+        }
+        return virtualReaction;
+    }
+    
+    
+    /**
+     * Returns the index of a combination without changing the state of the iterator.
+     * @param combination indices of scaffold, linkers and building blocks: [s,l,l,l,...,b,b,b,...]
+     * @return index of the combination (counting from 0), or -1 if the combination is not part of the library
+     */
+    public long getIndex(int[] combination) {
+        int s = combination[0];
+        if (s < 0 || s >= numsRGroups.length || combination.length != 1 + 2 * numsRGroups[s]) {
+            return -1;
+        }
+        long index = starts[s];
+        long reaction = 0;
+        for (int i = 1; i < combination.length; i++) {
+            int radix = i <= numsRGroups[s] ? numLinkers : numBBlocks;
+            if (combination[i] < 0 || combination[i] >= radix) {
+                return -1;
+            }
+            reaction = reaction * radix + combination[i];
+        }
+        return index + reaction;
+    }
+    
+    
+    /**
+     * Returns a new iterator whose first combination is the one with the given index.
+     * @param index index of the first combination (counting from 0)
+     * @return iterator starting at the given index
+     */
+    public SmiLibIterator getIterator(long index) {
+        if (index < 0 || index > getMaximum()) {
+            throw new IndexOutOfBoundsException("Invalid combination index: " + index);
         }
-        return maxReactions;
+        FullCombinationIterator iterator = new FullCombinationIterator(this);
+        if (index == getMaximum()) {
+            iterator.scaffoldIndex = numsRGroups.length;
+        } else {
+            iterator.scaffoldIndex = findRange(starts, index);
+            iterator.reactionIndex = index - starts[iterator.scaffoldIndex];
+        }
+        return iterator;
+    }
+    
+    
+    /**
+     * Returns the numbers of variable side chains of the scaffolds.
+     * @return array of number of variable side chains for each scaffold
+     */
+    public int[] getNumbersOfRGroups() {
+        return numsRGroups;
+    }
+    
+    
+    /**
+     * Returns the number of linkers available.
+     * @return number of linkers
+     */
+    public int getNumberOfLinkers() {
+        return numLinkers;
+    }
+    
+    
+    /**
+     * Returns the number of building blocks available.
+     * @return number of building blocks
+     */
+    public int getNumberOfBuildingBlocks() {
+        return numBBlocks;
     }
-}
\ No newline at end of file
+}
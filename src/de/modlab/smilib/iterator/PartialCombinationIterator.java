@@ -57,7 +57,7 @@ public class PartialCombinationIterator implements SmiLibIterator {
     private int scaffoldIndex = 0;
     
     //index of the current reaction (counts from 0 to maxium)
-    private int reactionIndex = 0;
+    private long reactionIndex = 0;
     
     //index of the current combination scheme
     private int combinationSchemeIndex = 0;
@@ -69,6 +69,9 @@ public class PartialCombinationIterator implements SmiLibIterator {
     //blocks shall be used on the variable side chains of a scaffold
     List<CombinationScheme> combSchemes;
     
+    //index of the first combination of each combination scheme, followed by the number of all combinations
+    private long[] starts;
+    
     
     /**
    * Creates a new instance of PartialCombinationIterator
@@ -85,6 +88,7 @@ public class PartialCombinationIterator implements SmiLibIterator {
         this.numsRGroups = numsRGroups;
         this.combSchemes = new ArrayList<CombinationScheme>();
         this.readReactionScheme(rSchemePath, maxLinkers, maxBBlocks);
+        computeStarts();
     }
     
     
@@ -100,6 +104,50 @@ public class PartialCombinationIterator implements SmiLibIterator {
         this.numsRGroups = numsRGroups;
         this.combSchemes = new ArrayList<CombinationScheme>();
         this.readReactionScheme(rScheme, maxLinkers, maxBBlocks);
+        computeStarts();
+    }
+    
+    
+    /**
+     * Creates a new instance of PartialCombinationIterator from already parsed combination schemes.
+     * @param combSchemes which linkers/building blocks shall be used on the variable side chains of the scaffolds
+     * @param numsRGroups array of number of variable side chains for each scaffold
+     */
+    public PartialCombinationIterator(List<CombinationScheme> combSchemes, int[] numsRGroups) {
+        this.numsRGroups = numsRGroups;
+        this.combSchemes = combSchemes;
+        if (!combSchemes.isEmpty()) {
+            scaffoldIndex = combSchemes.get(0).getScaffoldIndex();
+        }
+        computeStarts();
+    }
+    
+    
+    /**
+     *Creates a new instance of PartialCombinationIterator for the library of another one.
+     */
+    private PartialCombinationIterator(PartialCombinationIterator library) {
+        this.numsRGroups = library.numsRGroups;
+        this.combSchemes = library.combSchemes;
+        this.starts = library.starts;
+    }
+    
+    
+    /**
+     *Computes the index of the first combination of each combination scheme.
+     */
+    private void computeStarts() {
+        starts = new long[combSchemes.size() + 1];
+        for (int s = 0; s < combSchemes.size(); s++) {
+            int[][] linkers = combSchemes.get(s).getLinkers();
+            int[][] bbs = combSchemes.get(s).getBBlocks();
+            long combinations = 1;
+            for (int i = 0; i < linkers.length; i++)
+                combinations *= linkers[i].length;
+            for (int i = 0; i < bbs.length; i++)
+                combinations *= bbs[i].length;
+            starts[s + 1] = starts[s] + combinations;
+        }
     }
     
     
@@ -144,6 +192,7 @@ public class PartialCombinationIterator implements SmiLibIterator {
                         
                         //ATTENTION: JAVA COUNTS FROM 0, BUT FILES START WITH LINE 1
                         cScheme = new CombinationScheme(tempScaffoldNumbers[t]-1, numsRGroups[tempScaffoldNumbers[t]-1]);
+                        cScheme.setLine(i + 1);
                         
                         //first column is scaffold, then follow linker/bb/linker/bb... - i count variable side chain
                         for (int j = 1; j < tempLine.length; j+=2) {
@@ -204,10 +253,12 @@ public class PartialCombinationIterator implements SmiLibIterator {
             Integer[] tempLinkerNumbers;
             Integer[] tempBBlockNumbers;
             boolean end = false;
+            int lineNumber = 0;
             CombinationScheme cScheme;
             
             while (!end) {
                 currentInputLine = buffr.readLine();
+                lineNumber++;
                 
                 if (currentInputLine != null) {
                     tempLine = currentInputLine.trim().split("\t");
@@ -222,6 +273,7 @@ public class PartialCombinationIterator implements SmiLibIterator {
                         
                         //ATTENTION: JAVA COUNTS FROM 0, BUT FILES START WITH LINE 1
                         cScheme = new CombinationScheme(tempScaffoldNumbers[t]-1, numsRGroups[tempScaffoldNumbers[t]-1]);
+                        cScheme.setLine(lineNumber);
                         
                         //first column is scaffold, then follow linker/bb/linker/bb... - i counts variable side chain
                         for (int i = 1; i < tempLine.length; i+=2) {
@@ -376,16 +428,12 @@ public class PartialCombinationIterator implements SmiLibIterator {
         int[][] bbs = combSchemes.get(combinationSchemeIndex).getBBlocks();
         
         //number of possible combinations with the given reaction scheme
-        int maxReactions = 1;
-        for (int i = 0; i < linkers.length; i++)
-            maxReactions *= linkers[i].length;
-        for (int i = 0; i < bbs.length; i++)
-            maxReactions *= bbs[i].length;
+        long maxReactions = starts[combinationSchemeIndex + 1] - starts[combinationSchemeIndex];
         
         //length of the array to return
         int numReactants = 1 + (2*numRGroups);
         
-        int numReactions = maxReactions / 1;
+        long numReactions = maxReactions / 1;
         
         //array to return
         int[] virtualReaction = new int[numReactants];
@@ -394,13 +442,13 @@ public class PartialCombinationIterator implements SmiLibIterator {
         //linkers
         for (int i = 0; i < numRGroups; i++) {
             numReactions /= linkers[i].length;
-            virtualReaction[1 + i] = linkers[i][(reactionIndex / numReactions) % linkers[i].length];
+            virtualReaction[1 + i] = linkers[i][(int) ((reactionIndex / numReactions) % linkers[i].length)];
         }
         
         //building blocks
         for (int i = 0; i < numRGroups; i++) {
             numReactions /= bbs[i].length;
-            virtualReaction[1 + linkers.length + i] = bbs[i][(reactionIndex / numReactions) % bbs[i].length];
+            virtualReaction[1 + linkers.length + i] = bbs[i][(int) ((reactionIndex / numReactions) % bbs[i].length)];
         }
         
         reactionIndex++;
@@ -423,19 +471,109 @@ public class PartialCombinationIterator implements SmiLibIterator {
      * @return number of molecules to build
      */
     public long getMaximum() {
-        long maxReactions = 0;
+        return starts[combSchemes.size()];
+    }
+    
+    
+    /**
+     * Returns the combination with the given index without changing the state of the iterator.
+     * @param index index of the combination (counting from 0)
+     * @return Array of indices corresponding to the combination of scaffolds, linkers and building blocks: [s,l,l,l,...,b,b,b,...]
+     */
+    public int[] getCombination(long index) {
+        if (index < 0 || index >= getMaximum()) {
+            throw new IndexOutOfBoundsException("Invalid combination index: " + index);
+        }
+        int s = FullCombinationIterator.findRange(starts, index);
+        long reaction = index - starts[s];
+        int[][] linkers = combSchemes.get(s).getLinkers();
+        int[][] bbs = combSchemes.get(s).getBBlocks();
+        int[] virtualReaction = new int[1 + linkers.length + bbs.length];
+        virtualReaction[0] = combSchemes.get(s).getScaffoldIndex();
         
+        //least significant position is the last building block
+        for (int i = bbs.length - 1; i >= 0; i--) {
+            virtualReaction[1 + linkers.length + i] = bbs[i][(int) (reaction % bbs[i].length)];
+            reaction /= bbs[i].length;
+        }
+        for (int i = linkers.length - 1; i >= 0; i--) {
+            virtualReaction[1 + i] = linkers[i][(int) (reaction % linkers[i].length)];
+            reaction /= linkers[i].length;
+        }
+        return virtualReaction;
+    }
+    
+    
+    /**
+     * Returns the index of a combination without changing the state of the iterator.
+     * If the combination is part of several combination schemes, the index of
+     * its first occurrence is returned.
+     * @param combination indices of scaffold, linkers and building blocks: [s,l,l,l,...,b,b,b,...]
+     * @return index of the combination (counting from 0), or -1 if the combination is not part of the library
+     */
+    public long getIndex(int[] combination) {
         for (int s = 0; s < combSchemes.size(); s++) {
+            if (combSchemes.get(s).getScaffoldIndex() != combination[0]) {
+                continue;
+            }
             int[][] linkers = combSchemes.get(s).getLinkers();
             int[][] bbs = combSchemes.get(s).getBBlocks();
-            long temp = 1;
-            for (int i = 0; i < linkers.length; i++)
-                temp *= linkers[i].length;
-            for (int i = 0; i < bbs.length; i++)
-                temp *= bbs[i].length;
-            maxReactions += temp;
+            long reaction = 0;
+            boolean found = combination.length == 1 + linkers.length + bbs.length;
+            for (int i = 0; i < linkers.length + bbs.length && found; i++) {
+                int[] values = i < linkers.length ? linkers[i] : bbs[i - linkers.length];
+                int position = indexOf(values, combination[1 + i]);
+                found = position != -1;
+                reaction = reaction * values.length + position;
+            }
+            if (found) {
+                return starts[s] + reaction;
+            }
         }
-        
-        return maxReactions;
+        return -1;
+    }
+    
+    
+    /**
+     * Returns a new iterator whose first combination is the one with the given index.
+     * @param index index of the first combination (counting from 0)
+     * @return iterator starting at the given index
+     */
+    public SmiLibIterator getIterator(long index) {
+        if (index < 0 || index > getMaximum()) {
+            throw new IndexOutOfBoundsException("Invalid combination index: " + index);
+        }
+        PartialCombinationIterator iterator = new PartialCombinationIterator(this);
+        if (index == getMaximum()) {
+            iterator.combinationSchemeIndex = combSchemes.size();
+        } else {
+            iterator.combinationSchemeIndex = FullCombinationIterator.findRange(starts, index);
+            iterator.reactionIndex = index - starts[iterator.combinationSchemeIndex];
+            iterator.scaffoldIndex = combSchemes.get(iterator.combinationSchemeIndex).getScaffoldIndex();
+        }
+        return iterator;
+    }
+    
+    
+    /**
+     *Returns the position of a value in an array, -1 if it is not contained.
+     */
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    
+    /**
+     * Returns the combination schemes, i.e. which linkers/building blocks are used
+     * on the variable side chains of the scaffolds.
+     * @return list of CombinationScheme objects in the order they are enumerated
+     */
+    public List<CombinationScheme> getCombinationSchemes() {
+        return combSchemes;
     }
-}
\ No newline at end of file
+}
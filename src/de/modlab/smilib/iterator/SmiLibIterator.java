@@ -47,4 +47,34 @@ public interface SmiLibIterator extends java.util.Iterator<int[]> {
      * @return number of molecules to build
      */
     public long getMaximum();
+    
+    /**
+     * Returns the combination of scaffold, linkers and building blocks with the
+     * given index, i.e. the combination the iterator returns after
+     * <code>index</code> calls of <code>next()</code>. The state of the
+     * iterator is not changed.
+     * @param index index of the combination (counting from 0)
+     * @return Array of indices corresponding to the combination of scaffolds, linkers and building blocks: [s,l,l,l,...,b,b,b,...]
+     * @throws java.lang.IndexOutOfBoundsException if the index is negative or not smaller than <code>getMaximum()</code>
+     */
+    public int[] getCombination(long index);
+    
+    /**
+     * Returns the index of a combination of scaffold, linkers and building
+     * blocks, i.e. the inverse of <code>getCombination(long)</code>.
+     * @param combination indices of scaffold, linkers and building blocks: [s,l,l,l,...,b,b,b,...]
+     * @return index of the combination (counting from 0), or -1 if the combination is not part of the library
+     */
+    public long getIndex(int[] combination);
+    
+    /**
+     * Returns a new iterator over the same library whose first call of
+     * <code>next()</code> returns the combination with the given index, so
+     * a range of combinations can be enumerated without looking up each one.
+     * The state of this iterator is not changed.
+     * @param index index of the first combination (counting from 0), <code>getMaximum()</code> for an exhausted iterator
+     * @return iterator starting at the given index
+     * @throws java.lang.IndexOutOfBoundsException if the index is negative or greater than <code>getMaximum()</code>
+     */
+    public SmiLibIterator getIterator(long index);
 }
@@ -0,0 +1,179 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.main;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *An enumeration run by an {@link EnumerationJobManager}. A job can be
+ *cancelled while it waits or runs. The thread of a running job is
+ *interrupted so that it also stops while blocked writing the library, and
+ *the files it has written are deleted.
+ */
+public class EnumerationJob implements Runnable {
+    
+    //enumerates the library
+    private SmiLibRunner runner;
+    
+    //thread running the job, null while waiting or finished
+    private Thread thread;
+    
+    //job was cancelled true/false
+    private boolean cancelled = false;
+    
+    //job has finished, was cancelled or failed true/false
+    private boolean finished = false;
+    
+    //counted down when the job has finished
+    private CountDownLatch done = new CountDownLatch(1);
+    
+    
+    /**
+     *Creates a new instance of EnumerationJob.
+     *
+     *@param runner runner enumerating the library
+     */
+    EnumerationJob(SmiLibRunner runner) {
+        this.runner = runner;
+    }
+    
+    
+    /**
+     *Enumerates the library, called by the job manager. A job cancelled before
+     *it started only closes the library files the runner has opened.
+     */
+    public void run() {
+        synchronized (this) {
+            thread = Thread.currentThread();
+        }
+        try {
+            runner.run();
+        } finally {
+            synchronized (this) {
+                thread = null;
+                //clears an interrupt of cancel() that came too late to stop the runner
+                Thread.interrupted();
+                if (cancelled) {
+                    runner.deleteOutput();
+                }
+                finished = true;
+                done.countDown();
+            }
+        }
+    }
+    
+    
+    /**
+     *Cancels the job. A waiting job is not started, a running job stops after
+     *the current molecule and its library files are deleted. The method returns
+     *at once, use {@link #waitFor()} to wait until the job has stopped.
+     *
+     *@return <code>true</code> if the job was cancelled, <code>false</code> if it had already finished
+     */
+    public synchronized boolean cancel() {
+        if (finished) {
+            return false;
+        }
+        cancelled = true;
+        runner.setStop(true);
+        if (thread != null) {
+            thread.interrupt();
+        }
+        return true;
+    }
+    
+    
+    /**
+     *Returns whether the job was cancelled.
+     *
+     *@return cancelled true/false
+     */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+    
+    
+    /**
+     *Returns whether the job has finished, was cancelled or failed.
+     *
+     *@return finished true/false
+     */
+    public synchronized boolean isDone() {
+        return finished;
+    }
+    
+    
+    /**
+     *Waits until the job has finished.
+     *
+     *@throws java.lang.InterruptedException if the waiting thread is interrupted
+     */
+    public void waitFor() throws InterruptedException {
+        done.await();
+    }
+    
+    
+    /**
+     *Waits until the job has finished or the timeout has elapsed.
+     *
+     *@param timeout maximum time to wait (ms)
+     *@return <code>true</code> if the job has finished, <code>false</code> if the timeout elapsed
+     *@throws java.lang.InterruptedException if the waiting thread is interrupted
+     */
+    public boolean waitFor(long timeout) throws InterruptedException {
+        return done.await(timeout, TimeUnit.MILLISECONDS);
+    }
+    
+    
+    /**
+     *Returns the progress of the enumeration.
+     *
+     *@return progress of the enumeration
+     */
+    public EnumerationProgress getProgress() {
+        return runner.getProgress();
+    }
+    
+    
+    /**
+     *Returns the runner enumerating the library.
+     *
+     *@return runner of this job
+     */
+    public SmiLibRunner getRunner() {
+        return runner;
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *Runs enumerations as jobs on a bounded number of threads. Jobs beyond the
+ *number of threads wait until a thread is free, so that concurrent
+ *enumerations share the processors instead of competing for them. Used by
+ *the GUI and by programs that use SmiLib as a Java library:
+ *<pre>
+ * EnumerationJobManager manager = new EnumerationJobManager(2);
+ * EnumerationJob job = manager.submit(new SmiLibRunner(scaffolds, linkers, bBlocks, null, true, smiWri));
+ * ...
+ * job.cancel();
+ * job.waitFor();
+ *</pre>
+ */
+public class EnumerationJobManager {
+    
+    /** number of jobs that can wait for a thread */
+    public static final int QUEUE_CAPACITY = 64;
+    
+    //runs the jobs
+    private ThreadPoolExecutor executor;
+    
+    //jobs submitted and not yet finished
+    private List<EnumerationJob> jobs = new ArrayList<EnumerationJob>();
+    
+    
+    /**
+     *Creates a new instance of EnumerationJobManager running one job per processor at a time.
+     */
+    public EnumerationJobManager() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    
+    /**
+     *Creates a new instance of EnumerationJobManager.
+     *
+     *@param threads number of jobs running at a time
+     */
+    public EnumerationJobManager(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        }
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY), new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "SmiLib enumeration job");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+    
+    
+    /**
+     *Starts an enumeration as soon as a thread is free.
+     *
+     *@param runner runner enumerating the library
+     *@return job of the enumeration
+     *@throws java.util.concurrent.RejectedExecutionException if too many jobs wait or the manager was shut down
+     */
+    public synchronized EnumerationJob submit(SmiLibRunner runner) {
+        EnumerationJob job = new EnumerationJob(runner);
+        executor.execute(job);
+        removeFinishedJobs();
+        jobs.add(job);
+        return job;
+    }
+    
+    
+    /**
+     *Returns the jobs that are waiting or running.
+     *
+     *@return jobs not yet finished
+     */
+    public synchronized List<EnumerationJob> getJobs() {
+        removeFinishedJobs();
+        return new ArrayList<EnumerationJob>(jobs);
+    }
+    
+    
+    /**
+     *Removes finished jobs from the job list.
+     */
+    private void removeFinishedJobs() {
+        for (int i = jobs.size() - 1; i >= 0; i--) {
+            if (jobs.get(i).isDone()) {
+                jobs.remove(i);
+            }
+        }
+    }
+    
+    
+    /**
+     *Cancels all jobs and stops the threads. No jobs can be submitted afterwards.
+     */
+    public synchronized void shutdown() {
+        executor.shutdown();
+        for (EnumerationJob job : jobs) {
+            job.cancel();
+        }
+        jobs.clear();
+    }
+}
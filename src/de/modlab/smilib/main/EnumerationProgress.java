@@ -0,0 +1,265 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.main;
+
+import java.text.DecimalFormat;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *Counts the molecules and bytes of an enumeration. The enumerating threads
+ *add to lock-free counters, a monitoring thread samples them at a fixed interval
+ *to compute the throughput, the remaining time and the memory use.
+ */
+public class EnumerationProgress {
+    
+    /** interval at which the progress is printed on the command line (ms) */
+    public static final long REPORT_INTERVAL = 5000;
+    
+    /** number of molecules an enumerating thread counts before adding them to the progress */
+    public static final int BATCH_SIZE = 1024;
+    
+    //molecules enumerated so far
+    private AtomicLong molecules = new AtomicLong();
+    
+    //bytes of SMILES written so far
+    private AtomicLong bytes = new AtomicLong();
+    
+    //number of molecules of the library
+    private volatile long maximum = 0;
+    
+    //start of the enumeration (ns)
+    private volatile long startTime = System.nanoTime();
+    
+    //time and counters of the last sample
+    private long sampleTime;
+    private long sampleMolecules;
+    private long sampleBytes;
+    
+    //values computed by the last sample
+    private double moleculesPerSecond = 0;
+    private double bytesPerSecond = 0;
+    private long remainingTime = -1;
+    private long usedMemory = 0;
+    private long maxMemory = 0;
+    
+    
+    /**
+     *Creates a new instance of EnumerationProgress.
+     */
+    public EnumerationProgress() {
+        sampleTime = startTime;
+    }
+    
+    
+    /**
+     *Resets the counters at the start of an enumeration.
+     *
+     *@param maximum number of molecules of the library
+     */
+    public synchronized void start(long maximum) {
+        this.maximum = maximum;
+        molecules.set(0);
+        bytes.set(0);
+        startTime = System.nanoTime();
+        sampleTime = startTime;
+        sampleMolecules = 0;
+        sampleBytes = 0;
+        moleculesPerSecond = 0;
+        bytesPerSecond = 0;
+        remainingTime = -1;
+    }
+    
+    
+    /**
+     *Counts molecules that have been enumerated, may be called by several threads.
+     *
+     *@param molecules number of molecules
+     *@param bytes number of bytes of their SMILES
+     */
+    public void add(long molecules, long bytes) {
+        this.molecules.addAndGet(molecules);
+        this.bytes.addAndGet(bytes);
+    }
+    
+    
+    /**
+     *Returns the number of molecules enumerated so far.
+     *
+     *@return number of molecules
+     */
+    public long getMolecules() {
+        return molecules.get();
+    }
+    
+    
+    /**
+     *Returns the number of bytes of SMILES written so far.
+     *
+     *@return number of bytes
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+    
+    
+    /**
+     *Returns the number of molecules of the library.
+     *
+     *@return number of molecules
+     */
+    public long getMaximum() {
+        return maximum;
+    }
+    
+    
+    /**
+     *Returns the fraction of the library enumerated so far.
+     *
+     *@return fraction between 0 and 1
+     */
+    public double getFraction() {
+        return maximum == 0 ? 0 : Math.min(1, (double) getMolecules() / maximum);
+    }
+    
+    
+    /**
+     *Computes the throughput since the last sample, the remaining time and the
+     *memory use. Called by the monitoring thread only.
+     */
+    public synchronized void sample() {
+        long time = System.nanoTime();
+        long currentMolecules = getMolecules();
+        long currentBytes = getBytes();
+        if (time > sampleTime) {
+            moleculesPerSecond = (currentMolecules - sampleMolecules) * 1e9 / (time - sampleTime);
+            bytesPerSecond = (currentBytes - sampleBytes) * 1e9 / (time - sampleTime);
+        }
+        if (currentMolecules > 0 && maximum >= currentMolecules) {
+            remainingTime = (long) ((double) (maximum - currentMolecules) * (time - startTime) / currentMolecules / 1000000);
+        } else {
+            remainingTime = -1;
+        }
+        sampleTime = time;
+        sampleMolecules = currentMolecules;
+        sampleBytes = currentBytes;
+        Runtime runtime = Runtime.getRuntime();
+        usedMemory = runtime.totalMemory() - runtime.freeMemory();
+        maxMemory = runtime.maxMemory();
+    }
+    
+    
+    /**
+     *Returns the number of molecules per second between the last two samples.
+     *
+     *@return molecules per second
+     */
+    public synchronized double getMoleculesPerSecond() {
+        return moleculesPerSecond;
+    }
+    
+    
+    /**
+     *Returns the number of bytes per second between the last two samples.
+     *
+     *@return bytes per second
+     */
+    public synchronized double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+    
+    
+    /**
+     *Returns the time the enumeration is expected to need at the average speed so far.
+     *
+     *@return remaining time (ms), -1 if unknown
+     */
+    public synchronized long getRemainingTime() {
+        return remainingTime;
+    }
+    
+    
+    /**
+     *Returns the heap memory used at the last sample.
+     *
+     *@return used memory (bytes)
+     */
+    public synchronized long getUsedMemory() {
+        return usedMemory;
+    }
+    
+    
+    /**
+     *Returns the maximum heap memory.
+     *
+     *@return maximum memory (bytes)
+     */
+    public synchronized long getMaxMemory() {
+        return maxMemory;
+    }
+    
+    
+    /**
+     *Returns the last sample as a line for the command line, e.g.
+     *"1,024,000 of 9,000,000 molecules (11.4%), 512,000 molecules/s, 24.4 MB/s, remaining 0:00:15, heap 35 of 910 MB".
+     *
+     *@return progress
+     */
+    public synchronized String toString() {
+        DecimalFormat count = new DecimalFormat("###,###,###,##0");
+        DecimalFormat rate = new DecimalFormat("###,###,###,##0.0");
+        return count.format(getMolecules()) + " of " + count.format(maximum) + " molecules (" +
+                rate.format(getFraction() * 100) + "%), " +
+                count.format(moleculesPerSecond) + " molecules/s, " +
+                rate.format(bytesPerSecond / (1 << 20)) + " MB/s, " +
+                "remaining " + formatTime(remainingTime) + ", " +
+                "heap " + count.format(usedMemory >> 20) + " of " + count.format(maxMemory >> 20) + " MB";
+    }
+    
+    
+    /**
+     *Formats a time span as hours, minutes and seconds, e.g. "1:02:03".
+     *
+     *@param time time span (ms), negative if unknown
+     *@return formatted time span, "?" if unknown
+     */
+    public static String formatTime(long time) {
+        if (time < 0) {
+            return "?";
+        }
+        long seconds = (time + 999) / 1000;
+        DecimalFormat twoDigits = new DecimalFormat("00");
+        return (seconds / 3600) + ":" + twoDigits.format(seconds / 60 % 60) + ":" + twoDigits.format(seconds % 60);
+    }
+}
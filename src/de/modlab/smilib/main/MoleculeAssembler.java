@@ -0,0 +1,515 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.main;
+
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import org.openscience.cdk.Bond;
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.Molecule;
+import org.openscience.cdk.exception.InvalidSmilesException;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.layout.StructureDiagramGenerator;
+import org.openscience.cdk.tools.HydrogenAdder;
+import javax.vecmath.Point2d;
+
+/**
+ *Assembles the molecule of a combination of scaffold, linkers and building
+ *blocks as CDK molecule without parsing its SMILES. Each fragment is parsed
+ *once, the first time it is used, with its attachment points replaced by
+ *hydrogens of mass number 900 and above, so hydrogen counts and aromaticity
+ *are perceived as in the assembled molecule. The placeholders are then
+ *removed and the atoms they were bonded to are recorded. A molecule is
+ *assembled by copying the fragments and bonding them at these atoms. Atoms
+ *and bonds are in the order SmilesParser creates them from the SMILES built
+ *by {@link SmilesAssembler}: the bond between two fragments takes the place
+ *of the attachment point of the later one, as a ring closure would.
+ *If requested, each fragment is also laid out in 2D once, placeholders
+ *included, and the copies of a fragment are rotated and moved so that its
+ *attachment atom takes the place of the placeholder it is bonded to. The
+ *scaffold is never moved, so all molecules of a scaffold show it in the same
+ *orientation. Molecules containing a fragment that cannot be laid out, e.g.
+ *a fragment of several disconnected parts, get no coordinates. Fragments
+ *may be laid out with explicit hydrogens, whose coordinates are then stored
+ *in property {@link #HYDROGEN_POSITIONS} of the atoms they are bonded to.
+ *One instance may be used by several threads.
+ */
+public class MoleculeAssembler {
+    
+    /** property of an atom: coordinates of its hydrogens (Point2d[]) if the fragments are laid out with hydrogens */
+    public static final String HYDROGEN_POSITIONS = "de.modlab.smilib.HydrogenPositions";
+    
+    //mass number of the first attachment point placeholder
+    private static final int PLACEHOLDER = 900;
+    
+    //stores and distributes SMILES of scaffolds, linkers and building blocks
+    private ComponentAdministrator compAdmin;
+    
+    //mapping of the scaffold coordinates: cos, sin, dx, dy
+    private static final double[] IDENTITY = {1, 0, 0, 0};
+    
+    //parses the fragments, reentrant
+    private SmilesParser parser = new SmilesParser();
+    
+    //lay out the fragments in 2D true/false
+    private boolean layout;
+    
+    //lay out the fragments with explicit hydrogens true/false
+    private boolean hydrogens;
+    
+    //lays out the fragments, null until first used
+    private StructureDiagramGenerator sdg;
+    
+    //parsed fragments, created when first used
+    private Template[] scaffolds;
+    private Template[] linkers;
+    private Template[] buildingBlocks;
+    
+    
+    
+    /**
+     *Creates a new instance of MoleculeAssembler.
+     *
+     *@param compAdmin scaffolds, linkers and building blocks
+     */
+    public MoleculeAssembler(ComponentAdministrator compAdmin) {
+        this(compAdmin, false);
+    }
+    
+    
+    /**
+     *Creates a new instance of MoleculeAssembler.
+     *
+     *@param compAdmin scaffolds, linkers and building blocks
+     *@param layout assemble the molecules with 2D coordinates taken from layouts of the fragments true/false
+     */
+    public MoleculeAssembler(ComponentAdministrator compAdmin, boolean layout) {
+        this(compAdmin, layout, false);
+    }
+    
+    
+    /**
+     *Creates a new instance of MoleculeAssembler.
+     *
+     *@param compAdmin scaffolds, linkers and building blocks
+     *@param layout assemble the molecules with 2D coordinates taken from layouts of the fragments true/false
+     *@param hydrogens lay out the fragments with explicit hydrogens and store their coordinates true/false
+     */
+    public MoleculeAssembler(ComponentAdministrator compAdmin, boolean layout, boolean hydrogens) {
+        this.compAdmin = compAdmin;
+        this.layout = layout;
+        this.hydrogens = hydrogens;
+        scaffolds = new Template[compAdmin.getNumberOfScaffolds()];
+        linkers = new Template[compAdmin.getNumberOfLinkers()];
+        buildingBlocks = new Template[compAdmin.getNumberOfBuildingBlocks()];
+    }
+    
+    
+    /**
+     *Assembles the molecule corresponding to a combination of scaffold, linkers and building blocks.
+     *
+     *@param combination indices of scaffold, linkers and building blocks: [s,l,l,l,...,b,b,b,...]
+     *@return new molecule, its atoms and bonds are not shared with other molecules,
+     *        its atoms have 2D coordinates if layout was requested and all fragments could be laid out
+     *@throws org.openscience.cdk.exception.InvalidSmilesException if a fragment cannot be parsed
+     */
+    public Molecule assemble(int[] combination) throws InvalidSmilesException {
+        Molecule molecule = new Molecule();
+        int scaffold = combination[0];
+        int numRGroups = compAdmin.getNumberOfRGroups(scaffold);
+        Template scaffoldTemplate = getScaffold(scaffold);
+        Template[] linkerTemplates = new Template[numRGroups];
+        Template[] blockTemplates = new Template[numRGroups];
+        boolean laidOut = scaffoldTemplate.placeholders != null;
+        for (int i = 0; i < numRGroups; i++) {
+            if (!compAdmin.isLinkerEmpty(combination[i + 1])) {
+                linkerTemplates[i] = getLinker(combination[i + 1]);
+                laidOut &= linkerTemplates[i].placeholders != null;
+            }
+            blockTemplates[i] = getBuildingBlock(combination[i + 1 + numRGroups]);
+            laidOut &= blockTemplates[i].placeholders != null;
+        }
+        int scaffoldOffset = scaffoldTemplate.copyTo(molecule, -1, null, laidOut ? IDENTITY : null);
+        
+        //for each variable side chain
+        for (int i = 0; i < numRGroups; i++) {
+            IAtom scaffoldAtom = molecule.getAtomAt(scaffoldOffset + scaffoldTemplate.attachments[i]);
+            Point2d scaffoldPlaceholder = laidOut ? scaffoldTemplate.placeholder(i, IDENTITY) : null;
+            
+            //if linker is not the empty linker, the linker is bonded to the scaffold and the building block to the linker
+            if (linkerTemplates[i] != null) {
+                double[] mapping = laidOut ? linkerTemplates[i].mapping(0, scaffoldAtom, scaffoldPlaceholder) : null;
+                int linkerOffset = linkerTemplates[i].copyTo(molecule, 0, scaffoldAtom, mapping);
+                IAtom linkerAtom = molecule.getAtomAt(linkerOffset + linkerTemplates[i].attachments[1]);
+                Point2d linkerPlaceholder = laidOut ? linkerTemplates[i].placeholder(1, mapping) : null;
+                blockTemplates[i].copyTo(molecule, 0, linkerAtom, laidOut ? blockTemplates[i].mapping(0, linkerAtom, linkerPlaceholder) : null);
+                
+                //if linker is the empty linker, the building block is bonded to the scaffold
+            } else {
+                blockTemplates[i].copyTo(molecule, 0, scaffoldAtom, laidOut ? blockTemplates[i].mapping(0, scaffoldAtom, scaffoldPlaceholder) : null);
+            }
+        }
+        return molecule;
+    }
+    
+    
+    /**
+     *Returns the parsed scaffold, its attachment points are the variable side chains in ascending order.
+     */
+    private synchronized Template getScaffold(int i) throws InvalidSmilesException {
+        if (scaffolds[i] == null) {
+            StringBuilder smiles = new StringBuilder(compAdmin.getScaffoldString(i));
+            int numRGroups = compAdmin.getNumberOfRGroups(i);
+            for (int n = 0; n < numRGroups; n++) {
+                int index = compAdmin.indexOfRGroup(i, n, smiles);
+                int length = compAdmin.getRGroupLength(i, n);
+                //"([R1])" keeps its brackets
+                if (smiles.charAt(index) == '(') {
+                    index++;
+                    length -= 2;
+                }
+                smiles.replace(index, index + length, placeholder(n));
+            }
+            scaffolds[i] = parse(smiles.toString(), numRGroups);
+        }
+        return scaffolds[i];
+    }
+    
+    
+    /**
+     *Returns the parsed linker, attachment point 0 is [A], 1 is [R1] or [R].
+     */
+    private synchronized Template getLinker(int i) throws InvalidSmilesException {
+        if (linkers[i] == null) {
+            StringBuilder smiles = new StringBuilder(compAdmin.getLinker(i).getOriginalSMILES());
+            replace(smiles, "[A]", 0);
+            if (!replace(smiles, "[R1]", 1)) {
+                replace(smiles, "[R]", 1);
+            }
+            linkers[i] = parse(smiles.toString(), 2);
+        }
+        return linkers[i];
+    }
+    
+    
+    /**
+     *Returns the parsed building block, attachment point 0 is [A].
+     */
+    private synchronized Template getBuildingBlock(int i) throws InvalidSmilesException {
+        if (buildingBlocks[i] == null) {
+            StringBuilder smiles = new StringBuilder(compAdmin.getBuildingBlock(i).getOriginalSMILES());
+            replace(smiles, "[A]", 0);
+            buildingBlocks[i] = parse(smiles.toString(), 1);
+        }
+        return buildingBlocks[i];
+    }
+    
+    
+    /**
+     *Replaces the first occurrence of an attachment point by a placeholder.
+     */
+    private static boolean replace(StringBuilder smiles, String attachment, int n) {
+        int index = smiles.indexOf(attachment);
+        if (index == -1) {
+            return false;
+        }
+        smiles.replace(index, index + attachment.length(), placeholder(n));
+        return true;
+    }
+    
+    
+    /**
+     *Returns the placeholder of the nth attachment point, e.g. "[900H]".
+     */
+    private static String placeholder(int n) {
+        return "[" + (PLACEHOLDER + n) + "H]";
+    }
+    
+    
+    /**
+     *Returns whether an atom is the placeholder of an attachment point.
+     */
+    private static boolean isPlaceholder(IAtom atom) {
+        return "H".equals(atom.getSymbol()) && atom.getMassNumber() >= PLACEHOLDER;
+    }
+    
+    
+    /**
+     *Parses a fragment SMILES with placeholders, lays it out if requested,
+     *removes the placeholders and records the atoms they were bonded to.
+     */
+    private Template parse(String smiles, int numAttachments) throws InvalidSmilesException {
+        Molecule molecule = parser.parseSmiles(smiles);
+        boolean laidOut = layout && layout(molecule);
+        IAtom[] placeholders = new IAtom[numAttachments];
+        IAtom[] attached = new IAtom[numAttachments];
+        int[] linkBonds = new int[numAttachments];
+        IAtom[] atoms = molecule.getAtoms();
+        for (int i = 0; i < atoms.length; i++) {
+            int n = atoms[i].getMassNumber() - PLACEHOLDER;
+            if (!isPlaceholder(atoms[i]) || n >= numAttachments) {
+                continue;
+            }
+            IAtom[] neighbours = molecule.getConnectedAtoms(atoms[i]);
+            if (neighbours.length != 1 || placeholders[n] != null) {
+                throw new InvalidSmilesException("Attachment point " + (n + 1) + " is not bonded to exactly one atom: " + smiles);
+            }
+            placeholders[n] = atoms[i];
+            attached[n] = neighbours[0];
+        }
+        
+        //the bond to the previous fragment is inserted where the bond to the placeholder was
+        IBond[] bonds = molecule.getBonds();
+        for (int n = 0; n < numAttachments; n++) {
+            if (placeholders[n] == null) {
+                throw new InvalidSmilesException("Attachment point " + (n + 1) + " not found: " + smiles);
+            }
+            for (int i = 0; i < bonds.length && !bonds[i].contains(placeholders[n]); i++) {
+                if (!isPlaceholder(bonds[i].getAtomAt(0)) && !isPlaceholder(bonds[i].getAtomAt(1))) {
+                    linkBonds[n]++;
+                }
+            }
+        }
+        Point2d[] positions = laidOut ? new Point2d[numAttachments] : null;
+        for (int n = 0; n < numAttachments; n++) {
+            if (laidOut) {
+                positions[n] = placeholders[n].getPoint2d();
+            }
+            molecule.removeAtomAndConnectedElectronContainers(placeholders[n]);
+        }
+        int[] attachments = new int[numAttachments];
+        for (int n = 0; n < numAttachments; n++) {
+            attachments[n] = molecule.getAtomNumber(attached[n]);
+        }
+        return new Template(molecule, attachments, linkBonds, positions);
+    }
+    
+    
+    /**
+     *Computes 2D coordinates of the atoms of a fragment, placeholders included,
+     *and, if requested, of its hydrogens. The layout is computed on a copy, so
+     *the flags of the fragment are not changed.
+     *
+     *@return true if the fragment could be laid out, false if its atoms have no coordinates
+     */
+    private boolean layout(Molecule molecule) {
+        if (sdg == null) {
+            sdg = new StructureDiagramGenerator();
+        }
+        IAtom[] atoms = molecule.getAtoms();
+        IAtom[] laidOut;
+        try {
+            Molecule copy = (Molecule) molecule.clone();
+            //hydrogens are appended, the atoms of the fragment keep their indices
+            if (hydrogens) {
+                new HydrogenAdder().addExplicitHydrogensToSatisfyValency(copy);
+            }
+            sdg.setMolecule(copy, false);
+            sdg.generateCoordinates();
+            laidOut = copy.getAtoms();
+            for (int i = 0; i < laidOut.length; i++) {
+                if (laidOut[i].getPoint2d() == null) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < atoms.length; i++) {
+                atoms[i].setPoint2d(laidOut[i].getPoint2d());
+                if (hydrogens) {
+                    IAtom[] neighbours = copy.getConnectedAtoms(laidOut[i]);
+                    int count = 0;
+                    for (int j = 0; j < neighbours.length; j++) {
+                        if (copy.getAtomNumber(neighbours[j]) >= atoms.length) {
+                            neighbours[count++] = neighbours[j];
+                        }
+                    }
+                    Point2d[] positions = new Point2d[count];
+                    for (int j = 0; j < count; j++) {
+                        positions[j] = neighbours[j].getPoint2d();
+                    }
+                    atoms[i].setProperty(HYDROGEN_POSITIONS, positions);
+                }
+            }
+        } catch (Exception e) {
+            for (int i = 0; i < atoms.length; i++) {
+                atoms[i].setPoint2d(null);
+                atoms[i].removeProperty(HYDROGEN_POSITIONS);
+            }
+            return false;
+        }
+        return true;
+    }
+    
+    
+    
+    /**
+     *A parsed fragment without its attachment points.
+     */
+    private static class Template {
+        
+        //fragment, never changed once parsed
+        private Molecule molecule;
+        
+        //indices of the atoms bonded to the attachment points
+        private int[] attachments;
+        
+        //number of bonds of the fragment created before the bond to each attachment point
+        private int[] linkBonds;
+        
+        //indices of the two atoms of each bond
+        private int[] bondAtoms;
+        
+        //coordinates of the attachment points, null if the fragment is not laid out
+        private Point2d[] placeholders;
+        
+        
+        /**
+         *Creates a new instance of Template.
+         */
+        Template(Molecule molecule, int[] attachments, int[] linkBonds, Point2d[] placeholders) {
+            this.molecule = molecule;
+            this.attachments = attachments;
+            this.linkBonds = linkBonds;
+            this.placeholders = placeholders;
+            IBond[] bonds = molecule.getBonds();
+            bondAtoms = new int[2 * bonds.length];
+            for (int i = 0; i < bonds.length; i++) {
+                bondAtoms[2 * i] = molecule.getAtomNumber(bonds[i].getAtomAt(0));
+                bondAtoms[2 * i + 1] = molecule.getAtomNumber(bonds[i].getAtomAt(1));
+            }
+        }
+        
+        
+        /**
+         *Appends copies of the atoms and bonds of the fragment to a molecule and
+         *bonds one attachment point to an atom of a fragment copied before.
+         *
+         *@param target molecule to append the fragment to
+         *@param point attachment point bonded to <code>partner</code>, -1 for none
+         *@param partner atom of the molecule bonded to the attachment point
+         *@param mapping rotation and translation of the coordinates, see {@link #mapping}, null for no coordinates
+         *@return index of the first atom of the fragment in the molecule
+         */
+        int copyTo(Molecule target, int point, IAtom partner, double[] mapping) {
+            int offset = target.getAtomCount();
+            IAtom[] atoms = molecule.getAtoms();
+            for (int i = 0; i < atoms.length; i++) {
+                IAtom atom;
+                try {
+                    atom = (IAtom) atoms[i].clone();
+                } catch (CloneNotSupportedException e) {
+                    throw new IllegalStateException(e.toString());
+                }
+                atom.setPoint2d(mapping == null ? null : map(mapping, atoms[i].getPoint2d()));
+                Point2d[] hydrogens = (Point2d[]) atoms[i].getProperty(HYDROGEN_POSITIONS);
+                if (hydrogens != null && mapping == null) {
+                    atom.removeProperty(HYDROGEN_POSITIONS);
+                } else if (hydrogens != null) {
+                    Point2d[] positions = new Point2d[hydrogens.length];
+                    for (int j = 0; j < hydrogens.length; j++) {
+                        positions[j] = map(mapping, hydrogens[j]);
+                    }
+                    atom.setProperty(HYDROGEN_POSITIONS, positions);
+                }
+                target.addAtom(atom);
+            }
+            IBond[] bonds = molecule.getBonds();
+            for (int i = 0; i < bonds.length; i++) {
+                if (point >= 0 && linkBonds[point] == i) {
+                    link(target, offset, point, partner);
+                }
+                Bond bond = new Bond(target.getAtomAt(offset + bondAtoms[2 * i]), target.getAtomAt(offset + bondAtoms[2 * i + 1]), bonds[i].getOrder(), bonds[i].getStereo());
+                bond.setFlags((boolean[]) bonds[i].getFlags().clone());
+                target.addBond(bond);
+            }
+            if (point >= 0 && linkBonds[point] == bonds.length) {
+                link(target, offset, point, partner);
+            }
+            return offset;
+        }
+        
+        
+        /**
+         *Returns the rotation and translation that moves the attachment atom of
+         *an attachment point onto the placeholder bonded to an atom copied
+         *before and the placeholder of the attachment point onto that atom,
+         *so the bond between the fragments keeps the direction of both layouts.
+         *
+         *@param point attachment point bonded to <code>partner</code>
+         *@param partner atom of the molecule bonded to the attachment point
+         *@param position coordinates of the placeholder bonded to <code>partner</code>
+         *@return cosine and sine of the rotation angle, translation in x and y
+         */
+        double[] mapping(int point, IAtom partner, Point2d position) {
+            Point2d atom = molecule.getAtomAt(attachments[point]).getPoint2d();
+            Point2d placeholder = placeholders[point];
+            double angle = Math.atan2(partner.getPoint2d().y - position.y, partner.getPoint2d().x - position.x) -
+                    Math.atan2(placeholder.y - atom.y, placeholder.x - atom.x);
+            double cos = Math.cos(angle);
+            double sin = Math.sin(angle);
+            return new double[] {cos, sin, position.x - cos * atom.x + sin * atom.y, position.y - sin * atom.x - cos * atom.y};
+        }
+        
+        
+        /**
+         *Returns the coordinates of the placeholder of an attachment point in a copy of the fragment.
+         *
+         *@param point attachment point
+         *@param mapping rotation and translation of the copy
+         */
+        Point2d placeholder(int point, double[] mapping) {
+            return map(mapping, placeholders[point]);
+        }
+        
+        
+        /**
+         *Rotates and moves a point.
+         */
+        private static Point2d map(double[] mapping, Point2d p) {
+            return new Point2d(mapping[0] * p.x - mapping[1] * p.y + mapping[2], mapping[1] * p.x + mapping[0] * p.y + mapping[3]);
+        }
+        
+        
+        /**
+         *Adds the single bond of an attachment point to an atom of a fragment
+         *copied before, the attachment point first as in a ring closure.
+         */
+        private void link(Molecule target, int offset, int point, IAtom partner) {
+            Bond bond = new Bond(target.getAtomAt(offset + attachments[point]), partner, CDKConstants.BONDORDER_SINGLE);
+            //flagged like the bonds of the parsed fragments, which SmilesParser partitions into molecules
+            bond.setFlag(CDKConstants.VISITED, true);
+            target.addBond(bond);
+        }
+    }
+}
@@ -0,0 +1,541 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.main;
+
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.io.ConversionLog;
+import de.modlab.smilib.iterator.CombinationScheme;
+import de.modlab.smilib.iterator.PartialCombinationIterator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ *Collects statistics of an enumeration and writes them as a JSON report: the
+ *time spent in each phase, the products and assembly times per scaffold and
+ *per line of the reaction scheme, a histogram of the SMILES lengths, how often
+ *each linker and building block was used, duplicates, rejected molecules and
+ *the throughput of the writer. Assembly times are sampled, every
+ *SAMPLE_INTERVAL-th product of each scaffold and of each line is timed and
+ *the total time is extrapolated from the mean. Writers that assemble the
+ *molecules themselves, i.e. parallel writing, only report the phases, the
+ *rejects and the throughput.
+ */
+public class RunReport {
+    
+    /** phase reading and checking the scaffolds, linkers and building blocks */
+    public static final String LOADING = "loading";
+    
+    /** phase assembling and writing the products */
+    public static final String ENUMERATION = "enumeration";
+    
+    /** phase flushing and closing the library file */
+    public static final String CLOSING = "closing";
+    
+    /** whole run, from loading to closing */
+    public static final String TOTAL = "total";
+    
+    /** number of products of a scaffold or a reaction scheme line per timed assembly */
+    public static final int SAMPLE_INTERVAL = 16;
+    
+    /** number of characters per bin of the length histogram */
+    public static final int LENGTH_BIN = 10;
+    
+    //fragments the products are assembled from
+    private ComponentAdministrator compAdmin;
+    
+    //combination schemes in the order they are enumerated, null without reaction scheme
+    private List<CombinationScheme> schemes;
+    
+    //number of products enumerated up to the end of each combination scheme
+    private long[] schemeEnds;
+    
+    //for each combination scheme the earlier ones of the same scaffold
+    private int[][] earlierSchemes;
+    
+    //for each combination scheme and side chain position whether a linker/building block is used
+    private boolean[][][] members;
+    
+    //combination scheme of the current product
+    private int scheme = 0;
+    
+    //products assembled so far
+    private long products = 0;
+    
+    //products, timed assemblies and their time (ns) per scaffold
+    private long[] scaffoldProducts;
+    private long[] scaffoldSamples;
+    private long[] scaffoldTime;
+    
+    //products, timed assemblies, their time (ns) and duplicates per combination scheme
+    private long[] schemeProducts;
+    private long[] schemeSamples;
+    private long[] schemeTime;
+    private long[] schemeDuplicates;
+    
+    //products each linker and building block was used in
+    private long[] linkerUsage;
+    private long[] bBlockUsage;
+    
+    //products per bin of SMILES length
+    private long[] lengths = new long[16];
+    private long totalLength = 0;
+    private int minLength = Integer.MAX_VALUE;
+    private int maxLength = 0;
+    
+    //products enumerated again by an overlapping line of the reaction scheme
+    private long duplicates = 0;
+    
+    //products assembled by this report true/false
+    private boolean detailed = false;
+    
+    //time spent in each phase (ns)
+    private Map<String, Long> phases = new LinkedHashMap<String, Long>();
+    
+    //size of the library, molecules and bytes written
+    private long maximum;
+    private long molecules = 0;
+    private long bytes = 0;
+    
+    //conversion of the SD file, null if none
+    private ConversionLog conversionLog;
+    
+    
+    
+    /**
+     *Creates a new instance of RunReport for a library.
+     *
+     *@param compAdmin scaffolds, linkers and building blocks of the library
+     *@param iterator iterator enumerating the library
+     */
+    public RunReport(ComponentAdministrator compAdmin, SmiLibIterator iterator) {
+        this.compAdmin = compAdmin;
+        this.maximum = iterator.getMaximum();
+        phases.put(LOADING, 0L);
+        phases.put(ENUMERATION, 0L);
+        phases.put(CLOSING, 0L);
+        phases.put(TOTAL, 0L);
+        scaffoldProducts = new long[compAdmin.getNumberOfScaffolds()];
+        scaffoldSamples = new long[scaffoldProducts.length];
+        scaffoldTime = new long[scaffoldProducts.length];
+        linkerUsage = new long[compAdmin.getNumberOfLinkers()];
+        bBlockUsage = new long[compAdmin.getNumberOfBuildingBlocks()];
+        if (iterator instanceof PartialCombinationIterator) {
+            prepareSchemes(((PartialCombinationIterator) iterator).getCombinationSchemes());
+        }
+    }
+    
+    
+    /**
+     *Computes where each combination scheme ends and which linkers and building
+     *blocks it contains, to find the products enumerated more than once.
+     */
+    private void prepareSchemes(List<CombinationScheme> schemes) {
+        int n = schemes.size();
+        this.schemes = schemes;
+        schemeEnds = new long[n];
+        earlierSchemes = new int[n][];
+        members = new boolean[n][][];
+        schemeProducts = new long[n];
+        schemeSamples = new long[n];
+        schemeTime = new long[n];
+        schemeDuplicates = new long[n];
+        long end = 0;
+        for (int s = 0; s < n; s++) {
+            CombinationScheme cScheme = schemes.get(s);
+            int[][] linkers = cScheme.getLinkers();
+            int[][] bbs = cScheme.getBBlocks();
+            long size = 1;
+            members[s] = new boolean[linkers.length + bbs.length][];
+            for (int i = 0; i < linkers.length + bbs.length; i++) {
+                int[] values = i < linkers.length ? linkers[i] : bbs[i - linkers.length];
+                members[s][i] = new boolean[i < linkers.length ? linkerUsage.length : bBlockUsage.length];
+                for (int j = 0; j < values.length; j++) {
+                    members[s][i][values[j]] = true;
+                }
+                size *= values.length;
+            }
+            end += size;
+            schemeEnds[s] = end;
+            
+            List<Integer> earlier = new ArrayList<Integer>();
+            for (int e = 0; e < s; e++) {
+                if (schemes.get(e).getScaffoldIndex() == cScheme.getScaffoldIndex()) {
+                    earlier.add(e);
+                }
+            }
+            earlierSchemes[s] = new int[earlier.size()];
+            for (int e = 0; e < earlier.size(); e++) {
+                earlierSchemes[s][e] = earlier.get(e);
+            }
+        }
+    }
+    
+    
+    /**
+     *Assembles the next product of the library and counts it. The combinations
+     *must be passed in the order they are enumerated.
+     *
+     *@param assembler assembler of the SMILES
+     *@param combination indices of scaffold, linkers and building blocks: [s,l,l,l,...,b,b,b,...]
+     *@param currentMolecule StringBuilder that will contain the SMILES of the molecule
+     *@param moleculeID StringBuilder that will contain the ID of the molecule
+     */
+    public void assemble(SmilesAssembler assembler, int[] combination, StringBuilder currentMolecule, StringBuilder moleculeID) {
+        detailed = true;
+        int scaffold = combination[0];
+        if (schemes != null) {
+            while (products >= schemeEnds[scheme] && scheme < schemeEnds.length - 1) {
+                scheme++;
+            }
+        }
+        
+        //the first product of each scaffold and line and every n-th after it is timed
+        boolean timed = scaffoldProducts[scaffold] % SAMPLE_INTERVAL == 0
+                || (schemes != null && schemeProducts[scheme] % SAMPLE_INTERVAL == 0);
+        long start = timed ? System.nanoTime() : 0;
+        assembler.assemble(combination, currentMolecule, moleculeID);
+        if (timed) {
+            long time = System.nanoTime() - start;
+            scaffoldSamples[scaffold]++;
+            scaffoldTime[scaffold] += time;
+            if (schemes != null) {
+                schemeSamples[scheme]++;
+                schemeTime[scheme] += time;
+            }
+        }
+        
+        products++;
+        scaffoldProducts[scaffold]++;
+        int numRGroups = (combination.length - 1) / 2;
+        for (int i = 1; i <= numRGroups; i++) {
+            linkerUsage[combination[i]]++;
+            bBlockUsage[combination[numRGroups + i]]++;
+        }
+        if (schemes != null) {
+            schemeProducts[scheme]++;
+            if (isDuplicate(combination)) {
+                schemeDuplicates[scheme]++;
+                duplicates++;
+            }
+        }
+        
+        int length = currentMolecule.length();
+        int bin = length / LENGTH_BIN;
+        if (bin >= lengths.length) {
+            long[] grown = new long[Math.max(bin + 1, 2 * lengths.length)];
+            System.arraycopy(lengths, 0, grown, 0, lengths.length);
+            lengths = grown;
+        }
+        lengths[bin]++;
+        totalLength += length;
+        minLength = Math.min(minLength, length);
+        maxLength = Math.max(maxLength, length);
+    }
+    
+    
+    /**
+     *Returns whether a combination of the current combination scheme was
+     *already enumerated by an earlier one.
+     */
+    private boolean isDuplicate(int[] combination) {
+        for (int e = 0; e < earlierSchemes[scheme].length; e++) {
+            boolean[][] contained = members[earlierSchemes[scheme][e]];
+            boolean found = true;
+            for (int i = 0; i < contained.length && found; i++) {
+                found = contained[i][combination[1 + i]];
+            }
+            if (found) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    
+    /**
+     *Sets the time spent in a phase of the run.
+     *
+     *@param phase name of the phase, e.g. LOADING
+     *@param nanos time in nanoseconds
+     */
+    public void setPhase(String phase, long nanos) {
+        phases.put(phase, nanos);
+    }
+    
+    
+    /**
+     *Sets the number of molecules and bytes written.
+     *
+     *@param molecules molecules written
+     *@param bytes bytes of SMILES written, before compression or conversion
+     */
+    public void setOutput(long molecules, long bytes) {
+        this.molecules = molecules;
+        this.bytes = bytes;
+    }
+    
+    
+    /**
+     *Sets the log of the conversion to SD format the rejected molecules are taken from.
+     *
+     *@param conversionLog conversion log, null if the library is not converted
+     */
+    public void setConversionLog(ConversionLog conversionLog) {
+        this.conversionLog = conversionLog;
+    }
+    
+    
+    /**
+     *Returns the number of products enumerated again by an overlapping line of
+     *the reaction scheme. They are written like all other products.
+     *
+     *@return number of duplicates
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+    
+    
+    /**
+     *Writes the report to a file.
+     *
+     *@param path path/name of the report
+     *@throws java.io.IOException thrown if an IO error occurs
+     */
+    public void write(String path) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(path), "UTF-8");
+        try {
+            write(out);
+        } finally {
+            out.close();
+        }
+    }
+    
+    
+    /**
+     *Writes the report as a JSON object.
+     *
+     *@param out writer the report is written to
+     *@throws java.io.IOException thrown if an IO error occurs
+     */
+    public void write(Writer out) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{").append(SmiLib.nl);
+        json.append("  \"molecules\": ").append(molecules).append(",").append(SmiLib.nl);
+        json.append("  \"maximum\": ").append(maximum).append(",").append(SmiLib.nl);
+        json.append("  \"duplicates\": ").append(duplicates).append(",").append(SmiLib.nl);
+        
+        json.append("  \"phases\": {");
+        String separator = SmiLib.nl;
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            json.append(separator).append("    ");
+            appendString(json, phase.getKey());
+            json.append(": ").append(phase.getValue() / 1e9);
+            separator = "," + SmiLib.nl;
+        }
+        json.append(SmiLib.nl).append("  },").append(SmiLib.nl);
+        
+        //throughput over enumeration and closing, i.e. until the last byte is written
+        long nanos = get(ENUMERATION) + get(CLOSING);
+        json.append("  \"writer\": {").append(SmiLib.nl);
+        json.append("    \"molecules\": ").append(molecules).append(",").append(SmiLib.nl);
+        json.append("    \"bytes\": ").append(bytes).append(",").append(SmiLib.nl);
+        json.append("    \"seconds\": ").append(nanos / 1e9).append(",").append(SmiLib.nl);
+        json.append("    \"moleculesPerSecond\": ").append(nanos > 0 ? molecules * 1e9 / nanos : 0.0).append(",").append(SmiLib.nl);
+        json.append("    \"megabytesPerSecond\": ").append(nanos > 0 ? bytes * 1e3 / nanos : 0.0).append(SmiLib.nl);
+        json.append("  },").append(SmiLib.nl);
+        
+        json.append("  \"rejects\": {").append(SmiLib.nl);
+        json.append("    \"conversion\": ").append(conversionLog != null ? conversionLog.getRejects() : 0).append(",").append(SmiLib.nl);
+        json.append("    \"timeouts\": ").append(conversionLog != null ? conversionLog.getTimeouts() : 0).append(",").append(SmiLib.nl);
+        json.append("    \"abandonedLayouts\": ").append(conversionLog != null ? conversionLog.getAbandoned() : 0).append(SmiLib.nl);
+        json.append("  }");
+        
+        if (detailed) {
+            json.append(",").append(SmiLib.nl);
+            appendLengths(json);
+            appendScaffolds(json);
+            if (schemes != null) {
+                appendSchemeLines(json);
+            }
+            appendUsage(json, "linkers", linkerUsage, true);
+            appendUsage(json, "buildingBlocks", bBlockUsage, false);
+        }
+        json.append(SmiLib.nl).append("}").append(SmiLib.nl);
+        out.write(json.toString());
+    }
+    
+    
+    /**
+     *Returns the time spent in a phase, 0 if not set.
+     */
+    private long get(String phase) {
+        Long nanos = phases.get(phase);
+        return nanos != null ? nanos : 0;
+    }
+    
+    
+    /**
+     *Appends the minimum, mean and maximum length and the length histogram.
+     */
+    private void appendLengths(StringBuilder json) {
+        json.append("  \"lengths\": {").append(SmiLib.nl);
+        json.append("    \"minimum\": ").append(products > 0 ? minLength : 0).append(",").append(SmiLib.nl);
+        json.append("    \"mean\": ").append(products > 0 ? (double) totalLength / products : 0.0).append(",").append(SmiLib.nl);
+        json.append("    \"maximum\": ").append(maxLength).append(",").append(SmiLib.nl);
+        json.append("    \"binWidth\": ").append(LENGTH_BIN).append(",").append(SmiLib.nl);
+        json.append("    \"histogram\": [");
+        for (int bin = 0; bin <= maxLength / LENGTH_BIN && products > 0; bin++) {
+            json.append(bin > 0 ? ", " : "").append(lengths[bin]);
+        }
+        json.append("]").append(SmiLib.nl);
+        json.append("  },").append(SmiLib.nl);
+    }
+    
+    
+    /**
+     *Appends the products and assembly times per scaffold.
+     */
+    private void appendScaffolds(StringBuilder json) {
+        json.append("  \"scaffolds\": [");
+        for (int s = 0; s < scaffoldProducts.length; s++) {
+            json.append(s > 0 ? "," : "").append(SmiLib.nl).append("    {\"index\": ").append(s + 1).append(", \"id\": ");
+            appendString(json, compAdmin.getScaffoldID(s));
+            json.append(", \"products\": ").append(scaffoldProducts[s]);
+            appendAssemblyTime(json, scaffoldProducts[s], scaffoldSamples[s], scaffoldTime[s]);
+            json.append("}");
+        }
+        json.append(SmiLib.nl).append("  ],").append(SmiLib.nl);
+    }
+    
+    
+    /**
+     *Appends the products, duplicates and assembly times per line of the
+     *reaction scheme, summed over the scaffolds of each line.
+     */
+    private void appendSchemeLines(StringBuilder json) {
+        //line -> combination schemes of the line
+        Map<Integer, List<Integer>> lines = new TreeMap<Integer, List<Integer>>();
+        for (int s = 0; s < schemes.size(); s++) {
+            int line = schemes.get(s).getLine() > 0 ? schemes.get(s).getLine() : s + 1;
+            if (!lines.containsKey(line)) {
+                lines.put(line, new ArrayList<Integer>());
+            }
+            lines.get(line).add(s);
+        }
+        
+        json.append("  \"schemeLines\": [");
+        String separator = SmiLib.nl;
+        for (Map.Entry<Integer, List<Integer>> line : lines.entrySet()) {
+            long lineProducts = 0;
+            long lineSamples = 0;
+            long lineTime = 0;
+            long lineDuplicates = 0;
+            json.append(separator).append("    {\"line\": ").append(line.getKey()).append(", \"scaffolds\": [");
+            for (int i = 0; i < line.getValue().size(); i++) {
+                int s = line.getValue().get(i);
+                json.append(i > 0 ? ", " : "").append(schemes.get(s).getScaffoldIndex() + 1);
+                lineProducts += schemeProducts[s];
+                lineSamples += schemeSamples[s];
+                lineTime += schemeTime[s];
+                lineDuplicates += schemeDuplicates[s];
+            }
+            json.append("], \"products\": ").append(lineProducts);
+            json.append(", \"duplicates\": ").append(lineDuplicates);
+            appendAssemblyTime(json, lineProducts, lineSamples, lineTime);
+            json.append("}");
+            separator = "," + SmiLib.nl;
+        }
+        json.append(SmiLib.nl).append("  ],").append(SmiLib.nl);
+    }
+    
+    
+    /**
+     *Appends the mean assembly time in nanoseconds and the total assembly time
+     *in seconds extrapolated from the timed assemblies.
+     */
+    private static void appendAssemblyTime(StringBuilder json, long products, long samples, long time) {
+        double mean = samples > 0 ? (double) time / samples : 0.0;
+        json.append(", \"meanAssemblyNanos\": ").append(mean);
+        json.append(", \"assemblySeconds\": ").append(mean * products / 1e9);
+    }
+    
+    
+    /**
+     *Appends the number of products each linker or building block was used in.
+     */
+    private void appendUsage(StringBuilder json, String name, long[] usage, boolean linkers) {
+        json.append("  ");
+        appendString(json, name);
+        json.append(": [");
+        for (int i = 0; i < usage.length; i++) {
+            json.append(i > 0 ? "," : "").append(SmiLib.nl).append("    {\"index\": ").append(i + 1).append(", \"id\": ");
+            appendString(json, linkers ? compAdmin.getLinkerID(i) : compAdmin.getBuildingBlockID(i));
+            json.append(", \"uses\": ").append(usage[i]).append("}");
+        }
+        json.append(SmiLib.nl).append("  ]").append(linkers ? "," + SmiLib.nl : "");
+    }
+    
+    
+    /**
+     *Appends a string as a quoted and escaped JSON string, null if missing.
+     */
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
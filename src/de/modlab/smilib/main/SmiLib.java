@@ -35,8 +35,27 @@
 package de.modlab.smilib.main;
 
 
+import de.modlab.smilib.exceptions.SmiLibException;
+import de.modlab.smilib.exceptions.SmiLibIOException;
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.fragments.FragmentCache;
 import de.modlab.smilib.gui.SmiLibFrame;
+import de.modlab.smilib.io.BinaryLibraryReader;
+import de.modlab.smilib.io.IndexedSmilesReader;
+import de.modlab.smilib.io.OutputSettings;
+import de.modlab.smilib.io.PartitionedSmilesWriter;
+import de.modlab.smilib.io.SmilesStdoutWriter;
+import de.modlab.smilib.io.SmilesWriter;
+import de.modlab.smilib.io.SmilesWriterFactory;
+import de.modlab.smilib.iterator.FullCombinationIterator;
+import de.modlab.smilib.iterator.PartialCombinationIterator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.util.zip.GZIPInputStream;
 import org.apache.commons.cli.OptionBuilder;
 import org.apache.commons.cli.OptionGroup;
 import org.apache.commons.cli.Options;
@@ -84,7 +103,68 @@ import org.apache.commons.cli.HelpFormatter;
  * The file extension of the library file specifies the file format. A<br>
  * library file name with the extension &quot;.sdf&quot; saves the combinatorial<br>
  * library in an SD file, any other file extension saves the library in<br>
- * an ASCII file in SMILES notation.<br>
+ * an ASCII file in SMILES notation. An additional extension &quot;.gz&quot;<br>
+ * (e.g. &quot;library.smi.gz&quot;) compresses the library file using several<br>
+ * threads. The result is a standard gzip file. The extension &quot;.slib&quot;<br>
+ * saves a compact binary library file that stores only the fragments and<br>
+ * the enumerated range. It can be converted to a SMILES or SD file with<br>
+ * &quot;--convert &lt;library.slib&gt; -f &lt;library.smi&gt;&quot;. SMILES library files<br>
+ * are converted the same way, e.g. &quot;--convert &lt;library.smi&gt; -f<br>
+ * &lt;library.sdf&gt;&quot; creates an SD file using &quot;--threads&quot; threads.<br>
+ * ---<br>
+ * With option &quot;--split_every &lt;n&gt;&quot;, &quot;--split_size &lt;MB&gt;&quot; or<br>
+ * &quot;--split_by scaffold&quot; the library is split into several files. The<br>
+ * library file name may contain a number format, e.g. &quot;-f<br>
+ * lib_%05d.smi&quot; creates &quot;lib_00001.smi&quot;, &quot;lib_00002.smi&quot; etc. A<br>
+ * manifest (e.g. &quot;lib.smi.manifest&quot;) lists the molecule index range and<br>
+ * the scaffold of each file. &quot;--split_by scaffold&quot; starts a new file<br>
+ * whenever the scaffold changes, so a scaffold that a reaction scheme<br>
+ * returns to is written to several files. &quot;--split_size&quot; is only<br>
+ * supported for uncompressed SMILES files.<br>
+ * ---<br>
+ * With option &quot;--offset_index &lt;n&gt;&quot; an offset index (e.g.<br>
+ * &quot;library.smi.smidx&quot;) listing the byte offset of every n-th<br>
+ * molecule is written for uncompressed SMILES files. Molecules can then be<br>
+ * read directly with &quot;--extract &lt;library.smi&gt; --range &lt;first-last&gt;&quot;<br>
+ * (counting from 0) or &quot;--extract &lt;library.smi&gt; --id &lt;id&gt;&quot;. Extracting<br>
+ * by ID requires the input files (options -s, -l, -b and -r) the library<br>
+ * was created with.<br>
+ * ---<br>
+ * With option &quot;--layout_timeout &lt;ms&gt;&quot; a molecule of an SD file<br>
+ * whose hydrogens and layout take longer is written without hydrogens and<br>
+ * layout. With option &quot;--reject_file &lt;rejects.smi&gt;&quot; such molecules<br>
+ * and molecules that cannot be converted are written to the reject file<br>
+ * instead, from where they can be converted again with option<br>
+ * &quot;--convert&quot;. The median and 99th percentile of the conversion times<br>
+ * are printed at the end.<br>
+ * ---<br>
+ * With option &quot;--serve &lt;port&gt;&quot; the input files (options -s, -l,<br>
+ * -b and -r) are read once and the molecules of the library are served<br>
+ * over HTTP on the local host until SmiLib is stopped: &quot;/count&quot;<br>
+ * returns the number of molecules, &quot;/products?first=i&amp;last=j&quot; the<br>
+ * molecules i to j (counting from 0), &quot;/product?id=&lt;id&gt;&quot; the<br>
+ * molecule with the given ID and &quot;/sample?size=k&quot; k random molecules<br>
+ * (k &lt;= 1000000, &quot;&amp;seed=n&quot; repeats a sample). Requests are answered by<br>
+ * &quot;--threads &lt;n&gt;&quot; threads.<br>
+ * ---<br>
+ * With option &quot;--daemon &lt;port&gt;&quot; SmiLib keeps running and executes<br>
+ * command lines sent by &quot;java -cp SmiLib.jar<br>
+ * de.modlab.smilib.main.SmiLibClient &lt;port&gt; [options]&quot;, which prints<br>
+ * the same output as SmiLib started with these options. The daemon reads<br>
+ * each SMILES file only once and again when it is modified. Only the user<br>
+ * who started the daemon can send commands: the client has to read the<br>
+ * token in &quot;~/.smilib-daemon-&lt;port&gt;&quot;.<br>
+ * ---<br>
+ * With option &quot;--progress&quot; the number of molecules enumerated, the<br>
+ * throughput, the expected remaining time and the heap memory used are<br>
+ * printed to standard error every 5 seconds.<br>
+ * ---<br>
+ * With option &quot;--report &lt;report.json&gt;&quot; a JSON report is written at<br>
+ * the end of the run: the time of each phase, the products and assembly<br>
+ * times per scaffold and per reaction scheme line, a histogram of the SMILES<br>
+ * lengths, the usage of each linker and building block, the duplicates of<br>
+ * overlapping reaction scheme lines, rejected molecules and the throughput<br>
+ * of the writer.<br>
  * ---<br>
  * Scenario 2:<br>
  * java -jar SmiLib.jar -s &lt;scaffolds.smi&gt; -l &lt;linkers.smi&gt; -b<br>
@@ -121,17 +201,82 @@ import org.apache.commons.cli.HelpFormatter;
  * ----------------------------------------------------------------------<br>
  *     -b,--bblocks &lt;building_blocks.smi&gt;          text file containing<br>
  *                                                 building block SMILES<br>
+ *        --block_index                            writes a block index<br>
+ *                                                 (&lt;file&gt;.gzidx) for random<br>
+ *                                                 access to .gz library files<br>
+ *        --buffer_size &lt;MB&gt;                       size of the output buffer<br>
+ *                                                 for SMILES library files<br>
+ *                                                 (default: 8)<br>
  *     -c,--check                                  deactivates SmiLib<br>
  *                                                 conformity checks of SMILES<br>
+ *        --compact                                stores the fragments in<br>
+ *                                                 compact form for very large<br>
+ *                                                 building block files<br>
+ *        --compression_level &lt;0-9&gt;              compression level for .gz<br>
+ *                                                 library files (default: 6)<br>
+ *        --convert &lt;library.slib/library.smi&gt;     converts a binary or SMILES<br>
+ *                                                 library file to the format of<br>
+ *                                                 option -f or prints it<br>
+ *        --daemon &lt;port&gt;                         runs the commands of<br>
+ *                                                 SmiLibClient on the local<br>
+ *                                                 host, reading each SMILES<br>
+ *                                                 file only once<br>
+ *        --extract &lt;library.smi&gt;                 prints molecules of a SMILES<br>
+ *                                                 library file using its offset<br>
+ *                                                 index<br>
  *     -f,--savetofile &lt;lib.smi/lib.sdf&gt;           store combinatorial<br>
  *                                                 library in a file<br>
+ *        --full_layout                            lays out each molecule of<br>
+ *                                                 a SD file instead of reusing<br>
+ *                                                 the layouts of its fragments<br>
  *     -h,--help                                   shows SmiLib help<br>
+ *        --id &lt;id&gt;                              ID of the molecule to extract<br>
  *     -l,--linkers &lt;linkers.smi&gt;                  text file containing<br>
  *                                                 linker SMILES<br>
+ *        --layout_timeout &lt;ms&gt;                   time budget for adding<br>
+ *                                                 hydrogens to and laying out<br>
+ *                                                 a molecule of a SD file<br>
+ *        --memory_mapped                          writes the SMILES library<br>
+ *                                                 file through a memory mapping<br>
+ *        --offset_index &lt;n&gt;                      writes an offset index<br>
+ *                                                 (&lt;file&gt;.smidx) with an entry<br>
+ *                                                 every n molecules<br>
+ *        --parallel_write                         assembles and writes the<br>
+ *                                                 SMILES library file using<br>
+ *                                                 several threads<br>
+ *        --preallocate &lt;MB&gt;                       reserves disk space for the<br>
+ *                                                 SMILES library file before<br>
+ *                                                 writing<br>
+ *        --progress                               prints the progress of the<br>
+ *                                                 enumeration to standard<br>
+ *                                                 error every 5 seconds<br>
+ *        --range &lt;first-last&gt;                   indices of the molecules to<br>
+ *                                                 extract, counting from 0<br>
  *     -r,--reaction_scheme &lt;reaction_scheme.txt&gt;  text file containing<br>
  *                                                 the reaction scheme<br>
+ *        --reject_file &lt;rejects.smi&gt;            writes molecules that<br>
+ *                                                 cannot be converted to SD<br>
+ *                                                 format to a file instead of<br>
+ *                                                 halting<br>
+ *        --report &lt;report.json&gt;                 writes statistics of the<br>
+ *                                                 enumeration to a JSON file<br>
+ *        --serve &lt;port&gt;                          serves the molecules of the<br>
+ *                                                 library over HTTP on the<br>
+ *                                                 local host<br>
  *     -s,--scaffolds &lt;scaffolds.smi&gt;              text file containing<br>
  *                                                 scaffold SMILES<br>
+ *        --split_by &lt;scaffold&gt;                    starts a new file of the<br>
+ *                                                 library whenever the<br>
+ *                                                 scaffold changes<br>
+ *        --split_every &lt;n&gt;                       splits the library into<br>
+ *                                                 files of n molecules<br>
+ *        --split_size &lt;MB&gt;                        splits the SMILES library<br>
+ *                                                 into files of at most MB<br>
+ *                                                 megabytes<br>
+ *        --threads &lt;n&gt;                           number of threads used for<br>
+ *                                                 reading the SMILES files and<br>
+ *                                                 writing the library (default:<br>
+ *                                                 number of processors)<br>
  *     -u,--user_interface                         starts SmiLib in<br>
  *                                                 graphical user interface mode<br>
  *     -y,--hydrogens                              adds hydrogens when<br>
@@ -184,6 +329,46 @@ public class SmiLib {
     /** check SMILES true/false */
     private boolean checkSmiles = true;
     
+    /** settings for writing the library file, e.g. compression */
+    private OutputSettings outputSettings = new OutputSettings();
+    
+    /** path to the binary library file that shall be converted, null if no conversion */
+    private String convertPath;
+    
+    /** path to the SMILES library file molecules shall be extracted from, null if no extraction */
+    private String extractPath;
+    
+    /** ID of the molecule to extract, null if a range is extracted */
+    private String extractID;
+    
+    /** indices of the first and last molecule to extract */
+    private long extractFirst = 0;
+    private long extractLast = 0;
+    
+    /** port of the HTTP service, -1 if the library is not served */
+    private int servePort = -1;
+    
+    /** port of the daemon, -1 if no daemon is started */
+    private int daemonPort = -1;
+    
+    /** command line could not be parsed, the error is already printed */
+    private boolean parameterError = false;
+    
+    /** enumerates the library, null if no library is enumerated */
+    private Thread libraryEnumeration;
+    
+    /** fragments of previously read SMILES files, null if SmiLib does not run for a daemon */
+    private FragmentCache fragmentCache;
+    
+    /** store the fragments in a CompactFragmentStore true/false */
+    private boolean compactFragments = false;
+    
+    /** print the progress of the enumeration to standard error true/false */
+    private boolean reportProgress = false;
+    
+    /** path/name of the JSON run report, null if none */
+    private String reportPath;
+    
     /** new line separator */
     public static final String nl = System.getProperty("line.separator");
     
@@ -220,16 +405,31 @@ public class SmiLib {
      *Creates a new instance of SmiLib.
      */
     public SmiLib() {
-        options = new Options();
+        options = createOptions();
     }
     
     
     /**
-     *Parses the command line.
+     *Creates a new instance of SmiLib running a command for a {@link SmiLibDaemon}.
      *
-     *@param args command line as String[]
+     *@param fragmentCache fragments of previously read SMILES files
      */
-    private void parseCommandLineOptions(String[] args) {
+    SmiLib(FragmentCache fragmentCache) {
+        this();
+        this.fragmentCache = fragmentCache;
+    }
+    
+    
+    /**
+     *Returns the options of the command line. OptionBuilder keeps the option
+     *it builds in static fields, and the parser stores the values in the
+     *options, so the commands a daemon runs at the same time each build
+     *their own options, one after another.
+     *
+     *@return options of the command line
+     */
+    static synchronized Options createOptions() {
+        Options options = new Options();
         options.addOption(OptionBuilder.hasArg().withLongOpt("scaffolds").withArgName("scaffolds.smi").withDescription("text file containing scaffold SMILES").create('s'));
         options.addOption(OptionBuilder.hasArg().withLongOpt("linkers").withArgName("linkers.smi").withDescription("text file containing linker SMILES").create('l'));
         options.addOption(OptionBuilder.hasArg().withLongOpt("bblocks").withArgName("building_blocks.smi").withDescription("text file containing building block SMILES").create('b'));
@@ -240,7 +440,39 @@ public class SmiLib {
         options.addOption(OptionBuilder.withLongOpt("user_interface").withDescription("starts SmiLib in graphical user interface mode").create('u'));
         options.addOption(OptionBuilder.withLongOpt("help").withDescription("shows SmiLib help").create('h'));
         options.addOption(OptionBuilder.withLongOpt("check").withDescription("deactivates SmiLib conformity checks of SMILES").create('c'));
-        
+        options.addOption(OptionBuilder.withLongOpt("compact").withDescription("stores the fragments in compact form for very large building block files").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("layout_timeout").withArgName("ms").withDescription("time budget for adding hydrogens to and laying out a molecule of a SD file").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("reject_file").withArgName("rejects.smi").withDescription("writes molecules that cannot be converted to SD format to a file instead of halting").create());
+        options.addOption(OptionBuilder.withLongOpt("full_layout").withDescription("lays out each molecule of a SD file instead of reusing the layouts of its fragments").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("compression_level").withArgName("0-9").withDescription("compression level for .gz library files (default: 6)").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("threads").withArgName("n").withDescription("number of threads used for reading the SMILES files and writing the library (default: number of processors)").create());
+        options.addOption(OptionBuilder.withLongOpt("block_index").withDescription("writes a block index (<file>.gzidx) for random access to .gz library files").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("buffer_size").withArgName("MB").withDescription("size of the output buffer for SMILES library files (default: 8)").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("preallocate").withArgName("MB").withDescription("reserves disk space for the SMILES library file before writing").create());
+        options.addOption(OptionBuilder.withLongOpt("memory_mapped").withDescription("writes the SMILES library file through a memory mapping").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("split_every").withArgName("n").withDescription("splits the library into files of n molecules").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("split_size").withArgName("MB").withDescription("splits the SMILES library into files of at most MB megabytes").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("split_by").withArgName("scaffold").withDescription("starts a new file of the library whenever the scaffold changes").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("convert").withArgName("library.slib/library.smi").withDescription("converts a binary or SMILES library file to the format of option -f or prints it").create());
+        options.addOption(OptionBuilder.withLongOpt("parallel_write").withDescription("assembles and writes the SMILES library file using several threads").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("offset_index").withArgName("n").withDescription("writes an offset index (<file>.smidx) with an entry every n molecules").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("extract").withArgName("library.smi").withDescription("prints molecules of a SMILES library file using its offset index").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("range").withArgName("first-last").withDescription("indices of the molecules to extract, counting from 0").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("id").withArgName("id").withDescription("ID of the molecule to extract").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("daemon").withArgName("port").withDescription("runs the commands of SmiLibClient on the local host, reading each SMILES file only once").create());
+        options.addOption(OptionBuilder.withLongOpt("progress").withDescription("prints the progress of the enumeration to standard error every 5 seconds").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("report").withArgName("report.json").withDescription("writes statistics of the enumeration to a JSON file").create());
+        options.addOption(OptionBuilder.hasArg().withLongOpt("serve").withArgName("port").withDescription("serves the molecules of the library over HTTP on the local host").create());
+        return options;
+    }
+    
+    
+    /**
+     *Parses the command line.
+     *
+     *@param args command line as String[]
+     */
+    private void parseCommandLineOptions(String[] args) {
         CommandLine line = null;
         
         try {
@@ -249,11 +481,21 @@ public class SmiLib {
         } catch (ParseException exception) {
             System.err.println("Wrong or missing command line parameters: " + exception.getMessage());
             printUsage();
-            System.exit(0);
+            parameterError = true;
+            return;
         }
         
         //if all necessary options are set and SmiLib help shall not be displayed
-        if (line.hasOption("s") && line.hasOption("l") && line.hasOption("b") && !line.hasOption("h") && !line.hasOption("u")) {
+        if ((line.hasOption("daemon") || line.hasOption("convert") || line.hasOption("extract") && !line.hasOption("id") || line.hasOption("s") && line.hasOption("l") && line.hasOption("b")) && !line.hasOption("h") && !line.hasOption("u")) {
+            if (line.hasOption("convert")) {
+                convertPath = line.getOptionValue("convert");
+            }
+            
+            if (line.hasOption("extract")) {
+                extractPath = line.getOptionValue("extract");
+                extractID = line.getOptionValue("id");
+            }
+            
             scaffoldsPath = line.getOptionValue("s");
             linkersPath = line.getOptionValue("l");
             buildingBlocksPath = line.getOptionValue("b");
@@ -280,6 +522,99 @@ public class SmiLib {
                 checkSmiles = false;                    
             }   
             
+            try {
+                if (line.hasOption("compression_level")) {
+                    outputSettings.setCompressionLevel(Integer.parseInt(line.getOptionValue("compression_level")));
+                }
+                if (line.hasOption("threads")) {
+                    outputSettings.setThreads(Integer.parseInt(line.getOptionValue("threads")));
+                }
+                if (line.hasOption("buffer_size")) {
+                    outputSettings.setBufferSize(Integer.parseInt(line.getOptionValue("buffer_size")) << 20);
+                }
+                if (line.hasOption("preallocate")) {
+                    outputSettings.setPreallocate(Long.parseLong(line.getOptionValue("preallocate")) << 20);
+                }
+                if (line.hasOption("split_every")) {
+                    outputSettings.setSplit(PartitionedSmilesWriter.SPLIT_BY_COUNT, Long.parseLong(line.getOptionValue("split_every")));
+                }
+                if (line.hasOption("split_size")) {
+                    outputSettings.setSplit(PartitionedSmilesWriter.SPLIT_BY_BYTES, Long.parseLong(line.getOptionValue("split_size")) << 20);
+                }
+                if (line.hasOption("split_by")) {
+                    if (!line.getOptionValue("split_by").equals("scaffold")) {
+                        throw new IllegalArgumentException("Invalid value for option split_by: " + line.getOptionValue("split_by"));
+                    }
+                    outputSettings.setSplit(PartitionedSmilesWriter.SPLIT_BY_SCAFFOLD, 0);
+                }
+                if (line.hasOption("layout_timeout")) {
+                    outputSettings.setLayoutTimeout(Long.parseLong(line.getOptionValue("layout_timeout")));
+                }
+                if (line.hasOption("daemon")) {
+                    daemonPort = Integer.parseInt(line.getOptionValue("daemon"));
+                    if (daemonPort < 0 || daemonPort > 65535) {
+                        throw new IllegalArgumentException("Invalid value for option daemon: " + daemonPort);
+                    }
+                }
+                if (line.hasOption("serve")) {
+                    servePort = Integer.parseInt(line.getOptionValue("serve"));
+                    if (servePort < 0 || servePort > 65535) {
+                        throw new IllegalArgumentException("Invalid value for option serve: " + servePort);
+                    }
+                }
+                if (line.hasOption("offset_index")) {
+                    outputSettings.setOffsetIndexInterval(Integer.parseInt(line.getOptionValue("offset_index")));
+                }
+                if (extractPath != null && extractID == null) {
+                    if (!line.hasOption("range")) {
+                        throw new IllegalArgumentException("Option extract requires option range or id");
+                    }
+                    String[] range = line.getOptionValue("range").split("-");
+                    extractFirst = Long.parseLong(range[0]);
+                    extractLast = range.length > 1 ? Long.parseLong(range[1]) : extractFirst;
+                    if (range.length > 2 || extractFirst < 0 || extractLast < extractFirst) {
+                        throw new IllegalArgumentException("Invalid value for option range: " + line.getOptionValue("range"));
+                    }
+                }
+            } catch (IllegalArgumentException exception) {
+                System.err.println("Wrong or missing command line parameters: " + exception.getMessage());
+                printUsage();
+                parameterError = true;
+                return;
+            }
+            
+            if (line.hasOption("block_index")) {
+                outputSettings.setWriteIndex(true);
+            }
+            
+            if (line.hasOption("memory_mapped")) {
+                outputSettings.setMemoryMapped(true);
+            }
+            
+            if (line.hasOption("parallel_write")) {
+                outputSettings.setParallelWrite(true);
+            }
+            
+            if (line.hasOption("compact")) {
+                compactFragments = true;
+            }
+            
+            if (line.hasOption("full_layout")) {
+                outputSettings.setFragmentLayouts(false);
+            }
+            
+            if (line.hasOption("reject_file")) {
+                outputSettings.setRejectPath(line.getOptionValue("reject_file"));
+            }
+            
+            if (line.hasOption("progress")) {
+                reportProgress = true;
+            }
+            
+            if (line.hasOption("report")) {
+                reportPath = line.getOptionValue("report");
+            }
+            
             validOptions = true;
             
         } else if (line.hasOption("u")) {
@@ -324,7 +659,53 @@ public class SmiLib {
                 "If option \"-f <filename>\" is omitted SmiLib by default prints the combinatorial library to standard out. " + nl +
                 "The file extension of the library file specifies the file format. A library file " +
                 "name with the extension \".sdf\" saves the combinatorial library in an SD file, " +
-                "any other file extension saves the library in an ASCII file in SMILES notation." + nl +
+                "any other file extension saves the library in an ASCII file in SMILES notation. " +
+                "An additional extension \".gz\" (e.g. \"library.smi.gz\") compresses the library file " +
+                "using several threads. The result is a standard gzip file. The extension \".slib\" saves a compact " +
+                "binary library file that stores only the fragments and the enumerated range. It can be converted " +
+                "to a SMILES or SD file with \"--convert <library.slib> -f <library.smi>\". SMILES library files are " +
+                "converted the same way, e.g. \"--convert <library.smi> -f <library.sdf>\" creates an SD file using " +
+                "\"--threads <n>\" threads." + nl +
+                hrSmall + nl +
+                "With option \"--split_every <n>\", \"--split_size <MB>\" or \"--split_by scaffold\" the library " +
+                "is split into several files. The library file name may contain a number format, e.g. " +
+                "\"-f lib_%05d.smi\" creates \"lib_00001.smi\", \"lib_00002.smi\" etc. A manifest " +
+                "(e.g. \"lib.smi.manifest\") lists the molecule index range and the scaffold of each file. " +
+                "\"--split_by scaffold\" starts a new file whenever the scaffold changes, so a scaffold that a reaction " +
+                "scheme returns to is written to several files. \"--split_size\" is only supported for uncompressed " +
+                "SMILES files." + nl +
+                hrSmall + nl +
+                "With option \"--offset_index <n>\" an offset index (e.g. \"library.smi.smidx\") listing the byte " +
+                "offset of every n-th molecule is written for uncompressed SMILES files. Molecules can then be read " +
+                "directly with \"--extract <library.smi> --range <first-last>\" (counting from 0) or " +
+                "\"--extract <library.smi> --id <id>\". Extracting by ID requires the input files " +
+                "(options -s, -l, -b and -r) the library was created with." + nl +
+                hrSmall + nl +
+                "With option \"--layout_timeout <ms>\" a molecule of an SD file whose hydrogens and layout take " +
+                "longer is written without hydrogens and layout. With option \"--reject_file <rejects.smi>\" such " +
+                "molecules and molecules that cannot be converted are written to the reject file instead, from where " +
+                "they can be converted again with option \"--convert\". The median and 99th percentile of the " +
+                "conversion times are printed at the end." + nl +
+                hrSmall + nl +
+                "With option \"--serve <port>\" the input files (options -s, -l, -b and -r) are read once and the " +
+                "molecules of the library are served over HTTP on the local host until SmiLib is stopped: " +
+                "\"/count\" returns the number of molecules, \"/products?first=i&last=j\" the molecules i to j " +
+                "(counting from 0), \"/product?id=<id>\" the molecule with the given ID and \"/sample?size=k\" " +
+                "k random molecules (k <= " + SmiLibServer.MAX_SAMPLE_SIZE + ", \"&seed=n\" repeats a sample). Requests are answered by \"--threads <n>\" threads." + nl +
+                hrSmall + nl +
+                "With option \"--daemon <port>\" SmiLib keeps running and executes command lines sent by " +
+                "\"java -cp SmiLib.jar de.modlab.smilib.main.SmiLibClient <port> [options]\", which prints the same " +
+                "output as SmiLib started with these options. The daemon reads each SMILES file only once and again " +
+                "when it is modified. Only the user who started the daemon can send commands: the client has to read " +
+                "the token in \"~/.smilib-daemon-<port>\"." + nl +
+                hrSmall + nl +
+                "With option \"--progress\" the number of molecules enumerated, the throughput, the expected remaining " +
+                "time and the heap memory used are printed to standard error every 5 seconds." + nl +
+                hrSmall + nl +
+                "With option \"--report <report.json>\" a JSON report is written at the end of the run: the time of each " +
+                "phase, the products and assembly times per scaffold and per reaction scheme line, a histogram of the " +
+                "SMILES lengths, the usage of each linker and building block, the duplicates of overlapping reaction " +
+                "scheme lines, rejected molecules and the throughput of the writer." + nl +
                 hrSmall + nl +
                 "Scenario 2: " + nl +
                 "java -jar SmiLib.jar -s <scaffolds.smi> -l <linkers.smi> -b <buildingblocks.smi> -r <reaction_scheme.txt> -f <library.smi>\n " +
@@ -369,40 +750,239 @@ public class SmiLib {
      */
     public void enumerateLibrary() {
         if (this.useReactionScheme)
-            sRunner = new SmiLibRunner(scaffoldsPath, linkersPath, buildingBlocksPath, reactionSchemePath, printToCommandLine, saveFilePath, addHydrogens, checkSmiles);
+            sRunner = new SmiLibRunner(scaffoldsPath, linkersPath, buildingBlocksPath, reactionSchemePath, printToCommandLine, saveFilePath, addHydrogens, checkSmiles, outputSettings, fragmentCache, compactFragments);
         else
-            sRunner = new SmiLibRunner(scaffoldsPath, linkersPath, buildingBlocksPath, printToCommandLine, saveFilePath, addHydrogens, checkSmiles);
-        Thread libraryEnumeration = new Thread(sRunner);
+            sRunner = new SmiLibRunner(scaffoldsPath, linkersPath, buildingBlocksPath, printToCommandLine, saveFilePath, addHydrogens, checkSmiles, outputSettings, fragmentCache, compactFragments);
+        sRunner.setReportProgress(reportProgress);
+        sRunner.setReportPath(reportPath);
+        libraryEnumeration = new Thread(sRunner);
         libraryEnumeration.start();
     }
     
     
+    /**
+     *Converts a binary library file to the format specified by the library file
+     *name or prints it to the command line.
+     */
+    public void convertLibrary() {
+        try {
+            SmilesWriter writer;
+            if (printToCommandLine)
+                writer = new SmilesStdoutWriter();
+            else
+                writer = new SmilesWriterFactory(outputSettings).createWriter(saveFilePath, addHydrogens);
+            if (!SmilesWriterFactory.isBinary(convertPath)) {
+                try {
+                    convertSmilesLibrary(writer);
+                } finally {
+                    writer.close();
+                }
+            } else {
+                BinaryLibraryReader reader = new BinaryLibraryReader(convertPath);
+                try {
+                    reader.convert(writer);
+                } finally {
+                    reader.close();
+                    writer.close();
+                }
+            }
+            //the conversion summary is only printed if a time budget or reject file was asked for
+            if (!printToCommandLine && (outputSettings.getLayoutTimeout() > 0 || outputSettings.getRejectPath() != null)
+                    && outputSettings.getConversionLog().getCount() > 0) {
+                System.out.println(outputSettings.getConversionLog());
+            }
+        } catch (SmiLibException exc) {
+            System.err.println(exc.getMessage());
+            System.err.println("An error occured. Program halted.");
+        }
+    }
+    
+    
+    /**
+     *Writes the molecules of a SMILES library file ("ID&lt;TAB&gt;SMILES" or only SMILES
+     *per line, compressed if the file name ends with ".gz") to a SmilesWriter.
+     *Molecules without ID are named by their line number.
+     */
+    private void convertSmilesLibrary(SmilesWriter writer) throws SmiLibException {
+        try {
+            InputStream in = new FileInputStream(convertPath);
+            if (SmilesWriterFactory.isCompressed(convertPath))
+                in = new GZIPInputStream(in, 1 << 16);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+            try {
+                StringBuilder smiles = new StringBuilder();
+                StringBuilder id = new StringBuilder();
+                int lineCounter = 1;
+                String currentLine;
+                while ((currentLine = reader.readLine()) != null) {
+                    if (currentLine.trim().length() == 0)
+                        continue;
+                    String[] fields = currentLine.split("\t");
+                    smiles.setLength(0);
+                    id.setLength(0);
+                    if (fields.length == 1) {
+                        smiles.append(fields[0].trim());
+                        id.append(lineCounter);
+                    } else {
+                        smiles.append(fields[1].trim());
+                        id.append(fields[0].trim());
+                    }
+                    writer.writeSMILES(smiles, id);
+                    lineCounter++;
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (java.io.IOException exc) {
+            throw new SmiLibIOException(exc);
+        }
+    }
+    
+    
+    /**
+     *Prints a range of molecules or the molecule with a given ID of a SMILES
+     *library file using its offset index.
+     */
+    public void extractMolecules() {
+        try {
+            IndexedSmilesReader reader = new IndexedSmilesReader(extractPath);
+            try {
+                if (extractID != null) {
+                    ComponentAdministrator compAdmin = SmiLibRunner.loadFragments(scaffoldsPath, linkersPath, buildingBlocksPath, checkSmiles, outputSettings.getThreads(), compactFragments, fragmentCache);
+                    SmiLibIterator iterator;
+                    if (useReactionScheme)
+                        iterator = new PartialCombinationIterator(reactionSchemePath, compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks());
+                    else
+                        iterator = new FullCombinationIterator(compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks());
+                    String molecule = reader.getMolecule(extractID, new SmilesAssembler(compAdmin), iterator);
+                    if (molecule == null)
+                        System.err.println("No molecule with ID " + extractID + " in " + extractPath);
+                    else
+                        System.out.println(molecule);
+                } else {
+                    for (String molecule : reader.getMolecules(extractFirst, extractLast))
+                        System.out.println(molecule);
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IndexOutOfBoundsException exc) {
+            System.err.println(exc.getMessage());
+            System.err.println("An error occured. Program halted.");
+        } catch (SmiLibException exc) {
+            System.err.println(exc.getMessage());
+            System.err.println("An error occured. Program halted.");
+        }
+    }
+    
+    
+    /**
+     *Serves the molecules of the library over HTTP until the program is stopped.
+     */
+    public void serveLibrary() {
+        try {
+            ComponentAdministrator compAdmin = SmiLibRunner.loadFragments(scaffoldsPath, linkersPath, buildingBlocksPath, checkSmiles, outputSettings.getThreads(), compactFragments, fragmentCache);
+            SmiLibIterator iterator;
+            if (useReactionScheme)
+                iterator = new PartialCombinationIterator(reactionSchemePath, compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks());
+            else
+                iterator = new FullCombinationIterator(compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks());
+            SmiLibServer server = new SmiLibServer(compAdmin, iterator);
+            server.start(servePort, outputSettings.getThreads());
+            System.err.println("Serving " + iterator.getMaximum() + " molecules at http://localhost:" + server.getPort() + "/");
+        } catch (java.io.IOException exc) {
+            System.err.println(exc.getMessage());
+            System.err.println("An error occured. Program halted.");
+        } catch (SmiLibException exc) {
+            System.err.println(exc.getMessage());
+            System.err.println("An error occured. Program halted.");
+        }
+    }
+    
+    
+    /**
+     *Serves the commands of SmiLibClient until the program is stopped.
+     */
+    public void startDaemon() {
+        try {
+            SmiLibDaemon daemon = new SmiLibDaemon(SmiLibDaemon.DEFAULT_CACHE_CAPACITY);
+            daemon.start(daemonPort, outputSettings.getThreads());
+            System.err.println("SmiLib daemon listening at localhost:" + daemon.getPort());
+        } catch (java.io.IOException exc) {
+            System.err.println(exc.getMessage());
+            System.err.println("An error occured. Program halted.");
+        }
+    }
+    
+    
     /**
      *Main method of SmiLib.
      *
      *@param args command line as array of strings
      */
     public static void main(String[] args) {
+        new SmiLib().execute(args);
+    }
+    
+    
+    /**
+     *Parses the command line and runs the command, waiting for an enumeration to
+     *finish. The graphical user interface and the services keep running after
+     *this method returned.
+     *
+     *@param args command line as array of strings
+     */
+    void execute(String[] args) {
+        parseCommandLineOptions(args);
+        if (parameterError) {
+            return;
+        }
         
-        SmiLib smilib = new SmiLib();
-        smilib.parseCommandLineOptions(args);
+        // a daemon only runs commands that finish
+        if (fragmentCache != null && (getUseUserInterface() || getServeLibrary() || getStartDaemon())) {
+            System.err.println("The SmiLib daemon does not start the graphical user interface or services.");
+            return;
+        }
         
         // valid options - command line mode
-        if (smilib.getValidOptions()) {
-            smilib.enumerateLibrary();
+        if (getValidOptions() && getStartDaemon()) {
+            startDaemon();
+            
+        } else if (getValidOptions() && getConvertLibrary()) {
+            convertLibrary();
+            
+        } else if (getValidOptions() && getExtractMolecules()) {
+            extractMolecules();
+            
+        } else if (getValidOptions() && getServeLibrary()) {
+            serveLibrary();
+            
+        } else if (getValidOptions()) {
+            enumerateLibrary();
+            try {
+                libraryEnumeration.join();
+            } catch (InterruptedException exc) {
+                sRunner.setStop(true);
+                Thread.currentThread().interrupt();
+            }
+            
+            // the command of a daemon fails instead of exiting the JVM
+            if (sRunner.getOutOfMemoryError() != null) {
+                throw sRunner.getOutOfMemoryError();
+            }
             
         // explicit show help - help is shown
-        } else if (smilib.getShowHelp()) {
-            smilib.printHelp();
+        } else if (getShowHelp()) {
+            printHelp();
             
         // no option - like when .jar is double klicked - GUI started
         // or option -u
-        } else if (smilib.getUseUserInterface()) {
+        } else if (getUseUserInterface()) {
             SmiLibFrame smiFrame = new SmiLibFrame();
         // not enough options supplied - print error message
         } else {
           System.err.println("Wrong or missing command line parameters.");
-          smilib.printUsage();
+          printUsage();
         }
     }
     
@@ -418,6 +998,46 @@ public class SmiLib {
     }
     
     
+    /**
+     *Returns whether a binary library file shall be converted instead of enumerating a library.
+     *
+     *@return convert library file true/false
+     */
+    public boolean getConvertLibrary() {
+        return this.convertPath != null;
+    }
+    
+    
+    /**
+     *Returns whether molecules shall be extracted from a SMILES library file instead of enumerating a library.
+     *
+     *@return extract molecules true/false
+     */
+    public boolean getExtractMolecules() {
+        return this.extractPath != null;
+    }
+    
+    
+    /**
+     *Returns whether a daemon shall be started instead of enumerating a library.
+     *
+     *@return start daemon true/false
+     */
+    public boolean getStartDaemon() {
+        return this.daemonPort >= 0;
+    }
+    
+    
+    /**
+     *Returns whether the library shall be served over HTTP instead of enumerating it.
+     *
+     *@return serve library true/false
+     */
+    public boolean getServeLibrary() {
+        return this.servePort >= 0;
+    }
+    
+    
     /**
      *Returns whether user interface shall be used or not.
      *
@@ -445,4 +1065,4 @@ public class SmiLib {
       formatter.printUsage(new PrintWriter(System.out, true), 70, "java -jar SmiLib.jar", options);
 
     }
-}
\ No newline at end of file
+}
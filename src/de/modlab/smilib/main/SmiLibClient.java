@@ -0,0 +1,177 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.main;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ *Runs a SmiLib command line in a {@link SmiLibDaemon} started with
+ *"java -jar SmiLib.jar --daemon &lt;port&gt;". The client only loads the classes
+ *it needs to pass the command line and the output, so it starts much faster
+ *than SmiLib itself. The output is the same as that of SmiLib. The client
+ *identifies itself with the token the daemon wrote to its token file, so it
+ *has to be run by the user who started the daemon.
+ *<br><br>
+ *usage: java -cp SmiLib.jar de.modlab.smilib.main.SmiLibClient &lt;port&gt; [SmiLib options]
+ */
+public class SmiLibClient {
+    
+    /**
+     *Creates a new instance of SmiLibClient.
+     */
+    private SmiLibClient() {
+    }
+    
+    
+    /**
+     *Sends a command line to the daemon and copies its output to standard out and standard err.
+     *
+     *@param port TCP port of the daemon on the local host
+     *@param args SmiLib command line
+     *@param stdout stream standard out of the command is copied to
+     *@param stderr stream standard err of the command is copied to
+     *@return exit status of the command
+     *@throws java.io.IOException if the daemon cannot be reached, its token file cannot be read
+     *        or the output cannot be written
+     */
+    static int run(int port, String[] args, OutputStream stdout, OutputStream stderr) throws IOException {
+        Socket socket = new Socket(InetAddress.getByName(null), port);
+        try {
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            request.writeUTF(readToken(SmiLibDaemon.getTokenFile(port)));
+            request.writeUTF(System.getProperty("user.dir"));
+            request.writeInt(args.length);
+            for (int i = 0; i < args.length; i++) {
+                request.writeUTF(args[i]);
+            }
+            request.flush();
+            
+            DataInputStream response = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+            byte[] buffer = new byte[1 << 16];
+            while (true) {
+                int channel = response.read();
+                if (channel < 0) {
+                    throw new IOException("Connection to SmiLib daemon closed");
+                }
+                int length = response.readInt();
+                if (channel == SmiLibDaemon.EXIT) {
+                    stdout.flush();
+                    stderr.flush();
+                    return length;
+                }
+                OutputStream target = channel == SmiLibDaemon.STDERR ? stderr : stdout;
+                while (length > 0) {
+                    int n = response.read(buffer, 0, Math.min(length, buffer.length));
+                    if (n < 0) {
+                        throw new IOException("Connection to SmiLib daemon closed");
+                    }
+                    target.write(buffer, 0, n);
+                    length -= n;
+                }
+                
+                //output is passed on when the daemon pauses
+                if (response.available() == 0) {
+                    stdout.flush();
+                    stderr.flush();
+                }
+            }
+        } finally {
+            socket.close();
+        }
+    }
+    
+    
+    /**
+     *Reads the token of the daemon.
+     */
+    private static String readToken(File tokenFile) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(tokenFile), "UTF-8"));
+        try {
+            String token = reader.readLine();
+            if (token == null) {
+                throw new IOException("Empty token file " + tokenFile);
+            }
+            return token;
+        } finally {
+            reader.close();
+        }
+    }
+    
+    
+    /**
+     *Main method of SmiLibClient.
+     *
+     *@param args port of the daemon followed by the SmiLib command line
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("usage: java -cp SmiLib.jar de.modlab.smilib.main.SmiLibClient <port> [SmiLib options]");
+            System.exit(2);
+        }
+        int status;
+        try {
+            String[] command = new String[args.length - 1];
+            System.arraycopy(args, 1, command, 0, command.length);
+            status = run(Integer.parseInt(args[0]),
+                    command,
+                    new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16),
+                    new BufferedOutputStream(new FileOutputStream(FileDescriptor.err), 1 << 12));
+        } catch (NumberFormatException exc) {
+            System.err.println("Invalid port: " + args[0]);
+            status = 2;
+        } catch (ConnectException exc) {
+            System.err.println("No SmiLib daemon at localhost:" + args[0] + " (" + exc.getMessage() + ")");
+            status = 1;
+        } catch (IOException exc) {
+            System.err.println(exc.getMessage());
+            status = 1;
+        }
+        System.exit(status);
+    }
+}
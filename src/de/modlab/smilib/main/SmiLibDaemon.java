@@ -0,0 +1,471 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.main;
+
+import de.modlab.smilib.fragments.FragmentCache;
+import de.modlab.smilib.metrics.SmiLibMetrics;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ *Runs the commands of {@link SmiLibClient} in a long-running JVM on the
+ *loopback interface. The fragments of the SMILES files are kept in a
+ *{@link FragmentCache}, so a command only reads files that were not used
+ *before or modified since. Each command runs as if SmiLib had been started
+ *with its command line in the working directory of the client. Its standard
+ *out and standard err are sent to the client, output written by threads
+ *outside a command goes to the daemon's own streams.
+ *<br><br>
+ *Only processes of the user who started the daemon may send commands: the
+ *daemon writes a random token to a file in the home directory that only its
+ *owner can read ({@link #getTokenFile(int)}), and closes every connection
+ *that does not start with this token.
+ *<br><br>
+ *Protocol: the client sends the token, its working directory and the command
+ *line (DataOutputStream.writeUTF() each, the arguments preceded by their number).
+ *The daemon answers with frames of a channel byte ({@link #STDOUT} or
+ *{@link #STDERR}), the length and the bytes, and finally {@link #EXIT}
+ *followed by the exit status.
+ */
+public class SmiLibDaemon {
+    
+    /** channel of the end of a command, followed by the exit status */
+    static final int EXIT = 0;
+    
+    /** channel of standard out */
+    static final int STDOUT = 1;
+    
+    /** channel of standard err */
+    static final int STDERR = 2;
+    
+    /** default number of cached libraries */
+    public static final int DEFAULT_CACHE_CAPACITY = 8;
+    
+    /** options whose values are file names, relative ones are resolved against the client's working directory */
+    private static final Set<String> PATH_OPTIONS = new HashSet<String>(Arrays.asList(
+            "s", "scaffolds", "l", "linkers", "b", "bblocks", "r", "reaction_scheme", "f", "savetofile",
+            "convert", "extract", "reject_file", "report"));
+    
+    /** System.out and System.err, sending the output of each command to its client */
+    private static RoutingPrintStream out;
+    private static RoutingPrintStream err;
+    
+    /** fragments of previously read SMILES files */
+    private FragmentCache fragmentCache;
+    
+    /** socket accepting the clients, null until started */
+    private ServerSocket serverSocket;
+    
+    /** token a client must send before its command, null until started */
+    private String token;
+    
+    /** file the token is written to, null until started */
+    private File tokenFile;
+    
+    /** threads running the commands */
+    private ExecutorService executor;
+    
+    
+    
+    /**
+     *Creates a new instance of SmiLibDaemon.
+     *
+     *@param cacheCapacity maximum number of libraries whose fragments are kept
+     */
+    public SmiLibDaemon(int cacheCapacity) {
+        this.fragmentCache = new FragmentCache(cacheCapacity);
+    }
+    
+    
+    /**
+     *Starts accepting commands on the loopback interface and writes the token
+     *the clients have to send to the token file of the port.
+     *
+     *@param port TCP port, 0 for any free port
+     *@param threads number of commands run at the same time
+     *@throws java.io.IOException if the port cannot be bound or the token file cannot be written
+     */
+    public synchronized void start(int port, int threads) throws IOException {
+        if (serverSocket != null) {
+            throw new IllegalStateException("Daemon already started");
+        }
+        installStreams();
+        serverSocket = new ServerSocket(port, 50, InetAddress.getByName(null));
+        token = new BigInteger(128, new SecureRandom()).toString(16);
+        tokenFile = getTokenFile(serverSocket.getLocalPort());
+        try {
+            writeToken(tokenFile, token);
+        } catch (IOException exc) {
+            serverSocket.close();
+            serverSocket = null;
+            throw exc;
+        }
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int counter = 0;
+            public synchronized Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "SmiLib daemon " + ++counter);
+            }
+        });
+        final ServerSocket acceptor = serverSocket;
+        final ExecutorService commands = executor;
+        Thread acceptThread = new Thread("SmiLib daemon") {
+            public void run() {
+                try {
+                    while (true) {
+                        final Socket socket = acceptor.accept();
+                        commands.execute(new Runnable() {
+                            public void run() {
+                                runCommand(socket);
+                            }
+                        });
+                    }
+                } catch (IOException exc) {
+                    //socket closed by stop()
+                }
+            }
+        };
+        acceptThread.start();
+        SmiLibMetrics.registerMBean();
+    }
+    
+    
+    /**
+     *Stops accepting commands. Running commands are interrupted.
+     */
+    public synchronized void stop() {
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+            } catch (IOException exc) {
+            }
+            executor.shutdownNow();
+            serverSocket = null;
+            tokenFile.delete();
+        }
+    }
+    
+    
+    /**
+     *Returns the port the daemon listens on.
+     *
+     *@return TCP port
+     */
+    public synchronized int getPort() {
+        return serverSocket.getLocalPort();
+    }
+    
+    
+    /**
+     *Returns the file holding the token of the daemon listening on a port.
+     *
+     *@param port TCP port of the daemon
+     *@return token file in the home directory
+     */
+    static File getTokenFile(int port) {
+        return new File(System.getProperty("user.home"), ".smilib-daemon-" + port);
+    }
+    
+    
+    /**
+     *Returns the cache of the fragments read by the commands.
+     *
+     *@return fragment cache
+     */
+    public FragmentCache getFragmentCache() {
+        return fragmentCache;
+    }
+    
+    
+    /**
+     *Reads a command from a client, runs it and sends its output. The
+     *connection is closed without running the command if the client does
+     *not send the token.
+     */
+    private void runCommand(Socket socket) {
+        try {
+            try {
+                DataInputStream request = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                if (!MessageDigest.isEqual(token.getBytes("UTF-8"), request.readUTF().getBytes("UTF-8"))) {
+                    return;
+                }
+                String workingDirectory = request.readUTF();
+                String[] args = new String[request.readInt()];
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = request.readUTF();
+                }
+                
+                DataOutputStream response = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+                PrintStream clientOut = new PrintStream(new FrameOutputStream(STDOUT, response), true);
+                PrintStream clientErr = new PrintStream(new FrameOutputStream(STDERR, response), true);
+                int status = 0;
+                out.route(clientOut);
+                err.route(clientErr);
+                try {
+                    new SmiLib(fragmentCache).execute(resolvePaths(workingDirectory, args));
+                } catch (Throwable thr) {
+                    reportFailure(thr, clientErr, err.fallback);
+                    status = 1;
+                } finally {
+                    out.route(null);
+                    err.route(null);
+                }
+                clientOut.flush();
+                clientErr.flush();
+                synchronized (response) {
+                    response.writeByte(EXIT);
+                    response.writeInt(status);
+                    response.flush();
+                }
+            } finally {
+                socket.close();
+            }
+        } catch (IOException exc) {
+            //the client is gone
+        }
+    }
+    
+    
+    /**
+     *Writes the token to a new file that only its owner can read and write.
+     */
+    private static void writeToken(File file, String token) throws IOException {
+        file.delete();
+        if (!file.createNewFile()
+                || !file.setReadable(false, false) || !file.setReadable(true, true)
+                || !file.setWritable(false, false) || !file.setWritable(true, true)) {
+            throw new IOException("Cannot create token file " + file + " readable only by its owner");
+        }
+        file.deleteOnExit();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(token);
+        } finally {
+            writer.close();
+        }
+    }
+    
+    
+    /**
+     *Prints the message of a failed command to its client the way the command
+     *line interface does. The stack trace only goes to the daemon's own stream.
+     *
+     *@param thr cause of the failure
+     *@param clientErr standard err of the client
+     *@param daemonErr standard err of the daemon
+     */
+    static void reportFailure(Throwable thr, PrintStream clientErr, PrintStream daemonErr) {
+        //the enumeration has already printed the message of an OutOfMemoryError it failed with
+        if (!(thr instanceof OutOfMemoryError)) {
+            clientErr.println(thr.getMessage() != null ? thr.getMessage() : thr.toString());
+            clientErr.println("An error occured. Program halted.");
+        }
+        thr.printStackTrace(daemonErr);
+    }
+    
+    
+    /**
+     *Returns the command line with relative file names made absolute.
+     *
+     *@param workingDirectory directory relative file names refer to
+     *@param args command line
+     *@return command line with absolute file names
+     */
+    static String[] resolvePaths(String workingDirectory, String[] args) {
+        String[] resolved = args.clone();
+        for (int i = 0; i < resolved.length; i++) {
+            String arg = resolved[i];
+            if (arg.startsWith("--") && arg.indexOf('=') > 0) {
+                //--option=value
+                int separator = arg.indexOf('=');
+                if (PATH_OPTIONS.contains(arg.substring(2, separator))) {
+                    resolved[i] = arg.substring(0, separator + 1) + resolve(workingDirectory, arg.substring(separator + 1));
+                }
+            } else if (arg.startsWith("--") || arg.length() == 2 && arg.charAt(0) == '-') {
+                //--option value, -o value
+                if (PATH_OPTIONS.contains(arg.substring(arg.startsWith("--") ? 2 : 1)) && i + 1 < resolved.length) {
+                    i++;
+                    resolved[i] = resolve(workingDirectory, resolved[i]);
+                }
+            } else if (arg.length() > 2 && arg.charAt(0) == '-' && PATH_OPTIONS.contains(arg.substring(1, 2))) {
+                //-ovalue
+                resolved[i] = arg.substring(0, 2) + resolve(workingDirectory, arg.substring(2));
+            }
+        }
+        return resolved;
+    }
+    
+    
+    /**
+     *Resolves a file name against a directory unless it is absolute.
+     */
+    private static String resolve(String directory, String path) {
+        return new File(path).isAbsolute() ? path : new File(directory, path).getPath();
+    }
+    
+    
+    /**
+     *Replaces System.out and System.err by streams that route the output of commands to their clients.
+     */
+    private static synchronized void installStreams() {
+        if (out == null) {
+            out = new RoutingPrintStream(System.out);
+            err = new RoutingPrintStream(System.err);
+            System.setOut(out);
+            System.setErr(err);
+        }
+    }
+    
+    
+    
+    /**
+     *Sends the bytes written to it as frames of one channel.
+     */
+    private static class FrameOutputStream extends OutputStream {
+        
+        private int channel;
+        
+        private DataOutputStream response;
+        
+        private FrameOutputStream(int channel, DataOutputStream response) {
+            this.channel = channel;
+            this.response = response;
+        }
+        
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+        
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                synchronized (response) {
+                    response.writeByte(channel);
+                    response.writeInt(len);
+                    response.write(b, off, len);
+                }
+            }
+        }
+        
+        public void flush() throws IOException {
+            synchronized (response) {
+                response.flush();
+            }
+        }
+    }
+    
+    
+    
+    /**
+     *PrintStream passing everything to the stream of the command the current
+     *thread belongs to. Threads started by a command inherit its stream.
+     */
+    private static class RoutingPrintStream extends PrintStream {
+        
+        private PrintStream fallback;
+        
+        private InheritableThreadLocal<PrintStream> target = new InheritableThreadLocal<PrintStream>();
+        
+        private RoutingPrintStream(PrintStream fallback) {
+            super(fallback, true);
+            this.fallback = fallback;
+        }
+        
+        private void route(PrintStream stream) {
+            if (stream == null) {
+                target.remove();
+            } else {
+                target.set(stream);
+            }
+        }
+        
+        private PrintStream current() {
+            PrintStream stream = target.get();
+            return stream == null ? fallback : stream;
+        }
+        
+        public void flush() { current().flush(); }
+        public void close() { current().close(); }
+        public boolean checkError() { return current().checkError(); }
+        public void write(int b) { current().write(b); }
+        public void write(byte[] buf, int off, int len) { current().write(buf, off, len); }
+        public void print(boolean b) { current().print(b); }
+        public void print(char c) { current().print(c); }
+        public void print(int i) { current().print(i); }
+        public void print(long l) { current().print(l); }
+        public void print(float f) { current().print(f); }
+        public void print(double d) { current().print(d); }
+        public void print(char[] s) { current().print(s); }
+        public void print(String s) { current().print(s); }
+        public void print(Object obj) { current().print(obj); }
+        public void println() { current().println(); }
+        public void println(boolean x) { current().println(x); }
+        public void println(char x) { current().println(x); }
+        public void println(int x) { current().println(x); }
+        public void println(long x) { current().println(x); }
+        public void println(float x) { current().println(x); }
+        public void println(double x) { current().println(x); }
+        public void println(char[] x) { current().println(x); }
+        public void println(String x) { current().println(x); }
+        public void println(Object x) { current().println(x); }
+        public PrintStream printf(String format, Object... args) { current().printf(format, args); return this; }
+        public PrintStream printf(Locale l, String format, Object... args) { current().printf(l, format, args); return this; }
+        public PrintStream format(String format, Object... args) { current().format(format, args); return this; }
+        public PrintStream format(Locale l, String format, Object... args) { current().format(l, format, args); return this; }
+        public PrintStream append(CharSequence csq) { current().append(csq); return this; }
+        public PrintStream append(CharSequence csq, int start, int end) { current().append(csq, start, end); return this; }
+        public PrintStream append(char c) { current().append(c); return this; }
+    }
+}
@@ -39,17 +39,24 @@ import de.modlab.smilib.exceptions.SmiLibConformityException;
 import de.modlab.smilib.exceptions.SmiLibIOException;
 import de.modlab.smilib.exceptions.SmiLibSdfException;
 import de.modlab.smilib.gui.SmiLibFrame;
+import de.modlab.smilib.io.OutputSettings;
 import de.modlab.smilib.io.SmilesGuiWriter;
-import de.modlab.smilib.io.SmilesToSDFWriter;
 import de.modlab.smilib.iterator.FullCombinationIterator;
 import de.modlab.smilib.fragments.ComponentAdministrator;
-import de.modlab.smilib.io.SmilesFileWriter;
-import de.modlab.smilib.io.SmilesLineWriter;
+import de.modlab.smilib.fragments.FragmentCache;
+import de.modlab.smilib.io.CombinationWriter;
+import de.modlab.smilib.io.EnumeratingWriter;
+import de.modlab.smilib.io.SmilesStdoutWriter;
 import de.modlab.smilib.io.SmilesWriter;
+import de.modlab.smilib.io.SmilesWriterFactory;
 import de.modlab.smilib.iterator.PartialCombinationIterator;
 import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.metrics.SampledTimer;
+import de.modlab.smilib.metrics.SmiLibMetrics;
+import de.modlab.smilib.metrics.StripedCounter;
 import java.text.DecimalFormat;
-import javax.swing.JTextArea;
+import java.util.Timer;
+import java.util.TimerTask;
 
 
 /**
@@ -72,10 +79,19 @@ public class SmiLibRunner implements Runnable {
     private SmiLibIterator iterator;
     
     //counts how many molecules are already created
-    private int compoundCounter = 0;
+    private long compoundCounter = 0;
     
-    //concatenates SMILES of scaffolds/linkers/building blocks
-    private SmilesConcatenator smiConcat = new SmilesConcatenator();
+    //molecules and bytes enumerated so far, sampled by the GUI or the progress report
+    private EnumerationProgress progress = new EnumerationProgress();
+    
+    //metrics of the iteration and the writing, shared by all runners
+    private SampledTimer iterationTimer = SmiLibMetrics.timer(SmiLibMetrics.ITERATION, SmiLibMetrics.SAMPLE_INTERVAL);
+    private SampledTimer writingTimer = SmiLibMetrics.timer(SmiLibMetrics.WRITING, SmiLibMetrics.SAMPLE_INTERVAL);
+    private StripedCounter productsEmitted = SmiLibMetrics.counter(SmiLibMetrics.PRODUCTS_EMITTED);
+    private StripedCounter writerBytes = SmiLibMetrics.counter(SmiLibMetrics.WRITER_BYTES);
+    
+    //assembles SMILES of scaffolds/linkers/building blocks
+    private SmilesAssembler smiAssembler;
     
     //GUI
     private SmiLibFrame smiFrame;
@@ -83,8 +99,11 @@ public class SmiLibRunner implements Runnable {
     //boolean that is true when GUI mode is used
     private boolean useGui = false;
     
-    //stop thread true/false
-    private boolean stop = false;
+    //stop thread true/false, set by other threads
+    private volatile boolean stop = false;
+    
+    //path/name of the library file, null if the library is not written to a file by this runner
+    private String outputPath;
     
     //print library to command line true/false    
     private boolean printToCommandLine;
@@ -92,6 +111,27 @@ public class SmiLibRunner implements Runnable {
     //enable start of enumeration true/false
     private boolean startEnumeration = true;
     
+    //exit the JVM on an OutOfMemoryError true/false, false if it runs the other commands of a daemon
+    private boolean exitOnOutOfMemory = true;
+    
+    //error the JVM was not exited for, null if none
+    private volatile OutOfMemoryError outOfMemoryError;
+    
+    //settings the library file is written with, null if not written by the command line interface
+    private OutputSettings outputSettings;
+    
+    //print the progress to standard error true/false
+    private boolean reportProgress = false;
+    
+    //path/name of the run report, null if no report is written
+    private String reportPath;
+    
+    //statistics of the enumeration, null if no report is written
+    private RunReport report;
+    
+    //time taken to read the scaffolds, linkers and building blocks (ns)
+    private long loadingTime = 0;
+    
     
     
     /**
@@ -107,10 +147,54 @@ public class SmiLibRunner implements Runnable {
      * @param checkSmiles check SMILES for conformity with SMiLib rules true/false
      */
     public SmiLibRunner(String scaffoldsPath, String linkersPath, String buildingBlocksPath, boolean printToCommandLine, String saveFilePath, boolean addHydrogens, boolean checkSmiles) {
+        this(scaffoldsPath, linkersPath, buildingBlocksPath, printToCommandLine, saveFilePath, addHydrogens, checkSmiles, new OutputSettings());
+    }
+    
+    
+    /**
+     * Creates a new instance of SmiLibRunner using a FullCombinationIterator (without reaction scheme)
+     * for enumerating the virtual library.
+     *
+     * @param scaffoldsPath path/name of the file that contains scaffolds as SMILES
+     * @param linkersPath path/name of the file that contains linkers as SMILES
+     * @param buildingBlocksPath path/name of the file that contains building blocks as SMILES
+     * @param printToCommandLine combinatorial library shall be printed to the command line true/false
+     * @param saveFilePath path/name of the file where the combinatorial library will be stored if it shall be saved in a file
+     * @param addHydrogens add hydrogens when save as SD file
+     * @param checkSmiles check SMILES for conformity with SMiLib rules true/false
+     * @param outputSettings settings for writing the library file, e.g. compression
+     */
+    public SmiLibRunner(String scaffoldsPath, String linkersPath, String buildingBlocksPath, boolean printToCommandLine, String saveFilePath, boolean addHydrogens, boolean checkSmiles, OutputSettings outputSettings) {
+        this(scaffoldsPath, linkersPath, buildingBlocksPath, printToCommandLine, saveFilePath, addHydrogens, checkSmiles, outputSettings, null, false);
+    }
+    
+    
+    /**
+     * Creates a new instance of SmiLibRunner using a FullCombinationIterator (without reaction scheme)
+     * for enumerating the virtual library.
+     *
+     * @param scaffoldsPath path/name of the file that contains scaffolds as SMILES
+     * @param linkersPath path/name of the file that contains linkers as SMILES
+     * @param buildingBlocksPath path/name of the file that contains building blocks as SMILES
+     * @param printToCommandLine combinatorial library shall be printed to the command line true/false
+     * @param saveFilePath path/name of the file where the combinatorial library will be stored if it shall be saved in a file
+     * @param addHydrogens add hydrogens when save as SD file
+     * @param checkSmiles check SMILES for conformity with SMiLib rules true/false
+     * @param outputSettings settings for writing the library file, e.g. compression
+     * @param fragmentCache fragments of previously read SMILES files shared with the other commands of
+     *        a daemon, null if the files are always read; a runner with a cache does not exit the JVM
+     *        on an OutOfMemoryError, see {@link #getOutOfMemoryError()}
+     * @param compactFragments store the fragments in a {@link de.modlab.smilib.fragments.CompactFragmentStore} true/false
+     */
+    public SmiLibRunner(String scaffoldsPath, String linkersPath, String buildingBlocksPath, boolean printToCommandLine, String saveFilePath, boolean addHydrogens, boolean checkSmiles, OutputSettings outputSettings, FragmentCache fragmentCache, boolean compactFragments) {
         this.printToCommandLine = printToCommandLine;
+        this.outputSettings = outputSettings;
+        this.exitOnOutOfMemory = fragmentCache == null;
         
         try {
-            compAdmin = new ComponentAdministrator(scaffoldsPath, linkersPath, buildingBlocksPath, checkSmiles);
+            long loading = System.nanoTime();
+            compAdmin = loadFragments(scaffoldsPath, linkersPath, buildingBlocksPath, checkSmiles, outputSettings.getThreads(), compactFragments, fragmentCache);
+            loadingTime = System.nanoTime() - loading;
 
             this.iterator = new FullCombinationIterator(
                     compAdmin.getNumbersOfRGroups(),
@@ -118,12 +202,11 @@ public class SmiLibRunner implements Runnable {
                     compAdmin.getNumberOfBuildingBlocks());
 
             if (printToCommandLine)
-                smiWri = new SmilesLineWriter();
-            else
-                if (saveFilePath.endsWith(".sdf"))
-                    smiWri = new SmilesToSDFWriter(saveFilePath, addHydrogens);
-                else
-                    smiWri = new SmilesFileWriter(saveFilePath);
+                smiWri = new SmilesStdoutWriter();
+            else {
+                smiWri = new SmilesWriterFactory(outputSettings).createWriter(saveFilePath, addHydrogens);
+                outputPath = saveFilePath;
+            }
         } catch (Exception ex) {
             handleException(ex);
         }
@@ -144,22 +227,67 @@ public class SmiLibRunner implements Runnable {
      * @param checkSmiles check SMILES for conformity with SMiLib rules true/false
      */
     public SmiLibRunner(String scaffoldsPath, String linkersPath, String buildingBlocksPath, String reactionSchemePath, boolean printToCommandLine, String saveFilePath, boolean addHydrogens, boolean checkSmiles) {
+        this(scaffoldsPath, linkersPath, buildingBlocksPath, reactionSchemePath, printToCommandLine, saveFilePath, addHydrogens, checkSmiles, new OutputSettings());
+    }
+    
+    
+    /**
+     * Creates a new instance of SmiLibRunner using a PartialCombinationIterator (with reaction scheme)
+     * for enumerating the virtual library.
+     *
+     * @param scaffoldsPath path/name of the file that contains scaffolds as SMILES
+     * @param linkersPath path/name of the file that contains linkers as SMILES
+     * @param buildingBlocksPath path/name of the file that contains building blocks as SMILES
+     * @param reactionSchemePath path/filename of the file that contains the reaction scheme
+     * @param printToCommandLine combinatorial library shall be printed to the command line true/false
+     * @param saveFilePath path/name of the file where the combinatorial library will be stored if it shall be saved in a file
+     * @param addHydrogens add hydrogens when save as SD file
+     * @param checkSmiles check SMILES for conformity with SMiLib rules true/false
+     * @param outputSettings settings for writing the library file, e.g. compression
+     */
+    public SmiLibRunner(String scaffoldsPath, String linkersPath, String buildingBlocksPath, String reactionSchemePath, boolean printToCommandLine, String saveFilePath, boolean addHydrogens, boolean checkSmiles, OutputSettings outputSettings) {
+        this(scaffoldsPath, linkersPath, buildingBlocksPath, reactionSchemePath, printToCommandLine, saveFilePath, addHydrogens, checkSmiles, outputSettings, null, false);
+    }
+    
+    
+    /**
+     * Creates a new instance of SmiLibRunner using a PartialCombinationIterator (with reaction scheme)
+     * for enumerating the virtual library.
+     *
+     * @param scaffoldsPath path/name of the file that contains scaffolds as SMILES
+     * @param linkersPath path/name of the file that contains linkers as SMILES
+     * @param buildingBlocksPath path/name of the file that contains building blocks as SMILES
+     * @param reactionSchemePath path/filename of the file that contains the reaction scheme
+     * @param printToCommandLine combinatorial library shall be printed to the command line true/false
+     * @param saveFilePath path/name of the file where the combinatorial library will be stored if it shall be saved in a file
+     * @param addHydrogens add hydrogens when save as SD file
+     * @param checkSmiles check SMILES for conformity with SMiLib rules true/false
+     * @param outputSettings settings for writing the library file, e.g. compression
+     * @param fragmentCache fragments of previously read SMILES files shared with the other commands of
+     *        a daemon, null if the files are always read; a runner with a cache does not exit the JVM
+     *        on an OutOfMemoryError, see {@link #getOutOfMemoryError()}
+     * @param compactFragments store the fragments in a {@link de.modlab.smilib.fragments.CompactFragmentStore} true/false
+     */
+    public SmiLibRunner(String scaffoldsPath, String linkersPath, String buildingBlocksPath, String reactionSchemePath, boolean printToCommandLine, String saveFilePath, boolean addHydrogens, boolean checkSmiles, OutputSettings outputSettings, FragmentCache fragmentCache, boolean compactFragments) {
         this.printToCommandLine = printToCommandLine;
+        this.outputSettings = outputSettings;
+        this.exitOnOutOfMemory = fragmentCache == null;
         
         try {
-            compAdmin = new ComponentAdministrator(scaffoldsPath, linkersPath, buildingBlocksPath, checkSmiles);
+            long loading = System.nanoTime();
+            compAdmin = loadFragments(scaffoldsPath, linkersPath, buildingBlocksPath, checkSmiles, outputSettings.getThreads(), compactFragments, fragmentCache);
+            loadingTime = System.nanoTime() - loading;
             this.iterator = new PartialCombinationIterator(
                     reactionSchemePath,
                     compAdmin.getNumbersOfRGroups(),
                     compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks());
         
             if (printToCommandLine)
-                smiWri = new SmilesLineWriter();
-            else
-                if (saveFilePath.endsWith(".sdf"))
-                    smiWri = new SmilesToSDFWriter(saveFilePath, addHydrogens);
-                else
-                    smiWri = new SmilesFileWriter(saveFilePath);
+                smiWri = new SmilesStdoutWriter();
+            else {
+                smiWri = new SmilesWriterFactory(outputSettings).createWriter(saveFilePath, addHydrogens);
+                outputPath = saveFilePath;
+            }
         } catch (Exception ex) {
             handleException(ex);
         }
@@ -174,8 +302,6 @@ public class SmiLibRunner implements Runnable {
      *@param bBlocks array of source building block (with ID)
      *@param useReactionScheme use reaction scheme true/false
      *@param reactionScheme reactionScheme as array
-     *@param targetTextArea text area where library will be written in
-     *@param showLibrary show library in GUI true/false
      *@param saveAsFile save library as file true/false
      *@param saveAsSDF save file as SD file true/false
      *@param addHydrogens add implicit hydrogens when building the SD file true/false
@@ -184,8 +310,8 @@ public class SmiLibRunner implements Runnable {
      *@param checkSmiles check smiles for SmiLib conformity true/false
      */
     public SmiLibRunner(String[] scaffolds, String[] linkers, String[] bBlocks,
-            boolean useReactionScheme, String[] reactionScheme, JTextArea targetTextArea,
-            boolean showLibrary, boolean saveAsFile, boolean saveAsSDF, boolean addHydrogens, String path,
+            boolean useReactionScheme, String[] reactionScheme,
+            boolean saveAsFile, boolean saveAsSDF, boolean addHydrogens, String path,
             SmiLibFrame frame, boolean checkSmiles) {
         
         this.smiFrame = frame;
@@ -206,8 +332,10 @@ public class SmiLibRunner implements Runnable {
                         compAdmin.getNumberOfLinkers(),
                         compAdmin.getNumberOfBuildingBlocks());
             }
-            smiFrame.setIterator(iterator);
-            smiWri = new SmilesGuiWriter(targetTextArea, showLibrary, saveAsFile, saveAsSDF, addHydrogens, path, smiFrame);
+            smiFrame.setLibrary(compAdmin, iterator);
+            smiWri = new SmilesGuiWriter(saveAsFile, saveAsSDF, addHydrogens, path);
+            if (saveAsFile)
+                outputPath = path;
             
         } catch (Exception exc) {
             handleException(exc);
@@ -259,7 +387,9 @@ public class SmiLibRunner implements Runnable {
 
         this.printToCommandLine = true; // Set true to avoid sending messages to stdout
         try {
+            long loading = System.nanoTime();
             compAdmin = new ComponentAdministrator(scaffolds, linkers, bBlocks, checkSmiles);
+            loadingTime = System.nanoTime() - loading;
             if (reactionScheme == null) {
                 this.iterator = new FullCombinationIterator(
                         compAdmin.getNumbersOfRGroups(),
@@ -280,6 +410,22 @@ public class SmiLibRunner implements Runnable {
     }
     
     
+    /**
+     *Reads the scaffolds, linkers and building blocks, or takes them from the
+     *fragment cache.
+     *
+     *@param threads number of threads reading the SMILES files
+     *@param compactFragments store the fragments in a CompactFragmentStore true/false
+     *@param fragmentCache fragments of previously read SMILES files, null if the files are always read
+     */
+    static ComponentAdministrator loadFragments(String scaffoldsPath, String linkersPath, String buildingBlocksPath, boolean checkSmiles, int threads, boolean compactFragments, FragmentCache fragmentCache) throws SmiLibIOException, SmiLibConformityException {
+        if (fragmentCache != null) {
+            return fragmentCache.getComponentAdministrator(scaffoldsPath, linkersPath, buildingBlocksPath, checkSmiles, threads, compactFragments);
+        }
+        return new ComponentAdministrator(scaffoldsPath, linkersPath, buildingBlocksPath, checkSmiles, threads, compactFragments);
+    }
+    
+    
     /**
      *Starts enumeration of the combinatorial library.
      */
@@ -289,6 +435,18 @@ public class SmiLibRunner implements Runnable {
             
             //start time
             long start = System.nanoTime();
+            progress.start(iterator.getMaximum());
+            
+            //the progress is printed to standard error at a fixed interval
+            Timer reporter = null;
+            if (!useGui && reportProgress) {
+                reporter = new Timer("SmiLib progress", true);
+                reporter.schedule(new TimerTask() {
+                    public void run() {
+                        reportProgress();
+                    }
+                }, EnumerationProgress.REPORT_INTERVAL, EnumerationProgress.REPORT_INTERVAL);
+            }
             
             //if GUI mode is used, some statistics are shown
             if (useGui) {
@@ -300,13 +458,29 @@ public class SmiLibRunner implements Runnable {
             
             //start enumeration
             try {
+                smiAssembler = new SmilesAssembler(compAdmin);
+                if (reportPath != null) {
+                    report = new RunReport(compAdmin, iterator);
+                }
                 this.enumerateLibrary();
             } catch (Throwable thr) {
-                handleException(thr);
+                //molecules buffered before the error are still printed, the library file is closed
+                try {
+                    smiWri.close();
+                } catch (Exception exc) {
+                }
+                //writing may fail when a cancelled enumeration is interrupted
+                if (!stop) {
+                    handleException(thr);
+                }
             }
             
             //end time
             long end = System.nanoTime();
+            if (reporter != null) {
+                reporter.cancel();
+                reportProgress();
+            }
             
             //formats time
             DecimalFormat df= new DecimalFormat("###,###,###,##0.000000000###");
@@ -322,7 +496,37 @@ public class SmiLibRunner implements Runnable {
                 } else {
                     System.out.println(compoundCounter + " compounds synthesized in " + df.format((double)(end - start)/1000000000) + " seconds");
                 }
+                //the conversion summary is only printed if a time budget or reject file was asked for
+                if (outputSettings != null && (outputSettings.getLayoutTimeout() > 0 || outputSettings.getRejectPath() != null)
+                        && outputSettings.getConversionLog().getCount() > 0) {
+                    System.out.println(outputSettings.getConversionLog());
+                }
             }
+            
+            //the report is also written for a cancelled or failed enumeration
+            if (report != null) {
+                writeReport(end - start);
+            }
+        }
+    }
+    
+    
+    /**
+     *Writes the run report, a failure is printed but does not halt the program.
+     *
+     *@param time time of enumeration and closing (ns)
+     */
+    private void writeReport(long time) {
+        report.setPhase(RunReport.LOADING, loadingTime);
+        report.setPhase(RunReport.TOTAL, loadingTime + time);
+        report.setOutput(progress.getMolecules(), progress.getBytes());
+        if (outputSettings != null) {
+            report.setConversionLog(outputSettings.getConversionLog());
+        }
+        try {
+            report.write(reportPath);
+        } catch (java.io.IOException exc) {
+            System.err.println("Error while writing the run report " + reportPath + ": " + exc.getMessage());
         }
     }
     
@@ -331,83 +535,93 @@ public class SmiLibRunner implements Runnable {
      *Enumerates the combinatorial library.
      */
     private void enumerateLibrary() throws Exception {
-        boolean linkerEmpty;
-        int numRGroups;
-        int ringNumber;
+        long enumerationStart = System.nanoTime();
         int[] currentCombination;
         
-        StringBuilder intermediateProduct = new StringBuilder();
         StringBuilder currentMolecule = new StringBuilder();
         StringBuilder moleculeID = new StringBuilder();
         
+        //some writers assemble the molecules themselves
+        if (smiWri instanceof EnumeratingWriter) {
+            compoundCounter = ((EnumeratingWriter) smiWri).writeLibrary(compAdmin, iterator, progress);
+            closeWriter(enumerationStart);
+            return;
+        }
+        
+        //some writers need the combination each molecule was assembled from
+        CombinationWriter combinationWriter = null;
+        if (smiWri instanceof CombinationWriter) {
+            combinationWriter = (CombinationWriter) smiWri;
+            combinationWriter.prepare(compAdmin, iterator, 0);
+        }
+        
+        //molecules and bytes not yet added to the progress
+        int batchMolecules = 0;
+        long batchBytes = 0;
+        
         //as long as new combination are available and thread shall not be stopped
-        while (iterator.hasNext() & !stop) {
-            //gets next combination
-            currentCombination = iterator.next();
-            
-            //StringBuilder with the currentMolecule gets a reset - so you can use one Object for all molecules
-            currentMolecule.delete(0, currentMolecule.length()).append(compAdmin.getScaffoldString(currentCombination[0]));
-            
-            //StringBuilder with molecule ID gets a reset
-            moleculeID.delete(0, moleculeID.length()).append(compAdmin.getScaffoldID(currentCombination[0]));
-            
-            //gets number of variable side chains in the current scaffold
-            numRGroups = compAdmin.getNumberOfRGroups(currentCombination[0]);
-            ringNumber = 10;
-            
-            //for each variable side chain
-            for (int i = 1; i <= numRGroups; i++) {
-                linkerEmpty = compAdmin.getLinker(currentCombination[i]).isEmpty();
+        try {
+            while (iterator.hasNext() & !stop) {
+                //gets next combination, every n-th call is timed
+                long start = iterationTimer.start(compoundCounter);
+                currentCombination = iterator.next();
+                iterationTimer.stop(start);
                 
-                //ringnumber is checked, so that conflicts with existing ringnumbers in scaffold-, linker- or buildingblock-SMILES can not occur
-                while(compAdmin.numberBlacklisted(
-                        ringNumber,
-                        currentCombination[0],
-                        currentCombination[i],
-                        currentCombination[i+numRGroups]))
-                    ringNumber++;
+                //SMILES and ID of the molecule are assembled, and counted for the report
+                if (report != null) {
+                    report.assemble(smiAssembler, currentCombination, currentMolecule, moleculeID);
+                } else {
+                    smiAssembler.assemble(currentCombination, currentMolecule, moleculeID);
+                }
                 
-                //if linker is not the empty linker
-                if (!linkerEmpty) {
-                    //StringBuilder with the current intermediate gets a reset - so you can use one Object for all intermediates
-                    intermediateProduct.delete(0, intermediateProduct.length()).append(compAdmin.getLinker(currentCombination[i]).getLinkerForConcat(ringNumber));
-                    
-                    //current intermediate is created
-                    smiConcat.concatenate(
-                            intermediateProduct,
-                            '.',
-                            compAdmin.getBuildingBlock(currentCombination[i + numRGroups]).getBlockForConcat(ringNumber));
-                    ringNumber++;
-                    
-                    //current intermediate gets attached to the scaffold
-                    smiConcat.concatenate(
-                            currentMolecule,
-                            intermediateProduct,
-                            '.',
-                            compAdmin.getScaffold(currentCombination[0]).getStringOfGroupWithIndex(i-1),
-                            ringNumber);
-                    ringNumber++;
-                    
-                    //if linker is the empty linker
+                //created molecule is written
+                start = writingTimer.start(compoundCounter);
+                if (combinationWriter != null) {
+                    combinationWriter.writeSMILES(currentMolecule, moleculeID, currentCombination);
                 } else {
-                    //building block gets directly attached to the scaffold
-                    smiConcat.concatenate(
-                            currentMolecule,
-                            compAdmin.getBuildingBlock(currentCombination[i + numRGroups]).getBlockForConcat(ringNumber),
-                            '.',
-                            compAdmin.getScaffold(currentCombination[0]).getStringOfGroupWithIndex(i-1),
-                            ringNumber);
-                    ringNumber++;
+                    smiWri.writeSMILES(currentMolecule, moleculeID);
                 }
+                writingTimer.stop(start);
+                compoundCounter++;
                 
-                //molecule ID gets an update
-                moleculeID.append('.').append(compAdmin.getLinkerID(currentCombination[i])).append('_').append(compAdmin.getBuildingBlockID(currentCombination[i + numRGroups]));
+                //the progress is updated in batches to keep the enumeration fast
+                batchBytes += moleculeID.length() + currentMolecule.length() + 2;
+                if (++batchMolecules == EnumerationProgress.BATCH_SIZE) {
+                    count(batchMolecules, batchBytes);
+                    batchMolecules = 0;
+                    batchBytes = 0;
+                }
             }
-            //created molecule is written
-            smiWri.writeSMILES(currentMolecule, moleculeID);
-            compoundCounter++;
+        } finally {
+            count(batchMolecules, batchBytes);
         }
+        closeWriter(enumerationStart);
+    }
+    
+    
+    /**
+     *Closes the writer and records the time of the enumeration and of closing
+     *in the report.
+     *
+     *@param start start of the enumeration (ns)
+     */
+    private void closeWriter(long start) throws Exception {
+        long closing = System.nanoTime();
         smiWri.close();
+        if (report != null) {
+            report.setPhase(RunReport.ENUMERATION, closing - start);
+            report.setPhase(RunReport.CLOSING, System.nanoTime() - closing);
+        }
+    }
+    
+    
+    /**
+     *Adds a batch of molecules written to the progress and the metrics.
+     */
+    private void count(int molecules, long bytes) {
+        progress.add(molecules, bytes);
+        productsEmitted.add(molecules);
+        writerBytes.add(bytes);
     }
     
     
@@ -437,7 +651,7 @@ public class SmiLibRunner implements Runnable {
                 messageBox.showMessageDialog(smiFrame, "Invalid reaction scheme.\nPlease check reaction scheme and/or use SmiLib help!", "Error",javax.swing.JOptionPane.ERROR_MESSAGE);
             } else if (thr instanceof java.lang.OutOfMemoryError) {
                 messageBox.showMessageDialog(smiFrame, "Java heap size overflow.\nRestart program with access to more memory!", "Error",javax.swing.JOptionPane.ERROR_MESSAGE);
-                System.exit(1);
+                exitOnOutOfMemory((OutOfMemoryError) thr);
             } else if (thr instanceof SmiLibSdfException) {
                 messageBox.showMessageDialog(smiFrame, "An error occured converting SMILES to SDF.\n" + thr.getMessage(), "Error",javax.swing.JOptionPane.ERROR_MESSAGE);
             } else {
@@ -462,7 +676,7 @@ public class SmiLibRunner implements Runnable {
           } else if (thr instanceof java.lang.OutOfMemoryError) {
             System.err.println("Java heap size overflow.\nRestart program with access to more memory!");
             System.err.println("An error occured. Program halted.");
-            System.exit(1);
+            exitOnOutOfMemory((OutOfMemoryError) thr);
           } else if (thr instanceof SmiLibSdfException) {
               System.err.println("An error occured converting SMILES to SDF.");
               System.err.println(thr.getMessage());
@@ -475,6 +689,28 @@ public class SmiLibRunner implements Runnable {
     }
     
     
+    /**
+     *Exits the JVM, or keeps the error for the command of a daemon to fail with.
+     */
+    private void exitOnOutOfMemory(OutOfMemoryError error) {
+        if (exitOnOutOfMemory) {
+            System.exit(1);
+        }
+        outOfMemoryError = error;
+    }
+    
+    
+    /**
+     *Returns the OutOfMemoryError the enumeration of a runner with a fragment
+     *cache failed with. Other runners exit the JVM on such an error.
+     *
+     *@return error, null if none occurred
+     */
+    public OutOfMemoryError getOutOfMemoryError() {
+        return outOfMemoryError;
+    }
+    
+    
     /**
      *Sets whether this thread shall be stopped or not. Is
      *necessary to cancel enumeration in a save way instead of
@@ -484,6 +720,76 @@ public class SmiLibRunner implements Runnable {
      */
     public void setStop(boolean b) {
         stop = b;
+        if (b && smiWri instanceof EnumeratingWriter) {
+            ((EnumeratingWriter) smiWri).stop();
+        }
+    }
+    
+    
+    /**
+     *Deletes the library files written by this runner, e.g. after the
+     *enumeration was cancelled.
+     */
+    void deleteOutput() {
+        if (outputPath == null) {
+            return;
+        }
+        OutputSettings settings = outputSettings != null ? outputSettings : new OutputSettings();
+        for (java.io.File file : new SmilesWriterFactory(settings).getOutputFiles(outputPath)) {
+            file.delete();
+        }
+    }
+    
+    
+    /**
+     *Sets whether the progress of the enumeration (molecules, throughput,
+     *remaining time and memory) is printed to standard error at a fixed
+     *interval. Not used in GUI mode.
+     *
+     *@param reportProgress print progress true/false
+     */
+    public void setReportProgress(boolean reportProgress) {
+        this.reportProgress = reportProgress;
+    }
+    
+    
+    /**
+     *Sets the file a JSON report of the enumeration is written to at the end
+     *of run(), see {@link RunReport}. Must be set before run() is called.
+     *
+     *@param reportPath path/name of the run report, null if none
+     */
+    public void setReportPath(String reportPath) {
+        this.reportPath = reportPath;
+    }
+    
+    
+    /**
+     *Returns the statistics of the last enumeration.
+     *
+     *@return run report, null if no report path is set
+     */
+    public RunReport getReport() {
+        return report;
+    }
+    
+    
+    /**
+     *Returns the progress of the enumeration, e.g. to show it in the GUI.
+     *
+     *@return progress of the enumeration
+     */
+    public EnumerationProgress getProgress() {
+        return progress;
+    }
+    
+    
+    /**
+     *Prints the progress of the enumeration to standard error.
+     */
+    private void reportProgress() {
+        progress.sample();
+        System.err.println(progress);
     }
     
     
@@ -495,4 +801,4 @@ public class SmiLibRunner implements Runnable {
     public SmilesWriter getSmilesWriter() {
         return this.smiWri;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,380 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.main;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.metrics.SmiLibMetrics;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ *Serves the molecules of a combinatorial library over HTTP on the loopback
+ *interface. The fragments are read once when the server is created, each
+ *request only assembles the molecules it asks for and streams them as
+ *chunked plain text, one "ID&lt;TAB&gt;SMILES" line per molecule.
+ *<br><br>
+ *GET /count - number of molecules in the library<br>
+ *GET /products?first=i&amp;last=j - molecules i to j (counting from 0, inclusive)<br>
+ *GET /product?id=ID - the molecule with the given ID<br>
+ *GET /sample?size=k[&amp;seed=n] - k distinct random molecules in library order,
+ *k is at most {@link #MAX_SAMPLE_SIZE}<br>
+ *<br>
+ *Invalid parameters are answered with status 400, unknown molecules with 404
+ *and unexpected failures before the response was started with 500.
+ */
+public class SmiLibServer {
+    
+    /** size of the buffer in front of each response body */
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    /** largest sample answered, the indices of a sample are held in memory */
+    public static final int MAX_SAMPLE_SIZE = 1000000;
+    
+    /** stores and distributes SMILES of scaffolds, linkers and building blocks */
+    private ComponentAdministrator compAdmin;
+    
+    /** combinations of the library, only used for random access */
+    private SmiLibIterator iterator;
+    
+    /** parses molecule IDs, its indices are built with the first ID */
+    private SmilesAssembler idParser;
+    
+    /** the HTTP server, null until started */
+    private HttpServer server;
+    
+    /** threads answering the requests */
+    private ExecutorService executor;
+    
+    
+    
+    /**
+     *Creates a new instance of SmiLibServer.
+     *
+     *@param compAdmin scaffolds, linkers and building blocks
+     *@param iterator iterator of the library, its state is not changed
+     */
+    public SmiLibServer(ComponentAdministrator compAdmin, SmiLibIterator iterator) {
+        this.compAdmin = compAdmin;
+        this.iterator = iterator;
+        this.idParser = new SmilesAssembler(compAdmin);
+    }
+    
+    
+    /**
+     *Starts answering requests on the loopback interface.
+     *
+     *@param port TCP port, 0 for any free port
+     *@param threads number of requests answered at the same time
+     *@throws java.io.IOException if the port cannot be bound
+     */
+    public synchronized void start(int port, int threads) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getByName(null), port), 0);
+        server.createContext("/count", new CountHandler());
+        server.createContext("/products", new ProductsHandler());
+        server.createContext("/product", new ProductHandler());
+        server.createContext("/sample", new SampleHandler());
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int counter = 0;
+            public synchronized Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "SmiLib server " + ++counter);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+        SmiLibMetrics.registerMBean();
+    }
+    
+    
+    /**
+     *Stops the server. Requests in progress are given one second to finish.
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+    
+    
+    /**
+     *Returns the port the server listens on.
+     *
+     *@return TCP port
+     */
+    public synchronized int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    
+    /**
+     *Assembles and writes the molecule with the given index.
+     */
+    private void writeMolecule(long index, SmilesAssembler assembler, StringBuilder smiles, StringBuilder id, Writer out) throws IOException {
+        assembler.assemble(iterator.getCombination(index), smiles, id);
+        out.append(id).append('\t').append(smiles).append('\n');
+    }
+    
+    
+    /**
+     *Returns the number of a query parameter, or the default if it is missing.
+     */
+    private static long getNumber(Map<String, String> query, String name, long defaultValue) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException exc) {
+            throw new IllegalArgumentException("Invalid value for parameter " + name + ": " + value);
+        }
+    }
+    
+    
+    /**
+     *Returns a uniformly distributed random number from 0 (inclusive) to <code>bound</code> (exclusive).
+     */
+    private static long nextIndex(Random random, long bound) {
+        long bits;
+        long value;
+        do {
+            bits = random.nextLong() >>> 1;
+            value = bits % bound;
+        } while (bits - value + (bound - 1) < 0);
+        return value;
+    }
+    
+    
+    /**
+     *Returns <code>size</code> distinct random indices below <code>maximum</code> in ascending order.
+     */
+    static long[] sample(long maximum, int size, Random random) {
+        long[] indices = new long[size];
+        if ((long) size * 64 < maximum) {
+            //Floyd's algorithm: memory and time proportional to the sample
+            Set<Long> chosen = new HashSet<Long>();
+            for (long j = maximum - size; j < maximum; j++) {
+                long t = nextIndex(random, j + 1);
+                chosen.add(chosen.contains(t) ? j : t);
+            }
+            int i = 0;
+            for (long index : chosen) {
+                indices[i++] = index;
+            }
+            Arrays.sort(indices);
+        } else {
+            //selection sampling: one pass over a library not much larger than the sample
+            int i = 0;
+            for (long index = 0; i < size; index++) {
+                if (nextIndex(random, maximum - index) < size - i) {
+                    indices[i++] = index;
+                }
+            }
+        }
+        return indices;
+    }
+    
+    
+    
+    /**
+     *Answers one kind of request. Responses of status 200 are streamed, errors are sent as plain text.
+     */
+    private abstract class LibraryHandler implements HttpHandler {
+        
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                if (!exchange.getRequestMethod().equals("GET")) {
+                    sendError(exchange, 405, "Only GET requests are supported");
+                    return;
+                }
+                Map<String, String> query = new HashMap<String, String>();
+                String rawQuery = exchange.getRequestURI().getRawQuery();
+                if (rawQuery != null) {
+                    for (String parameter : rawQuery.split("&")) {
+                        int separator = parameter.indexOf('=');
+                        if (separator > 0) {
+                            query.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"), URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+                        }
+                    }
+                }
+                try {
+                    respond(exchange, query);
+                } catch (IllegalArgumentException exc) {
+                    sendError(exchange, 400, exc.getMessage());
+                } catch (IndexOutOfBoundsException exc) {
+                    sendError(exchange, 404, exc.getMessage());
+                } catch (RuntimeException exc) {
+                    //a streamed response cannot change its status any more, it is cut off by closing the exchange
+                    if (exchange.getResponseCode() == -1) {
+                        sendError(exchange, 500, exc.toString());
+                    }
+                }
+            } finally {
+                exchange.close();
+            }
+        }
+        
+        /**
+         *Checks the query and writes the response.
+         */
+        protected abstract void respond(HttpExchange exchange, Map<String, String> query) throws IOException;
+        
+        /**
+         *Sends the headers of a streamed response and returns the writer for its body.
+         */
+        protected Writer startResponse(HttpExchange exchange) throws IOException {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+            exchange.sendResponseHeaders(200, 0);
+            return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), "UTF-8"), BUFFER_SIZE);
+        }
+        
+        private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+            byte[] body = (message + "\n").getBytes("UTF-8");
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+            exchange.sendResponseHeaders(status, body.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(body);
+            out.close();
+        }
+    }
+    
+    
+    /**
+     *Answers "/count".
+     */
+    private class CountHandler extends LibraryHandler {
+        protected void respond(HttpExchange exchange, Map<String, String> query) throws IOException {
+            Writer out = startResponse(exchange);
+            out.write(iterator.getMaximum() + "\n");
+            out.close();
+        }
+    }
+    
+    
+    /**
+     *Answers "/products?first=i&amp;last=j".
+     */
+    private class ProductsHandler extends LibraryHandler {
+        protected void respond(HttpExchange exchange, Map<String, String> query) throws IOException {
+            long maximum = iterator.getMaximum();
+            long first = getNumber(query, "first", 0);
+            long last = getNumber(query, "last", maximum - 1);
+            if (first < 0 || last < first || last >= maximum) {
+                throw new IndexOutOfBoundsException("Invalid molecule range: " + first + "-" + last);
+            }
+            SmilesAssembler assembler = new SmilesAssembler(compAdmin);
+            StringBuilder smiles = new StringBuilder();
+            StringBuilder id = new StringBuilder();
+            Writer out = startResponse(exchange);
+            for (long index = first; index <= last; index++) {
+                writeMolecule(index, assembler, smiles, id, out);
+            }
+            out.close();
+        }
+    }
+    
+    
+    /**
+     *Answers "/product?id=ID".
+     */
+    private class ProductHandler extends LibraryHandler {
+        protected void respond(HttpExchange exchange, Map<String, String> query) throws IOException {
+            String id = query.get("id");
+            if (id == null) {
+                throw new IllegalArgumentException("Missing parameter id");
+            }
+            int[] combination;
+            synchronized (idParser) {
+                combination = idParser.parseID(id);
+            }
+            long index = combination == null ? -1 : iterator.getIndex(combination);
+            if (index < 0) {
+                throw new IndexOutOfBoundsException("No molecule with ID " + id);
+            }
+            Writer out = startResponse(exchange);
+            writeMolecule(index, new SmilesAssembler(compAdmin), new StringBuilder(), new StringBuilder(), out);
+            out.close();
+        }
+    }
+    
+    
+    /**
+     *Answers "/sample?size=k[&amp;seed=n]".
+     */
+    private class SampleHandler extends LibraryHandler {
+        protected void respond(HttpExchange exchange, Map<String, String> query) throws IOException {
+            long size = getNumber(query, "size", -1);
+            if (size > MAX_SAMPLE_SIZE) {
+                throw new IllegalArgumentException("Sample size exceeds the limit of " + MAX_SAMPLE_SIZE + ": " + size);
+            }
+            if (size < 0 || size > iterator.getMaximum()) {
+                throw new IllegalArgumentException("Invalid sample size: " + query.get("size"));
+            }
+            Random random = query.containsKey("seed") ? new Random(getNumber(query, "seed", 0)) : new Random();
+            long[] indices = sample(iterator.getMaximum(), (int) size, random);
+            SmilesAssembler assembler = new SmilesAssembler(compAdmin);
+            StringBuilder smiles = new StringBuilder();
+            StringBuilder id = new StringBuilder();
+            Writer out = startResponse(exchange);
+            for (long index : indices) {
+                writeMolecule(index, assembler, smiles, id, out);
+            }
+            out.close();
+        }
+    }
+}
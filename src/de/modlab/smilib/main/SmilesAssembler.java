@@ -0,0 +1,381 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.main;
+
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.metrics.SampledTimer;
+import de.modlab.smilib.metrics.SmiLibMetrics;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *Assembles the SMILES and the ID of a molecule from a combination of
+ *scaffold, linkers and building blocks.
+ *
+ * @author Volker Haehnke
+ * @author Andreas Schueller
+ */
+public class SmilesAssembler {
+    
+    //"%n" for the ring numbers up to 999
+    private static final String[] RING_LABELS = new String[1000];
+    static {
+        for (int i = 0; i < RING_LABELS.length; i++) {
+            RING_LABELS[i] = "%" + i;
+        }
+    }
+    
+    //stores and distributes SMILES of scaffolds, linkers and building blocks
+    private ComponentAdministrator compAdmin;
+    
+    //linker and building block of the current variable side chain
+    private StringBuilder intermediateProduct = new StringBuilder();
+    
+    //times every n-th molecule assembled
+    private SampledTimer timer = SmiLibMetrics.timer(SmiLibMetrics.ASSEMBLY, SmiLibMetrics.SAMPLE_INTERVAL);
+    
+    //molecules assembled, counted for sampling
+    private int calls = 0;
+    
+    //lengths of the fragment parts, created when the first line length is computed
+    private int[] scaffoldLengths;
+    private int[][] rGroupLengths;
+    private int[] linkerLengths;
+    private int[] linkerAttachmentLengths;
+    private int[] blockLengths;
+    private int[] scaffoldIDLengths;
+    private int[] linkerIDLengths;
+    private int[] blockIDLengths;
+    
+    //indices of the fragments by their IDs, created when the first ID is parsed
+    private Map<String, List<Integer>> scaffoldIndices;
+    private Map<String, List<Integer>> linkerIndices;
+    private Map<String, List<Integer>> buildingBlockIndices;
+    
+    
+    
+    /**
+     *Creates a new instance of SmilesAssembler.
+     *
+     *@param compAdmin scaffolds, linkers and building blocks
+     */
+    public SmilesAssembler(ComponentAdministrator compAdmin) {
+        this.compAdmin = compAdmin;
+    }
+    
+    
+    /**
+     *Assembles the molecule corresponding to a combination of scaffold, linkers and building blocks.
+     *The fragments are appended directly to the StringBuilders, no objects are created
+     *unless an ID contains non-ASCII characters or a ring number is larger than 999.
+     *
+     *@param combination indices of scaffold, linkers and building blocks: [s,l,l,l,...,b,b,b,...]
+     *@param currentMolecule StringBuilder that will contain the SMILES of the molecule
+     *@param moleculeID StringBuilder that will contain the ID of the molecule
+     */
+    public void assemble(int[] combination, StringBuilder currentMolecule, StringBuilder moleculeID) {
+        long start = timer.start(calls++);
+        assembleMolecule(combination, currentMolecule, moleculeID);
+        timer.stop(start);
+    }
+    
+    
+    /**
+     *Assembles the molecule corresponding to a combination, see assemble(...).
+     */
+    private void assembleMolecule(int[] combination, StringBuilder currentMolecule, StringBuilder moleculeID) {
+        int numRGroups;
+        int ringNumber;
+        int scaffold = combination[0];
+        
+        //StringBuilder with the currentMolecule gets a reset - so you can use one Object for all molecules
+        currentMolecule.setLength(0);
+        compAdmin.appendScaffoldString(scaffold, currentMolecule);
+        
+        //StringBuilder with molecule ID gets a reset
+        moleculeID.setLength(0);
+        compAdmin.appendScaffoldID(scaffold, moleculeID);
+        
+        //gets number of variable side chains in the current scaffold
+        numRGroups = compAdmin.getNumberOfRGroups(scaffold);
+        ringNumber = 10;
+        
+        //for each variable side chain
+        for (int i = 1; i <= numRGroups; i++) {
+            int linker = combination[i];
+            int block = combination[i + numRGroups];
+            
+            //ringnumber is checked, so that conflicts with existing ringnumbers in scaffold-, linker- or buildingblock-SMILES can not occur
+            while(compAdmin.numberBlacklisted(ringNumber, scaffold, linker, block))
+                ringNumber++;
+            
+            //if linker is not the empty linker
+            if (!compAdmin.isLinkerEmpty(linker)) {
+                //current intermediate is created from linker and building block
+                intermediateProduct.setLength(0);
+                compAdmin.appendLinkerForConcat(linker, ringNumber, intermediateProduct);
+                intermediateProduct.append('.');
+                compAdmin.appendBlockForConcat(block, ringNumber, intermediateProduct);
+                ringNumber++;
+                
+                //the attachment point of the intermediate is replaced by the ring number
+                int attachment = intermediateProduct.indexOf("([A])");
+                if (attachment == -1) {
+                    attachment = intermediateProduct.indexOf("[A]");
+                    intermediateProduct.replace(attachment, attachment + 3, ringLabel(ringNumber));
+                } else {
+                    intermediateProduct.replace(attachment, attachment + 5, ringLabel(ringNumber));
+                }
+                
+                //current intermediate gets attached to the scaffold
+                replaceRGroup(currentMolecule, scaffold, i - 1, ringNumber);
+                currentMolecule.append('.').append(intermediateProduct);
+                ringNumber++;
+                
+                //if linker is the empty linker
+            } else {
+                //building block gets directly attached to the scaffold
+                replaceRGroup(currentMolecule, scaffold, i - 1, ringNumber);
+                currentMolecule.append('.');
+                compAdmin.appendBlockForConcat(block, ringNumber, currentMolecule);
+                ringNumber++;
+            }
+            
+            //molecule ID gets an update
+            moleculeID.append('.');
+            compAdmin.appendLinkerID(linker, moleculeID);
+            moleculeID.append('_');
+            compAdmin.appendBuildingBlockID(block, moleculeID);
+        }
+    }
+    
+    
+    /**
+     *Replaces the attachment point of a variable side chain in the current molecule by a ring number.
+     */
+    private void replaceRGroup(StringBuilder currentMolecule, int scaffold, int n, int ringNumber) {
+        int index = compAdmin.indexOfRGroup(scaffold, n, currentMolecule);
+        currentMolecule.replace(index, index + compAdmin.getRGroupLength(scaffold, n), ringLabel(ringNumber));
+    }
+    
+    
+    /**
+     *Returns "%" followed by the ring number.
+     */
+    private static String ringLabel(int ringNumber) {
+        return ringNumber < RING_LABELS.length ? RING_LABELS[ringNumber] : "%" + ringNumber;
+    }
+    
+    
+    /**
+     *Returns the number of bytes of the line "ID&lt;TAB&gt;SMILES&lt;LF&gt;" of a molecule in a
+     *SMILES file, computed from the lengths of its fragments without assembling
+     *the molecule. IDs are encoded with the default charset.
+     *
+     *@param combination indices of scaffold, linkers and building blocks: [s,l,l,l,...,b,b,b,...]
+     *@return number of bytes of the molecule in a SMILES file
+     */
+    public int getLineLength(int[] combination) {
+        if (scaffoldLengths == null) {
+            computeLengths();
+        }
+        int s = combination[0];
+        int numRGroups = rGroupLengths[s].length;
+        int length = scaffoldLengths[s] + scaffoldIDLengths[s] + 2;
+        int ringNumber = 10;
+        
+        //same ring numbers as in assemble(...)
+        for (int i = 1; i <= numRGroups; i++) {
+            int l = combination[i];
+            int b = combination[i + numRGroups];
+            while(compAdmin.numberBlacklisted(ringNumber, s, l, b))
+                ringNumber++;
+            
+            //"%n" of the building block
+            length += blockLengths[b] + 1 + digits(ringNumber);
+            if (linkerLengths[l] >= 0) {
+                //linker with "%n", '.', attachment point [A] of the linker replaced by "%n+1"
+                length += linkerLengths[l] + 1 + digits(ringNumber) + 1 - linkerAttachmentLengths[l];
+                ringNumber++;
+            }
+            //attachment point of the scaffold replaced by "%n", '.'
+            length += 1 + digits(ringNumber) + 1 - rGroupLengths[s][i - 1];
+            if (linkerLengths[l] >= 0) {
+                length += 1 + digits(ringNumber);
+            }
+            ringNumber++;
+            
+            length += linkerIDLengths[l] + blockIDLengths[b] + 2;
+        }
+        return length;
+    }
+    
+    
+    /**
+     *Returns the number of decimal digits of a ring number.
+     */
+    private static int digits(int ringNumber) {
+        return ringNumber < 100 ? 2 : Integer.toString(ringNumber).length();
+    }
+    
+    
+    /**
+     *Computes the lengths of the fragment parts used by getLineLength(...).
+     */
+    private void computeLengths() {
+        int numScaffolds = compAdmin.getNumberOfScaffolds();
+        scaffoldLengths = new int[numScaffolds];
+        scaffoldIDLengths = new int[numScaffolds];
+        rGroupLengths = new int[numScaffolds][];
+        for (int i = 0; i < numScaffolds; i++) {
+            scaffoldLengths[i] = compAdmin.getScaffoldString(i).length();
+            scaffoldIDLengths[i] = compAdmin.getScaffoldID(i).getBytes().length;
+            rGroupLengths[i] = new int[compAdmin.getNumberOfRGroups(i)];
+            for (int r = 0; r < rGroupLengths[i].length; r++)
+                rGroupLengths[i][r] = compAdmin.getRGroupLength(i, r);
+        }
+        
+        //lengths without ring number, -1 for empty linkers
+        int numLinkers = compAdmin.getNumberOfLinkers();
+        linkerLengths = new int[numLinkers];
+        linkerAttachmentLengths = new int[numLinkers];
+        linkerIDLengths = new int[numLinkers];
+        StringBuilder fragment = new StringBuilder();
+        for (int i = 0; i < numLinkers; i++) {
+            fragment.setLength(0);
+            compAdmin.appendLinkerForConcat(i, 10, fragment);
+            linkerLengths[i] = compAdmin.isLinkerEmpty(i) ? -1 : fragment.length() - 3;
+            linkerAttachmentLengths[i] = fragment.indexOf("([A])") == -1 ? 3 : 5;
+            linkerIDLengths[i] = compAdmin.getLinkerID(i).getBytes().length;
+        }
+        int numBlocks = compAdmin.getNumberOfBuildingBlocks();
+        blockLengths = new int[numBlocks];
+        blockIDLengths = new int[numBlocks];
+        for (int i = 0; i < numBlocks; i++) {
+            fragment.setLength(0);
+            compAdmin.appendBlockForConcat(i, 10, fragment);
+            blockLengths[i] = fragment.length() - 3;
+            blockIDLengths[i] = compAdmin.getBuildingBlockID(i).getBytes().length;
+        }
+    }
+    
+    
+    /**
+     *Returns the combination a molecule ID was assembled from. The ID consists
+     *of the scaffold ID followed by ".linkerID_buildingBlockID" for each variable
+     *side chain. Fragment IDs may contain "." and "_" themselves, all possible
+     *splits of the ID are tried.
+     *
+     *@param id molecule ID
+     *@return indices of scaffold, linkers and building blocks: [s,l,l,l,...,b,b,b,...], or <code>null</code> if the ID does not belong to the fragments
+     */
+    public int[] parseID(String id) {
+        if (scaffoldIndices == null) {
+            scaffoldIndices = new HashMap<String, List<Integer>>();
+            for (int i = 0; i < compAdmin.getNumberOfScaffolds(); i++)
+                addIndex(scaffoldIndices, compAdmin.getScaffoldID(i), i);
+            linkerIndices = new HashMap<String, List<Integer>>();
+            for (int i = 0; i < compAdmin.getNumberOfLinkers(); i++)
+                addIndex(linkerIndices, compAdmin.getLinkerID(i), i);
+            buildingBlockIndices = new HashMap<String, List<Integer>>();
+            for (int i = 0; i < compAdmin.getNumberOfBuildingBlocks(); i++)
+                addIndex(buildingBlockIndices, compAdmin.getBuildingBlockID(i), i);
+        }
+        
+        //the scaffold ID ends before a "." or at the end of the molecule ID
+        for (int end = id.indexOf('.'); ; end = id.indexOf('.', end + 1)) {
+            List<Integer> scaffolds = scaffoldIndices.get(end == -1 ? id : id.substring(0, end));
+            if (scaffolds != null) {
+                for (int s : scaffolds) {
+                    int numRGroups = compAdmin.getNumberOfRGroups(s);
+                    int[] combination = new int[1 + 2 * numRGroups];
+                    combination[0] = s;
+                    if (end == -1 ? numRGroups == 0 : parseRGroups(id, end, 1, combination))
+                        return combination;
+                }
+            }
+            if (end == -1)
+                return null;
+        }
+    }
+    
+    
+    /**
+     *Parses ".linkerID_buildingBlockID" of variable side chain <code>r</code> and all following side chains.
+     */
+    private boolean parseRGroups(String id, int start, int r, int[] combination) {
+        int numRGroups = (combination.length - 1) / 2;
+        if (r > numRGroups)
+            return start == id.length();
+        if (start >= id.length() || id.charAt(start) != '.')
+            return false;
+        for (int separator = id.indexOf('_', start + 1); separator != -1; separator = id.indexOf('_', separator + 1)) {
+            List<Integer> linkers = linkerIndices.get(id.substring(start + 1, separator));
+            if (linkers == null)
+                continue;
+            for (int end = separator + 1; end <= id.length(); end++) {
+                if (end < id.length() && id.charAt(end) != '.')
+                    continue;
+                List<Integer> blocks = buildingBlockIndices.get(id.substring(separator + 1, end));
+                if (blocks == null)
+                    continue;
+                for (int l : linkers) {
+                    for (int b : blocks) {
+                        combination[r] = l;
+                        combination[r + numRGroups] = b;
+                        if (parseRGroups(id, end, r + 1, combination))
+                            return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    
+    
+    /**
+     *Adds the index of a fragment to the list of indices of its ID.
+     */
+    private static void addIndex(Map<String, List<Integer>> indices, String id, int index) {
+        List<Integer> list = indices.get(id);
+        if (list == null) {
+            list = new ArrayList<Integer>();
+            indices.put(id, list);
+        }
+        list.add(index);
+    }
+}
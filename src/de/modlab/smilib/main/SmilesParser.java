@@ -32,8 +32,8 @@ package de.modlab.smilib.main;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Enumeration;
-import java.util.Stack;
+import java.util.ArrayDeque;
+import java.util.Iterator;
 import java.util.StringTokenizer;
 
 import org.openscience.cdk.Atom;
@@ -44,6 +44,7 @@ import org.openscience.cdk.DefaultChemObjectBuilder;
 import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtomParity;
 import org.openscience.cdk.interfaces.IMolecule;
+import org.openscience.cdk.interfaces.IRingSet;
 import org.openscience.cdk.PseudoAtom;
 import org.openscience.cdk.Reaction;
 import org.openscience.cdk.interfaces.ISetOfMolecules;
@@ -53,6 +54,7 @@ import org.openscience.cdk.graph.ConnectivityChecker;
 import org.openscience.cdk.io.IChemObjectWriter;
 import org.openscience.cdk.io.MDLWriter;
 import org.openscience.cdk.layout.StructureDiagramGenerator;
+import org.openscience.cdk.ringsearch.AllRingsFinder;
 import org.openscience.cdk.smiles.SmilesGenerator;
 import org.openscience.cdk.tools.HydrogenAdder;
 import org.openscience.cdk.tools.LoggingTool;
@@ -76,6 +78,9 @@ import org.openscience.cdk.tools.ValencyHybridChecker;
  *
  * <p>See {@cdk.cite WEI88} for further information.
  *
+ * <p>All state of a parse is held by the call itself, so one instance may be
+ * shared by several threads once it has been constructed.
+ *
  * @author         Christoph Steinbeck
  * @author         Egon Willighagen
  * @cdk.module     smiles
@@ -95,7 +100,8 @@ public class SmilesParser {
 	private LoggingTool logger;
 	private HydrogenAdder hAdder;
 	private ValencyHybridChecker valencyChecker;
-	private int status = 0;
+	// whether debug messages are built at all
+	private boolean debug;
 
 
 	/**
@@ -114,22 +120,19 @@ public class SmilesParser {
 					exception.getMessage());
 			logger.debug(exception);
 		}
+		debug = logger.isDebugEnabled();
+		// the valency checker loads its atom types on first use; do that here
+		// so instances shared between threads are fully set up
+		try
+		{
+			parseSmiles("C");
+		} catch (InvalidSmilesException exception)
+		{
+			logger.debug(exception);
+		}
 	}
 
 
-	int position = -1;
-	int nodeCounter = -1;
-	String smiles = null;
-	double bondStatus = -1;
-	double bondStatusForRingClosure = 1;
-    boolean bondIsAromatic = false;
-	Atom[] rings = null;
-	double[] ringbonds = null;
-	int thisRing = -1;
-	org.openscience.cdk.Molecule molecule = null;
-	String currentSymbol = null;
-
-
 	/**
 	 *  Description of the Method
 	 *
@@ -196,47 +199,41 @@ public class SmilesParser {
 	 */
 	public org.openscience.cdk.Molecule parseSmiles(String smiles) throws InvalidSmilesException
 	{
-		logger.debug("parseSmiles()...");
-		Bond bond = null;
-		nodeCounter = 0;
-		bondStatus = 0;
-        bondIsAromatic = false;
-		boolean bondExists = true;
-		thisRing = -1;
-		currentSymbol = null;
-		molecule = new org.openscience.cdk.Molecule();
-		position = 0;
-		// we don't want more than 1024 rings
-		rings = new Atom[1024];
-		ringbonds = new double[1024];
-		for (int f = 0; f < 1024; f++)
+		if (debug)
 		{
-			rings[f] = null;
-			ringbonds[f] = -1;
+			logger.debug("parseSmiles()...");
 		}
+		ParseState state = new ParseState();
+		org.openscience.cdk.Molecule molecule = state.molecule;
+		Bond bond = null;
+		boolean bondExists = true;
+		String currentSymbol = null;
 
 		char mychar = 'X';
-		char[] chars = new char[1];
 		Atom lastNode = null;
-		Stack atomStack = new Stack();
-		Stack bondStack = new Stack();
 		Atom atom = null;
 		do
 		{
 			try
 			{
-				mychar = smiles.charAt(position);
-				logger.debug("");
-				logger.debug("Processing: " + mychar);
-				if (lastNode != null)
+				mychar = smiles.charAt(state.position);
+				if (debug)
 				{
-					logger.debug("Lastnode: ", lastNode.hashCode());
+					logger.debug("");
+					logger.debug("Processing: " + mychar);
+					if (lastNode != null)
+					{
+						logger.debug("Lastnode: ", lastNode.hashCode());
+					}
 				}
 				if ((mychar >= 'A' && mychar <= 'Z') || (mychar >= 'a' && mychar <= 'z') ||
 						(mychar == '*'))
 				{
-					status = 1;
-					logger.debug("Found a must-be 'organic subset' element");
+					state.status = 1;
+					if (debug)
+					{
+						logger.debug("Found a must-be 'organic subset' element");
+					}
 					// only 'organic subset' elements allowed
 					atom = null;
 					if (mychar == '*')
@@ -245,7 +242,7 @@ public class SmilesParser {
 						atom = new PseudoAtom("*");
 					} else
 					{
-						currentSymbol = getSymbolForOrganicSubsetElement(smiles, position);
+						currentSymbol = getSymbolForOrganicSubsetElement(smiles, state.position);
 						if (currentSymbol != null)
 						{
 							if (currentSymbol.length() == 1)
@@ -263,7 +260,10 @@ public class SmilesParser {
 							{
 								atom = new Atom(currentSymbol);
 							}
-							logger.debug("Made atom: ", atom);
+							if (debug)
+							{
+								logger.debug("Made atom: ", atom);
+							}
 						} else
 						{
 							throw new InvalidSmilesException(
@@ -273,129 +273,127 @@ public class SmilesParser {
 					}
 
 					molecule.addAtom(atom);
-					logger.debug("Adding atom ", atom.hashCode());
+					if (debug)
+					{
+						logger.debug("Adding atom ", atom.hashCode());
+					}
 					if ((lastNode != null) && bondExists)
 					{
-						logger.debug("Creating bond between ", atom.getSymbol(), " and ", lastNode.getSymbol());
-						bond = new Bond(atom, lastNode, bondStatus);
-						            if (bondIsAromatic) {
-                            bond.setFlag(CDKConstants.ISAROMATIC, true);
-                        }
+						if (debug)
+						{
+							logger.debug("Creating bond between ", atom.getSymbol(), " and ", lastNode.getSymbol());
+						}
+						bond = new Bond(atom, lastNode, state.bondStatus);
+						if (state.bondIsAromatic)
+						{
+							bond.setFlag(CDKConstants.ISAROMATIC, true);
+						}
 						molecule.addBond(bond);
 					}
-					bondStatus = CDKConstants.BONDORDER_SINGLE;
+					state.bondStatus = CDKConstants.BONDORDER_SINGLE;
 					lastNode = atom;
-					nodeCounter++;
-					position = position + currentSymbol.length();
+					state.position = state.position + currentSymbol.length();
 					bondExists = true;
-                    bondIsAromatic = false;
+					state.bondIsAromatic = false;
 				} else if (mychar == '=')
 				{
-					position++;
-					if (status == 2 || smiles.length() == position + 1 || !(smiles.charAt(position) >= '0' && smiles.charAt(position) <= '9'))
+					state.position++;
+					if (state.status == 2 || smiles.length() == state.position + 1 || !(smiles.charAt(state.position) >= '0' && smiles.charAt(state.position) <= '9'))
 					{
-						bondStatus = CDKConstants.BONDORDER_DOUBLE;
+						state.bondStatus = CDKConstants.BONDORDER_DOUBLE;
 					} else
 					{
-						bondStatusForRingClosure = CDKConstants.BONDORDER_DOUBLE;
+						state.bondStatusForRingClosure = CDKConstants.BONDORDER_DOUBLE;
 					}
 				} else if (mychar == '#')
 				{
-					position++;
-					if (status == 2 || smiles.length() == position + 1 || !(smiles.charAt(position) >= '0' && smiles.charAt(position) <= '9'))
+					state.position++;
+					if (state.status == 2 || smiles.length() == state.position + 1 || !(smiles.charAt(state.position) >= '0' && smiles.charAt(state.position) <= '9'))
 					{
-						bondStatus = CDKConstants.BONDORDER_TRIPLE;
+						state.bondStatus = CDKConstants.BONDORDER_TRIPLE;
 					} else
 					{
-						bondStatusForRingClosure = CDKConstants.BONDORDER_TRIPLE;
+						state.bondStatusForRingClosure = CDKConstants.BONDORDER_TRIPLE;
 					}
 				} else if (mychar == '(')
 				{
-					atomStack.push(lastNode);
-					logger.debug("Stack:");
-					Enumeration ses = atomStack.elements();
-					while (ses.hasMoreElements())
+					state.pushBranch(lastNode);
+					if (debug)
 					{
-						Atom a = (Atom) ses.nextElement();
-						logger.debug("", a.hashCode());
+						logBranches(state);
 					}
-					logger.debug("------");
-					bondStack.push(new Double(bondStatus));
-					position++;
+					state.position++;
 				} else if (mychar == ')')
 				{
-					lastNode = (Atom) atomStack.pop();
-					logger.debug("Stack:");
-					Enumeration ses = atomStack.elements();
-					while (ses.hasMoreElements())
+					lastNode = state.popBranch();
+					if (debug)
 					{
-						Atom a = (Atom) ses.nextElement();
-						logger.debug("", a.hashCode());
+						logBranches(state);
 					}
-					logger.debug("------");
-					bondStatus = ((Double) bondStack.pop()).doubleValue();
-					position++;
+					state.position++;
 				} else if (mychar >= '0' && mychar <= '9')
 				{
-					status = 2;
-					chars[0] = mychar;
-					currentSymbol = new String(chars);
-					thisRing = (new Integer(currentSymbol)).intValue();
-					handleRing(lastNode);
-					position++;
+					state.status = 2;
+					handleRing(state, mychar - '0', lastNode);
+					state.position++;
 				} else if (mychar == '%')
 				{
-					currentSymbol = getRingNumber(smiles, position);
-					thisRing = (new Integer(currentSymbol)).intValue();
-					handleRing(lastNode);
-					position += currentSymbol.length() + 1;
+					handleRing(state, getRingNumber(smiles, state.position), lastNode);
+					state.position += 3;
 				} else if (mychar == '[')
 				{
-					currentSymbol = getAtomString(smiles, position);
+					currentSymbol = getAtomString(smiles, state.position);
 					atom = assembleAtom(currentSymbol);
 					molecule.addAtom(atom);
-					logger.debug("Added atom: ", atom);
+					if (debug)
+					{
+						logger.debug("Added atom: ", atom);
+					}
 					if (lastNode != null && bondExists)
 					{
-						bond = new Bond(atom, lastNode, bondStatus);
-						            if (bondIsAromatic) {
-                            bond.setFlag(CDKConstants.ISAROMATIC, true);
-                        }
+						bond = new Bond(atom, lastNode, state.bondStatus);
+						if (state.bondIsAromatic)
+						{
+							bond.setFlag(CDKConstants.ISAROMATIC, true);
+						}
 						molecule.addBond(bond);
-						logger.debug("Added bond: ", bond);
+						if (debug)
+						{
+							logger.debug("Added bond: ", bond);
+						}
 					}
-					bondStatus = CDKConstants.BONDORDER_SINGLE;
-                    bondIsAromatic = false;
+					state.bondStatus = CDKConstants.BONDORDER_SINGLE;
+					state.bondIsAromatic = false;
 					lastNode = atom;
-					nodeCounter++;
-					position = position + currentSymbol.length() + 2;
+					state.position = state.position + currentSymbol.length() + 2;
 					// plus two for [ and ]
 					bondExists = true;
 				} else if (mychar == '.')
 				{
 					bondExists = false;
-					position++;
+					state.position++;
 				} else if (mychar == '-')
 				{
 					bondExists = true;
 					// a simple single bond
-					position++;
-                } else if (mychar == ':') {
-                    bondExists = true;
-                    bondIsAromatic = true;
-                    position++;
+					state.position++;
+				} else if (mychar == ':')
+				{
+					bondExists = true;
+					state.bondIsAromatic = true;
+					state.position++;
 				} else if (mychar == '/' || mychar == '\\')
 				{
 					logger.warn("Ignoring stereo information for double bond");
-					position++;
+					state.position++;
 				} else if (mychar == '@')
 				{
-					if (position < smiles.length() - 1 && smiles.charAt(position + 1) == '@')
+					if (state.position < smiles.length() - 1 && smiles.charAt(state.position + 1) == '@')
 					{
-						position++;
+						state.position++;
 					}
 					logger.warn("Ignoring stereo information for atom");
-					position++;
+					state.position++;
 				} else
 				{
 					throw new InvalidSmilesException("Unexpected character found: " + mychar);
@@ -411,15 +409,24 @@ public class SmilesParser {
 				logger.debug(exception);
 				throw new InvalidSmilesException("Error while parsing char: " + mychar);
 			}
-			logger.debug("Parsing next char");
-		} while (position < smiles.length());
+			if (debug)
+			{
+				logger.debug("Parsing next char");
+			}
+		} while (state.position < smiles.length());
 
 		// add implicit hydrogens
 		try
 		{
-			logger.debug("before H-adding: ", molecule);
+			if (debug)
+			{
+				logger.debug("before H-adding: ", molecule);
+			}
 			hAdder.addImplicitHydrogensToSatisfyValency(molecule);
-			logger.debug("after H-adding: ", molecule);
+			if (debug)
+			{
+				logger.debug("after H-adding: ", molecule);
+			}
 		} catch (Exception exception)
 		{
 			logger.error("Error while calculation Hcount for SMILES atom: ", exception.getMessage());
@@ -429,7 +436,10 @@ public class SmilesParser {
 		try
 		{
 			valencyChecker.saturate(molecule);
-			logger.debug("after adding missing bond orders: ", molecule);
+			if (debug)
+			{
+				logger.debug("after adding missing bond orders: ", molecule);
+			}
 		} catch (Exception exception)
 		{
 			logger.error("Error while calculation Hcount for SMILES atom: ", exception.getMessage());
@@ -437,15 +447,29 @@ public class SmilesParser {
 
 		// conceive aromatic perception
 		IMolecule[] moleculeSet = ConnectivityChecker.partitionIntoMolecules(molecule).getMolecules();
-		logger.debug("#mols ", moleculeSet.length);
+		if (debug)
+		{
+			logger.debug("#mols ", moleculeSet.length);
+		}
 		for (int i = 0; i < moleculeSet.length; i++)
 		{
-			logger.debug("mol: ", moleculeSet[i]);
+			if (debug)
+			{
+				logger.debug("mol: ", moleculeSet[i]);
+			}
 			try
 			{
 				valencyChecker.saturate(moleculeSet[i]);
-				logger.debug(" after saturation: ", moleculeSet[i]);
-				if (HueckelAromaticityDetector.detectAromaticity(moleculeSet[i]))
+				if (debug)
+				{
+					logger.debug(" after saturation: ", moleculeSet[i]);
+				}
+				// HueckelAromaticityDetector.detectAromaticity(IAtomContainer) passes
+				// the rings it finds through a static field, so the ring search is
+				// done here and its result handed over explicitly.
+				IRingSet ringSet = new AllRingsFinder().findAllRings(moleculeSet[i]);
+				if (ringSet.getAtomContainerCount() > 0 &&
+						HueckelAromaticityDetector.detectAromaticity(moleculeSet[i], ringSet, true) && debug)
 				{
 					logger.debug("Structure is aromatic...");
 				}
@@ -460,6 +484,26 @@ public class SmilesParser {
 	}
 
 
+	/**
+	 *  Logs the atoms currently waiting on the branch stack.
+	 *
+	 *@param  state  The state of the running parse
+	 */
+	private void logBranches(ParseState state)
+	{
+		logger.debug("Stack:");
+		if (state.branchAtoms != null)
+		{
+			Iterator<Atom> atoms = state.branchAtoms.descendingIterator();
+			while (atoms.hasNext())
+			{
+				logger.debug("", atoms.next().hashCode());
+			}
+		}
+		logger.debug("------");
+	}
+
+
 	/**
 	 *  Gets the AtomString attribute of the SmilesParser object
 	 *
@@ -470,7 +514,10 @@ public class SmilesParser {
 	 */
 	private String getAtomString(String smiles, int pos) throws InvalidSmilesException
 	{
-		logger.debug("getAtomString()");
+		if (debug)
+		{
+			logger.debug("getAtomString()");
+		}
 		StringBuffer atomString = new StringBuffer();
 		try
 		{
@@ -506,7 +553,10 @@ public class SmilesParser {
 	 */
 	private int getCharge(String chargeString, int position)
 	{
-		logger.debug("getCharge(): Parsing charge from: ", chargeString.substring(position));
+		if (debug)
+		{
+			logger.debug("getCharge(): Parsing charge from: ", chargeString.substring(position));
+		}
 		int charge = 0;
 		if (chargeString.charAt(position) == '+')
 		{
@@ -528,7 +578,10 @@ public class SmilesParser {
 		}
 		if (multiplier.length() > 0)
 		{
-			logger.debug("Found multiplier: ", multiplier);
+			if (debug)
+			{
+				logger.debug("Found multiplier: ", multiplier);
+			}
 			try
 			{
 				charge = charge * Integer.parseInt(multiplier.toString());
@@ -538,7 +591,10 @@ public class SmilesParser {
 				logger.debug(exception);
 			}
 		}
-		logger.debug("Found charge: ", charge);
+		if (debug)
+		{
+			logger.debug("Found charge: ", charge);
+		}
 		return charge;
 	}
 
@@ -552,7 +608,10 @@ public class SmilesParser {
 	 */
 	private int getImplicitHydrogenCount(String s, int position)
 	{
-		logger.debug("getImplicitHydrogenCount(): Parsing implicit hydrogens from: " + s);
+		if (debug)
+		{
+			logger.debug("getImplicitHydrogenCount(): Parsing implicit hydrogens from: " + s);
+		}
 		int count = 1;
 		if (s.charAt(position) == 'H')
 		{
@@ -587,13 +646,19 @@ public class SmilesParser {
 	 */
 	private String getElementSymbol(String s, int pos)
 	{
-		logger.debug("getElementSymbol(): Parsing element symbol (pos=" + pos + ") from: " + s);
+		if (debug)
+		{
+			logger.debug("getElementSymbol(): Parsing element symbol (pos=" + pos + ") from: " + s);
+		}
 		// try to match elements not in the organic subset.
 		// first, the two char elements
 		if (pos < s.length() - 1)
 		{
 			String possibleSymbol = s.substring(pos, pos + 2);
-			logger.debug("possibleSymbol: ", possibleSymbol);
+			if (debug)
+			{
+				logger.debug("possibleSymbol: ", possibleSymbol);
+			}
 			if (("HeLiBeNeNaMgAlSiClArCaScTiCrMnFeCoNiCuZnGaGeAsSe".indexOf(possibleSymbol) >= 0) ||
 					("BrKrRbSrZrNbMoTcRuRhPdAgCdInSnSbTeXeCsBaLuHfTaRe".indexOf(possibleSymbol) >= 0) ||
 					("OsIrPtAuHgTlPbBiPoAtRnFrRaLrRfDbSgBhHsMtDs".indexOf(possibleSymbol) >= 0))
@@ -603,7 +668,10 @@ public class SmilesParser {
 		}
 		// if that fails, the one char elements
 		String possibleSymbol = s.substring(pos, pos + 1);
-		logger.debug("possibleSymbol: ", possibleSymbol);
+		if (debug)
+		{
+			logger.debug("possibleSymbol: ", possibleSymbol);
+		}
 		if (("HKUVY".indexOf(possibleSymbol) >= 0))
 		{
 			return possibleSymbol;
@@ -626,7 +694,10 @@ public class SmilesParser {
 	 */
 	private String getSymbolForOrganicSubsetElement(String s, int pos)
 	{
-		logger.debug("getSymbolForOrganicSubsetElement(): Parsing organic subset element from: ", s);
+		if (debug)
+		{
+			logger.debug("getSymbolForOrganicSubsetElement(): Parsing organic subset element from: ", s);
+		}
 		if (pos < s.length() - 1)
 		{
 			String possibleSymbol = s.substring(pos, pos + 2);
@@ -656,21 +727,24 @@ public class SmilesParser {
 	 *@param  pos  Description of the Parameter
 	 *@return      The RingNumber value
 	 */
-	private String getRingNumber(String s, int pos) throws InvalidSmilesException
+	private int getRingNumber(String s, int pos) throws InvalidSmilesException
 	{
-		logger.debug("getRingNumber()");
+		if (debug)
+		{
+			logger.debug("getRingNumber()");
+		}
 		pos++;
 
-                // Two digits impossible due to end of string
-                if (pos >= s.length() - 1)
-                  throw new InvalidSmilesException("Percent sign ring closure numbers must be two-digit.");
-		
-                String retString = s.substring(pos, pos + 2);
-                
-                if (retString.charAt(0) < '0' || retString.charAt(0) > '9' || retString.charAt(1) < '0' || retString.charAt(1) > '9')
-                  throw new InvalidSmilesException("Percent sign ring closure numbers must be two-digit.");
+		// Two digits impossible due to end of string
+		if (pos >= s.length() - 1)
+			throw new InvalidSmilesException("Percent sign ring closure numbers must be two-digit.");
 
-                return retString;
+		char first = s.charAt(pos);
+		char second = s.charAt(pos + 1);
+		if (first < '0' || first > '9' || second < '0' || second > '9')
+			throw new InvalidSmilesException("Percent sign ring closure numbers must be two-digit.");
+
+		return (first - '0') * 10 + (second - '0');
 	}
 
 
@@ -683,19 +757,28 @@ public class SmilesParser {
 	 */
 	private Atom assembleAtom(String s) throws InvalidSmilesException
 	{
-		logger.debug("assembleAtom(): Assembling atom from: ", s);
+		if (debug)
+		{
+			logger.debug("assembleAtom(): Assembling atom from: ", s);
+		}
 		Atom atom = null;
 		int position = 0;
 		String currentSymbol = null;
 		StringBuffer isotopicNumber = new StringBuffer();
 		char mychar;
-		logger.debug("Parse everythings before and including element symbol");
+		if (debug)
+		{
+			logger.debug("Parse everythings before and including element symbol");
+		}
 		do
 		{
 			try
 			{
 				mychar = s.charAt(position);
-				logger.debug("Parsing char: " + mychar);
+				if (debug)
+				{
+					logger.debug("Parsing char: " + mychar);
+				}
 				if ((mychar >= 'A' && mychar <= 'Z') || (mychar >= 'a' && mychar <= 'z'))
 				{
 					currentSymbol = getElementSymbol(s, position);
@@ -706,7 +789,10 @@ public class SmilesParser {
 								);
 					} else
 					{
-						logger.debug("Found element symbol: ", currentSymbol);
+						if (debug)
+						{
+							logger.debug("Found element symbol: ", currentSymbol);
+						}
 						position = position + currentSymbol.length();
 						if (currentSymbol.length() == 1)
 						{
@@ -727,7 +813,10 @@ public class SmilesParser {
 						{
 							atom = new Atom(currentSymbol);
 						}
-						logger.debug("Made atom: ", atom);
+						if (debug)
+						{
+							logger.debug("Made atom: ", atom);
+						}
 					}
 					break;
 				} else if (mychar >= '0' && mychar <= '9')
@@ -738,7 +827,10 @@ public class SmilesParser {
 				{
 					currentSymbol = "*";
 					atom = new PseudoAtom(currentSymbol);
-					logger.debug("Made atom: ", atom);
+					if (debug)
+					{
+						logger.debug("Made atom: ", atom);
+					}
 					position++;
 					break;
 				} else
@@ -768,7 +860,10 @@ public class SmilesParser {
 				logger.debug(exception);
 			}
 		}
-		logger.debug("Parsing part after element symbol (like charge): ", s.substring(position));
+		if (debug)
+		{
+			logger.debug("Parsing part after element symbol (like charge): ", s.substring(position));
+		}
 		int charge = 0;
 		int implicitHydrogens = 0;
 		while (position < s.length())
@@ -776,7 +871,10 @@ public class SmilesParser {
 			try
 			{
 				mychar = s.charAt(position);
-				logger.debug("Parsing char: " + mychar);
+				if (debug)
+				{
+					logger.debug("Parsing char: " + mychar);
+				}
 				if (mychar == 'H')
 				{
 					// count implicit hydrogens
@@ -827,28 +925,32 @@ public class SmilesParser {
 	/**
 	 *  We call this method when a ring (depicted by a number) has been found.
 	 *
-	 *@param  atom  Description of the Parameter
+	 *@param  state  The state of the running parse
+	 *@param  ring   The ring closure number
+	 *@param  atom   Description of the Parameter
 	 */
-	private void handleRing(Atom atom)
+	private void handleRing(ParseState state, int ring, Atom atom)
 	{
-		logger.debug("handleRing():");
-		double bondStat = bondStatusForRingClosure;
+		if (debug)
+		{
+			logger.debug("handleRing():");
+		}
+		double bondStat = state.bondStatusForRingClosure;
 		Bond bond = null;
 		Atom partner = null;
-		Atom thisNode = rings[thisRing];
+		Atom thisNode = state.getRingOpening(ring);
 		// lookup
 		if (thisNode != null)
 		{
 			partner = thisNode;
 			bond = new Bond(atom, partner, bondStat);
-			      if (bondIsAromatic) {
-            	
-                bond.setFlag(CDKConstants.ISAROMATIC, true);
-            }
-			molecule.addBond(bond);
-            bondIsAromatic = false;
-			rings[thisRing] = null;
-			ringbonds[thisRing] = -1;
+			if (state.bondIsAromatic)
+			{
+				bond.setFlag(CDKConstants.ISAROMATIC, true);
+			}
+			state.molecule.addBond(bond);
+			state.bondIsAromatic = false;
+			state.rings[ring] = null;
 
 		} else
 		{
@@ -856,10 +958,108 @@ public class SmilesParser {
 			 *  First occurence of this ring:
 			 *  - add current atom to list
 			 */
-			rings[thisRing] = atom;
-			ringbonds[thisRing] = bondStatusForRingClosure;
+			state.setRingOpening(ring, atom);
+		}
+		state.bondStatusForRingClosure = 1;
+	}
+
+
+	/**
+	 * State of a single call to {@link #parseSmiles(String)}. Ring and branch
+	 * tables start small and only grow as far as the SMILES string needs.
+	 */
+	private static final class ParseState
+	{
+		/** Molecule being built */
+		org.openscience.cdk.Molecule molecule = new org.openscience.cdk.Molecule();
+		/** Index of the next character to read */
+		int position = 0;
+		/** 1 after an atom, 2 after a ring closure digit */
+		int status = 0;
+		/** Order of the next bond to the previous atom */
+		double bondStatus = 0;
+		/** Order of the next ring closure bond */
+		double bondStatusForRingClosure = 1;
+		/** Whether the next bond was written as aromatic */
+		boolean bondIsAromatic = false;
+		/** Open ring closures, indexed by ring number; null until the first ring */
+		Atom[] rings = null;
+		/** Atoms the open branches start at, innermost first */
+		ArrayDeque<Atom> branchAtoms = null;
+		/** Bond orders pending when the open branches were started */
+		double[] branchBonds = null;
+
+		/**
+		 * Returns the atom at which a ring was opened, or null.
+		 *
+		 * @param ring the ring closure number
+		 * @return the opening atom or null
+		 */
+		Atom getRingOpening(int ring)
+		{
+			return rings != null && ring < rings.length ? rings[ring] : null;
+		}
+
+		/**
+		 * Records the atom at which a ring is opened.
+		 *
+		 * @param ring the ring closure number
+		 * @param atom the opening atom
+		 */
+		void setRingOpening(int ring, Atom atom)
+		{
+			if (rings == null || ring >= rings.length)
+			{
+				Atom[] grown = new Atom[ring < 10 ? 10 : 100];
+				if (rings != null)
+				{
+					System.arraycopy(rings, 0, grown, 0, rings.length);
+				}
+				rings = grown;
+			}
+			rings[ring] = atom;
+		}
+
+		/**
+		 * Opens a branch at an atom, remembering the pending bond order.
+		 *
+		 * @param atom the atom the branch starts at
+		 */
+		void pushBranch(Atom atom)
+		{
+			if (atom == null)
+			{
+				throw new IllegalStateException("Branch before first atom");
+			}
+			if (branchAtoms == null)
+			{
+				branchAtoms = new ArrayDeque<Atom>();
+				branchBonds = new double[8];
+			} else if (branchAtoms.size() == branchBonds.length)
+			{
+				double[] bonds = new double[branchBonds.length * 2];
+				System.arraycopy(branchBonds, 0, bonds, 0, branchBonds.length);
+				branchBonds = bonds;
+			}
+			branchBonds[branchAtoms.size()] = bondStatus;
+			branchAtoms.push(atom);
+		}
+
+		/**
+		 * Closes the innermost branch and restores its bond order.
+		 *
+		 * @return the atom the branch was opened at
+		 */
+		Atom popBranch()
+		{
+			if (branchAtoms == null || branchAtoms.isEmpty())
+			{
+				throw new IllegalStateException("No open branch");
+			}
+			Atom atom = branchAtoms.pop();
+			bondStatus = branchBonds[branchAtoms.size()];
+			return atom;
 		}
-		bondStatusForRingClosure = 1;
 	}
         
         public static void main(String[] args) {
@@ -0,0 +1,178 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.metrics;
+
+/**
+ *Measures the time spent in a stage of the enumeration by timing only every
+ *n-th call. The caller counts its calls itself, e.g. in a field of an object
+ *used by one thread, so calls that are not timed cost no more than an increment
+ *and a comparison:
+ *<pre>
+ * long start = timer.start(++calls);
+ * ...
+ * timer.stop(start);
+ *</pre>
+ *Each timed call stands for n calls, so the number of calls and the total time
+ *are estimates, accurate to n calls per caller.
+ */
+public final class SampledTimer {
+    
+    /** returned by start(long) for calls that are not timed */
+    public static final long NOT_SAMPLED = Long.MIN_VALUE;
+    
+    //every interval-th call is timed
+    private final int interval;
+    
+    //interval - 1 if the interval is a power of two, -1 otherwise
+    private final int mask;
+    
+    //timed calls
+    private final StripedCounter samples = new StripedCounter();
+    
+    //time of the timed calls (ns)
+    private final StripedCounter time = new StripedCounter();
+    
+    
+    
+    /**
+     *Creates a new instance of SampledTimer.
+     *
+     *@param interval every interval-th call is timed, 1 to time all calls
+     */
+    public SampledTimer(int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Invalid sampling interval " + interval);
+        }
+        this.interval = interval;
+        this.mask = (interval & (interval - 1)) == 0 ? interval - 1 : -1;
+    }
+    
+    
+    /**
+     *Starts timing a call if it is sampled.
+     *
+     *@param call number of the call, counted by the caller
+     *@return start time to pass to stop(long), NOT_SAMPLED if the call is not timed
+     */
+    public long start(long call) {
+        if (mask >= 0 ? (call & mask) == 0 : call % interval == 0) {
+            return System.nanoTime();
+        }
+        return NOT_SAMPLED;
+    }
+    
+    
+    /**
+     *Stops timing a call.
+     *
+     *@param start value returned by start(long)
+     */
+    public void stop(long start) {
+        if (start != NOT_SAMPLED) {
+            record(System.nanoTime() - start);
+        }
+    }
+    
+    
+    /**
+     *Records the time of a sampled call measured by the caller.
+     *
+     *@param nanos time of the call (ns)
+     */
+    public void record(long nanos) {
+        time.add(nanos);
+        samples.increment();
+    }
+    
+    
+    /**
+     *Returns the sampling interval.
+     *
+     *@return every interval-th call is timed
+     */
+    public int getInterval() {
+        return interval;
+    }
+    
+    
+    /**
+     *Returns the number of calls timed.
+     *
+     *@return number of samples
+     */
+    public long getSamples() {
+        return samples.get();
+    }
+    
+    
+    /**
+     *Returns the estimated number of calls.
+     *
+     *@return number of samples times the interval
+     */
+    public long getCount() {
+        return getSamples() * interval;
+    }
+    
+    
+    /**
+     *Returns the estimated time of all calls.
+     *
+     *@return time of the samples times the interval (ns)
+     */
+    public long getTotalTime() {
+        return time.get() * interval;
+    }
+    
+    
+    /**
+     *Returns the mean time of a call.
+     *
+     *@return mean time of the samples (ns), 0 if there is none
+     */
+    public long getMeanTime() {
+        long count = samples.get();
+        return count == 0 ? 0 : time.get() / count;
+    }
+    
+    
+    /**
+     *Discards all samples.
+     */
+    public void reset() {
+        samples.reset();
+        time.reset();
+    }
+}
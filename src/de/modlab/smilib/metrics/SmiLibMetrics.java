@@ -0,0 +1,318 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ *Counters and timers of the enumeration pipeline, shared by all enumerations
+ *of the JVM and published as an MBean. The classes of the pipeline take their
+ *counters and timers from the registry set by {@link #setRegistry(MetricsRegistry)},
+ *by default an instance of this class, so a service can plug in a registry of its
+ *own. The counters are striped and the per-molecule stages are timed for every
+ *{@link #SAMPLE_INTERVAL}-th call only, so the metrics stay enabled.
+ *<p>
+ *Timers: {@link #LOADING}, {@link #CHECKING}, {@link #PREPROCESSING},
+ *{@link #ITERATION}, {@link #ASSEMBLY}, {@link #WRITING}, {@link #CHUNK_WRITING},
+ *{@link #SDF_CONVERSION}.
+ *The MBean shows each timer as the attributes &lt;name&gt;Count, &lt;name&gt;TotalTime
+ *and &lt;name&gt;MeanTime (ns).<br>
+ *Counters: {@link #PRODUCTS_EMITTED}, {@link #PRODUCTS_REJECTED}, {@link #WRITER_BYTES}
+ *and the queue depths {@link #CHUNK_QUEUE}, {@link #SDF_QUEUE}, {@link #GZIP_QUEUE}.
+ */
+public class SmiLibMetrics implements MetricsRegistry, DynamicMBean {
+    
+    /** name the MBean is registered with */
+    public static final String OBJECT_NAME = "de.modlab.smilib:type=Metrics";
+    
+    /** sampling interval of the timers of stages called once per molecule or fragment */
+    public static final int SAMPLE_INTERVAL = 64;
+    
+    /** timer of reading the fragment files, every call is timed */
+    public static final String LOADING = "loading";
+    
+    /** timer of checking the conformity of a fragment */
+    public static final String CHECKING = "checking";
+    
+    /** timer of preprocessing a fragment */
+    public static final String PREPROCESSING = "preprocessing";
+    
+    /** timer of computing the next combination */
+    public static final String ITERATION = "iteration";
+    
+    /** timer of assembling a molecule */
+    public static final String ASSEMBLY = "assembly";
+    
+    /** timer of writing a molecule */
+    public static final String WRITING = "writing";
+    
+    /** timer of writing a chunk of molecules assembled by a ParallelSmilesChannelWriter, every chunk is timed */
+    public static final String CHUNK_WRITING = "chunkWriting";
+    
+    /** timer of converting a molecule to a molfile, every call is timed */
+    public static final String SDF_CONVERSION = "sdfConversion";
+    
+    /** counter of the molecules written */
+    public static final String PRODUCTS_EMITTED = "productsEmitted";
+    
+    /** counter of the molecules that could not be converted to a molfile and were rejected */
+    public static final String PRODUCTS_REJECTED = "productsRejected";
+    
+    /** counter of the bytes of SMILES written */
+    public static final String WRITER_BYTES = "writerBytes";
+    
+    /** counter of the chunks waiting for a thread of a ParallelSmilesChannelWriter */
+    public static final String CHUNK_QUEUE = "chunkQueueDepth";
+    
+    /** counter of the batches of molecules waiting to be converted to molfiles */
+    public static final String SDF_QUEUE = "sdfQueueDepth";
+    
+    /** counter of the blocks waiting to be compressed or written by a ParallelGzipOutputStream */
+    public static final String GZIP_QUEUE = "gzipQueueDepth";
+    
+    /** suffixes of the attributes of a timer */
+    private static final String COUNT = "Count";
+    private static final String TOTAL_TIME = "TotalTime";
+    private static final String MEAN_TIME = "MeanTime";
+    
+    /** registry the pipeline reports to */
+    private static volatile MetricsRegistry registry = new SmiLibMetrics();
+    
+    //counters by name
+    private ConcurrentMap<String, StripedCounter> counters = new ConcurrentHashMap<String, StripedCounter>();
+    
+    //timers by name
+    private ConcurrentMap<String, SampledTimer> timers = new ConcurrentHashMap<String, SampledTimer>();
+    
+    
+    
+    /**
+     *Creates a new instance of SmiLibMetrics.
+     */
+    public SmiLibMetrics() {
+    }
+    
+    
+    /**
+     *Returns the registry the pipeline reports to.
+     *
+     *@return the registry
+     */
+    public static MetricsRegistry getRegistry() {
+        return registry;
+    }
+    
+    
+    /**
+     *Sets the registry the pipeline reports to. Writers, readers and assemblers
+     *created before keep reporting to the previous registry.
+     *
+     *@param registry the registry
+     */
+    public static void setRegistry(MetricsRegistry registry) {
+        if (registry == null) {
+            throw new IllegalArgumentException("No registry");
+        }
+        SmiLibMetrics.registry = registry;
+    }
+    
+    
+    /**
+     *Returns a counter of the registry the pipeline reports to.
+     *
+     *@param name name of the counter
+     *@return the counter
+     */
+    public static StripedCounter counter(String name) {
+        return registry.getCounter(name);
+    }
+    
+    
+    /**
+     *Returns a timer of the registry the pipeline reports to.
+     *
+     *@param name name of the timer
+     *@param interval every interval-th call is timed, used if the timer is created
+     *@return the timer
+     */
+    public static SampledTimer timer(String name, int interval) {
+        return registry.getTimer(name, interval);
+    }
+    
+    
+    /**
+     *Registers the registry the pipeline reports to with the platform MBean server
+     *as {@link #OBJECT_NAME}, unless an MBean is registered with this name already.
+     *The registry must be an MBean, like instances of this class. If it can't be
+     *registered, the metrics are still collected, but not published.
+     *
+     *@return the registry is registered true/false
+     */
+    public static synchronized boolean registerMBean() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(registry, name);
+            }
+            return true;
+        } catch (JMException exc) {
+            return false;
+        }
+    }
+    
+    
+    public StripedCounter getCounter(String name) {
+        StripedCounter counter = counters.get(name);
+        if (counter == null) {
+            counters.putIfAbsent(name, new StripedCounter());
+            counter = counters.get(name);
+        }
+        return counter;
+    }
+    
+    
+    public SampledTimer getTimer(String name, int interval) {
+        SampledTimer timer = timers.get(name);
+        if (timer == null) {
+            timers.putIfAbsent(name, new SampledTimer(interval));
+            timer = timers.get(name);
+        }
+        return timer;
+    }
+    
+    
+    /**
+     *Returns the values of all counters and timers, sorted by name.
+     *
+     *@return values by attribute name
+     */
+    public Map<String, Long> getValues() {
+        Map<String, Long> values = new TreeMap<String, Long>();
+        for (Map.Entry<String, StripedCounter> counter : counters.entrySet()) {
+            values.put(counter.getKey(), Long.valueOf(counter.getValue().get()));
+        }
+        for (Map.Entry<String, SampledTimer> timer : timers.entrySet()) {
+            values.put(timer.getKey() + COUNT, Long.valueOf(timer.getValue().getCount()));
+            values.put(timer.getKey() + TOTAL_TIME, Long.valueOf(timer.getValue().getTotalTime()));
+            values.put(timer.getKey() + MEAN_TIME, Long.valueOf(timer.getValue().getMeanTime()));
+        }
+        return values;
+    }
+    
+    
+    /**
+     *Sets all counters and timers to zero. Queue depths become wrong if queues are not empty.
+     */
+    public void reset() {
+        for (StripedCounter counter : counters.values()) {
+            counter.reset();
+        }
+        for (SampledTimer timer : timers.values()) {
+            timer.reset();
+        }
+    }
+    
+    
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Long value = getValues().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException("No attribute " + attribute);
+        }
+        return value;
+    }
+    
+    
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Long> values = getValues();
+        AttributeList list = new AttributeList();
+        for (int i = 0; i < attributes.length; i++) {
+            if (values.containsKey(attributes[i])) {
+                list.add(new Attribute(attributes[i], values.get(attributes[i])));
+            }
+        }
+        return list;
+    }
+    
+    
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Attribute " + attribute.getName() + " is read-only");
+    }
+    
+    
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+    
+    
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if (actionName.equals("reset") && (params == null || params.length == 0)) {
+            reset();
+            return null;
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+    
+    
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+        for (String name : getValues().keySet()) {
+            attributes.add(new MBeanAttributeInfo(name, "long", name, true, false, false));
+        }
+        MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Sets all counters and timers to zero",
+                new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+        return new MBeanInfo(getClass().getName(), "Counters and timers of the SmiLib enumeration pipeline",
+                attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null,
+                new MBeanOperationInfo[] {reset}, null);
+    }
+}
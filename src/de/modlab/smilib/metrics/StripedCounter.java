@@ -0,0 +1,124 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *Counter that several threads can add to without contention. The count is
+ *spread over a few cells, each on a cache line of its own, and a thread adds
+ *to the cell selected by its ID. Reading the count sums the cells, so it may
+ *miss additions made at the same time.
+ */
+public final class StripedCounter {
+    
+    /** distance between two cells in longs, so each cell has a cache line of its own */
+    private static final int PADDING = 16;
+    
+    /** number of cells, a power of two */
+    private static final int CELLS = cells();
+    
+    //cells of the count, only every PADDING-th element is used
+    private final AtomicLongArray cells = new AtomicLongArray(CELLS * PADDING);
+    
+    
+    
+    /**
+     *Creates a new instance of StripedCounter.
+     */
+    public StripedCounter() {
+    }
+    
+    
+    /**
+     *Returns the number of cells: the next power of two of twice the number of processors.
+     */
+    private static int cells() {
+        int cells = 1;
+        while (cells < 2 * Runtime.getRuntime().availableProcessors()) {
+            cells <<= 1;
+        }
+        return cells;
+    }
+    
+    
+    /**
+     *Adds to the count, may be called by several threads.
+     *
+     *@param value value to add, negative to subtract
+     */
+    public void add(long value) {
+        long id = Thread.currentThread().getId();
+        int cell = (int) (id ^ (id >>> 7)) & (CELLS - 1);
+        cells.addAndGet(cell * PADDING, value);
+    }
+    
+    
+    /**
+     *Adds one to the count.
+     */
+    public void increment() {
+        add(1);
+    }
+    
+    
+    /**
+     *Returns the count.
+     *
+     *@return sum of all additions
+     */
+    public long get() {
+        long sum = 0;
+        for (int i = 0; i < CELLS; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+    
+    
+    /**
+     *Sets the count to zero. Additions made at the same time may be lost or kept.
+     */
+    public void reset() {
+        for (int i = 0; i < CELLS; i++) {
+            cells.set(i * PADDING, 0);
+        }
+    }
+    
+    
+    public String toString() {
+        return Long.toString(get());
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.fragments;
+
+import de.modlab.smilib.iterator.FullCombinationIterator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.main.SmilesAssembler;
+import de.modlab.smilib.main.TestConstants;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class CompactFragmentStore
+ */
+public class CompactFragmentStoreTest extends TestCase {
+    
+    private ComponentAdministrator objects;
+    
+    private ComponentAdministrator compact;
+    
+    public CompactFragmentStoreTest(String testName) {
+        super(testName);
+    }
+    
+    protected void setUp() throws Exception {
+        objects = new ComponentAdministrator(TestConstants.twoScaffoldsSmiles, TestConstants.threeLinkersSmiles, TestConstants.fourBuildingBlocksSmiles, true);
+        CompactFragmentStore store = new CompactFragmentStore();
+        for (int i = 0; i < objects.getNumberOfScaffolds(); i++)
+            store.scaffolds().add(objects.getScaffold(i));
+        for (int i = 0; i < objects.getNumberOfLinkers(); i++)
+            store.linkers().add(objects.getLinker(i));
+        for (int i = 0; i < objects.getNumberOfBuildingBlocks(); i++)
+            store.buildingBlocks().add(objects.getBuildingBlock(i));
+        compact = new ComponentAdministrator(store);
+    }
+    
+    /**
+     * Both backends enumerate the same molecules.
+     */
+    public void testAssemble() {
+        assertEquals(objects.getNumberOfScaffolds(), compact.getNumberOfScaffolds());
+        assertEquals(objects.getNumberOfLinkers(), compact.getNumberOfLinkers());
+        assertEquals(objects.getNumberOfBuildingBlocks(), compact.getNumberOfBuildingBlocks());
+        for (int i = 0; i < objects.getNumberOfScaffolds(); i++) {
+            assertEquals(objects.getScaffoldID(i), compact.getScaffoldID(i));
+            assertEquals(objects.getScaffoldString(i), compact.getScaffold(i).getOriginalSMILES());
+            assertEquals(objects.getNumberOfRGroups(i), compact.getNumberOfRGroups(i));
+        }
+        for (int i = 0; i < objects.getNumberOfLinkers(); i++) {
+            assertEquals(objects.getLinker(i).getLinkerForConcat(10), compact.getLinker(i).getLinkerForConcat(10));
+            assertEquals(objects.isLinkerEmpty(i), compact.isLinkerEmpty(i));
+        }
+        
+        SmiLibIterator iterator = new FullCombinationIterator(objects.getNumbersOfRGroups(), objects.getNumberOfLinkers(), objects.getNumberOfBuildingBlocks());
+        SmilesAssembler objectsAssembler = new SmilesAssembler(objects);
+        SmilesAssembler compactAssembler = new SmilesAssembler(compact);
+        StringBuilder smiles = new StringBuilder();
+        StringBuilder id = new StringBuilder();
+        StringBuilder compactSmiles = new StringBuilder();
+        StringBuilder compactId = new StringBuilder();
+        int molecules = 0;
+        while (iterator.hasNext()) {
+            int[] combination = iterator.next();
+            objectsAssembler.assemble(combination, smiles, id);
+            compactAssembler.assemble(combination, compactSmiles, compactId);
+            assertEquals(smiles.toString(), compactSmiles.toString());
+            assertEquals(id.toString(), compactId.toString());
+            assertEquals(objectsAssembler.getLineLength(combination), compactAssembler.getLineLength(combination));
+            molecules++;
+        }
+        assertEquals(iterator.getMaximum(), molecules);
+    }
+    
+    /**
+     * IDs with non-ASCII characters and strings spanning several arenas.
+     */
+    public void testStrings() {
+        CompactFragmentStore store = new CompactFragmentStore();
+        store.addBuildingBlock(new BuildingBlock("Cl[A]", "Bl\u00f6ck \u20ac"));
+        StringBuilder id = new StringBuilder("x");
+        store.appendBuildingBlockID(0, id);
+        assertEquals("xBl\u00f6ck \u20ac", id.toString());
+        
+        StringBuilder longID = new StringBuilder();
+        while (longID.length() < 4000)
+            longID.append("id");
+        int blocks = 2 * CompactFragmentStore.ARENA_SIZE / 4000;
+        for (int i = 1; i < blocks; i++)
+            store.addBuildingBlock(new BuildingBlock("C(Br)[A]", longID.toString() + i));
+        assertEquals(blocks, store.getNumberOfBuildingBlocks());
+        for (int i = 1; i < blocks; i += 1009) {
+            assertEquals(longID.toString() + i, store.getBuildingBlockID(i));
+            StringBuilder smiles = new StringBuilder();
+            store.appendBlockForConcat(i, 12, smiles);
+            assertEquals("C(Br)%12", smiles.toString());
+        }
+        assertEquals("Bl\u00f6ck \u20ac", store.buildingBlocks().get(0).getID());
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.fragments;
+
+import de.modlab.smilib.main.TestConstants;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class FragmentCache
+ */
+public class FragmentCacheTest extends TestCase {
+    
+    private File scaffolds = new File("./cacheScaffolds.txt");
+    
+    public FragmentCacheTest(String testName) {
+        super(testName);
+    }
+    
+    protected void tearDown() throws Exception {
+        scaffolds.delete();
+    }
+    
+    private static void copy(String source, File target) throws IOException {
+        InputStream in = new FileInputStream(source);
+        OutputStream out = new FileOutputStream(target);
+        byte[] buffer = new byte[4096];
+        for (int n; (n = in.read(buffer)) > 0; ) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        out.close();
+    }
+    
+    /**
+     * Fragments are read again only for other settings, other files or modified files.
+     */
+    public void testGetComponentAdministrator() throws Exception {
+        copy(TestConstants.twoScaffolds, scaffolds);
+        FragmentCache cache = new FragmentCache(2);
+        ComponentAdministrator first = cache.getComponentAdministrator(scaffolds.getPath(), TestConstants.threeLinkers, TestConstants.fourBuildingBlocks, true, 1, false);
+        assertEquals(2, first.getNumberOfScaffolds());
+        assertSame(first, cache.getComponentAdministrator(scaffolds.getAbsolutePath(), TestConstants.threeLinkers, TestConstants.fourBuildingBlocks, true, 2, false));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        
+        ComponentAdministrator compact = cache.getComponentAdministrator(scaffolds.getPath(), TestConstants.threeLinkers, TestConstants.fourBuildingBlocks, true, 1, true);
+        assertTrue(compact != first);
+        assertSame(first, cache.getComponentAdministrator(scaffolds.getPath(), TestConstants.threeLinkers, TestConstants.fourBuildingBlocks, true, 1, false));
+        
+        //a third library drops the least recently used one
+        cache.getComponentAdministrator(TestConstants.validScaffolds, TestConstants.threeLinkers, TestConstants.fourBuildingBlocks, true, 1, false);
+        assertTrue(compact != cache.getComponentAdministrator(scaffolds.getPath(), TestConstants.threeLinkers, TestConstants.fourBuildingBlocks, true, 1, true));
+        
+        //modified files are read again
+        long misses = cache.getMisses();
+        OutputStream out = new FileOutputStream(scaffolds, true);
+        out.write("added\tC[R1]\n".getBytes());
+        out.close();
+        ComponentAdministrator modified = cache.getComponentAdministrator(scaffolds.getPath(), TestConstants.threeLinkers, TestConstants.fourBuildingBlocks, true, 1, false);
+        assertEquals(misses + 1, cache.getMisses());
+        assertEquals(3, modified.getNumberOfScaffolds());
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.FullCombinationIterator;
+import de.modlab.smilib.iterator.PartialCombinationIterator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.main.SmilesAssembler;
+import de.modlab.smilib.main.TestConstants;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of classes BinaryLibraryWriter and BinaryLibraryReader
+ */
+public class BinaryLibraryWriterTest extends TestCase {
+    
+    private ComponentAdministrator compAdmin;
+    
+    public BinaryLibraryWriterTest(String testName) {
+        super(testName);
+    }
+    
+    protected void setUp() throws Exception {
+        compAdmin = new ComponentAdministrator(TestConstants.twoScaffoldsSmiles, TestConstants.threeLinkersSmiles, TestConstants.fourBuildingBlocksSmiles, true);
+    }
+    
+    protected void tearDown() throws Exception {
+        new File("./out.slib").delete();
+    }
+
+    /**
+     * Test of a complete enumeration, of class BinaryLibraryWriter.
+     */
+    public void testWriteFullEnumeration() throws Exception {
+        System.out.println("writeSMILES full enumeration");
+        SmiLibIterator iterator = new FullCombinationIterator(compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks());
+        List<String> expected = write(iterator, iterator);
+        BinaryLibraryReader reader = new BinaryLibraryReader("./out.slib");
+        assertTrue("Assert random access", reader.isRandomAccess());
+        assertSameMolecules(expected, reader);
+        reader.close();
+    }
+
+    /**
+     * Test of an enumeration using a reaction scheme, of class BinaryLibraryWriter.
+     */
+    public void testWriteReactionScheme() throws Exception {
+        System.out.println("writeSMILES reaction scheme");
+        SmiLibIterator iterator = new PartialCombinationIterator(TestConstants.twoThreeFourValidReactionSchemeScheme, compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks());
+        List<String> expected = write(iterator, iterator);
+        BinaryLibraryReader reader = new BinaryLibraryReader("./out.slib");
+        assertSameMolecules(expected, reader);
+        reader.close();
+    }
+
+    /**
+     * Test of index tuples, of class BinaryLibraryWriter.
+     */
+    public void testWriteTuples() throws Exception {
+        System.out.println("writeSMILES tuples");
+        SmiLibIterator iterator = new FullCombinationIterator(compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks());
+        List<String> expected = write(iterator, null);
+        BinaryLibraryReader reader = new BinaryLibraryReader("./out.slib");
+        assertFalse("Assert no random access", reader.isRandomAccess());
+        assertEquals("Assert number of molecules", expected.size(), reader.getNumberOfMolecules());
+        StringBuilder smiles = new StringBuilder();
+        StringBuilder id = new StringBuilder();
+        for (int i = 0; reader.hasNext(); i++) {
+            reader.next(smiles, id);
+            assertEquals("Assert equal molecule", expected.get(i), id + "\t" + smiles);
+        }
+        reader.close();
+    }
+    
+    private List<String> write(SmiLibIterator iterator, SmiLibIterator stored) throws Exception {
+        SmilesAssembler assembler = new SmilesAssembler(compAdmin);
+        BinaryLibraryWriter instance = new BinaryLibraryWriter("./out.slib", new OutputSettings());
+        instance.prepare(compAdmin, stored, 0);
+        List<String> expected = new ArrayList<String>();
+        StringBuilder smiles = new StringBuilder();
+        StringBuilder id = new StringBuilder();
+        while (iterator.hasNext()) {
+            int[] combination = iterator.next();
+            assembler.assemble(combination, smiles, id);
+            expected.add(id + "\t" + smiles);
+            instance.writeSMILES(smiles, id, combination);
+        }
+        instance.close();
+        return expected;
+    }
+    
+    private void assertSameMolecules(List<String> expected, BinaryLibraryReader reader) throws Exception {
+        assertEquals("Assert number of molecules", expected.size(), reader.getNumberOfMolecules());
+        StringBuilder smiles = new StringBuilder();
+        StringBuilder id = new StringBuilder();
+        for (int i = expected.size() - 1; i >= 0; i--) {
+            reader.getMolecule(i, smiles, id);
+            assertEquals("Assert equal molecule", expected.get(i), id + "\t" + smiles);
+        }
+        for (int i = 0; reader.hasNext(); i++) {
+            reader.next(smiles, id);
+            assertEquals("Assert equal molecule", expected.get(i), id + "\t" + smiles);
+        }
+    }
+}
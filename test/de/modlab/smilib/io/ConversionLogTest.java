@@ -0,0 +1,95 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class ConversionLog
+ */
+public class ConversionLogTest extends TestCase {
+    
+    public ConversionLogTest(String testName) {
+        super(testName);
+    }
+    
+    /**
+     * Percentiles are within 1/16 above the exact value and never above the maximum.
+     */
+    public void testGetPercentile() {
+        ConversionLog log = new ConversionLog(null);
+        assertFalse(log.hasRejectFile());
+        assertEquals(0, log.getPercentile(0.5));
+        for (long i = 1; i <= 1000; i++) {
+            log.add(i * 1000000);
+        }
+        assertEquals(1000, log.getCount());
+        assertEquals(1000000000, log.getMaximum());
+        long median = log.getPercentile(0.5);
+        assertTrue(median >= 500000000 && median <= 500000000 + 500000000 / 16);
+        long p99 = log.getPercentile(0.99);
+        assertTrue(p99 >= 990000000 && p99 <= 1000000000);
+        assertEquals(1000000000, log.getPercentile(1));
+        
+        //short times are counted exactly to the microsecond
+        log = new ConversionLog(null);
+        log.add(3000);
+        log.add(7500);
+        assertEquals(3999, log.getPercentile(0.5));
+        assertEquals(7500, log.getPercentile(1));
+        
+        try {
+            log.getPercentile(1.5);
+            fail("IllegalArgumentException was not thrown.");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+    
+    /**
+     * Molecules without layout and abandoned layouts are counted and summarized.
+     */
+    public void testToString() {
+        ConversionLog log = new ConversionLog(null);
+        log.add(1000000);
+        log.addTimeout();
+        log.addTimeout();
+        log.addAbandoned();
+        assertEquals(2, log.getTimeouts());
+        assertEquals(1, log.getAbandoned());
+        assertEquals(0, log.getRejects());
+        String summary = log.toString();
+        assertTrue(summary, summary.endsWith("2 molecules written without layout after exceeding the time budget, 0 molecules rejected, 1 layouts abandoned"));
+    }
+}
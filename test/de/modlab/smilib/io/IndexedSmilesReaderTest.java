@@ -0,0 +1,120 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.PartialCombinationIterator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.main.SmilesAssembler;
+import de.modlab.smilib.main.TestConstants;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class IndexedSmilesReader
+ */
+public class IndexedSmilesReaderTest extends TestCase {
+    
+    private ComponentAdministrator compAdmin;
+    
+    private SmiLibIterator iterator;
+    
+    private List<String> expected;
+    
+    public IndexedSmilesReaderTest(String testName) {
+        super(testName);
+    }
+    
+    protected void setUp() throws Exception {
+        compAdmin = new ComponentAdministrator(TestConstants.twoScaffoldsSmiles, TestConstants.threeLinkersSmiles, TestConstants.fourBuildingBlocksSmiles, true);
+        iterator = new PartialCombinationIterator(TestConstants.twoThreeFourValidReactionSchemeScheme, compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks());
+        
+        OutputSettings settings = new OutputSettings();
+        settings.setOffsetIndexInterval(7);
+        SmilesWriter writer = new SmilesChannelWriter("./out.smi", settings);
+        SmilesAssembler assembler = new SmilesAssembler(compAdmin);
+        expected = new ArrayList<String>();
+        StringBuilder smiles = new StringBuilder();
+        StringBuilder id = new StringBuilder();
+        while (iterator.hasNext()) {
+            assembler.assemble(iterator.next(), smiles, id);
+            expected.add(id + "\t" + smiles);
+            writer.writeSMILES(smiles, id);
+        }
+        writer.close();
+    }
+    
+    protected void tearDown() throws Exception {
+        new File("./out.smi").delete();
+        new File("./out.smi" + SmilesWriterFactory.OFFSET_INDEX_EXTENSION).delete();
+    }
+
+    /**
+     * Test of getMolecules method, of class IndexedSmilesReader.
+     */
+    public void testGetMolecules() throws Exception {
+        System.out.println("getMolecules");
+        IndexedSmilesReader instance = new IndexedSmilesReader("./out.smi");
+        assertEquals("Assert number of molecules", expected.size(), instance.getNumberOfMolecules());
+        for (int first = 0; first < expected.size(); first++) {
+            for (int last = first; last < expected.size(); last += 5) {
+                assertEquals("Assert range " + first + "-" + last, expected.subList(first, last + 1), instance.getMolecules(first, last));
+            }
+        }
+        try {
+            instance.getMolecule(expected.size());
+            fail("No IndexOutOfBoundsException was thrown for an index beyond the library size.");
+        } catch (IndexOutOfBoundsException e) {
+        }
+        instance.close();
+    }
+
+    /**
+     * Test of getMolecule method by ID, of class IndexedSmilesReader.
+     */
+    public void testGetMoleculeByID() throws Exception {
+        System.out.println("getMolecule by ID");
+        IndexedSmilesReader instance = new IndexedSmilesReader("./out.smi");
+        SmilesAssembler assembler = new SmilesAssembler(compAdmin);
+        for (int i = expected.size() - 1; i >= 0; i--) {
+            String id = expected.get(i).substring(0, expected.get(i).indexOf('\t'));
+            assertEquals("Assert molecule " + id, expected.get(i), instance.getMolecule(id, assembler, iterator));
+        }
+        assertNull("Assert unknown ID", instance.getMolecule("1.1_1.1_1.1_1.1_1", assembler, iterator));
+        instance.close();
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class ParallelGzipOutputStream
+ */
+public class ParallelGzipOutputStreamTest extends TestCase {
+    
+    public ParallelGzipOutputStreamTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * Test of write and close methods, of class ParallelGzipOutputStream.
+     */
+    public void testWrite() throws Exception {
+        System.out.println("write");
+        byte[] data = new byte[100000];
+        Random random = new Random(42);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('A' + random.nextInt(4));
+        }
+        
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        ParallelGzipOutputStream instance = new ParallelGzipOutputStream(compressed, 6, 3, 4096, index);
+        instance.write(data, 0, 5000);
+        instance.write(data[5000]);
+        instance.write(data, 5001, data.length - 5001);
+        instance.close();
+        
+        assertEquals("Assert equal data", new String(data, "US-ASCII"), new String(decompress(compressed.toByteArray()), "US-ASCII"));
+        
+        // one line per member plus header line
+        String[] indexLines = index.toString().split("\n");
+        assertEquals("Assert number of index entries", 1 + (data.length + 4095) / 4096, indexLines.length);
+        assertEquals("Assert first index entry", "0\t0\t4096", indexLines[1]);
+    }
+
+    /**
+     * Test of close method without any data, of class ParallelGzipOutputStream.
+     */
+    public void testClose() throws Exception {
+        System.out.println("close");
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        ParallelGzipOutputStream instance = new ParallelGzipOutputStream(compressed, 6, 1, 4096, null);
+        instance.close();
+        assertEquals("Assert empty data", 0, decompress(compressed.toByteArray()).length);
+    }
+    
+    private byte[] decompress(byte[] compressed) throws Exception {
+        InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
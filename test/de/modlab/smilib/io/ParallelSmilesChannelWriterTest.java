@@ -0,0 +1,143 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.FullCombinationIterator;
+import de.modlab.smilib.iterator.PartialCombinationIterator;
+import de.modlab.smilib.iterator.SmiLibIterator;
+import de.modlab.smilib.main.EnumerationProgress;
+import de.modlab.smilib.main.SmilesAssembler;
+import de.modlab.smilib.main.TestConstants;
+import de.modlab.smilib.main.TestUtils;
+import java.io.File;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class ParallelSmilesChannelWriter
+ */
+public class ParallelSmilesChannelWriterTest extends TestCase {
+    
+    private ComponentAdministrator compAdmin;
+    
+    public ParallelSmilesChannelWriterTest(String testName) {
+        super(testName);
+    }
+    
+    protected void setUp() throws Exception {
+        compAdmin = new ComponentAdministrator(TestConstants.twoScaffoldsSmiles, TestConstants.threeLinkersSmiles, TestConstants.fourBuildingBlocksSmiles, true);
+    }
+    
+    protected void tearDown() throws Exception {
+        new File("./out.smi").delete();
+        new File("./out.smi" + SmilesWriterFactory.OFFSET_INDEX_EXTENSION).delete();
+        new File("./expected.smi").delete();
+        new File("./expected.smi" + SmilesWriterFactory.OFFSET_INDEX_EXTENSION).delete();
+    }
+
+    /**
+     * Test of writeLibrary method, of class ParallelSmilesChannelWriter.
+     */
+    public void testWriteLibrary() throws Exception {
+        System.out.println("writeLibrary");
+        OutputSettings settings = new OutputSettings();
+        settings.setThreads(3);
+        settings.setOffsetIndexInterval(10);
+        assertSameOutput(new FullCombinationIterator(compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks()), settings);
+        assertSameOutput(new PartialCombinationIterator(TestConstants.twoThreeFourValidReactionSchemeScheme, compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks()), settings);
+    }
+
+    /**
+     * Test of writeLibrary method with memory mapping, of class ParallelSmilesChannelWriter.
+     */
+    public void testWriteLibraryMemoryMapped() throws Exception {
+        System.out.println("writeLibrary memory mapped");
+        OutputSettings settings = new OutputSettings();
+        settings.setThreads(2);
+        settings.setMemoryMapped(true);
+        assertSameOutput(new FullCombinationIterator(compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks()), settings);
+    }
+    
+    /**
+     * Test of getLineLength method, of class SmilesAssembler.
+     */
+    public void testGetLineLength() throws Exception {
+        System.out.println("getLineLength");
+        SmiLibIterator iterator = new FullCombinationIterator(compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks());
+        SmilesAssembler assembler = new SmilesAssembler(compAdmin);
+        StringBuilder smiles = new StringBuilder();
+        StringBuilder id = new StringBuilder();
+        while (iterator.hasNext()) {
+            int[] combination = iterator.next();
+            assembler.assemble(combination, smiles, id);
+            assertEquals("Assert line length of " + id, id.length() + smiles.length() + 2, assembler.getLineLength(combination));
+        }
+    }
+    
+    private void assertSameOutput(SmiLibIterator iterator, OutputSettings settings) throws Exception {
+        SmilesAssembler assembler = new SmilesAssembler(compAdmin);
+        SmilesWriter expectedWriter = new SmilesChannelWriter("./expected.smi", settings);
+        StringBuilder smiles = new StringBuilder();
+        StringBuilder id = new StringBuilder();
+        for (long i = 0; i < iterator.getMaximum(); i++) {
+            assembler.assemble(iterator.getCombination(i), smiles, id);
+            expectedWriter.writeSMILES(smiles, id);
+        }
+        expectedWriter.close();
+        
+        ParallelSmilesChannelWriter instance = new ParallelSmilesChannelWriter("./out.smi", settings, 7);
+        EnumerationProgress progress = new EnumerationProgress();
+        assertEquals("Assert number of molecules", iterator.getMaximum(), instance.writeLibrary(compAdmin, iterator, progress));
+        instance.close();
+        assertEquals("Assert molecules counted", iterator.getMaximum(), progress.getMolecules());
+        assertEquals("Assert bytes counted", new File("./out.smi").length(), progress.getBytes());
+        
+        assertSameFile("./expected.smi", "./out.smi");
+        if (settings.getOffsetIndexInterval() > 0) {
+            assertSameFile("./expected.smi" + SmilesWriterFactory.OFFSET_INDEX_EXTENSION, "./out.smi" + SmilesWriterFactory.OFFSET_INDEX_EXTENSION);
+        }
+    }
+    
+    private void assertSameFile(String expectedPath, String actualPath) throws Exception {
+        assertEquals("Assert equal file size", new File(expectedPath).length(), new File(actualPath).length());
+        List<String> expected = TestUtils.readFile(expectedPath);
+        List<String> actual = TestUtils.readFile(actualPath);
+        assertEquals("Assert equal number of lines", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("Assert equal line", expected.get(i), actual.get(i));
+        }
+    }
+}
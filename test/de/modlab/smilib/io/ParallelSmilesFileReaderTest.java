@@ -0,0 +1,118 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.exceptions.SmiLibConformityException;
+import de.modlab.smilib.fragments.BuildingBlock;
+import de.modlab.smilib.fragments.BuildingBlockFactory;
+import de.modlab.smilib.main.TestConstants;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class ParallelSmilesFileReader
+ */
+public class ParallelSmilesFileReaderTest extends TestCase {
+    
+    private File file;
+    
+    public ParallelSmilesFileReaderTest(String testName) {
+        super(testName);
+    }
+    
+    protected void setUp() throws Exception {
+        file = new File("./bblocks.smi");
+    }
+    
+    protected void tearDown() throws Exception {
+        file.delete();
+    }
+    
+    private void write(String content) throws Exception {
+        FileWriter writer = new FileWriter(file);
+        writer.write(content);
+        writer.close();
+    }
+    
+    /**
+     * Chunks of a few bytes give the same fragments and IDs as SmilesFileReader.
+     */
+    public void testReadSmiles() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            String smiles = TestConstants.fourBuildingBlocksSmiles[i % TestConstants.fourBuildingBlocksSmiles.length];
+            if (i % 3 == 0) {
+                content.append("bb").append(i).append('\t').append(smiles).append("\r\n");
+            } else if (i % 7 == 0) {
+                content.append(smiles).append("\n  \n\n");
+            } else {
+                content.append(smiles).append('\n');
+            }
+        }
+        content.append(TestConstants.fourBuildingBlocksSmiles[0]);
+        write(content.toString());
+        
+        List<BuildingBlock> expected = new SmilesFileReader<BuildingBlock>(new BuildingBlockFactory(), true, 2).readSmiles(file.getPath());
+        for (int chunkSize = 1; chunkSize < 100; chunkSize += 13) {
+            List<BuildingBlock> read = new ParallelSmilesFileReader<BuildingBlock>(new BuildingBlockFactory(), true, 2, 3, chunkSize).readSmiles(file.getPath());
+            assertEquals(expected.size(), read.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getID(), read.get(i).getID());
+                assertEquals(expected.get(i).getOriginalSMILES(), read.get(i).getOriginalSMILES());
+            }
+        }
+        
+        write("");
+        assertEquals(0, new ParallelSmilesFileReader<BuildingBlock>(new BuildingBlockFactory(), true, 2, 3).readSmiles(file.getPath()).size());
+    }
+    
+    /**
+     * All non-conforming SMILES are reported with their line numbers.
+     */
+    public void testReadSmilesConformity() throws Exception {
+        String smiles = TestConstants.fourBuildingBlocksSmiles[0];
+        write(smiles + "\nCCC\n\n" + smiles + "\nc1ccccc1\n");
+        try {
+            new ParallelSmilesFileReader<BuildingBlock>(new BuildingBlockFactory(), true, 2, 2, 4).readSmiles(file.getPath());
+            fail("SmiLibConformityException was not thrown.");
+        } catch (SmiLibConformityException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("2 SMILES"));
+            assertTrue(e.getMessage(), e.getMessage().indexOf("Line 2: ") > 0);
+            assertTrue(e.getMessage(), e.getMessage().indexOf("Line 5: ") > 0);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.exceptions.SmiLibSdfException;
+import de.modlab.smilib.main.TestUtils;
+import java.io.File;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class ParallelSmilesToSDFWriter
+ */
+public class ParallelSmilesToSDFWriterTest extends TestCase {
+    
+    private String[] smiles = new String[] {
+        "c%101ccccc1.O%10", "[n+]%101ccccc1.[O-]%10", "C%10CCCC1.N%10", "c%101ccccc1.C%10(=O)O",
+        "C%10NCC(O%11)O%12.N%10.C%111CCCC1.C%12(=O)O", "CCO", "c1ccncc1", "C%10CC.Cl%10"
+    };
+    
+    public ParallelSmilesToSDFWriterTest(String testName) {
+        super(testName);
+    }
+    
+    protected void tearDown() throws Exception {
+        new File("./out.sdf").delete();
+        new File("./outParallel.sdf").delete();
+    }
+    
+    /**
+     * Molecules are written in order, the molfile blocks equal the ones of
+     * SmilesToSDFWriter except for 2D coordinates and time stamps.
+     */
+    public void testWriteSMILES() throws Exception {
+        SmilesToSDFWriter serial = new SmilesToSDFWriter("./out.sdf", false);
+        OutputSettings settings = new OutputSettings();
+        settings.setThreads(3);
+        ParallelSmilesToSDFWriter parallel = new ParallelSmilesToSDFWriter("./outParallel.sdf", false, settings, 2);
+        for (int i = 0; i < 3 * smiles.length; i++) {
+            StringBuilder id = new StringBuilder("mol" + i);
+            serial.writeSMILES(new StringBuilder(smiles[i % smiles.length]), id);
+            parallel.writeSMILES(new StringBuilder(smiles[i % smiles.length]), id);
+        }
+        serial.close();
+        parallel.close();
+        
+        List<String> expected = TestUtils.readFile("./out.sdf");
+        List<String> written = TestUtils.readFile("./outParallel.sdf");
+        assertEquals(expected.size(), written.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(withoutCoordinates(expected.get(i)), withoutCoordinates(written.get(i)));
+        }
+    }
+    
+    /**
+     * A molecule that cannot be converted is named in the exception.
+     */
+    public void testWriteSMILESError() throws Exception {
+        OutputSettings settings = new OutputSettings();
+        settings.setThreads(2);
+        ParallelSmilesToSDFWriter parallel = new ParallelSmilesToSDFWriter("./outParallel.sdf", false, settings, 2);
+        try {
+            for (int i = 0; i < smiles.length; i++)
+                parallel.writeSMILES(new StringBuilder(i == 3 ? "C[Xy]C" : smiles[i]), new StringBuilder("mol" + i));
+            parallel.close();
+            fail("SmiLibSdfException was not thrown.");
+        } catch (SmiLibSdfException e) {
+            assertTrue(e.getMessage(), e.getMessage().indexOf("ID: mol3") >= 0);
+        }
+    }
+    
+    private static String withoutCoordinates(String line) {
+        if (line.startsWith("  CDK"))
+            return "";
+        return line.replaceAll("^\\s*-?\\d+\\.\\d{4}\\s+-?\\d+\\.\\d{4}\\s+-?\\d+\\.\\d{4}", "");
+    }
+}
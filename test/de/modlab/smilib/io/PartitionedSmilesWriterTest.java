@@ -0,0 +1,127 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.main.TestUtils;
+import java.io.File;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class PartitionedSmilesWriter
+ */
+public class PartitionedSmilesWriterTest extends TestCase {
+    
+    public PartitionedSmilesWriterTest(String testName) {
+        super(testName);
+    }
+    
+    protected void tearDown() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            new File("./out_" + i + ".smi").delete();
+        }
+        new File("./out.smi.manifest").delete();
+    }
+
+    /**
+     * Test of writeSMILES method splitting by count, of class PartitionedSmilesWriter.
+     */
+    public void testSplitByCount() throws Exception {
+        System.out.println("split by count");
+        OutputSettings settings = new OutputSettings();
+        settings.setSplit(PartitionedSmilesWriter.SPLIT_BY_COUNT, 10);
+        PartitionedSmilesWriter instance = new PartitionedSmilesWriter("./out_%d.smi", false, settings);
+        for (int i = 0; i < 25; i++) {
+            instance.writeSMILES(new StringBuilder("CC" + i), new StringBuilder("1." + i), new int[] {0, 0, i});
+        }
+        instance.close();
+        
+        assertEquals("Assert number of partitions", 3, instance.getNumberOfPartitions());
+        assertEquals("Assert molecules in first partition", 10, TestUtils.readFile("./out_1.smi").size());
+        assertEquals("Assert molecules in last partition", 5, TestUtils.readFile("./out_3.smi").size());
+        assertEquals("Assert first molecule of last partition", "1.20\tCC20", TestUtils.readFile("./out_3.smi").get(0));
+        
+        List<String> manifest = TestUtils.readFile(instance.getManifestPath());
+        assertEquals("Assert manifest path", "./out.smi.manifest", instance.getManifestPath());
+        assertEquals("Assert manifest size", 4, manifest.size());
+        assertTrue("Assert index range", manifest.get(2).startsWith("2\tout_2.smi\t10\t19\t10\t"));
+        assertTrue("Assert no scaffold", manifest.get(2).endsWith("\t-"));
+    }
+
+    /**
+     * Test of writeSMILES method splitting by scaffold, of class PartitionedSmilesWriter.
+     */
+    public void testSplitByScaffold() throws Exception {
+        System.out.println("split by scaffold");
+        OutputSettings settings = new OutputSettings();
+        settings.setSplit(PartitionedSmilesWriter.SPLIT_BY_SCAFFOLD, 0);
+        PartitionedSmilesWriter instance = new PartitionedSmilesWriter("./out.smi", false, settings);
+        for (int i = 0; i < 6; i++) {
+            instance.writeSMILES(new StringBuilder("CC" + i), new StringBuilder((i / 3 + 1) + "." + i), new int[] {i / 3, 0, i});
+        }
+        instance.close();
+        
+        assertEquals("Assert number of partitions", 2, instance.getNumberOfPartitions());
+        assertEquals("Assert molecules in second partition", 3, TestUtils.readFile("./out_00002.smi").size());
+        assertTrue("Assert scaffold", TestUtils.readFile(instance.getManifestPath()).get(2).endsWith("\t2"));
+        new File("./out_00001.smi").delete();
+        new File("./out_00002.smi").delete();
+    }
+
+    /**
+     * Test of writeSMILES method splitting by bytes, of class PartitionedSmilesWriter.
+     */
+    public void testSplitByBytes() throws Exception {
+        System.out.println("split by bytes");
+        OutputSettings settings = new OutputSettings();
+        settings.setSplit(PartitionedSmilesWriter.SPLIT_BY_BYTES, 100);
+        PartitionedSmilesWriter instance = new PartitionedSmilesWriter("./out_%d.smi", false, settings);
+        for (int i = 0; i < 20; i++) {
+            instance.writeSMILES(new StringBuilder("CCCC" + i), new StringBuilder("1." + i), new int[] {0, 0, i});
+        }
+        instance.close();
+        
+        assertEquals("Assert number of partitions", 3, instance.getNumberOfPartitions());
+        for (int i = 1; i <= 3; i++) {
+            assertTrue("Assert size of partition", new File("./out_" + i + ".smi").length() <= 100);
+        }
+        
+        try {
+            new PartitionedSmilesWriter("./out_%d.sdf", false, settings);
+            fail("Splitting SD files by size must be rejected");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
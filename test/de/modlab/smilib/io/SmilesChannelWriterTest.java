@@ -0,0 +1,142 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import de.modlab.smilib.main.TestUtils;
+import java.io.File;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class SmilesChannelWriter
+ */
+public class SmilesChannelWriterTest extends TestCase {
+    
+    public SmilesChannelWriterTest(String testName) {
+        super(testName);
+    }
+    
+    protected void tearDown() throws Exception {
+        new File("./out.smi").delete();
+        new File("./expected.smi").delete();
+    }
+
+    /**
+     * Test of writeSMILES method, of class SmilesChannelWriter.
+     */
+    public void testWriteSMILES() throws Exception {
+        System.out.println("writeSMILES");
+        OutputSettings settings = new OutputSettings();
+        settings.setBufferSize(1024);
+        assertSameOutput(settings);
+    }
+
+    /**
+     * Test of writeSMILES method with preallocation, of class SmilesChannelWriter.
+     */
+    public void testWriteSMILESPreallocated() throws Exception {
+        System.out.println("writeSMILES preallocated");
+        OutputSettings settings = new OutputSettings();
+        settings.setPreallocate(1 << 20);
+        assertSameOutput(settings);
+        assertEquals("Assert truncated file", new File("./expected.smi").length(), new File("./out.smi").length());
+    }
+
+    /**
+     * Test of writeSMILES method with memory mapping, of class SmilesChannelWriter.
+     */
+    public void testWriteSMILESMemoryMapped() throws Exception {
+        System.out.println("writeSMILES memory mapped");
+        OutputSettings settings = new OutputSettings();
+        settings.setMemoryMapped(true);
+        assertSameOutput(settings);
+        assertEquals("Assert truncated file", new File("./expected.smi").length(), new File("./out.smi").length());
+    }
+    
+    /**
+     * Test of writeSMILES method with non-ASCII characters, of class SmilesChannelWriter.
+     */
+    public void testWriteSMILESNonAscii() throws Exception {
+        System.out.println("writeSMILES non-ASCII");
+        SmilesWriter expectedWriter = new SmilesFileWriter("./expected.smi");
+        SmilesWriter instance = new SmilesChannelWriter("./out.smi", new OutputSettings());
+        String[][] molecules = {
+            {"1.1_1", "c1ccccc1%10.C(=O)N%10CCCCCCCC"},
+            {"1.1_2", "C\u00e9C"},
+            {"\u00e9t\u00e9", "C(=O)O"},
+            {"\u00e9", "\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9"},
+            {"1.1_3", "CC"}
+        };
+        for (int i = 0; i < molecules.length; i++) {
+            expectedWriter.writeSMILES(new StringBuilder(molecules[i][1]), new StringBuilder(molecules[i][0]));
+            instance.writeSMILES(new StringBuilder(molecules[i][1]), new StringBuilder(molecules[i][0]));
+        }
+        expectedWriter.close();
+        instance.close();
+        
+        assertTrue("Assert identical bytes", java.util.Arrays.equals(readBytes("./expected.smi"), readBytes("./out.smi")));
+    }
+    
+    private static byte[] readBytes(String path) throws Exception {
+        java.io.RandomAccessFile file = new java.io.RandomAccessFile(path, "r");
+        try {
+            byte[] bytes = new byte[(int) file.length()];
+            file.readFully(bytes);
+            return bytes;
+        } finally {
+            file.close();
+        }
+    }
+    
+    private void assertSameOutput(OutputSettings settings) throws Exception {
+        SmilesWriter expectedWriter = new SmilesFileWriter("./expected.smi");
+        SmilesWriter instance = new SmilesChannelWriter("./out.smi", settings);
+        for (int i = 0; i < 1000; i++) {
+            String smiles = "c1ccccc1%10.C(=O)N%10" + i;
+            String id = "1." + (i % 3) + "_" + i;
+            expectedWriter.writeSMILES(new StringBuilder(smiles), new StringBuilder(id));
+            instance.writeSMILES(new StringBuilder(smiles), new StringBuilder(id));
+        }
+        expectedWriter.close();
+        instance.close();
+        
+        List<String> expected = TestUtils.readFile("./expected.smi");
+        List<String> actual = TestUtils.readFile("./out.smi");
+        assertEquals("Assert equal number of lines", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("Assert equal line", expected.get(i), actual.get(i));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.io;
+
+import java.io.ByteArrayOutputStream;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class SmilesStdoutWriter
+ */
+public class SmilesStdoutWriterTest extends TestCase {
+    
+    private static final String nl = System.getProperty("line.separator");
+    
+    public SmilesStdoutWriterTest(String testName) {
+        super(testName);
+    }
+    
+    /**
+     * Lines are written unchanged when the buffer fills up, including lines
+     * longer than the buffer and non-ASCII IDs.
+     */
+    public void testWriteSMILES() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SmilesStdoutWriter writer = new SmilesStdoutWriter(out, 16, 60000);
+        StringBuilder expected = new StringBuilder();
+        String[][] molecules = {{"1.1_1", "CCO"}, {"1.2_1", "c1ccccc1CC(=O)O"}, {"S\u00e4ure", "CC(=O)O"}, {"1.3_2", "C1CCCCC1"}};
+        for (int i = 0; i < 50; i++) {
+            String[] molecule = molecules[i % molecules.length];
+            writer.writeSMILES(new StringBuilder(molecule[1]), new StringBuilder(molecule[0]));
+            expected.append(molecule[0]).append('\t').append(molecule[1]).append(nl);
+        }
+        assertTrue(out.size() > 0);
+        writer.close();
+        assertEquals(new String(expected.toString().getBytes()), new String(out.toByteArray()));
+    }
+    
+    /**
+     * Buffered lines are written after the flush interval without further molecules.
+     */
+    public void testFlushInterval() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SmilesStdoutWriter writer = new SmilesStdoutWriter(out, 1024, 20);
+        writer.writeSMILES(new StringBuilder("CCO"), new StringBuilder("1.1_1"));
+        assertEquals(0, out.size());
+        for (int i = 0; i < 100 && out.size() == 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals("1.1_1\tCCO" + nl, out.toString());
+        writer.close();
+        assertEquals("1.1_1\tCCO" + nl, out.toString());
+    }
+}
@@ -61,6 +61,9 @@ public class SmilesToSDFWriterTest extends TestCase {
     File outFile = new File("./out.sdf");
     if (outFile.exists())
       outFile.delete();
+    File rejectFile = new File("./rejects.smi");
+    if (rejectFile.exists())
+      rejectFile.delete();
   }
 
   public static Test suite() {
@@ -111,6 +114,27 @@ public class SmilesToSDFWriterTest extends TestCase {
 
   }
 
+  /**
+   * A molecule that cannot be converted is written to the reject file and the enumeration goes on.
+   */
+  public void testWriteSMILESRejected() throws Exception {
+    OutputSettings settings = new OutputSettings();
+    settings.setRejectPath("./rejects.smi");
+    SmilesToSDFWriter instance = new SmilesToSDFWriter("./out.sdf", true, settings);
+    instance.writeSMILES(new StringBuilder("C%10C.Xx%10"), new StringBuilder("1.1_1"));
+    instance.writeSMILES(new StringBuilder("c%101ccccc1.O%10"), new StringBuilder("1.1_2"));
+    instance.close();
+    
+    ConversionLog log = settings.getConversionLog();
+    assertEquals(2, log.getCount());
+    assertEquals(1, log.getRejects());
+    assertEquals(0, log.getTimeouts());
+    java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader("./rejects.smi"));
+    assertEquals("1.1_1\tC%10C.Xx%10", reader.readLine());
+    assertNull(reader.readLine());
+    reader.close();
+  }
+
 
   public static void main(java.lang.String[] argList) {
     junit.textui.TestRunner.run(suite());
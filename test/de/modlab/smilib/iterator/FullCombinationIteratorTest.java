@@ -712,4 +712,68 @@ public class FullCombinationIteratorTest extends TestCase {
     assertEquals("Library size", expected.length, iterator.getMaximum());
   }
   
+  /**
+   * Test of getCombination method, of class de.modlab.smilib.fragments.FullCombinationIterator.
+   */
+  public void testGetCombination() {
+    System.out.println("getCombination");
+    
+    SmiLibIterator iterator = new FullCombinationIterator(numRGroups, numLinkers, numBBlocks);
+    
+    for (int i = expected.length - 1; i >= 0; i--) {
+      assertTrue("Combination not equal to expected ID array. i=" + i, Arrays.equals(expected[i], iterator.getCombination(i)));
+      assertEquals("Index of combination", i, iterator.getIndex(expected[i]));
+    }
+    assertEquals("Index of invalid combination", -1, iterator.getIndex(new int[] {0, 0, 2, 0, 0}));
+    try {
+      iterator.getCombination(expected.length);
+      fail("No IndexOutOfBoundsException was thrown for an index beyond the library size.");
+    } catch (IndexOutOfBoundsException e) {
+    }
+  }
+  
+  /**
+   * Test of getMaximum and getCombination methods with more combinations per scaffold than an int holds,
+   * of class de.modlab.smilib.fragments.FullCombinationIterator.
+   */
+  public void testLargeLibrary() {
+    System.out.println("large library");
+    
+    SmiLibIterator iterator = new FullCombinationIterator(new int[] {2, 1}, 50000, 50000);
+    long first = 2500000000L * 2500000000L;
+    
+    assertEquals("Library size", first + 2500000000L, iterator.getMaximum());
+    assertTrue("Last combination of first scaffold", Arrays.equals(new int[] {0, 49999, 49999, 49999, 49999}, iterator.getCombination(first - 1)));
+    assertTrue("First combination of second scaffold", Arrays.equals(new int[] {1, 0, 0}, iterator.getCombination(first)));
+    assertTrue("Last combination", Arrays.equals(new int[] {1, 49999, 49999}, iterator.getCombination(iterator.getMaximum() - 1)));
+    assertEquals("Index of last combination", iterator.getMaximum() - 1, iterator.getIndex(new int[] {1, 49999, 49999}));
+    assertEquals("Index of combination", first - 1, iterator.getIndex(new int[] {0, 49999, 49999, 49999, 49999}));
+    
+    SmiLibIterator chunk = iterator.getIterator(first - 1);
+    assertTrue("Iterator at last combination of first scaffold", Arrays.equals(new int[] {0, 49999, 49999, 49999, 49999}, chunk.next()));
+    assertTrue("Iterator at first combination of second scaffold", Arrays.equals(new int[] {1, 0, 0}, chunk.next()));
+  }
+  
+  /**
+   * Test of getIterator method, of class de.modlab.smilib.iterator.FullCombinationIterator.
+   */
+  public void testGetIterator() {
+    System.out.println("getIterator");
+    
+    SmiLibIterator iterator = new FullCombinationIterator(new int[] {2, 1, 3}, 2, 3);
+    for (long i = 0; i <= iterator.getMaximum(); i++) {
+      SmiLibIterator chunk = iterator.getIterator(i);
+      for (long j = i; j < iterator.getMaximum(); j++) {
+        assertTrue("Combination not equal to getCombination(). i=" + i + " j=" + j, Arrays.equals(iterator.getCombination(j), chunk.next()));
+      }
+      assertFalse("Iterator not exhausted. i=" + i, chunk.hasNext());
+    }
+    assertTrue("State of iterator changed", Arrays.equals(iterator.getCombination(0), iterator.next()));
+    try {
+      iterator.getIterator(iterator.getMaximum() + 1);
+      fail("No IndexOutOfBoundsException was thrown for an index beyond the library size.");
+    } catch (IndexOutOfBoundsException e) {
+    }
+  }
+  
 }
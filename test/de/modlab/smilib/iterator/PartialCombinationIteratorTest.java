@@ -340,6 +340,50 @@ public class PartialCombinationIteratorTest extends TestCase {
     assertEquals(expected, iterator.getMaximum());
   }
 
+  /**
+   * Test of getCombination and getIndex methods, of class de.modlab.smilib.iterator.PartialCombinationIterator.
+   */
+  public void testGetCombination() throws Exception {
+    System.out.println("getCombination");
+    
+    PartialCombinationIterator iterator = new PartialCombinationIterator(TestConstants.twoThreeFourValidReactionScheme, TestConstants.twoThreeFourNumRGroups, TestConstants.twoThreeFourNumLinkers, TestConstants.twoThreeFourNumBuildingBlocks);
+    PartialCombinationIterator sequence = new PartialCombinationIterator(TestConstants.twoThreeFourValidReactionScheme, TestConstants.twoThreeFourNumRGroups, TestConstants.twoThreeFourNumLinkers, TestConstants.twoThreeFourNumBuildingBlocks);
+    
+    for (long i = 0; i < iterator.getMaximum(); i++) {
+      int[] combination = sequence.next();
+      assertTrue("Combination not equal to the one of next(). i=" + i, java.util.Arrays.equals(combination, iterator.getCombination(i)));
+      long index = iterator.getIndex(combination);
+      assertTrue("Index of first occurrence", index >= 0 && index <= i);
+      assertTrue("Combination at index", java.util.Arrays.equals(combination, iterator.getCombination(index)));
+    }
+    try {
+      iterator.getCombination(iterator.getMaximum());
+      fail("No IndexOutOfBoundsException was thrown for an index beyond the library size.");
+    } catch (IndexOutOfBoundsException e) {
+    }
+  }
+  
+  /**
+   * Test of getIterator method, of class de.modlab.smilib.iterator.PartialCombinationIterator.
+   */
+  public void testGetIterator() throws Exception {
+    System.out.println("getIterator");
+    
+    PartialCombinationIterator iterator = new PartialCombinationIterator(TestConstants.twoThreeFourValidReactionScheme, TestConstants.twoThreeFourNumRGroups, TestConstants.twoThreeFourNumLinkers, TestConstants.twoThreeFourNumBuildingBlocks);
+    for (long i = 0; i <= iterator.getMaximum(); i++) {
+      SmiLibIterator chunk = iterator.getIterator(i);
+      for (long j = i; j < iterator.getMaximum(); j++) {
+        assertTrue("Combination not equal to getCombination(). i=" + i + " j=" + j, java.util.Arrays.equals(iterator.getCombination(j), chunk.next()));
+      }
+      assertFalse("Iterator not exhausted. i=" + i, chunk.hasNext());
+    }
+    try {
+      iterator.getIterator(-1);
+      fail("No IndexOutOfBoundsException was thrown for a negative index.");
+    } catch (IndexOutOfBoundsException e) {
+    }
+  }
+
   public static void main(java.lang.String[] argList) {
     junit.textui.TestRunner.run(suite());
   }
@@ -0,0 +1,130 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.main;
+
+import de.modlab.smilib.exceptions.SmiLibIOException;
+import de.modlab.smilib.io.OutputSettings;
+import de.modlab.smilib.io.PartitionedSmilesWriter;
+import de.modlab.smilib.io.SmilesWriter;
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class EnumerationJobManager
+ */
+public class EnumerationJobManagerTest extends TestCase {
+    
+    public EnumerationJobManagerTest(String testName) {
+        super(testName);
+    }
+    
+    protected void tearDown() throws Exception {
+        File[] files = new File(".").listFiles();
+        for (int i = 0; i < files.length; i++) {
+            if (files[i].getName().startsWith("jobOut")) {
+                files[i].delete();
+            }
+        }
+    }
+    
+    /**
+     * Blocks in the first write until the thread is interrupted.
+     */
+    private static class BlockingWriter implements SmilesWriter {
+        CountDownLatch entered = new CountDownLatch(1);
+        public void writeSMILES(StringBuilder smiles, StringBuilder id) throws SmiLibIOException {
+            entered.countDown();
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException exc) {
+                throw new SmiLibIOException(exc);
+            }
+        }
+        public void close() {
+        }
+        public void showPreview(int i) {
+        }
+    }
+    
+    /**
+     * A job blocked in its writer stops within a second of being cancelled, a
+     * waiting job is not enumerated and leaves no library file.
+     */
+    public void testCancel() throws Exception {
+        EnumerationJobManager manager = new EnumerationJobManager(1);
+        BlockingWriter writer = new BlockingWriter();
+        EnumerationJob blocked = manager.submit(new SmiLibRunner(TestConstants.twoScaffoldsSmiles, TestConstants.threeLinkersSmiles, TestConstants.fourBuildingBlocksSmiles, null, true, writer));
+        EnumerationJob waiting = manager.submit(new SmiLibRunner(TestConstants.twoScaffolds, TestConstants.threeLinkers, TestConstants.fourBuildingBlocks, false, "./jobOut.smi", false, true, new OutputSettings()));
+        writer.entered.await();
+        assertEquals(2, manager.getJobs().size());
+        
+        assertTrue(waiting.cancel());
+        long start = System.currentTimeMillis();
+        assertTrue(blocked.cancel());
+        assertTrue(blocked.waitFor(1000));
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertTrue(waiting.waitFor(1000));
+        
+        assertTrue(blocked.isCancelled());
+        assertEquals(0, blocked.getProgress().getMolecules());
+        assertEquals(0, waiting.getProgress().getMolecules());
+        assertFalse(new File("./jobOut.smi").exists());
+        assertEquals(0, manager.getJobs().size());
+        assertFalse(blocked.cancel());
+        manager.shutdown();
+    }
+    
+    /**
+     * All partitions and the manifest of a library are deleted.
+     */
+    public void testDeleteOutput() throws Exception {
+        OutputSettings settings = new OutputSettings();
+        settings.setSplit(PartitionedSmilesWriter.SPLIT_BY_COUNT, 500);
+        SmiLibRunner runner = new SmiLibRunner(TestConstants.twoScaffolds, TestConstants.threeLinkers, TestConstants.fourBuildingBlocks, false, "./jobOut.smi", false, true, settings);
+        EnumerationJobManager manager = new EnumerationJobManager(1);
+        EnumerationJob job = manager.submit(runner);
+        job.waitFor();
+        assertFalse(job.isCancelled());
+        assertTrue(new File("./jobOut_00004.smi").exists());
+        assertTrue(new File("./jobOut.smi.manifest").exists());
+        
+        runner.deleteOutput();
+        assertFalse(new File("./jobOut_00001.smi").exists());
+        assertFalse(new File("./jobOut_00004.smi").exists());
+        assertFalse(new File("./jobOut.smi.manifest").exists());
+        manager.shutdown();
+    }
+}
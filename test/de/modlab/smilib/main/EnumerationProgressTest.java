@@ -0,0 +1,98 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.main;
+
+import java.text.DecimalFormat;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class EnumerationProgress
+ */
+public class EnumerationProgressTest extends TestCase {
+    
+    public EnumerationProgressTest(String testName) {
+        super(testName);
+    }
+    
+    /**
+     * Molecules counted by several threads are all included in the sample.
+     */
+    public void testSample() throws Exception {
+        final EnumerationProgress progress = new EnumerationProgress();
+        progress.start(4000);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < 500; j++) {
+                        progress.add(1, 10);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+        }
+        Thread.sleep(20);
+        progress.sample();
+        
+        assertEquals(2000, progress.getMolecules());
+        assertEquals(20000, progress.getBytes());
+        assertEquals(0.5, progress.getFraction(), 1e-9);
+        assertTrue(progress.getMoleculesPerSecond() > 0);
+        assertEquals(progress.getMoleculesPerSecond() * 10, progress.getBytesPerSecond(), 1e-6);
+        assertTrue(progress.getRemainingTime() >= 0);
+        assertTrue(progress.getUsedMemory() > 0);
+        DecimalFormat count = new DecimalFormat("###,###,###,##0");
+        assertTrue(progress.toString().startsWith(count.format(2000) + " of " + count.format(4000) + " molecules ("));
+        
+        progress.start(10);
+        assertEquals(0, progress.getMolecules());
+        progress.sample();
+        assertEquals(-1, progress.getRemainingTime());
+    }
+    
+    /**
+     * Time spans are rounded up to seconds.
+     */
+    public void testFormatTime() {
+        assertEquals("?", EnumerationProgress.formatTime(-1));
+        assertEquals("0:00:00", EnumerationProgress.formatTime(0));
+        assertEquals("0:00:01", EnumerationProgress.formatTime(1));
+        assertEquals("1:02:03", EnumerationProgress.formatTime(3723000));
+        assertEquals("27:46:40", EnumerationProgress.formatTime(100000000));
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.main;
+
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.FullCombinationIterator;
+import javax.vecmath.Point2d;
+import junit.framework.TestCase;
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.exception.InvalidSmilesException;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IMolecule;
+
+/**
+ * JUnit test of class MoleculeAssembler
+ */
+public class MoleculeAssemblerTest extends TestCase {
+    
+    public MoleculeAssemblerTest(String testName) {
+        super(testName);
+    }
+    
+    private static String describe(IMolecule molecule) {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < molecule.getAtomCount(); i++) {
+            IAtom atom = molecule.getAtomAt(i);
+            description.append(atom.getSymbol()).append(atom.getHydrogenCount()).append(atom.getFormalCharge())
+                    .append(atom.getHybridization()).append(atom.getFlag(CDKConstants.ISAROMATIC)).append(';');
+        }
+        IBond[] bonds = molecule.getBonds();
+        for (int i = 0; i < bonds.length; i++) {
+            description.append(molecule.getAtomNumber(bonds[i].getAtomAt(0))).append('-')
+                    .append(molecule.getAtomNumber(bonds[i].getAtomAt(1))).append(':')
+                    .append(bonds[i].getOrder()).append(bonds[i].getFlag(CDKConstants.ISAROMATIC)).append(';');
+        }
+        return description.toString();
+    }
+    
+    /**
+     * Each molecule of the library has the atoms and bonds, in the same order, as its parsed SMILES.
+     */
+    public void testAssemble() throws Exception {
+        ComponentAdministrator compAdmin = new ComponentAdministrator(TestConstants.twoScaffoldsSmiles, TestConstants.threeLinkersSmiles, TestConstants.fourBuildingBlocksSmiles, true);
+        FullCombinationIterator iterator = new FullCombinationIterator(compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks());
+        SmilesAssembler smilesAssembler = new SmilesAssembler(compAdmin);
+        MoleculeAssembler moleculeAssembler = new MoleculeAssembler(compAdmin);
+        SmilesParser parser = new SmilesParser();
+        StringBuilder smiles = new StringBuilder();
+        StringBuilder id = new StringBuilder();
+        int count = 0;
+        while (iterator.hasNext()) {
+            int[] combination = iterator.next();
+            smilesAssembler.assemble(combination, smiles, id);
+            IMolecule assembled = moleculeAssembler.assemble(combination);
+            assertEquals(id.toString(), describe(parser.parseSmiles(smiles.toString())), describe(assembled));
+            count++;
+        }
+        assertEquals(12 * 12 + 12 * 12 * 12, count);
+        
+        //molecules do not share atoms
+        int[] combination = {0, 2, 2, 0, 1};
+        IMolecule first = moleculeAssembler.assemble(combination);
+        IMolecule second = moleculeAssembler.assemble(combination);
+        assertTrue(first.getAtomAt(0) != second.getAtomAt(0));
+        assertEquals(describe(first), describe(second));
+    }
+    
+    /**
+     * Molecules assembled with the layouts of their fragments have coordinates,
+     * bonds of the same length and their scaffold at the same place.
+     */
+    public void testAssembleLayout() throws Exception {
+        ComponentAdministrator compAdmin = new ComponentAdministrator(TestConstants.twoScaffoldsSmiles, TestConstants.threeLinkersSmiles, TestConstants.fourBuildingBlocksSmiles, true);
+        FullCombinationIterator iterator = new FullCombinationIterator(compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks());
+        MoleculeAssembler plain = new MoleculeAssembler(compAdmin);
+        MoleculeAssembler laidOut = new MoleculeAssembler(compAdmin, true);
+        MoleculeAssembler withHydrogens = new MoleculeAssembler(compAdmin, true, true);
+        Point2d[] scaffoldAtoms = new Point2d[compAdmin.getNumberOfScaffolds()];
+        while (iterator.hasNext()) {
+            int[] combination = iterator.next();
+            IMolecule molecule = laidOut.assemble(combination);
+            assertEquals(describe(plain.assemble(combination)), describe(molecule));
+            IAtom[] atoms = molecule.getAtoms();
+            for (int i = 0; i < atoms.length; i++) {
+                assertNotNull(atoms[i].getPoint2d());
+            }
+            IBond[] bonds = molecule.getBonds();
+            for (int i = 0; i < bonds.length; i++) {
+                assertEquals(1.5, bonds[i].getAtomAt(0).getPoint2d().distance(bonds[i].getAtomAt(1).getPoint2d()), 0.01);
+            }
+            if (scaffoldAtoms[combination[0]] == null) {
+                scaffoldAtoms[combination[0]] = atoms[0].getPoint2d();
+            }
+            assertEquals(scaffoldAtoms[combination[0]], atoms[0].getPoint2d());
+            
+            //each atom has the coordinates of its hydrogens
+            atoms = withHydrogens.assemble(combination).getAtoms();
+            for (int i = 0; i < atoms.length; i++) {
+                Point2d[] hydrogens = (Point2d[]) atoms[i].getProperty(MoleculeAssembler.HYDROGEN_POSITIONS);
+                assertEquals(atoms[i].getHydrogenCount(), hydrogens.length);
+                for (int j = 0; j < hydrogens.length; j++) {
+                    assertTrue(atoms[i].getPoint2d().distance(hydrogens[j]) > 0.5);
+                }
+            }
+        }
+        
+        //a fragment of two parts is not laid out, nor are the molecules containing it
+        compAdmin = new ComponentAdministrator(new String[] {"c1ccccc1[R1]"}, new String[] {"[R][A]"}, new String[] {"[A]C", "[A]C.Cl"}, false);
+        laidOut = new MoleculeAssembler(compAdmin, true);
+        assertNotNull(laidOut.assemble(new int[] {0, 0, 0}).getAtomAt(0).getPoint2d());
+        IMolecule molecule = laidOut.assemble(new int[] {0, 0, 1});
+        assertEquals(8, molecule.getAtomCount());
+        assertNull(molecule.getAtomAt(0).getPoint2d());
+    }
+    
+    /**
+     * A fragment that cannot be parsed throws InvalidSmilesException.
+     */
+    public void testAssembleInvalid() throws Exception {
+        ComponentAdministrator compAdmin = new ComponentAdministrator(new String[] {"C[R1]"}, new String[] {"[R][A]"}, new String[] {"[A]Xx"}, false);
+        try {
+            new MoleculeAssembler(compAdmin).assemble(new int[] {0, 0, 0});
+            fail("InvalidSmilesException was not thrown.");
+        } catch (InvalidSmilesException e) {
+        }
+    }
+}
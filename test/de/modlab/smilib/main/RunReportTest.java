@@ -0,0 +1,141 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.main;
+
+import de.modlab.smilib.io.OutputSettings;
+import de.modlab.smilib.io.SmilesListWriter;
+import de.modlab.smilib.io.SmilesWriterFactory;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.StringWriter;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class RunReport
+ */
+public class RunReportTest extends TestCase {
+    
+    //the second line repeats one product of the first
+    private static final String[] reactionScheme = new String[] {
+        "1\t1-2\t1-2\t1\t1",
+        "1\t2-3\t2\t1\t1",
+        "2\t1\t1\t1\t1\t1\t1-4"
+    };
+    
+    public RunReportTest(String testName) {
+        super(testName);
+    }
+    
+    /**
+     * Products, duplicates and fragment usage are counted per scaffold and reaction scheme line.
+     */
+    public void testReactionScheme() throws Exception {
+        File file = File.createTempFile("report", ".json");
+        try {
+            SmilesListWriter writer = new SmilesListWriter();
+            SmiLibRunner runner = new SmiLibRunner(TestConstants.twoScaffoldsSmiles, TestConstants.threeLinkersSmiles,
+                    TestConstants.fourBuildingBlocksSmiles, reactionScheme, true, writer);
+            runner.setReportPath(file.getPath());
+            runner.run();
+            assertEquals(10, writer.getSmilesList().size());
+            assertEquals(1, runner.getReport().getDuplicates());
+            
+            String json = read(file);
+            assertTrue(json.startsWith("{"));
+            assertTrue(json.trim().endsWith("}"));
+            assertTrue(json.contains("\"molecules\": 10,"));
+            assertTrue(json.contains("\"maximum\": 10,"));
+            assertTrue(json.contains("\"duplicates\": 1,"));
+            assertTrue(json.contains("\"bytes\": " + runner.getProgress().getBytes() + ","));
+            assertTrue(json.contains("{\"line\": 1, \"scaffolds\": [1], \"products\": 4, \"duplicates\": 0,"));
+            assertTrue(json.contains("{\"line\": 2, \"scaffolds\": [1], \"products\": 2, \"duplicates\": 1,"));
+            assertTrue(json.contains("{\"line\": 3, \"scaffolds\": [2], \"products\": 4, \"duplicates\": 0,"));
+            assertTrue(json.contains("\"products\": 6, \"meanAssemblyNanos\""));
+            //linker 1 is used twice on each product of the first line, once on two of the second and three times on four of the third
+            assertTrue(json.contains("\"uses\": 20}"));
+            
+            int minimum = Integer.MAX_VALUE;
+            for (String[] molecule : writer.getSmilesList()) {
+                minimum = Math.min(minimum, molecule[1].length());
+            }
+            assertTrue(json.contains("\"minimum\": " + minimum + ","));
+        } finally {
+            file.delete();
+        }
+    }
+    
+    /**
+     * Writers that assemble the molecules themselves only report phases, rejects and throughput.
+     */
+    public void testParallelWrite() throws Exception {
+        File file = File.createTempFile("report", ".smi");
+        try {
+            OutputSettings settings = new OutputSettings();
+            settings.setParallelWrite(true);
+            settings.setThreads(2);
+            SmiLibRunner runner = new SmiLibRunner(TestConstants.twoScaffoldsSmiles, TestConstants.threeLinkersSmiles,
+                    TestConstants.fourBuildingBlocksSmiles, null, true, new SmilesWriterFactory(settings).createWriter(file.getPath(), false));
+            runner.setReportPath(file.getPath() + ".json");
+            runner.run();
+            
+            StringWriter out = new StringWriter();
+            runner.getReport().write(out);
+            String json = out.toString();
+            assertTrue(json.contains("\"molecules\": " + runner.getProgress().getMolecules() + ","));
+            assertTrue(json.contains("\"bytes\": " + file.length() + ","));
+            assertTrue(json.contains("\"enumeration\": "));
+            assertFalse(json.contains("\"scaffolds\""));
+            assertEquals(json, read(new File(file.getPath() + ".json")));
+        } finally {
+            file.delete();
+            new File(file.getPath() + ".json").delete();
+        }
+    }
+    
+    private static String read(File file) throws Exception {
+        StringBuilder content = new StringBuilder();
+        BufferedReader in = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                content.append(line).append(SmiLib.nl);
+            }
+        } finally {
+            in.close();
+        }
+        return content.toString();
+    }
+}
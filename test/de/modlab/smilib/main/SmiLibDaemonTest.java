@@ -0,0 +1,151 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.main;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class SmiLibDaemon
+ */
+public class SmiLibDaemonTest extends TestCase {
+    
+    public SmiLibDaemonTest(String testName) {
+        super(testName);
+    }
+    
+    /**
+     * Commands print the same as SmiLib itself and read their files only once.
+     */
+    public void testRun() throws Exception {
+        SmiLibDaemon daemon = new SmiLibDaemon(SmiLibDaemon.DEFAULT_CACHE_CAPACITY);
+        daemon.start(0, 2);
+        try {
+            String[] args = {"-s", TestConstants.twoScaffolds, "-l", TestConstants.threeLinkers, "-b", TestConstants.fourBuildingBlocks};
+            for (int i = 0; i < 2; i++) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ByteArrayOutputStream err = new ByteArrayOutputStream();
+                assertEquals(0, SmiLibClient.run(daemon.getPort(), args, out, err));
+                String[] lines = out.toString().split(TestConstants.nl);
+                assertEquals(12 * 12 + 12 * 12 * 12, lines.length);
+                assertEquals(0, err.size());
+            }
+            assertEquals(1, daemon.getFragmentCache().getMisses());
+            assertEquals(1, daemon.getFragmentCache().getHits());
+            
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            assertEquals(0, SmiLibClient.run(daemon.getPort(), new String[] {"-s", "missing.txt", "-l", TestConstants.threeLinkers, "-b", TestConstants.fourBuildingBlocks}, out, err));
+            assertEquals(0, out.size());
+            assertTrue(err.toString().indexOf("An error occured. Program halted.") >= 0);
+            
+            //the daemon does not open windows
+            err.reset();
+            SmiLibClient.run(daemon.getPort(), new String[] {"-u"}, out, err);
+            assertTrue(err.size() > 0);
+        } finally {
+            daemon.stop();
+        }
+    }
+    
+    /**
+     * Connections without the token of the token file are closed without running their command.
+     */
+    public void testToken() throws Exception {
+        SmiLibDaemon daemon = new SmiLibDaemon(SmiLibDaemon.DEFAULT_CACHE_CAPACITY);
+        daemon.start(0, 1);
+        File tokenFile = SmiLibDaemon.getTokenFile(daemon.getPort());
+        try {
+            assertTrue(tokenFile.exists());
+            
+            Socket socket = new Socket(InetAddress.getByName(null), daemon.getPort());
+            try {
+                DataOutputStream request = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                request.writeUTF("wrong token");
+                request.writeUTF(System.getProperty("user.dir"));
+                request.writeInt(1);
+                request.writeUTF("-h");
+                request.flush();
+                assertEquals(-1, socket.getInputStream().read());
+            } finally {
+                socket.close();
+            }
+            
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertEquals(0, SmiLibClient.run(daemon.getPort(), new String[] {"-h"}, out, new ByteArrayOutputStream()));
+            assertTrue(out.size() > 0);
+        } finally {
+            daemon.stop();
+        }
+        assertFalse(tokenFile.exists());
+    }
+    
+    /**
+     * A failed command prints its message to the client and its stack trace to the daemon.
+     */
+    public void testReportFailure() {
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+        ByteArrayOutputStream daemon = new ByteArrayOutputStream();
+        SmiLibDaemon.reportFailure(new IllegalStateException("broken"), new PrintStream(client, true), new PrintStream(daemon, true));
+        assertEquals("broken" + TestConstants.nl + "An error occured. Program halted." + TestConstants.nl, client.toString());
+        assertTrue(daemon.toString().indexOf("java.lang.IllegalStateException: broken") >= 0);
+        assertTrue(daemon.toString().indexOf("at de.modlab.smilib.main.SmiLibDaemonTest") >= 0);
+        
+        //the message of an OutOfMemoryError is printed by the enumeration
+        client.reset();
+        SmiLibDaemon.reportFailure(new OutOfMemoryError(), new PrintStream(client, true), new PrintStream(daemon, true));
+        assertEquals(0, client.size());
+    }
+    
+    /**
+     * Relative file names of options are resolved against the working directory of the client.
+     */
+    public void testResolvePaths() {
+        String dir = new File("work").getAbsolutePath();
+        String absolute = new File("abs.smi").getAbsolutePath();
+        String[] resolved = SmiLibDaemon.resolvePaths(dir, new String[] {
+                "-s", "s.smi", "--linkers", absolute, "-bb.smi", "--savetofile=lib.smi", "--threads", "4", "--id", "x.smi", "-y"});
+        assertEquals(Arrays.asList(
+                "-s", new File(dir, "s.smi").getPath(), "--linkers", absolute, "-b" + new File(dir, "b.smi").getPath(),
+                "--savetofile=" + new File(dir, "lib.smi").getPath(), "--threads", "4", "--id", "x.smi", "-y"), Arrays.asList(resolved));
+    }
+}
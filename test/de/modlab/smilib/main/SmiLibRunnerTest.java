@@ -41,6 +41,8 @@
 
 package de.modlab.smilib.main;
 
+import de.modlab.smilib.fragments.FragmentCache;
+import de.modlab.smilib.io.OutputSettings;
 import de.modlab.smilib.io.SmilesListWriter;
 import java.io.File;
 import java.io.IOException;
@@ -265,4 +267,19 @@ public class SmiLibRunnerTest extends TestCase {
     System.out.println("Test not yet implemented.");
   }
   
+  /**
+   * A runner with a fragment cache keeps an OutOfMemoryError instead of exiting the JVM.
+   */
+  public void testHandleOutOfMemoryError() {
+    System.out.println("handleException OutOfMemoryError");
+    
+    SmiLibRunner instance = new SmiLibRunner(TestConstants.twoScaffolds, TestConstants.threeLinkers, TestConstants.fourBuildingBlocks, false, "./out.txt", false, true,
+            new OutputSettings(), new FragmentCache(1), false);
+    assertNull(instance.getOutOfMemoryError());
+    OutOfMemoryError error = new OutOfMemoryError();
+    instance.handleException(error);
+    assertSame(error, instance.getOutOfMemoryError());
+    instance.deleteOutput();
+  }
+  
 }
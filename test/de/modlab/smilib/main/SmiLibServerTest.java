@@ -0,0 +1,178 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.main;
+
+import de.modlab.smilib.fragments.ComponentAdministrator;
+import de.modlab.smilib.iterator.FullCombinationIterator;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class SmiLibServer
+ */
+public class SmiLibServerTest extends TestCase {
+    
+    private SmiLibServer server;
+    
+    private List<String> library;
+    
+    public SmiLibServerTest(String testName) {
+        super(testName);
+    }
+    
+    protected void setUp() throws Exception {
+        ComponentAdministrator compAdmin = new ComponentAdministrator(TestConstants.twoScaffoldsSmiles, TestConstants.threeLinkersSmiles, TestConstants.fourBuildingBlocksSmiles, true);
+        FullCombinationIterator iterator = new FullCombinationIterator(compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks());
+        server = new SmiLibServer(compAdmin, iterator);
+        server.start(0, 2);
+        
+        library = new ArrayList<String>();
+        SmilesAssembler assembler = new SmilesAssembler(compAdmin);
+        StringBuilder smiles = new StringBuilder();
+        StringBuilder id = new StringBuilder();
+        iterator = new FullCombinationIterator(compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks());
+        while (iterator.hasNext()) {
+            assembler.assemble(iterator.next(), smiles, id);
+            library.add(id + "\t" + smiles);
+        }
+    }
+    
+    protected void tearDown() throws Exception {
+        server.stop();
+    }
+    
+    /**
+     * Returns the status and the lines of the response body.
+     */
+    private List<String> get(String request) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + request).openConnection();
+        List<String> lines = new ArrayList<String>();
+        lines.add(String.valueOf(connection.getResponseCode()));
+        BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getResponseCode() == 200 ? connection.getInputStream() : connection.getErrorStream(), "UTF-8"));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line);
+        }
+        reader.close();
+        return lines;
+    }
+    
+    /**
+     * Ranges, IDs and the count match the enumerated library.
+     */
+    public void testProducts() throws Exception {
+        List<String> response = get("/count");
+        assertEquals("200", response.get(0));
+        assertEquals(String.valueOf(library.size()), response.get(1));
+        
+        response = get("/products");
+        assertEquals("200", response.get(0));
+        assertEquals(library, response.subList(1, response.size()));
+        
+        response = get("/products?first=10&last=12");
+        assertEquals(library.subList(10, 13), response.subList(1, response.size()));
+        assertEquals("404", get("/products?first=0&last=" + library.size()).get(0));
+        assertEquals("400", get("/products?first=x").get(0));
+        
+        String line = library.get(1000);
+        response = get("/product?id=" + URLEncoder.encode(line.substring(0, line.indexOf('\t')), "UTF-8"));
+        assertEquals("200", response.get(0));
+        assertEquals(line, response.get(1));
+        assertEquals("404", get("/product?id=unknown").get(0));
+        assertEquals("400", get("/product").get(0));
+    }
+    
+    /**
+     * Samples are distinct molecules of the library in library order and repeated with the same seed.
+     */
+    public void testSample() throws Exception {
+        List<String> response = get("/sample?size=50&seed=7");
+        assertEquals("200", response.get(0));
+        assertEquals(51, response.size());
+        int previous = -1;
+        for (String line : response.subList(1, response.size())) {
+            int index = library.indexOf(line);
+            assertTrue(index > previous);
+            previous = index;
+        }
+        assertEquals(response, get("/sample?size=50&seed=7"));
+        assertEquals(library.size() + 1, get("/sample?size=" + library.size()).size());
+        assertEquals("400", get("/sample?size=" + (library.size() + 1)).get(0));
+        
+        //both sampling methods return distinct indices below the maximum
+        long[] indices = SmiLibServer.sample(1000000, 100, new Random(1));
+        assertEquals(100, indices.length);
+        for (int i = 1; i < indices.length; i++) {
+            assertTrue(indices[i] > indices[i - 1]);
+        }
+        assertTrue(indices[99] < 1000000);
+        indices = SmiLibServer.sample(100, 100, new Random(1));
+        for (int i = 0; i < indices.length; i++) {
+            assertEquals(i, indices[i]);
+        }
+    }
+    
+    /**
+     * Samples above the limit are rejected, unexpected failures are answered with status 500.
+     */
+    public void testFailures() throws Exception {
+        ComponentAdministrator compAdmin = new ComponentAdministrator(TestConstants.twoScaffoldsSmiles, TestConstants.threeLinkersSmiles, TestConstants.fourBuildingBlocksSmiles, true);
+        FullCombinationIterator iterator = new FullCombinationIterator(compAdmin.getNumbersOfRGroups(), compAdmin.getNumberOfLinkers(), compAdmin.getNumberOfBuildingBlocks()) {
+            public long getMaximum() {
+                return Long.MAX_VALUE / 2;
+            }
+            public long getIndex(int[] combination) {
+                throw new IllegalStateException("broken iterator");
+            }
+        };
+        server.stop();
+        server = new SmiLibServer(compAdmin, iterator);
+        server.start(0, 2);
+        
+        List<String> response = get("/sample?size=" + (SmiLibServer.MAX_SAMPLE_SIZE + 1));
+        assertEquals("400", response.get(0));
+        assertTrue(response.get(1).contains(String.valueOf(SmiLibServer.MAX_SAMPLE_SIZE)));
+        response = get("/product?id=" + URLEncoder.encode(library.get(0).split("\t")[0], "UTF-8"));
+        assertEquals("500", response.get(0));
+        assertTrue(response.get(1).contains("broken iterator"));
+    }
+}
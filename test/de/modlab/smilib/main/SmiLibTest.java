@@ -606,6 +606,45 @@ public class SmiLibTest extends TestCase {
         }
     }
 
+    /**
+     * Test of createOptions method, of class de.modlab.smilib.main.SmiLib:
+     * command lines parsed at the same time, as by the daemon, keep their options.
+     */
+    public void testCreateOptionsConcurrently() throws Exception {
+        System.out.println("createOptions concurrently");
+        
+        final int threads = 8;
+        final int parses = 500;
+        final List<String> errors = java.util.Collections.synchronizedList(new java.util.ArrayList<String>());
+        Thread[] parsers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final String id = String.valueOf(t);
+            parsers[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < parses; i++) {
+                        try {
+                            org.apache.commons.cli.CommandLine line = new org.apache.commons.cli.PosixParser().parse(SmiLib.createOptions(),
+                                    new String[] {"-s", "s" + id, "-l", "l" + id, "-b", "b" + id, "-r", "r" + id, "-f", "f" + id, "--threads", id});
+                            if (!("r" + id).equals(line.getOptionValue("r")) || !("f" + id).equals(line.getOptionValue("f"))
+                                    || !id.equals(line.getOptionValue("threads")) || !("b" + id).equals(line.getOptionValue("b"))) {
+                                errors.add("Options of thread " + id + " lost or mixed up");
+                            }
+                        } catch (Exception e) {
+                            errors.add(e.toString());
+                        }
+                    }
+                }
+            };
+        }
+        for (int t = 0; t < threads; t++) {
+            parsers[t].start();
+        }
+        for (int t = 0; t < threads; t++) {
+            parsers[t].join();
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+    }
+
   public static void main(java.lang.String[] argList) {
     junit.textui.TestRunner.run(suite());
   }
@@ -0,0 +1,137 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.main;
+
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.exception.InvalidSmilesException;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IMolecule;
+
+/**
+ * JUnit test of class SmilesParser
+ */
+public class SmilesParserTest extends TestCase {
+    
+    private static final String[] smiles = {
+        "c1ccccc1", "OC(=O)c1ccc(cc1)[N+](=O)[O-]", "C=1CCCCC=1", "C%99CC%99",
+        "[13CH3]C#N", "c1ccc2ccccc2c1", "CC(C(C(C(C)C)C)C)C", "[nH]1cccc1"
+    };
+    
+    public SmilesParserTest(String testName) {
+        super(testName);
+    }
+    
+    private static String describe(IMolecule molecule) {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < molecule.getAtomCount(); i++) {
+            IAtom atom = molecule.getAtomAt(i);
+            description.append(atom.getSymbol()).append(atom.getHydrogenCount()).append(atom.getFormalCharge())
+                    .append(atom.getFlag(CDKConstants.ISAROMATIC)).append(';');
+        }
+        IBond[] bonds = molecule.getBonds();
+        for (int i = 0; i < bonds.length; i++) {
+            description.append(molecule.getAtomNumber(bonds[i].getAtomAt(0))).append('-')
+                    .append(molecule.getAtomNumber(bonds[i].getAtomAt(1))).append(':')
+                    .append(bonds[i].getOrder()).append(';');
+        }
+        return description.toString();
+    }
+    
+    /**
+     * Branches restore the bond order and rings close with the given order.
+     */
+    public void testParseSmiles() throws Exception {
+        SmilesParser parser = new SmilesParser();
+        IMolecule molecule = parser.parseSmiles("C(=O)(O)C1CC=1C");
+        assertEquals(7, molecule.getAtomCount());
+        assertEquals(CDKConstants.BONDORDER_DOUBLE, molecule.getBond(molecule.getAtomAt(0), molecule.getAtomAt(1)).getOrder(), 0);
+        assertEquals(CDKConstants.BONDORDER_SINGLE, molecule.getBond(molecule.getAtomAt(0), molecule.getAtomAt(2)).getOrder(), 0);
+        assertEquals(CDKConstants.BONDORDER_DOUBLE, molecule.getBond(molecule.getAtomAt(3), molecule.getAtomAt(5)).getOrder(), 0);
+        assertTrue(parser.parseSmiles("c1ccccc1").getAtomAt(0).getFlag(CDKConstants.ISAROMATIC));
+        
+        String[] invalid = {"(C)C", "CC)C", "C%1", "Xx"};
+        for (int i = 0; i < invalid.length; i++) {
+            try {
+                parser.parseSmiles(invalid[i]);
+                fail("InvalidSmilesException was not thrown for " + invalid[i]);
+            } catch (InvalidSmilesException e) {
+            }
+        }
+    }
+    
+    /**
+     * One instance shared by several threads gives the same molecules as serial calls.
+     */
+    public void testParseSmilesShared() throws Exception {
+        final SmilesParser parser = new SmilesParser();
+        final String[] expected = new String[smiles.length];
+        for (int i = 0; i < smiles.length; i++) {
+            expected[i] = describe(parser.parseSmiles(smiles[i]));
+        }
+        final List<String> failures = new ArrayList<String>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        for (int round = 0; round < 50; round++) {
+                            for (int i = 0; i < smiles.length; i++) {
+                                String description = describe(parser.parseSmiles(smiles[i]));
+                                if (!description.equals(expected[i])) {
+                                    synchronized (failures) {
+                                        failures.add(smiles[i]);
+                                    }
+                                }
+                            }
+                        }
+                    } catch (InvalidSmilesException e) {
+                        synchronized (failures) {
+                            failures.add(e.getMessage());
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+    }
+}
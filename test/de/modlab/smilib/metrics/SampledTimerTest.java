@@ -0,0 +1,95 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.metrics;
+
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class SampledTimer
+ */
+public class SampledTimerTest extends TestCase {
+    
+    public SampledTimerTest(String testName) {
+        super(testName);
+    }
+    
+    /**
+     * Every n-th call is timed and stands for n calls.
+     */
+    public void testSampling() throws Exception {
+        SampledTimer timer = new SampledTimer(4);
+        int sampled = 0;
+        for (int call = 0; call < 10; call++) {
+            long start = timer.start(call);
+            if (start != SampledTimer.NOT_SAMPLED) {
+                sampled++;
+                Thread.sleep(2);
+            }
+            timer.stop(start);
+        }
+        assertEquals(3, sampled);
+        assertEquals(3, timer.getSamples());
+        assertEquals(12, timer.getCount());
+        assertTrue(timer.getMeanTime() >= 2000000);
+        assertTrue(timer.getTotalTime() >= 4 * 3 * 2000000L);
+        
+        timer.reset();
+        assertEquals(0, timer.getCount());
+        assertEquals(0, timer.getMeanTime());
+    }
+    
+    /**
+     * Intervals that are no power of two, and timing every call.
+     */
+    public void testInterval() {
+        SampledTimer timer = new SampledTimer(3);
+        assertTrue(timer.start(6) != SampledTimer.NOT_SAMPLED);
+        assertEquals(SampledTimer.NOT_SAMPLED, timer.start(7));
+        
+        timer = new SampledTimer(1);
+        for (int call = 0; call < 5; call++) {
+            timer.stop(timer.start(call));
+        }
+        timer.record(100);
+        assertEquals(6, timer.getCount());
+        assertEquals(1, timer.getInterval());
+        
+        try {
+            new SampledTimer(0);
+            fail("Interval 0 accepted");
+        } catch (IllegalArgumentException exc) {
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * SmiLib - Rapid Assembly of Combinatorial Libraries in SMILES Notation
+ *
+ * Copyright (c) 2006, Johann Wolfgang Goethe-Universitaet, Frankfurt am Main, 
+ * Germany. All rights reserved.
+ *
+ * Authors: Volker Haehnke, Andreas Schueller 
+ * Contact: a.schueller@chemie.uni-frankfurt.de
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, 
+ * are permitted provided that the following conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Johann Wolfgang Goethe-Universitaet, Frankfurt am
+ *   Main, Germany nor the names of its contributors may be used to endorse or
+ *   promote products derived from this software without specific prior written
+ *   permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND 
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED 
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE 
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR 
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES 
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package de.modlab.smilib.metrics;
+
+import de.modlab.smilib.io.OutputSettings;
+import de.modlab.smilib.io.SmilesListWriter;
+import de.modlab.smilib.io.SmilesWriterFactory;
+import de.modlab.smilib.main.SmiLibRunner;
+import de.modlab.smilib.main.TestConstants;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import junit.framework.TestCase;
+
+/**
+ * JUnit test of class SmiLibMetrics
+ */
+public class SmiLibMetricsTest extends TestCase {
+    
+    private MetricsRegistry previous;
+    private SmiLibMetrics metrics;
+    
+    public SmiLibMetricsTest(String testName) {
+        super(testName);
+    }
+    
+    protected void setUp() {
+        previous = SmiLibMetrics.getRegistry();
+        metrics = new SmiLibMetrics();
+        SmiLibMetrics.setRegistry(metrics);
+    }
+    
+    protected void tearDown() {
+        SmiLibMetrics.setRegistry(previous);
+    }
+    
+    /**
+     * An enumeration reports the stages it passes and the molecules and bytes written.
+     */
+    public void testEnumeration() {
+        SmilesListWriter writer = new SmilesListWriter();
+        SmiLibRunner runner = new SmiLibRunner(TestConstants.twoScaffoldsSmiles, TestConstants.threeLinkersSmiles,
+                TestConstants.fourBuildingBlocksSmiles, null, true, writer);
+        runner.run();
+        
+        long molecules = writer.getSmilesList().size();
+        assertTrue(molecules > 0);
+        assertEquals(molecules, metrics.getCounter(SmiLibMetrics.PRODUCTS_EMITTED).get());
+        assertEquals(runner.getProgress().getBytes(), metrics.getCounter(SmiLibMetrics.WRITER_BYTES).get());
+        assertEquals(1, metrics.getTimer(SmiLibMetrics.LOADING, 1).getCount());
+        String[] stages = {SmiLibMetrics.CHECKING, SmiLibMetrics.PREPROCESSING, SmiLibMetrics.ITERATION, SmiLibMetrics.ASSEMBLY, SmiLibMetrics.WRITING};
+        for (int i = 0; i < stages.length; i++) {
+            assertTrue(stages[i], metrics.getValues().get(stages[i] + "Count").longValue() > 0);
+        }
+    }
+    
+    /**
+     * Molecules written in parallel are counted, and no chunks are left in the queue.
+     */
+    public void testParallelWrite() throws Exception {
+        File file = File.createTempFile("metrics", ".smi");
+        try {
+            OutputSettings settings = new OutputSettings();
+            settings.setParallelWrite(true);
+            settings.setThreads(2);
+            SmiLibRunner runner = new SmiLibRunner(TestConstants.twoScaffoldsSmiles, TestConstants.threeLinkersSmiles,
+                    TestConstants.fourBuildingBlocksSmiles, null, true, new SmilesWriterFactory(settings).createWriter(file.getPath(), false));
+            runner.run();
+            
+            assertTrue(runner.getProgress().getMolecules() > 0);
+            assertEquals(runner.getProgress().getMolecules(), metrics.getCounter(SmiLibMetrics.PRODUCTS_EMITTED).get());
+            assertEquals(file.length(), metrics.getCounter(SmiLibMetrics.WRITER_BYTES).get());
+            assertEquals(0, metrics.getCounter(SmiLibMetrics.CHUNK_QUEUE).get());
+            assertTrue(metrics.getTimer(SmiLibMetrics.CHUNK_WRITING, 1).getCount() > 0);
+        } finally {
+            file.delete();
+        }
+    }
+    
+    /**
+     * Counters and timers are published as attributes of an MBean.
+     */
+    public void testMBean() throws Exception {
+        metrics.getCounter(SmiLibMetrics.PRODUCTS_REJECTED).add(3);
+        metrics.getTimer(SmiLibMetrics.SDF_CONVERSION, 1).record(500);
+        assertSame(metrics.getCounter(SmiLibMetrics.PRODUCTS_REJECTED), metrics.getCounter(SmiLibMetrics.PRODUCTS_REJECTED));
+        
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(SmiLibMetrics.OBJECT_NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        assertTrue(SmiLibMetrics.registerMBean());
+        try {
+            assertEquals(Long.valueOf(3), server.getAttribute(name, SmiLibMetrics.PRODUCTS_REJECTED));
+            assertEquals(Long.valueOf(500), server.getAttribute(name, SmiLibMetrics.SDF_CONVERSION + "MeanTime"));
+            assertEquals(Long.valueOf(1), server.getAttribute(name, SmiLibMetrics.SDF_CONVERSION + "Count"));
+            server.invoke(name, "reset", null, null);
+            assertEquals(Long.valueOf(0), server.getAttribute(name, SmiLibMetrics.PRODUCTS_REJECTED));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}